@@ -0,0 +1,94 @@
+package io.strimzi.controller.cluster;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade over {@link K8SUtils}.
+ * The blocking Kubernetes calls are executed on the shared {@code kubernetes-ops-pool} worker executor,
+ * so that they never block the event loop, and their results are returned as {@link Future}s
+ * which complete on the calling context.
+ */
+public class AsyncK8SUtils {
+
+    public static final String WORKER_POOL_NAME = "kubernetes-ops-pool";
+
+    private final K8SUtils k8s;
+    private final WorkerExecutor executor;
+
+    public AsyncK8SUtils(Vertx vertx, K8SUtils k8s) {
+        this.k8s = k8s;
+        this.executor = vertx.createSharedWorkerExecutor(WORKER_POOL_NAME);
+    }
+
+    public K8SUtils getK8SUtils() {
+        return k8s;
+    }
+
+    /**
+     * Executes the given function, which may make any number of blocking calls with the given
+     * {@code K8SUtils}, on the worker pool.
+     *
+     * @param fn    Function to execute
+     * @return  Future which completes with the result of the function, or fails with the exception it threw
+     */
+    public <T> Future<T> execute(Function<K8SUtils, T> fn) {
+        Future<T> result = Future.future();
+        executor.<T>executeBlocking(
+                future -> {
+                    try {
+                        future.complete(fn.apply(k8s));
+                    }
+                    catch (Exception e) {
+                        future.fail(e);
+                    }
+                },
+                false,
+                result.completer());
+        return result;
+    }
+
+    public Future<Boolean> isOpenShift() {
+        return execute(K8SUtils::isOpenShift);
+    }
+
+    /*
+      GET methods
+     */
+    public Future<StatefulSet> getStatefulSet(String namespace, String name) {
+        return execute(k -> k.getStatefulSet(namespace, name));
+    }
+
+    public Future<List<StatefulSet>> getStatefulSets(String namespace, Map<String, String> labels) {
+        return execute(k -> k.getStatefulSets(namespace, labels));
+    }
+
+    public Future<Deployment> getDeployment(String namespace, String name) {
+        return execute(k -> k.getDeployment(namespace, name));
+    }
+
+    public Future<List<Deployment>> getDeployments(String namespace, Map<String, String> labels) {
+        return execute(k -> k.getDeployments(namespace, labels));
+    }
+
+    public Future<Service> getService(String namespace, String name) {
+        return execute(k -> k.getService(namespace, name));
+    }
+
+    public Future<ConfigMap> getConfigmap(String namespace, String name) {
+        return execute(k -> k.getConfigmap(namespace, name));
+    }
+
+    public Future<List<ConfigMap>> getConfigmaps(String namespace, Map<String, String> labels) {
+        return execute(k -> k.getConfigmaps(namespace, labels));
+    }
+}
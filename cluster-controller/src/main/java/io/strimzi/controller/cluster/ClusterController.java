@@ -43,8 +43,12 @@ public class ClusterController extends AbstractVerticle {
     private static final int HEALTH_SERVER_PORT = 8080;
 
     private final K8SUtils k8s;
+    private AsyncK8SUtils asyncK8s;
     private final Map<String, String> labels;
     private final String namespace;
+    private final int maxConcurrentOperations;
+    private final boolean leadershipAwareRollingUpdate;
+    private final boolean preferredLeaderElection;
 
     private Watch configMapWatch;
 
@@ -57,6 +61,9 @@ public class ClusterController extends AbstractVerticle {
 
         this.namespace = config.getNamespace();
         this.labels = config.getLabels();
+        this.maxConcurrentOperations = config.getMaxConcurrentOperations();
+        this.leadershipAwareRollingUpdate = ClusterControllerConfig.ROLLING_UPDATE_STRATEGY_LEADERSHIP_AWARE.equals(config.getKafkaRollingUpdateStrategy());
+        this.preferredLeaderElection = config.isKafkaPreferredLeaderElection();
         this.k8s = new K8SUtils(new DefaultKubernetesClient());
     }
 
@@ -65,8 +72,10 @@ public class ClusterController extends AbstractVerticle {
         log.info("Starting ClusterController");
 
         // Configure the executor here, but it is used only in other places
-        getVertx().createSharedWorkerExecutor("kubernetes-ops-pool", 5, TimeUnit.SECONDS.toNanos(120));
+        getVertx().createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME, 5, TimeUnit.SECONDS.toNanos(120));
+        this.asyncK8s = new AsyncK8SUtils(vertx, k8s);
         this.opExec = OperationExecutor.getInstance(vertx, k8s);
+        this.opExec.setMaxConcurrentOperations(maxConcurrentOperations);
 
         createConfigMapWatch(res -> {
             if (res.succeeded())    {
@@ -80,7 +89,7 @@ public class ClusterController extends AbstractVerticle {
 
                 log.info("ClusterController up and running");
 
-                // start the HTTP server for healthchecks
+                // start the HTTP server for healthchecks and metrics
                 this.startHealthServer();
 
                 start.complete();
@@ -216,19 +225,29 @@ public class ClusterController extends AbstractVerticle {
         Map<String, String> kafkaLabels = new HashMap(labels);
         kafkaLabels.put(ClusterController.STRIMZI_TYPE_LABEL, KafkaCluster.TYPE);
 
-        List<ConfigMap> cms = k8s.getConfigmaps(namespace, kafkaLabels);
-        List<StatefulSet> sss = k8s.getStatefulSets(namespace, kafkaLabels);
+        Future<List<ConfigMap>> futureCms = asyncK8s.getConfigmaps(namespace, kafkaLabels);
+        Future<List<StatefulSet>> futureSss = asyncK8s.getStatefulSets(namespace, kafkaLabels);
 
-        List<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toList());
-        List<String> sssNames = sss.stream().map(cm -> cm.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL)).collect(Collectors.toList());
+        CompositeFuture.join(futureCms, futureSss).setHandler(ar -> {
+            if (ar.failed()) {
+                log.error("Failed to list resources for reconciliation of Kafka clusters", ar.cause());
+                return;
+            }
+
+            List<ConfigMap> cms = futureCms.result();
+            List<StatefulSet> sss = futureSss.result();
 
-        List<ConfigMap> addList = cms.stream().filter(cm -> !sssNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
-        List<ConfigMap> updateList = cms.stream().filter(cm -> sssNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
-        List<StatefulSet> deletionList = sss.stream().filter(ss -> !cmsNames.contains(ss.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL))).collect(Collectors.toList());
+            List<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toList());
+            List<String> sssNames = sss.stream().map(cm -> cm.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL)).collect(Collectors.toList());
 
-        addKafkaClusters(addList);
-        deleteKafkaClusters(deletionList);
-        updateKafkaClusters(updateList);
+            List<ConfigMap> addList = cms.stream().filter(cm -> !sssNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
+            List<ConfigMap> updateList = cms.stream().filter(cm -> sssNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
+            List<StatefulSet> deletionList = sss.stream().filter(ss -> !cmsNames.contains(ss.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL))).collect(Collectors.toList());
+
+            addKafkaClusters(addList);
+            deleteKafkaClusters(deletionList);
+            updateKafkaClusters(updateList);
+        });
     }
 
     private void addKafkaClusters(List<ConfigMap> add)   {
@@ -258,19 +277,29 @@ public class ClusterController extends AbstractVerticle {
         Map<String, String> kafkaLabels = new HashMap(labels);
         kafkaLabels.put(ClusterController.STRIMZI_TYPE_LABEL, KafkaConnectCluster.TYPE);
 
-        List<ConfigMap> cms = k8s.getConfigmaps(namespace, kafkaLabels);
-        List<Deployment> deps = k8s.getDeployments(namespace, kafkaLabels);
+        Future<List<ConfigMap>> futureCms = asyncK8s.getConfigmaps(namespace, kafkaLabels);
+        Future<List<Deployment>> futureDeps = asyncK8s.getDeployments(namespace, kafkaLabels);
 
-        List<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toList());
-        List<String> depsNames = deps.stream().map(cm -> cm.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL)).collect(Collectors.toList());
+        CompositeFuture.join(futureCms, futureDeps).setHandler(ar -> {
+            if (ar.failed()) {
+                log.error("Failed to list resources for reconciliation of Kafka Connect clusters", ar.cause());
+                return;
+            }
+
+            List<ConfigMap> cms = futureCms.result();
+            List<Deployment> deps = futureDeps.result();
 
-        List<ConfigMap> addList = cms.stream().filter(cm -> !depsNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
-        List<ConfigMap> updateList = cms.stream().filter(cm -> depsNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
-        List<Deployment> deletionList = deps.stream().filter(dep -> !cmsNames.contains(dep.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL))).collect(Collectors.toList());
+            List<String> cmsNames = cms.stream().map(cm -> cm.getMetadata().getName()).collect(Collectors.toList());
+            List<String> depsNames = deps.stream().map(cm -> cm.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL)).collect(Collectors.toList());
 
-        addKafkaConnectClusters(addList);
-        deleteConnectConnectClusters(deletionList);
-        updateKafkaConnectClusters(updateList);
+            List<ConfigMap> addList = cms.stream().filter(cm -> !depsNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
+            List<ConfigMap> updateList = cms.stream().filter(cm -> depsNames.contains(cm.getMetadata().getName())).collect(Collectors.toList());
+            List<Deployment> deletionList = deps.stream().filter(dep -> !cmsNames.contains(dep.getMetadata().getLabels().get(ClusterController.STRIMZI_CLUSTER_LABEL))).collect(Collectors.toList());
+
+            addKafkaConnectClusters(addList);
+            deleteConnectConnectClusters(deletionList);
+            updateKafkaConnectClusters(updateList);
+        });
     }
 
     private void addKafkaConnectClusters(List<ConfigMap> add)   {
@@ -331,7 +360,7 @@ public class ClusterController extends AbstractVerticle {
                 log.error("Failed to update Zookeeper cluster {}.", name);
             }
 
-            opExec.execute(new UpdateKafkaClusterOperation(namespace, name), res2 -> {
+            opExec.execute(new UpdateKafkaClusterOperation(namespace, name, leadershipAwareRollingUpdate, preferredLeaderElection), res2 -> {
                 if (res2.succeeded()) {
                     log.info("Kafka cluster updated {}", name);
                 }
@@ -439,6 +468,11 @@ public class ClusterController extends AbstractVerticle {
                         request.response().setStatusCode(HttpResponseStatus.OK.code()).end();
                     } else if (request.path().equals("/ready")) {
                         request.response().setStatusCode(HttpResponseStatus.OK.code()).end();
+                    } else if (request.path().equals("/metrics")) {
+                        request.response()
+                                .setStatusCode(HttpResponseStatus.OK.code())
+                                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                                .end(opExec.metrics());
                     }
                 })
                 .listen(HEALTH_SERVER_PORT);
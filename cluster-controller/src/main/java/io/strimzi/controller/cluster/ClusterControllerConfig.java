@@ -1,5 +1,7 @@
 package io.strimzi.controller.cluster;
 
+import io.strimzi.controller.cluster.operations.OperationExecutor;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -7,15 +9,31 @@ public class ClusterControllerConfig {
 
     public static final String STRIMZI_NAMESPACE = "STRIMZI_NAMESPACE";
     public static final String STRIMZI_CONFIGMAP_LABELS = "STRIMZI_CONFIGMAP_LABELS";
+    public static final String STRIMZI_MAX_CONCURRENT_OPERATIONS = "STRIMZI_MAX_CONCURRENT_OPERATIONS";
+    public static final String STRIMZI_KAFKA_ROLLING_UPDATE_STRATEGY = "STRIMZI_KAFKA_ROLLING_UPDATE_STRATEGY";
+    public static final String STRIMZI_KAFKA_PREFERRED_LEADER_ELECTION = "STRIMZI_KAFKA_PREFERRED_LEADER_ELECTION";
+
+    /** Roll the Kafka brokers in index order, waiting only for each pod to be ready */
+    public static final String ROLLING_UPDATE_STRATEGY_ORDERED = "ordered";
+    /** Roll the Kafka controller last, waiting after each broker until it is back in the ISRs of its partitions */
+    public static final String ROLLING_UPDATE_STRATEGY_LEADERSHIP_AWARE = "leadership-aware";
 
     private Map<String, String> labels;
     private String namespace;
+    private int maxConcurrentOperations = OperationExecutor.DEFAULT_MAX_CONCURRENT_OPERATIONS;
+    private String kafkaRollingUpdateStrategy = ROLLING_UPDATE_STRATEGY_ORDERED;
+    private boolean kafkaPreferredLeaderElection = false;
 
     public ClusterControllerConfig(String namespace, Map<String, String> labels) {
         this.namespace = namespace;
         this.labels = labels;
     }
 
+    public ClusterControllerConfig(String namespace, Map<String, String> labels, int maxConcurrentOperations) {
+        this(namespace, labels);
+        this.maxConcurrentOperations = maxConcurrentOperations;
+    }
+
     public static ClusterControllerConfig fromEnv() {
         String namespace = System.getenv(ClusterControllerConfig.STRIMZI_NAMESPACE);
         String stringLabels = System.getenv(ClusterControllerConfig.STRIMZI_CONFIGMAP_LABELS);
@@ -28,7 +46,25 @@ public class ClusterControllerConfig {
             labelsMap.put(fields[0].trim(), fields[1].trim());
         }
 
-        return new ClusterControllerConfig(namespace, labelsMap);
+        int maxConcurrentOperations = OperationExecutor.DEFAULT_MAX_CONCURRENT_OPERATIONS;
+        String stringMaxConcurrentOperations = System.getenv(ClusterControllerConfig.STRIMZI_MAX_CONCURRENT_OPERATIONS);
+        if (stringMaxConcurrentOperations != null) {
+            maxConcurrentOperations = Integer.parseInt(stringMaxConcurrentOperations);
+        }
+
+        ClusterControllerConfig config = new ClusterControllerConfig(namespace, labelsMap, maxConcurrentOperations);
+
+        String kafkaRollingUpdateStrategy = System.getenv(ClusterControllerConfig.STRIMZI_KAFKA_ROLLING_UPDATE_STRATEGY);
+        if (kafkaRollingUpdateStrategy != null) {
+            if (!ROLLING_UPDATE_STRATEGY_ORDERED.equals(kafkaRollingUpdateStrategy)
+                    && !ROLLING_UPDATE_STRATEGY_LEADERSHIP_AWARE.equals(kafkaRollingUpdateStrategy)) {
+                throw new IllegalArgumentException("Unknown " + STRIMZI_KAFKA_ROLLING_UPDATE_STRATEGY + " " + kafkaRollingUpdateStrategy);
+            }
+            config.setKafkaRollingUpdateStrategy(kafkaRollingUpdateStrategy);
+        }
+        config.setKafkaPreferredLeaderElection(Boolean.parseBoolean(System.getenv(ClusterControllerConfig.STRIMZI_KAFKA_PREFERRED_LEADER_ELECTION)));
+
+        return config;
     }
 
     public Map<String, String> getLabels() {
@@ -46,4 +82,28 @@ public class ClusterControllerConfig {
     public void setNamespace(String namespace) {
         this.namespace = namespace;
     }
+
+    public int getMaxConcurrentOperations() {
+        return maxConcurrentOperations;
+    }
+
+    public void setMaxConcurrentOperations(int maxConcurrentOperations) {
+        this.maxConcurrentOperations = maxConcurrentOperations;
+    }
+
+    public String getKafkaRollingUpdateStrategy() {
+        return kafkaRollingUpdateStrategy;
+    }
+
+    public void setKafkaRollingUpdateStrategy(String kafkaRollingUpdateStrategy) {
+        this.kafkaRollingUpdateStrategy = kafkaRollingUpdateStrategy;
+    }
+
+    public boolean isKafkaPreferredLeaderElection() {
+        return kafkaPreferredLeaderElection;
+    }
+
+    public void setKafkaPreferredLeaderElection(boolean kafkaPreferredLeaderElection) {
+        this.kafkaPreferredLeaderElection = kafkaPreferredLeaderElection;
+    }
 }
@@ -1,15 +1,35 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.Vertx;
+
 public abstract class ClusterOperation implements Operation {
     protected final String namespace;
     protected final String name;
 
     protected final int LOCK_TIMEOUT = 60000;
 
+    private AsyncK8SUtils asyncK8s;
+
     protected ClusterOperation(String namespace, String name) {
         this.namespace = namespace;
         this.name = name;
     }
 
     protected abstract String getLockName();
+
+    /**
+     * Returns the asynchronous facade over the given K8SUtils, which is created only once per operation
+     *
+     * @param vertx Vert.x instance
+     * @param k8s   K8SUtils instance
+     * @return  AsyncK8SUtils instance
+     */
+    protected synchronized AsyncK8SUtils asyncK8s(Vertx vertx, K8SUtils k8s) {
+        if (asyncK8s == null) {
+            asyncK8s = new AsyncK8SUtils(vertx, k8s);
+        }
+        return asyncK8s;
+    }
 }
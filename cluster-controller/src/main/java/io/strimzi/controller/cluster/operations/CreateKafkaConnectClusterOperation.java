@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.CreateDeploymentOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.CreateServiceOperation;
@@ -19,37 +20,48 @@ public class CreateKafkaConnectClusterOperation extends KafkaConnectClusterOpera
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        AsyncK8SUtils async = asyncK8s(vertx, k8s);
+
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                KafkaConnectCluster connect = KafkaConnectCluster.fromConfigMap(k8s, k8s.getConfigmap(namespace, name));
-                log.info("Creating Kafka Connect cluster {} in namespace {}", connect.getName(), namespace);
+                async.execute(k -> KafkaConnectCluster.fromConfigMap(k, k.getConfigmap(namespace, name))).setHandler(read -> {
+                    if (read.failed()) {
+                        log.error("Error while parsing cluster ConfigMap", read.cause());
+                        handler.handle(Future.failedFuture("ConfigMap parsing error"));
+                        lock.release();
+                        return;
+                    }
 
-                Future<Void> futureService = Future.future();
-                OperationExecutor.getInstance().execute(new CreateServiceOperation(connect.generateService()), futureService.completer());
+                    KafkaConnectCluster connect = read.result();
+                    log.info("Creating Kafka Connect cluster {} in namespace {}", connect.getName(), namespace);
 
-                Future<Void> futureDeployment = Future.future();
-                OperationExecutor.getInstance().execute(new CreateDeploymentOperation(connect.generateDeployment()), futureDeployment.completer());
+                    Future<Void> futureService = Future.future();
+                    OperationExecutor.getInstance().execute(new CreateServiceOperation(connect.generateService()), futureService.completer());
 
-                Future<Void> futureS2I;
-                if (connect.getS2I() != null) {
-                    futureS2I = Future.future();
-                    OperationExecutor.getInstance().execute(new CreateS2IOperation(connect.getS2I()), futureS2I.completer());
-                } else {
-                    futureS2I = Future.succeededFuture();
-                }
+                    Future<Void> futureDeployment = Future.future();
+                    OperationExecutor.getInstance().execute(new CreateDeploymentOperation(connect.generateDeployment()), futureDeployment.completer());
 
-                CompositeFuture.join(futureService, futureDeployment, futureS2I).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("Kafka Connect cluster {} successfully created in namespace {}", connect.getName(), namespace);
-                        handler.handle(Future.succeededFuture());
-                        lock.release();
+                    Future<Void> futureS2I;
+                    if (connect.getS2I() != null) {
+                        futureS2I = Future.future();
+                        OperationExecutor.getInstance().execute(new CreateS2IOperation(connect.getS2I()), futureS2I.completer());
                     } else {
-                        log.error("Kafka Connect cluster {} failed to create in namespace {}", connect.getName(), namespace);
-                        handler.handle(Future.failedFuture("Failed to create Kafka Connect cluster"));
-                        lock.release();
+                        futureS2I = Future.succeededFuture();
                     }
+
+                    CompositeFuture.join(futureService, futureDeployment, futureS2I).setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            log.info("Kafka Connect cluster {} successfully created in namespace {}", connect.getName(), namespace);
+                            handler.handle(Future.succeededFuture());
+                            lock.release();
+                        } else {
+                            log.error("Kafka Connect cluster {} failed to create in namespace {}", connect.getName(), namespace);
+                            handler.handle(Future.failedFuture("Failed to create Kafka Connect cluster"));
+                            lock.release();
+                        }
+                    });
                 });
             } else {
                 log.error("Failed to acquire lock to create Kafka Connect cluster {}", getLockName());
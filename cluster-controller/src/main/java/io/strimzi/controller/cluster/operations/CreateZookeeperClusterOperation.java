@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.CreateConfigMapOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.CreateServiceOperation;
@@ -19,51 +20,55 @@ public class CreateZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        AsyncK8SUtils async = asyncK8s(vertx, k8s);
+
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                ZookeeperCluster zk;
-                try {
+                async.execute(k -> ZookeeperCluster.fromConfigMap(k.getConfigmap(namespace, name))).setHandler(parsed -> {
+                    if (parsed.failed()) {
+                        log.error("Error while parsing cluster ConfigMap", parsed.cause());
+                        handler.handle(Future.failedFuture("ConfigMap parsing error"));
+                        lock.release();
+                        return;
+                    }
 
-                    zk = ZookeeperCluster.fromConfigMap(k8s.getConfigmap(namespace, name));
+                    ZookeeperCluster zk = parsed.result();
                     log.info("Creating Zookeeper cluster {} in namespace {}", zk.getName(), namespace);
 
-                } catch (Exception ex) {
-                    log.error("Error while parsing cluster ConfigMap", ex);
-                    handler.handle(Future.failedFuture("ConfigMap parsing error"));
-                    lock.release();
-                    return;
-                }
-
-                // start creating configMap operation only if metrics are enabled,
-                // otherwise the future is already complete (for the "join")
-                Future<Void> futureConfigMap = Future.future();
-                if (zk.isMetricsEnabled()) {
-                    OperationExecutor.getInstance().execute(new CreateConfigMapOperation(zk.generateMetricsConfigMap()), futureConfigMap.completer());
-                } else {
-                    futureConfigMap.complete();
-                }
+                    // start creating configMap operation only if metrics are enabled,
+                    // otherwise the future is already complete (for the "join")
+                    Future<Void> futureConfigMap = Future.future();
+                    if (zk.isMetricsEnabled()) {
+                        OperationExecutor.getInstance().execute(new CreateConfigMapOperation(zk.generateMetricsConfigMap()), futureConfigMap.completer());
+                    } else {
+                        futureConfigMap.complete();
+                    }
 
-                Future<Void> futureService = Future.future();
-                OperationExecutor.getInstance().execute(new CreateServiceOperation(zk.generateService()), futureService.completer());
+                    Future<Void> futureService = Future.future();
+                    OperationExecutor.getInstance().execute(new CreateServiceOperation(zk.generateService()), futureService.completer());
 
-                Future<Void> futureHeadlessService = Future.future();
-                OperationExecutor.getInstance().execute(new CreateServiceOperation(zk.generateHeadlessService()), futureHeadlessService.completer());
+                    Future<Void> futureHeadlessService = Future.future();
+                    OperationExecutor.getInstance().execute(new CreateServiceOperation(zk.generateHeadlessService()), futureHeadlessService.completer());
 
-                Future<Void> futureStatefulSet = Future.future();
-                OperationExecutor.getInstance().execute(new CreateStatefulSetOperation(zk.generateStatefulSet(k8s.isOpenShift())), futureStatefulSet.completer());
+                    Future<Void> futureStatefulSet = async.isOpenShift().compose(isOpenShift -> {
+                        Future<Void> createStatefulSet = Future.future();
+                        OperationExecutor.getInstance().execute(new CreateStatefulSetOperation(zk.generateStatefulSet(isOpenShift)), createStatefulSet.completer());
+                        return createStatefulSet;
+                    });
 
-                CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("Zookeeper cluster {} successfully created in namespace {}", zk.getName(), namespace);
-                        handler.handle(Future.succeededFuture());
-                        lock.release();
-                    } else {
-                        log.error("Zookeeper cluster {} failed to create in namespace {}", zk.getName(), namespace);
-                        handler.handle(Future.failedFuture("Failed to create Zookeeper cluster"));
-                        lock.release();
-                    }
+                    CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet).setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            log.info("Zookeeper cluster {} successfully created in namespace {}", zk.getName(), namespace);
+                            handler.handle(Future.succeededFuture());
+                            lock.release();
+                        } else {
+                            log.error("Zookeeper cluster {} failed to create in namespace {}", zk.getName(), namespace);
+                            handler.handle(Future.failedFuture("Failed to create Zookeeper cluster"));
+                            lock.release();
+                        }
+                    });
                 });
             } else {
                 log.error("Failed to acquire lock to create Zookeeper cluster {}", getLockName());
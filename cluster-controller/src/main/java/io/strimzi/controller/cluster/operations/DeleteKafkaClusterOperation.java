@@ -1,12 +1,12 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteConfigMapOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.DeletePersistentVolumeClaimOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteServiceOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteStatefulSetOperation;
 import io.strimzi.controller.cluster.resources.KafkaCluster;
-import io.strimzi.controller.cluster.resources.Storage;
 import io.vertx.core.*;
 import io.vertx.core.shareddata.Lock;
 import org.slf4j.Logger;
@@ -24,62 +24,75 @@ public class DeleteKafkaClusterOperation extends KafkaClusterOperation {
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        AsyncK8SUtils async = asyncK8s(vertx, k8s);
+
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                KafkaCluster kafka = KafkaCluster.fromStatefulSet(k8s, namespace, name);
+                async.execute(k -> KafkaCluster.fromStatefulSet(k, namespace, name)).setHandler(read -> {
+                    if (read.failed()) {
+                        log.error("Error while reading the cluster StatefulSet", read.cause());
+                        handler.handle(Future.failedFuture("Failed to read the cluster StatefulSet"));
+                        lock.release();
+                        return;
+                    }
 
-                log.info("Deleting Kafka cluster {} from namespace {}", kafka.getName(), namespace);
+                    KafkaCluster kafka = read.result();
 
-                // start deleting configMap operation only if metrics are enabled,
-                // otherwise the future is already complete (for the "join")
-                Future<Void> futureConfigMap = Future.future();
-                if (kafka.isMetricsEnabled()) {
-                    OperationExecutor.getInstance().execute(new DeleteConfigMapOperation(namespace, kafka.getMetricsConfigName()), futureConfigMap.completer());
-                } else {
-                    futureConfigMap.complete();
-                }
+                    log.info("Deleting Kafka cluster {} from namespace {}", kafka.getName(), namespace);
 
-                Future<Void> futureService = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, kafka.getName()), futureService.completer());
+                    // start deleting configMap operation only if metrics are enabled,
+                    // otherwise the future is already complete (for the "join")
+                    Future<Void> futureConfigMap = Future.future();
+                    if (kafka.isMetricsEnabled()) {
+                        OperationExecutor.getInstance().execute(new DeleteConfigMapOperation(namespace, kafka.getMetricsConfigName()), futureConfigMap.completer());
+                    } else {
+                        futureConfigMap.complete();
+                    }
+
+                    Future<Void> futureService = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, kafka.getName()), futureService.completer());
 
-                Future<Void> futureHeadlessService = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, kafka.getHeadlessName()), futureHeadlessService.completer());
+                    Future<Void> futureHeadlessService = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, kafka.getHeadlessName()), futureHeadlessService.completer());
 
-                Future<Void> futureStatefulSet = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteStatefulSetOperation(namespace, kafka.getName()), futureStatefulSet.completer());
+                    Future<Void> futureStatefulSet = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteStatefulSetOperation(namespace, kafka.getName()), futureStatefulSet.completer());
 
-                Future<Void> futurePersistentVolumeClaim = Future.future();
-                if ((kafka.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM) && kafka.getStorage().isDeleteClaim()) {
+                    Future<Void> futurePersistentVolumeClaim = Future.future();
+                    if (kafka.getStorage().isPersistent() && kafka.getStorage().isDeleteClaim()) {
 
-                    List<Future> futurePersistentVolumeClaims = new ArrayList<>();
-                    for (int i = 0; i < kafka.getReplicas(); i++) {
-                        Future<Void> f = Future.future();
-                        futurePersistentVolumeClaims.add(f);
-                        OperationExecutor.getInstance().execute(new DeletePersistentVolumeClaimOperation(namespace, kafka.getVolumeName() + "-" + kafka.getName() + "-" + i), f.completer());
+                        List<Future> futurePersistentVolumeClaims = new ArrayList<>();
+                        for (int i = 0; i < kafka.getReplicas(); i++) {
+                            for (String volumeName : kafka.getVolumeClaimNames()) {
+                                Future<Void> f = Future.future();
+                                futurePersistentVolumeClaims.add(f);
+                                OperationExecutor.getInstance().execute(new DeletePersistentVolumeClaimOperation(namespace, volumeName + "-" + kafka.getName() + "-" + i), f.completer());
+                            }
+                        }
+                        CompositeFuture.join(futurePersistentVolumeClaims).setHandler(ar -> {
+                            if (ar.succeeded()) {
+                                handler.handle(Future.succeededFuture());
+                            } else {
+                                handler.handle(Future.failedFuture("Failed to delete persistent volume claims"));
+                            }
+                        });
+                    } else {
+                        futurePersistentVolumeClaim.complete();
                     }
-                    CompositeFuture.join(futurePersistentVolumeClaims).setHandler(ar -> {
+
+                    CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet, futurePersistentVolumeClaim).setHandler(ar -> {
                         if (ar.succeeded()) {
+                            log.info("Kafka cluster {} successfully deleted from namespace {}", kafka.getName(), namespace);
                             handler.handle(Future.succeededFuture());
+                            lock.release();
                         } else {
-                            handler.handle(Future.failedFuture("Failed to delete persistent volume claims"));
+                            log.error("Kafka cluster {} failed to delete from namespace {}", kafka.getName(), namespace);
+                            handler.handle(Future.failedFuture("Failed to delete Zookeeper cluster"));
+                            lock.release();
                         }
                     });
-                } else {
-                    futurePersistentVolumeClaim.complete();
-                }
-
-                CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet, futurePersistentVolumeClaim).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("Kafka cluster {} successfully deleted from namespace {}", kafka.getName(), namespace);
-                        handler.handle(Future.succeededFuture());
-                        lock.release();
-                    } else {
-                        log.error("Kafka cluster {} failed to delete from namespace {}", kafka.getName(), namespace);
-                        handler.handle(Future.failedFuture("Failed to delete Zookeeper cluster"));
-                        lock.release();
-                    }
                 });
             } else {
                 log.error("Failed to acquire lock to delete Kafka cluster {}", getLockName());
@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteDeploymentOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteServiceOperation;
@@ -19,38 +20,49 @@ public class DeleteKafkaConnectClusterOperation extends KafkaConnectClusterOpera
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        AsyncK8SUtils async = asyncK8s(vertx, k8s);
+
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                KafkaConnectCluster connect = KafkaConnectCluster.fromDeployment(k8s, namespace, name);
+                async.execute(k -> KafkaConnectCluster.fromDeployment(k, namespace, name)).setHandler(read -> {
+                    if (read.failed()) {
+                        log.error("Error while reading the cluster Deployment", read.cause());
+                        handler.handle(Future.failedFuture("Failed to read the cluster Deployment"));
+                        lock.release();
+                        return;
+                    }
 
-                log.info("Deleting Kafka Connect cluster {} from namespace {}", connect.getName(), namespace);
+                    KafkaConnectCluster connect = read.result();
 
-                Future<Void> futureService = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, connect.getName()), futureService.completer());
+                    log.info("Deleting Kafka Connect cluster {} from namespace {}", connect.getName(), namespace);
 
-                Future<Void> futureDeployment = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteDeploymentOperation(namespace, connect.getName()), futureDeployment.completer());
+                    Future<Void> futureService = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, connect.getName()), futureService.completer());
 
-                Future<Void> futureS2I;
-                if (connect.getS2I() != null) {
-                    futureS2I = Future.future();
-                    OperationExecutor.getInstance().execute(new DeleteS2IOperation(connect.getS2I()), futureS2I.completer());
-                } else {
-                    futureS2I = Future.succeededFuture();
-                }
+                    Future<Void> futureDeployment = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteDeploymentOperation(namespace, connect.getName()), futureDeployment.completer());
 
-                CompositeFuture.join(futureService, futureDeployment, futureS2I).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("Kafka Connect cluster {} successfully deleted from namespace {}", connect.getName(), namespace);
-                        handler.handle(Future.succeededFuture());
-                        lock.release();
+                    Future<Void> futureS2I;
+                    if (connect.getS2I() != null) {
+                        futureS2I = Future.future();
+                        OperationExecutor.getInstance().execute(new DeleteS2IOperation(connect.getS2I()), futureS2I.completer());
                     } else {
-                        log.error("Kafka Connect cluster {} failed to delete from namespace {}", connect.getName(), namespace);
-                        handler.handle(Future.failedFuture("Failed to delete Kafka Connect cluster"));
-                        lock.release();
+                        futureS2I = Future.succeededFuture();
                     }
+
+                    CompositeFuture.join(futureService, futureDeployment, futureS2I).setHandler(ar -> {
+                        if (ar.succeeded()) {
+                            log.info("Kafka Connect cluster {} successfully deleted from namespace {}", connect.getName(), namespace);
+                            handler.handle(Future.succeededFuture());
+                            lock.release();
+                        } else {
+                            log.error("Kafka Connect cluster {} failed to delete from namespace {}", connect.getName(), namespace);
+                            handler.handle(Future.failedFuture("Failed to delete Kafka Connect cluster"));
+                            lock.release();
+                        }
+                    });
                 });
             } else {
                 log.error("Failed to acquire lock to delete Kafka Connect cluster {}", getLockName());
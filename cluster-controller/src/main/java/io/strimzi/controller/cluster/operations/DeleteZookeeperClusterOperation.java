@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.DeleteConfigMapOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.DeletePersistentVolumeClaimOperation;
@@ -24,62 +25,78 @@ public class DeleteZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        AsyncK8SUtils async = asyncK8s(vertx, k8s);
+
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                ZookeeperCluster zk = ZookeeperCluster.fromStatefulSet(k8s, namespace, name);
+                async.execute(k -> ZookeeperCluster.fromStatefulSet(k, namespace, name)).setHandler(read -> {
+                    if (read.failed()) {
+                        log.error("Error while reading the cluster StatefulSet", read.cause());
+                        handler.handle(Future.failedFuture("Failed to read the cluster StatefulSet"));
+                        lock.release();
+                        return;
+                    }
 
-                log.info("Deleting Zookeeper cluster {} from namespace {}", zk.getName(), namespace);
+                    ZookeeperCluster zk = read.result();
 
-                // start deleting configMap operation only if metrics are enabled,
-                // otherwise the future is already complete (for the "join")
-                Future<Void> futureConfigMap = Future.future();
-                if (zk.isMetricsEnabled()) {
-                    OperationExecutor.getInstance().execute(new DeleteConfigMapOperation(namespace, zk.getMetricsConfigName()), futureConfigMap.completer());
-                } else {
-                    futureConfigMap.complete();
-                }
+                    log.info("Deleting Zookeeper cluster {} from namespace {}", zk.getName(), namespace);
 
-                Future<Void> futureService = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, zk.getName()), futureService.completer());
+                    // start deleting configMap operation only if metrics are enabled,
+                    // otherwise the future is already complete (for the "join")
+                    Future<Void> futureConfigMap = Future.future();
+                    if (zk.isMetricsEnabled()) {
+                        OperationExecutor.getInstance().execute(new DeleteConfigMapOperation(namespace, zk.getMetricsConfigName()), futureConfigMap.completer());
+                    } else {
+                        futureConfigMap.complete();
+                    }
+
+                    Future<Void> futureService = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, zk.getName()), futureService.completer());
 
-                Future<Void> futureHeadlessService = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, zk.getHeadlessName()), futureHeadlessService.completer());
+                    Future<Void> futureHeadlessService = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteServiceOperation(namespace, zk.getHeadlessName()), futureHeadlessService.completer());
 
-                Future<Void> futureStatefulSet = Future.future();
-                OperationExecutor.getInstance().execute(new DeleteStatefulSetOperation(namespace, zk.getName()), futureStatefulSet.completer());
+                    Future<Void> futureStatefulSet = Future.future();
+                    OperationExecutor.getInstance().execute(new DeleteStatefulSetOperation(namespace, zk.getName()), futureStatefulSet.completer());
 
-                Future<Void> futurePersistentVolumeClaim = Future.future();
-                if ((zk.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM) && zk.getStorage().isDeleteClaim()) {
+                    Future<Void> futurePersistentVolumeClaim = Future.future();
+                    if ((zk.getStorage().type() == Storage.StorageType.PERSISTENT_CLAIM) && zk.getStorage().isDeleteClaim()) {
 
-                    List<Future> futurePersistentVolumeClaims = new ArrayList<>();
-                    for (int i = 0; i < zk.getReplicas(); i++) {
-                        Future<Void> f = Future.future();
-                        futurePersistentVolumeClaims.add(f);
-                        OperationExecutor.getInstance().execute(new DeletePersistentVolumeClaimOperation(namespace, zk.getVolumeName() + "-" + zk.getName() + "-" + i), f.completer());
+                        List<Future> futurePersistentVolumeClaims = new ArrayList<>();
+                        for (int i = 0; i < zk.getReplicas(); i++) {
+                            Future<Void> f = Future.future();
+                            futurePersistentVolumeClaims.add(f);
+                            OperationExecutor.getInstance().execute(new DeletePersistentVolumeClaimOperation(namespace, zk.getVolumeName() + "-" + zk.getName() + "-" + i), f.completer());
+                            if (zk.hasDataLog()) {
+                                Future<Void> fDataLog = Future.future();
+                                futurePersistentVolumeClaims.add(fDataLog);
+                                OperationExecutor.getInstance().execute(new DeletePersistentVolumeClaimOperation(namespace, zk.getDataLogVolumeName() + "-" + zk.getName() + "-" + i), fDataLog.completer());
+                            }
+                        }
+                        CompositeFuture.join(futurePersistentVolumeClaims).setHandler(ar -> {
+                            if (ar.succeeded()) {
+                                handler.handle(Future.succeededFuture());
+                            } else {
+                                handler.handle(Future.failedFuture("Failed to delete persistent volume claims"));
+                            }
+                        });
+                    } else {
+                        futurePersistentVolumeClaim.complete();
                     }
-                    CompositeFuture.join(futurePersistentVolumeClaims).setHandler(ar -> {
+
+                    CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet, futurePersistentVolumeClaim).setHandler(ar -> {
                         if (ar.succeeded()) {
+                            log.info("Zookeeper cluster {} successfully deleted from namespace {}", zk.getName(), namespace);
                             handler.handle(Future.succeededFuture());
+                            lock.release();
                         } else {
-                            handler.handle(Future.failedFuture("Failed to delete persistent volume claims"));
+                            log.error("Zookeeper cluster {} failed to delete from namespace {}", zk.getName(), namespace);
+                            handler.handle(Future.failedFuture("Failed to delete Zookeeper cluster"));
+                            lock.release();
                         }
                     });
-                } else {
-                    futurePersistentVolumeClaim.complete();
-                }
-
-                CompositeFuture.join(futureConfigMap, futureService, futureHeadlessService, futureStatefulSet, futurePersistentVolumeClaim).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("Zookeeper cluster {} successfully deleted from namespace {}", zk.getName(), namespace);
-                        handler.handle(Future.succeededFuture());
-                        lock.release();
-                    } else {
-                        log.error("Zookeeper cluster {} failed to delete from namespace {}", zk.getName(), namespace);
-                        handler.handle(Future.failedFuture("Failed to delete Zookeeper cluster"));
-                        lock.release();
-                    }
                 });
             } else {
                 log.error("Failed to acquire lock to delete Zookeeper cluster {}", getLockName());
@@ -2,14 +2,95 @@ package io.strimzi.controller.cluster.operations;
 
 import io.strimzi.controller.cluster.K8SUtils;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes operations.
+ *
+ * Cluster operations (subclasses of {@link ClusterOperation}) are not executed immediately but put on a work queue,
+ * keyed by the namespace, cluster name and kind of cluster (i.e. by the operation's lock name):
+ * <ul>
+ *     <li>Operations with the same key are executed one at a time, in the order they were submitted.</li>
+ *     <li>An operation submitted while an operation of the same class is already waiting at the back
+ *         of the queue for the same key is deduplicated: it is not executed itself, but its handler is
+ *         called with the result of the waiting operation.</li>
+ *     <li>Operations for different keys are executed in parallel, up to a configurable limit,
+ *         taking turns between the keys.</li>
+ *     <li>When an operation fails, further operations for the same key are delayed by an exponential back-off.
+ *         A key is forgotten, together with its failure count, once its queue has drained.</li>
+ * </ul>
+ * Other operations, which cluster operations use to do their work, are executed immediately.
+ */
 public class OperationExecutor {
+    private static final Logger log = LoggerFactory.getLogger(OperationExecutor.class.getName());
+
+    public static final int DEFAULT_MAX_CONCURRENT_OPERATIONS = 5;
+    private static final long BACKOFF_INITIAL_MS = 1_000;
+    private static final long BACKOFF_MAX_MS = 120_000;
+    private static final String METRICS_PREFIX = "strimzi_cluster_controller_";
+
     private static OperationExecutor instance = null;
 
     private Vertx vertx;
     private K8SUtils k8s;
+    private Context context;
+    private int maxConcurrentOperations = DEFAULT_MAX_CONCURRENT_OPERATIONS;
+
+    /**
+     * A submitted cluster operation, together with the handlers waiting for its result.
+     */
+    private static class Entry {
+        final ClusterOperation op;
+        final List<Handler<AsyncResult<Void>>> handlers = new ArrayList<>(1);
+        final long submittedNs = System.nanoTime();
+        boolean done = false;
+
+        Entry(ClusterOperation op, Handler<AsyncResult<Void>> handler) {
+            this.op = op;
+            this.handlers.add(handler);
+        }
+    }
+
+    /**
+     * The queue of operations for a single key.
+     */
+    private static class KeyQueue {
+        final String key;
+        final Deque<Entry> pending = new ArrayDeque<>();
+        boolean running = false;
+        boolean backingOff = false;
+        int failures = 0;
+
+        KeyQueue(String key) {
+            this.key = key;
+        }
+    }
+
+    // All guarded by this
+    private final Map<String, KeyQueue> queues = new HashMap<>();
+    private final Deque<KeyQueue> ready = new ArrayDeque<>();
+    private int running = 0;
+    private int depth = 0;
+
+    private long submitted = 0;
+    private long deduplicated = 0;
+    private long completed = 0;
+    private long failed = 0;
+    private long totalQueueLatencyNs = 0;
+    private long maxQueueLatencyNs = 0;
+    private long totalExecutionLatencyNs = 0;
 
     public static OperationExecutor getInstance(Vertx vertx, K8SUtils k8s) {
         if(instance == null) {
@@ -30,10 +111,219 @@ public class OperationExecutor {
     private OperationExecutor(Vertx vertx, K8SUtils k8s) {
         this.vertx = vertx;
         this.k8s = k8s;
+        this.context = vertx.getOrCreateContext();
     }
 
+    /**
+     * Execute the given operation, calling the given handler with the result.
+     * Cluster operations are queued, as described in the class documentation;
+     * other operations are executed immediately.
+     */
     public void execute(Operation op, Handler<AsyncResult<Void>> handler) {
-        op.execute(vertx, k8s, handler);
+        if (op instanceof ClusterOperation) {
+            submit((ClusterOperation) op, handler);
+        }
+        else {
+            op.execute(vertx, k8s, handler);
+        }
+    }
+
+    private synchronized void submit(ClusterOperation op, Handler<AsyncResult<Void>> handler) {
+        String key = op.getLockName();
+        submitted++;
+        KeyQueue queue = queues.computeIfAbsent(key, KeyQueue::new);
+        Entry last = queue.pending.peekLast();
+        if (last != null && last.op.getClass().equals(op.getClass())) {
+            log.debug("Operation {} for {} is already queued, deduplicating", op.getClass().getSimpleName(), key);
+            last.handlers.add(handler);
+            deduplicated++;
+            return;
+        }
+        queue.pending.addLast(new Entry(op, handler));
+        depth++;
+        if (queue.pending.size() == 1 && !queue.running && !queue.backingOff) {
+            ready.addLast(queue);
+        }
+        dispatch();
+    }
+
+    /**
+     * Start as many operations as the concurrency limit allows.
+     */
+    private synchronized void dispatch() {
+        while (running < maxConcurrentOperations && !ready.isEmpty()) {
+            KeyQueue queue = ready.pollFirst();
+            Entry entry = queue.pending.pollFirst();
+            if (entry == null) {
+                continue;
+            }
+            depth--;
+            running++;
+            queue.running = true;
+            long queueLatencyNs = System.nanoTime() - entry.submittedNs;
+            totalQueueLatencyNs += queueLatencyNs;
+            maxQueueLatencyNs = Math.max(maxQueueLatencyNs, queueLatencyNs);
+            log.debug("Executing {} for {} after {}ms in the queue", entry.op.getClass().getSimpleName(), queue.key, queueLatencyNs / 1_000_000);
+            context.runOnContext(v -> run(queue, entry));
+        }
+    }
+
+    private void run(KeyQueue queue, Entry entry) {
+        long t0 = System.nanoTime();
+        try {
+            entry.op.execute(vertx, k8s, res -> complete(queue, entry, t0, res));
+        } catch (RuntimeException e) {
+            log.error("Operation {} for {} threw", entry.op.getClass().getSimpleName(), queue.key, e);
+            complete(queue, entry, t0, Future.failedFuture(e));
+        }
+    }
+
+    private void complete(KeyQueue queue, Entry entry, long t0, AsyncResult<Void> res) {
+        synchronized (this) {
+            if (entry.done) {
+                log.warn("Operation {} for {} completed more than once", entry.op.getClass().getSimpleName(), queue.key);
+                return;
+            }
+            entry.done = true;
+            running--;
+            queue.running = false;
+            totalExecutionLatencyNs += System.nanoTime() - t0;
+            if (res.succeeded()) {
+                completed++;
+                queue.failures = 0;
+                requeue(queue);
+            }
+            else {
+                failed++;
+                queue.failures++;
+                long delay = backOffDelayMs(queue.failures);
+                log.info("Operation {} for {} failed {} time(s) in a row, delaying further operations for it by {}ms",
+                        entry.op.getClass().getSimpleName(), queue.key, queue.failures, delay);
+                queue.backingOff = true;
+                vertx.setTimer(delay, timerId -> {
+                    synchronized (this) {
+                        queue.backingOff = false;
+                        requeue(queue);
+                        dispatch();
+                    }
+                });
+            }
+            dispatch();
+        }
+        for (Handler<AsyncResult<Void>> handler : entry.handlers) {
+            handler.handle(res);
+        }
+    }
+
+    /**
+     * The delay before the next operation for a key which failed the given number of times in a row.
+     */
+    static long backOffDelayMs(int failures) {
+        return Math.min(BACKOFF_MAX_MS, BACKOFF_INITIAL_MS << Math.min(failures - 1, 20));
+    }
+
+    /**
+     * Make the given key ready again if it has pending operations, or forget it otherwise.
+     * Must be called with the monitor held.
+     */
+    private void requeue(KeyQueue queue) {
+        if (queue.running || queue.backingOff) {
+            return;
+        }
+        if (!queue.pending.isEmpty()) {
+            ready.addLast(queue);
+        }
+        else {
+            queues.remove(queue.key);
+        }
+    }
+
+    /**
+     * Set the maximum number of cluster operations (for different clusters) executed concurrently.
+     */
+    public synchronized void setMaxConcurrentOperations(int maxConcurrentOperations) {
+        if (maxConcurrentOperations <= 0) {
+            throw new IllegalArgumentException("maxConcurrentOperations must be strictly positive");
+        }
+        this.maxConcurrentOperations = maxConcurrentOperations;
+        dispatch();
+    }
+
+    /** The number of cluster operations waiting to be executed. */
+    public synchronized int getQueueDepth() {
+        return depth;
+    }
+
+    /** The number of cluster operations currently executing. */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /** The number of keys (clusters) with queued or running cluster operations. */
+    public synchronized int getQueuedKeys() {
+        return queues.size();
+    }
+
+    /** The number of cluster operations submitted. */
+    public synchronized long getSubmitted() {
+        return submitted;
+    }
+
+    /** The number of submitted cluster operations which were deduplicated with an already queued one. */
+    public synchronized long getDeduplicated() {
+        return deduplicated;
+    }
+
+    /** The number of cluster operations which completed successfully. */
+    public synchronized long getCompleted() {
+        return completed;
+    }
+
+    /** The number of cluster operations which failed. */
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    /** The mean time, in milliseconds, cluster operations have waited in the queue before being executed. */
+    public synchronized double getMeanQueueLatencyMs() {
+        long n = completed + failed + running;
+        return n == 0 ? 0.0 : totalQueueLatencyNs / 1_000_000.0 / n;
+    }
+
+    /** The longest time, in milliseconds, a cluster operation has waited in the queue before being executed. */
+    public synchronized double getMaxQueueLatencyMs() {
+        return maxQueueLatencyNs / 1_000_000.0;
+    }
+
+    /** The mean time, in milliseconds, cluster operations have taken to execute. */
+    public synchronized double getMeanExecutionLatencyMs() {
+        long n = completed + failed;
+        return n == 0 ? 0.0 : totalExecutionLatencyNs / 1_000_000.0 / n;
+    }
+
+    /**
+     * Render the queue metrics in the Prometheus text exposition format.
+     */
+    public synchronized String metrics() {
+        StringBuilder sb = new StringBuilder(1024);
+        metric(sb, "operations_queue_depth", "gauge", "The number of cluster operations waiting to be executed", getQueueDepth());
+        metric(sb, "operations_running", "gauge", "The number of cluster operations currently executing", getRunning());
+        metric(sb, "operations_queued_keys", "gauge", "The number of clusters with queued or running operations", getQueuedKeys());
+        metric(sb, "operations_submitted_total", "counter", "The number of cluster operations submitted", getSubmitted());
+        metric(sb, "operations_deduplicated_total", "counter", "The number of cluster operations deduplicated with an already queued one", getDeduplicated());
+        metric(sb, "operations_completed_total", "counter", "The number of cluster operations which completed successfully", getCompleted());
+        metric(sb, "operations_failed_total", "counter", "The number of cluster operations which failed", getFailed());
+        metric(sb, "operations_queue_latency_mean_seconds", "gauge", "The mean time cluster operations have waited in the queue", getMeanQueueLatencyMs() / 1000.0);
+        metric(sb, "operations_queue_latency_max_seconds", "gauge", "The longest time a cluster operation has waited in the queue", getMaxQueueLatencyMs() / 1000.0);
+        metric(sb, "operations_execution_latency_mean_seconds", "gauge", "The mean time cluster operations have taken to execute", getMeanExecutionLatencyMs() / 1000.0);
+        return sb.toString();
+    }
+
+    private static void metric(StringBuilder sb, String name, String type, String help, double value) {
+        String fullName = METRICS_PREFIX + name;
+        sb.append("# HELP ").append(fullName).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(fullName).append(' ').append(type).append('\n');
+        sb.append(fullName).append(' ').append(value).append('\n');
     }
 
     private Vertx getVertx() {
@@ -42,6 +332,7 @@ public class OperationExecutor {
 
     private void setVertx(Vertx vertx) {
         this.vertx = vertx;
+        this.context = vertx.getOrCreateContext();
     }
 
     private K8SUtils getK8s() {
@@ -1,13 +1,19 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
+import io.strimzi.controller.cluster.operations.kafka.AlterBrokerConfigOperation;
+import io.strimzi.controller.cluster.operations.kafka.LeadershipAwareRollingUpdateStrategy;
 import io.strimzi.controller.cluster.operations.kubernetes.ManualRollingUpdateOperation;
+import io.strimzi.controller.cluster.operations.kubernetes.OrderedRollingUpdateStrategy;
 import io.strimzi.controller.cluster.operations.kubernetes.PatchOperation;
+import io.strimzi.controller.cluster.operations.kubernetes.ReplaceStatefulSetOperation;
+import io.strimzi.controller.cluster.operations.kubernetes.RollingUpdateStrategy;
 import io.strimzi.controller.cluster.operations.kubernetes.ScaleDownOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.ScaleUpOperation;
 import io.strimzi.controller.cluster.resources.KafkaCluster;
 import io.strimzi.controller.cluster.resources.ClusterDiffResult;
-import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -20,64 +26,68 @@ public class UpdateKafkaClusterOperation extends KafkaClusterOperation {
     private static final Logger log = LoggerFactory.getLogger(UpdateKafkaClusterOperation.class.getName());
 
     private K8SUtils k8s;
+    private AsyncK8SUtils async;
+
+    private final boolean leadershipAwareRollingUpdate;
+    private final boolean preferredLeaderElection;
 
     public UpdateKafkaClusterOperation(String namespace, String name) {
+        this(namespace, name, false, false);
+    }
+
+    /**
+     * @param namespace                     Namespace of the cluster
+     * @param name                          Name of the cluster
+     * @param leadershipAwareRollingUpdate  Whether rolling updates should use {@link LeadershipAwareRollingUpdateStrategy}
+     *                                      rather than restarting the brokers in index order
+     * @param preferredLeaderElection       Whether a leadership aware rolling update should finish with a preferred leader election
+     */
+    public UpdateKafkaClusterOperation(String namespace, String name, boolean leadershipAwareRollingUpdate, boolean preferredLeaderElection) {
         super(namespace, name);
+        this.leadershipAwareRollingUpdate = leadershipAwareRollingUpdate;
+        this.preferredLeaderElection = preferredLeaderElection;
     }
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
         this.k8s = k8s;
+        this.async = asyncK8s(vertx, k8s);
 
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                ClusterDiffResult diff;
-                KafkaCluster kafka;
-                ConfigMap kafkaConfigMap = k8s.getConfigmap(namespace, name);
-
-                if (kafkaConfigMap != null)    {
+                async.getConfigmap(namespace, name).compose(kafkaConfigMap -> {
+                    if (kafkaConfigMap == null) {
+                        log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
+                        return Future.<Void>failedFuture("ConfigMap doesn't exist anymore");
+                    }
 
+                    KafkaCluster kafka;
                     try {
-
                         kafka = KafkaCluster.fromConfigMap(kafkaConfigMap);
-                        log.info("Updating Kafka cluster {} in namespace {}", kafka.getName(), namespace);
-                        diff = kafka.diff(k8s, namespace);
-
                     } catch (Exception ex) {
-
                         log.error("Error while parsing cluster ConfigMap", ex);
-                        handler.handle(Future.failedFuture("ConfigMap parsing error"));
-                        lock.release();
-                        return;
+                        return Future.<Void>failedFuture("ConfigMap parsing error");
                     }
-
-                } else {
-                    log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
-                    handler.handle(Future.failedFuture("ConfigMap doesn't exist anymore"));
-                    lock.release();
-                    return;
-                }
-
-                Future<Void> chainFuture = Future.future();
-
-                scaleDown(kafka, diff)
-                        .compose(i -> patchService(kafka, diff))
-                        .compose(i -> patchHeadlessService(kafka, diff))
-                        .compose(i -> patchStatefulSet(kafka, diff))
-                        .compose(i -> patchMetricsConfigMap(kafka, diff))
-                        .compose(i -> rollingUpdate(kafka, diff))
-                        .compose(i -> scaleUp(kafka, diff))
-                        .compose(chainFuture::complete, chainFuture);
-
-                chainFuture.setHandler(ar -> {
+                    log.info("Updating Kafka cluster {} in namespace {}", kafka.getName(), namespace);
+
+                    return async.execute(k -> kafka.diff(k, namespace)).compose(diff ->
+                        scaleDown(kafka, diff)
+                                .compose(i -> patchService(kafka, diff))
+                                .compose(i -> patchHeadlessService(kafka, diff))
+                                .compose(i -> patchStatefulSet(kafka, diff))
+                                .compose(i -> patchMetricsConfigMap(kafka, diff))
+                                .compose(i -> alterBrokerConfig(kafka, diff))
+                                .compose(i -> rollingUpdate(kafka, diff))
+                                .compose(i -> scaleUp(kafka, diff)));
+                }).setHandler(ar -> {
                     if (ar.succeeded()) {
-                        log.info("Kafka cluster {} successfully updated in namespace {}", kafka.getName(), namespace);
+                        log.info("Kafka cluster {} successfully updated in namespace {}", name, namespace);
                         handler.handle(Future.succeededFuture());
                         lock.release();
                     } else {
-                        log.error("Kafka cluster {} failed to update in namespace {}", kafka.getName(), namespace);
+                        log.error("Kafka cluster {} failed to update in namespace {}", name, namespace);
                         handler.handle(Future.failedFuture("Failed to update Zookeeper cluster"));
                         lock.release();
                     }
@@ -105,9 +115,11 @@ public class UpdateKafkaClusterOperation extends KafkaClusterOperation {
 
     private Future<Void> patchService(KafkaCluster kafka, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchService = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, kafka.getName()), kafka.patchService(k8s.getService(namespace, kafka.getName()))), patchService.completer());
-            return patchService;
+            return async.getService(namespace, kafka.getName()).compose(svc -> {
+                Future<Void> patchService = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, kafka.getName()), kafka.patchService(svc)), patchService.completer());
+                return patchService;
+            });
         }
             else
         {
@@ -117,9 +129,11 @@ public class UpdateKafkaClusterOperation extends KafkaClusterOperation {
 
     private Future<Void> patchHeadlessService(KafkaCluster kafka, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchService = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, kafka.getHeadlessName()), kafka.patchHeadlessService(k8s.getService(namespace, kafka.getHeadlessName()))), patchService.completer());
-            return patchService;
+            return async.getService(namespace, kafka.getHeadlessName()).compose(svc -> {
+                Future<Void> patchService = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, kafka.getHeadlessName()), kafka.patchHeadlessService(svc)), patchService.completer());
+                return patchService;
+            });
         }
             else
         {
@@ -128,10 +142,23 @@ public class UpdateKafkaClusterOperation extends KafkaClusterOperation {
     }
 
     private Future<Void> patchStatefulSet(KafkaCluster kafka, ClusterDiffResult diff) {
-        if (diff.getDifferent()) {
-            Future<Void> patchStatefulSet = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getStatefulSetResource(namespace, kafka.getName()).cascading(false), kafka.patchStatefulSet(k8s.getStatefulSet(namespace, kafka.getName()))), patchStatefulSet.completer());
-            return patchStatefulSet;
+        if (diff.isVolumesChanged()) {
+            return async.getStatefulSet(namespace, kafka.getName()).compose(ss -> async.isOpenShift().compose(isOpenShift -> {
+                Future<Void> replaceStatefulSet = Future.future();
+                StatefulSet replacement = kafka.generateStatefulSet(isOpenShift);
+                // keep the current number of brokers, scaling up happens after the rolling update
+                replacement.getSpec().setReplicas(ss.getSpec().getReplicas());
+                log.info("Replacing stateful set {} in namespace {} for changing the volumes", kafka.getName(), namespace);
+                OperationExecutor.getInstance().execute(new ReplaceStatefulSetOperation(replacement), replaceStatefulSet.completer());
+                return replaceStatefulSet;
+            }));
+        }
+        else if (diff.getDifferent()) {
+            return async.getStatefulSet(namespace, kafka.getName()).compose(ss -> {
+                Future<Void> patchStatefulSet = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getStatefulSetResource(namespace, kafka.getName()).cascading(false), kafka.patchStatefulSet(ss)), patchStatefulSet.completer());
+                return patchStatefulSet;
+            });
         }
         else
         {
@@ -141,25 +168,55 @@ public class UpdateKafkaClusterOperation extends KafkaClusterOperation {
 
     private Future<Void> patchMetricsConfigMap(KafkaCluster kafka, ClusterDiffResult diff) {
         if (diff.isMetricsChanged()) {
-            Future<Void> patchConfigMap = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getConfigmapResource(namespace, kafka.getMetricsConfigName()), kafka.patchMetricsConfigMap(k8s.getConfigmap(namespace, kafka.getMetricsConfigName()))), patchConfigMap.completer());
-            return patchConfigMap;
+            return async.getConfigmap(namespace, kafka.getMetricsConfigName()).compose(cm -> {
+                Future<Void> patchConfigMap = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getConfigmapResource(namespace, kafka.getMetricsConfigName()), kafka.patchMetricsConfigMap(cm)), patchConfigMap.completer());
+                return patchConfigMap;
+            });
         } else {
             return Future.succeededFuture();
         }
     }
 
-    private Future<Void> rollingUpdate(KafkaCluster kafka, ClusterDiffResult diff) {
-        Future<Void> rollingUpdate = Future.future();
+    /**
+     * Apply the changed dynamic configuration to the running brokers, or mark the diff as needing
+     * a rolling update when that fails
+     */
+    Future<Void> alterBrokerConfig(KafkaCluster kafka, ClusterDiffResult diff) {
+        if (diff.isDynamicConfigChanged()) {
+            Future<Void> alterBrokerConfig = Future.future();
+            OperationExecutor.getInstance().execute(alterBrokerConfigOperation(kafka), ar -> {
+                // e.g. brokers older than Kafka 1.1, they get the new configuration at startup
+                if (ar.failed() && !diff.getRollingUpdate()) {
+                    log.warn("Failed to update the running brokers of Kafka cluster {} in namespace {}, rolling them instead", kafka.getName(), namespace);
+                    diff.setRollingUpdate(true);
+                }
+                alterBrokerConfig.complete();
+            });
+            return alterBrokerConfig;
+        } else {
+            return Future.succeededFuture();
+        }
+    }
+
+    protected Operation alterBrokerConfigOperation(KafkaCluster kafka) {
+        return new AlterBrokerConfigOperation(kafka.getBootstrapServers(), kafka.getConfiguration().dynamicConfig());
+    }
 
+    private Future<Void> rollingUpdate(KafkaCluster kafka, ClusterDiffResult diff) {
         if (diff.getRollingUpdate()) {
-            OperationExecutor.getInstance().execute(new ManualRollingUpdateOperation(namespace, kafka.getName(), k8s.getStatefulSet(namespace, kafka.getName()).getSpec().getReplicas()), rollingUpdate.completer());
+            return async.getStatefulSet(namespace, kafka.getName()).compose(ss -> {
+                Future<Void> rollingUpdate = Future.future();
+                RollingUpdateStrategy strategy = leadershipAwareRollingUpdate
+                        ? new LeadershipAwareRollingUpdateStrategy(kafka.getBootstrapServers(), kafka.getZookeeperConnect(), preferredLeaderElection)
+                        : new OrderedRollingUpdateStrategy();
+                OperationExecutor.getInstance().execute(new ManualRollingUpdateOperation(namespace, kafka.getName(), ss.getSpec().getReplicas(), strategy), rollingUpdate.completer());
+                return rollingUpdate;
+            });
         }
         else {
-            rollingUpdate.complete();
+            return Future.succeededFuture();
         }
-
-        return rollingUpdate;
     }
 
     private Future<Void> scaleUp(KafkaCluster kafka, ClusterDiffResult diff) {
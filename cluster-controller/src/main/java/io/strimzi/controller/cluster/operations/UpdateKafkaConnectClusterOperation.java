@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.PatchOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.ScaleDownOperation;
@@ -9,7 +10,6 @@ import io.strimzi.controller.cluster.operations.openshift.DeleteS2IOperation;
 import io.strimzi.controller.cluster.operations.openshift.UpdateS2IOperation;
 import io.strimzi.controller.cluster.resources.KafkaConnectCluster;
 import io.strimzi.controller.cluster.resources.ClusterDiffResult;
-import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.strimzi.controller.cluster.resources.Source2Image;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
@@ -23,6 +23,7 @@ public class UpdateKafkaConnectClusterOperation extends KafkaConnectClusterOpera
     private static final Logger log = LoggerFactory.getLogger(UpdateKafkaConnectClusterOperation.class.getName());
 
     private K8SUtils k8s;
+    private AsyncK8SUtils async;
 
     public UpdateKafkaConnectClusterOperation(String namespace, String name) {
         super(namespace, name);
@@ -31,42 +32,35 @@ public class UpdateKafkaConnectClusterOperation extends KafkaConnectClusterOpera
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
         this.k8s = k8s;
+        this.async = asyncK8s(vertx, k8s);
 
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                ClusterDiffResult diff;
-                KafkaConnectCluster connect;
-                ConfigMap connectConfigMap = k8s.getConfigmap(namespace, name);
-
-                if (connectConfigMap != null)    {
-                    connect = KafkaConnectCluster.fromConfigMap(k8s, connectConfigMap);
-                    log.info("Updating Kafka Connect cluster {} in namespace {}", connect.getName(), namespace);
-                    diff = connect.diff(k8s, namespace);
-                } else  {
-                    log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
-                    handler.handle(Future.failedFuture("ConfigMap doesn't exist anymore"));
-                    lock.release();
-                    return;
-                }
-
-                Future<Void> chainFuture = Future.future();
-
-                scaleDown(connect, diff)
-                        .compose(i -> patchService(connect, diff))
-                        .compose(i -> patchDeployment(connect, diff))
-                        .compose(i -> patchS2I(connect, diff))
-                        .compose(i -> scaleUp(connect, diff))
-                        .compose(chainFuture::complete, chainFuture);
-
-                chainFuture.setHandler(ar -> {
+                async.getConfigmap(namespace, name).compose(connectConfigMap -> {
+                    if (connectConfigMap == null) {
+                        log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
+                        return Future.<Void>failedFuture("ConfigMap doesn't exist anymore");
+                    }
+
+                    return async.execute(k -> KafkaConnectCluster.fromConfigMap(k, connectConfigMap)).compose(connect -> {
+                        log.info("Updating Kafka Connect cluster {} in namespace {}", connect.getName(), namespace);
+
+                        return async.execute(k -> connect.diff(k, namespace)).compose(diff ->
+                            scaleDown(connect, diff)
+                                    .compose(i -> patchService(connect, diff))
+                                    .compose(i -> patchDeployment(connect, diff))
+                                    .compose(i -> patchS2I(connect, diff))
+                                    .compose(i -> scaleUp(connect, diff)));
+                    });
+                }).setHandler(ar -> {
                     if (ar.succeeded()) {
-                        log.info("Kafka Connect cluster {} successfully updated in namespace {}", connect.getName(), namespace);
+                        log.info("Kafka Connect cluster {} successfully updated in namespace {}", name, namespace);
                         handler.handle(Future.succeededFuture());
                         lock.release();
                     } else {
-                        log.error("Kafka Connect cluster {} failed to update in namespace {}", connect.getName(), namespace);
+                        log.error("Kafka Connect cluster {} failed to update in namespace {}", name, namespace);
                         handler.handle(Future.failedFuture("Failed to update Zookeeper cluster"));
                         lock.release();
                     }
@@ -94,9 +88,11 @@ public class UpdateKafkaConnectClusterOperation extends KafkaConnectClusterOpera
 
     private Future<Void> patchService(KafkaConnectCluster connect, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchService = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, connect.getName()), connect.patchService(k8s.getService(namespace, connect.getName()))), patchService.completer());
-            return patchService;
+            return async.getService(namespace, connect.getName()).compose(svc -> {
+                Future<Void> patchService = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, connect.getName()), connect.patchService(svc)), patchService.completer());
+                return patchService;
+            });
         }
             else
         {
@@ -106,9 +102,11 @@ public class UpdateKafkaConnectClusterOperation extends KafkaConnectClusterOpera
 
     private Future<Void> patchDeployment(KafkaConnectCluster connect, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchDeployment = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getDeploymentResource(namespace, connect.getName()), connect.patchDeployment(k8s.getDeployment(namespace, connect.getName()))), patchDeployment.completer());
-            return patchDeployment;
+            return async.getDeployment(namespace, connect.getName()).compose(dep -> {
+                Future<Void> patchDeployment = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getDeploymentResource(namespace, connect.getName()), connect.patchDeployment(dep)), patchDeployment.completer());
+                return patchDeployment;
+            });
         }
         else
         {
@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.strimzi.controller.cluster.operations.kubernetes.ManualRollingUpdateOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.PatchOperation;
@@ -7,7 +8,6 @@ import io.strimzi.controller.cluster.operations.kubernetes.ScaleDownOperation;
 import io.strimzi.controller.cluster.operations.kubernetes.ScaleUpOperation;
 import io.strimzi.controller.cluster.resources.ClusterDiffResult;
 import io.strimzi.controller.cluster.resources.ZookeeperCluster;
-import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.vertx.core.*;
 import io.vertx.core.shareddata.Lock;
 import org.slf4j.Logger;
@@ -17,6 +17,7 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
     private static final Logger log = LoggerFactory.getLogger(UpdateZookeeperClusterOperation.class.getName());
 
     private K8SUtils k8s;
+    private AsyncK8SUtils async;
 
     public UpdateZookeeperClusterOperation(String namespace, String name) {
         super(namespace, name);
@@ -25,56 +26,42 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
         this.k8s = k8s;
+        this.async = asyncK8s(vertx, k8s);
 
         vertx.sharedData().getLockWithTimeout(getLockName(), LOCK_TIMEOUT, res -> {
             if (res.succeeded()) {
                 Lock lock = res.result();
 
-                ClusterDiffResult diff;
-                ZookeeperCluster zk;
-                ConfigMap zkConfigMap = k8s.getConfigmap(namespace, name);
-
-                if (zkConfigMap != null)    {
+                async.getConfigmap(namespace, name).compose(zkConfigMap -> {
+                    if (zkConfigMap == null) {
+                        log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
+                        return Future.<Void>failedFuture("ConfigMap doesn't exist anymore");
+                    }
 
+                    ZookeeperCluster zk;
                     try {
-
                         zk = ZookeeperCluster.fromConfigMap(zkConfigMap);
-                        log.info("Updating Zookeeper cluster {} in namespace {}", zk.getName(), namespace);
-                        diff = zk.diff(k8s, namespace);
-
                     } catch (Exception ex) {
-
                         log.error("Error while parsing cluster ConfigMap", ex);
-                        handler.handle(Future.failedFuture("ConfigMap parsing error"));
-                        lock.release();
-                        return;
+                        return Future.<Void>failedFuture("ConfigMap parsing error");
                     }
-
-                } else {
-                    log.error("ConfigMap {} doesn't exist anymore in namespace {}", name, namespace);
-                    handler.handle(Future.failedFuture("ConfigMap doesn't exist anymore"));
-                    lock.release();
-                    return;
-                }
-
-                Future<Void> chainFuture = Future.future();
-
-                scaleDown(zk, diff)
-                        .compose(i -> patchService(zk, diff))
-                        .compose(i -> patchHeadlessService(zk, diff))
-                        .compose(i -> patchStatefulSet(zk, diff))
-                        .compose(i -> patchMetricsConfigMap(zk, diff))
-                        .compose(i -> rollingUpdate(zk, diff))
-                        .compose(i -> scaleUp(zk, diff))
-                        .compose(chainFuture::complete, chainFuture);
-
-                chainFuture.setHandler(ar -> {
+                    log.info("Updating Zookeeper cluster {} in namespace {}", zk.getName(), namespace);
+
+                    return async.execute(k -> zk.diff(k, namespace)).compose(diff ->
+                        scaleDown(zk, diff)
+                                .compose(i -> patchService(zk, diff))
+                                .compose(i -> patchHeadlessService(zk, diff))
+                                .compose(i -> patchStatefulSet(zk, diff))
+                                .compose(i -> patchMetricsConfigMap(zk, diff))
+                                .compose(i -> rollingUpdate(zk, diff))
+                                .compose(i -> scaleUp(zk, diff)));
+                }).setHandler(ar -> {
                     if (ar.succeeded()) {
-                        log.info("Zookeeper cluster {} successfully updated in namespace {}", zk.getName(), namespace);
+                        log.info("Zookeeper cluster {} successfully updated in namespace {}", name, namespace);
                         handler.handle(Future.succeededFuture());
                         lock.release();
                     } else {
-                        log.error("Zookeeper cluster {} failed to update in namespace {}", zk.getName(), namespace);
+                        log.error("Zookeeper cluster {} failed to update in namespace {}", name, namespace);
                         handler.handle(Future.failedFuture("Failed to update Zookeeper cluster"));
                         lock.release();
                     }
@@ -102,9 +89,11 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     private Future<Void> patchService(ZookeeperCluster zk, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchService = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, zk.getName()), zk.patchService(k8s.getService(namespace, zk.getName()))), patchService.completer());
-            return patchService;
+            return async.getService(namespace, zk.getName()).compose(svc -> {
+                Future<Void> patchService = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, zk.getName()), zk.patchService(svc)), patchService.completer());
+                return patchService;
+            });
         }
             else
         {
@@ -114,9 +103,11 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     private Future<Void> patchHeadlessService(ZookeeperCluster zk, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchService = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, zk.getHeadlessName()), zk.patchHeadlessService(k8s.getService(namespace, zk.getHeadlessName()))), patchService.completer());
-            return patchService;
+            return async.getService(namespace, zk.getHeadlessName()).compose(svc -> {
+                Future<Void> patchService = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getServiceResource(namespace, zk.getHeadlessName()), zk.patchHeadlessService(svc)), patchService.completer());
+                return patchService;
+            });
         }
             else
         {
@@ -126,9 +117,11 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     private Future<Void> patchStatefulSet(ZookeeperCluster zk, ClusterDiffResult diff) {
         if (diff.getDifferent()) {
-            Future<Void> patchStatefulSet = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getStatefulSetResource(namespace, zk.getName()).cascading(false), zk.patchStatefulSet(k8s.getStatefulSet(namespace, zk.getName()))), patchStatefulSet.completer());
-            return patchStatefulSet;
+            return async.getStatefulSet(namespace, zk.getName()).compose(ss -> {
+                Future<Void> patchStatefulSet = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getStatefulSetResource(namespace, zk.getName()).cascading(false), zk.patchStatefulSet(ss)), patchStatefulSet.completer());
+                return patchStatefulSet;
+            });
         }
         else
         {
@@ -138,25 +131,27 @@ public class UpdateZookeeperClusterOperation extends ZookeeperClusterOperation {
 
     private Future<Void> patchMetricsConfigMap(ZookeeperCluster zk, ClusterDiffResult diff) {
         if (diff.isMetricsChanged()) {
-            Future<Void> patchConfigMap = Future.future();
-            OperationExecutor.getInstance().execute(new PatchOperation(k8s.getConfigmapResource(namespace, zk.getMetricsConfigName()), zk.patchMetricsConfigMap(k8s.getConfigmap(namespace, zk.getMetricsConfigName()))), patchConfigMap.completer());
-            return patchConfigMap;
+            return async.getConfigmap(namespace, zk.getMetricsConfigName()).compose(cm -> {
+                Future<Void> patchConfigMap = Future.future();
+                OperationExecutor.getInstance().execute(new PatchOperation(k8s.getConfigmapResource(namespace, zk.getMetricsConfigName()), zk.patchMetricsConfigMap(cm)), patchConfigMap.completer());
+                return patchConfigMap;
+            });
         } else {
             return Future.succeededFuture();
         }
     }
 
     private Future<Void> rollingUpdate(ZookeeperCluster zk, ClusterDiffResult diff) {
-        Future<Void> rollingUpdate = Future.future();
-
         if (diff.getRollingUpdate()) {
-            OperationExecutor.getInstance().execute(new ManualRollingUpdateOperation(namespace, zk.getName(), k8s.getStatefulSet(namespace, zk.getName()).getSpec().getReplicas()), rollingUpdate.completer());
+            return async.getStatefulSet(namespace, zk.getName()).compose(ss -> {
+                Future<Void> rollingUpdate = Future.future();
+                OperationExecutor.getInstance().execute(new ManualRollingUpdateOperation(namespace, zk.getName(), ss.getSpec().getReplicas()), rollingUpdate.completer());
+                return rollingUpdate;
+            });
         }
         else {
-            rollingUpdate.complete();
+            return Future.succeededFuture();
         }
-
-        return rollingUpdate;
     }
 
     private Future<Void> scaleUp(ZookeeperCluster zk, ClusterDiffResult diff) {
@@ -0,0 +1,93 @@
+package io.strimzi.controller.cluster.operations.kafka;
+
+import io.strimzi.controller.cluster.AsyncK8SUtils;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.strimzi.controller.cluster.operations.Operation;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.common.config.ConfigResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Updates the dynamic configuration of the running brokers of a Kafka cluster (Kafka 1.1 or newer),
+ * as cluster-wide default of all the brokers. The whole dynamic configuration is replaced, so the settings
+ * which aren't there anymore go back to the value the brokers were started with (which needs a rolling update to change).
+ */
+public class AlterBrokerConfigOperation implements Operation {
+    private static final Logger log = LoggerFactory.getLogger(AlterBrokerConfigOperation.class.getName());
+
+    private static final long REQUEST_TIMEOUT_MS = 30_000;
+    private static final long ADMIN_CLIENT_CLOSE_TIMEOUT_MS = 10_000;
+    // the broker resource without name is the cluster-wide default
+    private static final ConfigResource CLUSTER_DEFAULT = new ConfigResource(ConfigResource.Type.BROKER, "");
+
+    private final String bootstrapServers;
+    private final Map<String, String> config;
+
+    /**
+     * @param bootstrapServers  Bootstrap servers of the Kafka cluster
+     * @param config    The dynamic broker configuration
+     */
+    public AlterBrokerConfigOperation(String bootstrapServers, Map<String, String> config) {
+        this.bootstrapServers = bootstrapServers;
+        this.config = config;
+    }
+
+    @Override
+    public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).executeBlocking(
+                future -> {
+                    AdminClient adminClient = null;
+                    try {
+                        log.info("Updating the dynamic configuration of Kafka cluster {} to {}", bootstrapServers, config);
+                        adminClient = createAdminClient();
+
+                        List<ConfigEntry> entries = config.entrySet().stream()
+                                .map(entry -> new ConfigEntry(entry.getKey(), entry.getValue()))
+                                .collect(Collectors.toList());
+                        adminClient.alterConfigs(Collections.singletonMap(CLUSTER_DEFAULT, new Config(entries)))
+                                .all().get(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                        future.complete();
+                    } catch (Exception e) {
+                        log.error("Caught exception while updating the dynamic configuration", e);
+                        future.fail(e);
+                    } finally {
+                        if (adminClient != null) {
+                            adminClient.close(ADMIN_CLIENT_CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                        }
+                    }
+                },
+                false,
+                res -> {
+                    if (res.succeeded()) {
+                        log.info("Dynamic configuration of Kafka cluster {} has been updated", bootstrapServers);
+                        handler.handle(Future.succeededFuture());
+                    }
+                    else {
+                        log.error("Dynamic configuration update failed: {}", res.cause().toString());
+                        handler.handle(Future.failedFuture(res.cause()));
+                    }
+                }
+        );
+    }
+
+    protected AdminClient createAdminClient() {
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        return AdminClient.create(props);
+    }
+}
@@ -0,0 +1,33 @@
+package io.strimzi.controller.cluster.operations.kafka;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import org.apache.kafka.common.KafkaFuture;
+
+/**
+ * Bridges the futures of the Kafka AdminClient to Vert.x
+ */
+public class KafkaFutures {
+
+    private KafkaFutures() {
+    }
+
+    /**
+     * Returns a Vert.x future which is completed on the given context when the given Kafka future completes.
+     *
+     * @param context   Vert.x context to complete the future on
+     * @param kafkaFuture   Kafka future
+     * @return  Vert.x future
+     */
+    public static <T> Future<T> toFuture(Context context, KafkaFuture<T> kafkaFuture) {
+        Future<T> future = Future.future();
+        kafkaFuture.whenComplete((value, error) -> context.runOnContext(v -> {
+            if (error != null) {
+                future.fail(error);
+            } else {
+                future.complete(value);
+            }
+        }));
+        return future;
+    }
+}
@@ -0,0 +1,295 @@
+package io.strimzi.controller.cluster.operations.kafka;
+
+import io.strimzi.controller.cluster.AsyncK8SUtils;
+import io.strimzi.controller.cluster.operations.kubernetes.OrderedRollingUpdateStrategy;
+import io.strimzi.controller.cluster.operations.kubernetes.RollingUpdateStrategy;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rolls the brokers of a Kafka cluster in a way which limits the disruption to clients:
+ * <ul>
+ *     <li>The broker which is currently the Kafka controller is rolled last, so that the controller
+ *         moves at most once.</li>
+ *     <li>After each broker is restarted, the next one is not rolled until the restarted broker has caught up
+ *         and rejoined the ISRs of all its partitions. Partitions which are under-replicated for other reasons
+ *         (e.g. a replica on a broker which is down) are not waited for.</li>
+ *     <li>Optionally, once all the brokers have been rolled, a preferred leader election is triggered for the
+ *         partitions whose leader is not their preferred replica.</li>
+ * </ul>
+ * The broker id of each pod is the ordinal suffix of the pod name.
+ * If the cluster cannot be reached when the rolling update starts, this falls back to rolling the pods in
+ * index order without waiting, as {@link OrderedRollingUpdateStrategy} does.
+ */
+public class LeadershipAwareRollingUpdateStrategy implements RollingUpdateStrategy {
+    private static final Logger log = LoggerFactory.getLogger(LeadershipAwareRollingUpdateStrategy.class.getName());
+
+    public static final long DEFAULT_URP_TIMEOUT_MS = 300_000;
+    public static final long DEFAULT_URP_POLL_INTERVAL_MS = 5_000;
+    private static final int ZOOKEEPER_SESSION_TIMEOUT_MS = 30_000;
+    private static final long ADMIN_CLIENT_CLOSE_TIMEOUT_MS = 10_000;
+    private static final String PREFERRED_REPLICA_ELECTION_PATH = "/admin/preferred_replica_election";
+
+    private final String bootstrapServers;
+    private final String zookeeperConnect;
+    private final boolean preferredLeaderElection;
+    private final long urpTimeoutMs;
+    private final long urpPollIntervalMs;
+
+    private AdminClient adminClient;
+    private boolean fallback = false;
+
+    /**
+     * @param bootstrapServers          Bootstrap servers of the Kafka cluster
+     * @param zookeeperConnect          Zookeeper connect string of the Kafka cluster, used only for the preferred leader election
+     * @param preferredLeaderElection   Whether to trigger a preferred leader election once all the brokers have been rolled
+     */
+    public LeadershipAwareRollingUpdateStrategy(String bootstrapServers, String zookeeperConnect, boolean preferredLeaderElection) {
+        this(bootstrapServers, zookeeperConnect, preferredLeaderElection, DEFAULT_URP_TIMEOUT_MS, DEFAULT_URP_POLL_INTERVAL_MS);
+    }
+
+    public LeadershipAwareRollingUpdateStrategy(String bootstrapServers, String zookeeperConnect, boolean preferredLeaderElection,
+                                                long urpTimeoutMs, long urpPollIntervalMs) {
+        this.bootstrapServers = bootstrapServers;
+        this.zookeeperConnect = zookeeperConnect;
+        this.preferredLeaderElection = preferredLeaderElection;
+        this.urpTimeoutMs = urpTimeoutMs;
+        this.urpPollIntervalMs = urpPollIntervalMs;
+    }
+
+    @Override
+    public Future<List<String>> order(Vertx vertx, List<String> podNames) {
+        Future<List<String>> result = Future.future();
+        Context context = vertx.getOrCreateContext();
+        // creating the AdminClient resolves the bootstrap servers and starts its network thread
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).<AdminClient>executeBlocking(
+            future -> {
+                try {
+                    future.complete(createAdminClient());
+                } catch (Exception e) {
+                    future.fail(e);
+                }
+            },
+            false,
+            created -> {
+                if (created.failed()) {
+                    log.warn("Failed to create an AdminClient for {}, rolling in index order", bootstrapServers, created.cause());
+                    fallback = true;
+                    result.complete(podNames);
+                    return;
+                }
+                adminClient = created.result();
+                orderControllerLast(context, podNames, result);
+            });
+        return result;
+    }
+
+    private void orderControllerLast(Context context, List<String> podNames, Future<List<String>> result) {
+        KafkaFutures.toFuture(context, adminClient.describeCluster().controller()).setHandler(ar -> {
+            if (ar.failed() || ar.result() == null) {
+                log.warn("Failed to find the controller of Kafka cluster {}, rolling in index order", bootstrapServers, ar.cause());
+                fallback = true;
+                result.complete(podNames);
+                return;
+            }
+
+            Node controller = ar.result();
+            List<String> ordered = new ArrayList<>(podNames.size());
+            String controllerPod = null;
+            for (String podName : podNames) {
+                if (brokerId(podName) == controller.id()) {
+                    controllerPod = podName;
+                } else {
+                    ordered.add(podName);
+                }
+            }
+            if (controllerPod != null) {
+                ordered.add(controllerPod);
+            }
+            log.info("Rolling brokers in order {}, controller is broker {}", ordered, controller.id());
+            result.complete(ordered);
+        });
+    }
+
+    protected AdminClient createAdminClient() {
+        Properties props = new Properties();
+        props.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        return AdminClient.create(props);
+    }
+
+    @Override
+    public Future<Void> podRolled(Vertx vertx, String podName) {
+        if (fallback) {
+            return Future.succeededFuture();
+        }
+        Future<Void> result = Future.future();
+        awaitBrokerInSync(vertx, podName, System.currentTimeMillis() + urpTimeoutMs, result);
+        return result;
+    }
+
+    private void awaitBrokerInSync(Vertx vertx, String podName, long deadline, Future<Void> result) {
+        int brokerId = brokerId(podName);
+        describeAllTopics(vertx).setHandler(ar -> {
+            if (ar.succeeded()) {
+                int urp = 0;
+                for (TopicDescription description : ar.result()) {
+                    for (TopicPartitionInfo partition : description.partitions()) {
+                        if (contains(partition.replicas(), brokerId) && !contains(partition.isr(), brokerId)) {
+                            urp++;
+                        }
+                    }
+                }
+                if (urp == 0) {
+                    log.info("Broker {} is in sync for all its partitions after rolling pod {}", brokerId, podName);
+                    result.complete();
+                    return;
+                }
+                log.info("Waiting for broker {} to rejoin the ISR of {} partitions after rolling pod {}", brokerId, urp, podName);
+            } else {
+                log.info("Failed to describe topics after rolling pod {}, will retry", podName, ar.cause());
+            }
+
+            if (System.currentTimeMillis() >= deadline) {
+                result.fail(new TimeoutException("Partitions of broker " + brokerId + " still under-replicated " + urpTimeoutMs + "ms after rolling pod " + podName));
+            } else {
+                vertx.setTimer(urpPollIntervalMs, id -> awaitBrokerInSync(vertx, podName, deadline, result));
+            }
+        });
+    }
+
+    @Override
+    public Future<Void> rolled(Vertx vertx) {
+        if (fallback || !preferredLeaderElection) {
+            return Future.succeededFuture();
+        }
+
+        Future<Void> result = Future.future();
+        describeAllTopics(vertx).setHandler(ar -> {
+            if (ar.failed()) {
+                log.warn("Failed to describe topics, skipping preferred leader election", ar.cause());
+                result.complete();
+                return;
+            }
+
+            JsonArray partitions = new JsonArray();
+            for (TopicDescription description : ar.result()) {
+                for (TopicPartitionInfo partition : description.partitions()) {
+                    if (!partition.replicas().isEmpty()
+                            && (partition.leader() == null || partition.leader().id() != partition.replicas().get(0).id())) {
+                        partitions.add(new JsonObject().put("topic", description.name()).put("partition", partition.partition()));
+                    }
+                }
+            }
+            if (partitions.isEmpty()) {
+                log.info("All partitions are led by their preferred replica");
+                result.complete();
+                return;
+            }
+
+            byte[] data = new JsonObject().put("version", 1).put("partitions", partitions).encode().getBytes(StandardCharsets.UTF_8);
+            vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).<Void>executeBlocking(
+                future -> {
+                    try {
+                        createPreferredReplicaElection(data);
+                        future.complete();
+                    } catch (Exception e) {
+                        future.fail(e);
+                    }
+                },
+                false,
+                res -> {
+                    if (res.succeeded()) {
+                        log.info("Triggered preferred leader election for {} partitions", partitions.size());
+                    } else {
+                        log.warn("Failed to trigger preferred leader election", res.cause());
+                    }
+                    result.complete();
+                });
+        });
+        return result;
+    }
+
+    private void createPreferredReplicaElection(byte[] data) throws Exception {
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper zk = new ZooKeeper(zookeeperConnect, ZOOKEEPER_SESSION_TIMEOUT_MS, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        });
+        try {
+            if (!connected.await(ZOOKEEPER_SESSION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("Could not connect to Zookeeper " + zookeeperConnect);
+            }
+            zk.create(PREFERRED_REPLICA_ELECTION_PATH, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+        } catch (KeeperException.NodeExistsException e) {
+            log.info("A preferred leader election is already in progress");
+        } finally {
+            zk.close();
+        }
+    }
+
+    @Override
+    public void close(Vertx vertx) {
+        if (adminClient != null) {
+            AdminClient client = adminClient;
+            adminClient = null;
+            vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).executeBlocking(
+                future -> {
+                    client.close(ADMIN_CLIENT_CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    future.complete();
+                },
+                false,
+                res -> { });
+        }
+    }
+
+    private Future<Collection<TopicDescription>> describeAllTopics(Vertx vertx) {
+        Context context = vertx.getOrCreateContext();
+        return KafkaFutures.toFuture(context, adminClient.listTopics(new ListTopicsOptions().listInternal(true)).names())
+                .compose(names -> KafkaFutures.toFuture(context, adminClient.describeTopics(names).all()))
+                .map(Map::values);
+    }
+
+    private static boolean contains(List<Node> nodes, int brokerId) {
+        for (Node node : nodes) {
+            if (node.id() == brokerId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static int brokerId(String podName) {
+        try {
+            return Integer.parseInt(podName.substring(podName.lastIndexOf('-') + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations.kubernetes;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
 import io.vertx.core.AsyncResult;
@@ -19,7 +20,7 @@ public class CreateStatefulSetOperation extends K8sOperation {
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).executeBlocking(
                 future -> {
                     if (!k8s.statefulSetExists(sfs.getMetadata().getNamespace(), sfs.getMetadata().getName())) {
                         try {
@@ -1,119 +1,254 @@
 package io.strimzi.controller.cluster.operations.kubernetes;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.K8SUtils;
 import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodCondition;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.Watch;
 import io.fabric8.kubernetes.client.Watcher;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Restarts the pods of a stateful set one at a time, waiting for each restarted pod to become ready
+ * before moving on to the next one. The order of the pods, and any further condition for moving on,
+ * is decided by a {@link RollingUpdateStrategy}, by default {@link OrderedRollingUpdateStrategy}.
+ *
+ * The rolling update does not occupy any thread while waiting: each pod is rolled by a small state machine
+ * (deletion requested, pod deleted, pod re-created, pod ready) driven by the events of a watch on the pod,
+ * with a timer limiting the time a single pod may take. A pod which doesn't exist when it's due to be deleted
+ * is not waited for to be deleted, only for its replacement to become ready.
+ */
 public class ManualRollingUpdateOperation extends K8sOperation {
     private static final Logger log = LoggerFactory.getLogger(ManualRollingUpdateOperation.class.getName());
+
+    public static final long DEFAULT_POD_TIMEOUT_MS = 300_000;
+
     private final String namespace;
     private final String name;
     private final int replicas;
+    private final long podTimeoutMs;
+    private final RollingUpdateStrategy strategy;
+    private AsyncK8SUtils async;
 
     public ManualRollingUpdateOperation(String namespace, String name, int replicas) {
+        this(namespace, name, replicas, new OrderedRollingUpdateStrategy());
+    }
+
+    public ManualRollingUpdateOperation(String namespace, String name, int replicas, RollingUpdateStrategy strategy) {
+        this(namespace, name, replicas, strategy, DEFAULT_POD_TIMEOUT_MS);
+    }
+
+    public ManualRollingUpdateOperation(String namespace, String name, int replicas, RollingUpdateStrategy strategy, long podTimeoutMs) {
         this.namespace = namespace;
         this.name = name;
         this.replicas = replicas;
+        this.strategy = strategy;
+        this.podTimeoutMs = podTimeoutMs;
     }
 
     @Override
     public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
-                future -> {
-                    try {
-                        log.info("Doing rolling update of stateful set {} in namespace {}", name, namespace);
+        log.info("Doing rolling update of stateful set {} in namespace {}", name, namespace);
+        if (async == null) {
+            async = new AsyncK8SUtils(vertx, k8s);
+        }
 
-                        for (int i = 0; i < replicas; i++) {
-                            String podName = name + "-" + i;
-                            log.info("Rolling pod {}", podName);
-                            Future deleted = Future.future();
-                            Watcher<Pod> watcher = new RollingUpdateWatcher<Pod>(deleted);
+        List<String> podNames = new ArrayList<>(replicas);
+        for (int i = 0; i < replicas; i++) {
+            podNames.add(name + "-" + i);
+        }
 
-                            Watch watch = k8s.createPodWatch(namespace, podName, watcher);
-                            k8s.deletePod(namespace, podName);
+        strategy.order(vertx, podNames).compose(ordered -> {
+            Future<Void> chain = Future.succeededFuture();
+            for (String podName : ordered) {
+                chain = chain.compose(v -> rollPod(vertx, async, podName))
+                        .compose(v -> strategy.podRolled(vertx, podName));
+            }
+            return chain;
+        }).compose(v -> strategy.rolled(vertx)).setHandler(res -> {
+            strategy.close(vertx);
+            if (res.succeeded()) {
+                log.info("Stateful set {} in namespace {} has been rolled", name, namespace);
+                handler.handle(Future.succeededFuture());
+            }
+            else {
+                log.error("Failed to do rolling update of stateful set {} in namespace {}", name, namespace, res.cause());
+                handler.handle(Future.failedFuture(res.cause()));
+            }
+        });
+    }
 
-                            while (!deleted.isComplete()) {
-                                log.info("Waiting for pod {} to be deleted", podName);
-                                Thread.sleep(1000);
-                            }
+    /**
+     * Restart the given pod.
+     *
+     * @return  Future which completes when the re-created pod is ready
+     */
+    protected Future<Void> rollPod(Vertx vertx, AsyncK8SUtils async, String podName) {
+        log.info("Rolling pod {}", podName);
+        Future<Void> rolled = Future.future();
+        RollingUpdateWatcher watcher = new RollingUpdateWatcher(vertx.getOrCreateContext(), podName, rolled);
+
+        long timerId = vertx.setTimer(podTimeoutMs, id -> {
+            watcher.fail(new TimeoutException("Pod " + podName + " was not rolled within " + podTimeoutMs + "ms"));
+        });
+
+        // Watch before deleting, so that we can't miss any event
+        async.execute(k -> {
+            watcher.setWatch(k.createPodWatch(namespace, podName, watcher));
+            // false when the pod doesn't exist, e.g. it's already being re-created by the stateful set
+            return Boolean.TRUE.equals(k.getPodResource(namespace, podName).delete());
+        }).setHandler(res -> {
+            if (res.failed()) {
+                watcher.fail(res.cause());
+            }
+            else if (!res.result()) {
+                watcher.missing();
+            }
+        });
+
+        Future<Void> result = Future.future();
+        rolled.setHandler(res -> {
+            vertx.cancelTimer(timerId);
+            Watch watch = watcher.getWatch();
+            if (watch != null) {
+                async.execute(k -> {
+                    watch.close();
+                    return null;
+                });
+            }
+            if (res.succeeded()) {
+                log.info("Pod {} rolling update complete", podName);
+            }
+            result.handle(res);
+        });
+        return result;
+    }
 
-                            watch.close();
+    static boolean isReady(Pod pod) {
+        if (pod.getStatus() == null || pod.getStatus().getConditions() == null) {
+            return false;
+        }
+        for (PodCondition condition : pod.getStatus().getConditions()) {
+            if ("Ready".equals(condition.getType())) {
+                return "True".equals(condition.getStatus());
+            }
+        }
+        return false;
+    }
 
-                            while (!k8s.isPodReady(namespace, podName)) {
-                                log.info("Waiting for pod {} to get ready", podName);
-                                Thread.sleep(1000);
-                            };
+    /**
+     * Follows a single pod through deletion, re-creation and readiness.
+     * Events arrive on the Kubernetes client's threads and are handed over to the Vert.x context,
+     * where all the state transitions happen.
+     */
+    class RollingUpdateWatcher implements Watcher<Pod> {
+        private final Context context;
+        private final String podName;
+        private final Future<Void> rolled;
+        private volatile Watch watch;
+
+        // Only accessed on the context
+        private boolean deleted = false;
+        private boolean added = false;
+        private Pod ignored = null;
+
+        public RollingUpdateWatcher(Context context, String podName, Future<Void> rolled) {
+            this.context = context;
+            this.podName = podName;
+            this.rolled = rolled;
+        }
 
-                            log.info("Pod {} rolling update complete", podName);
-                        }
+        void setWatch(Watch watch) {
+            this.watch = watch;
+        }
 
-                        future.complete();
-                    }
-                    catch (Exception e) {
-                        log.error("Caught exception while doing manual rolling update of stateful set {} in namespace {}", name, namespace);
-                        future.fail(e);
-                    }
-                },
-                false,
-                res -> {
-                    if (res.succeeded()) {
-                        log.info("Stateful set {} in namespace {} has been rolled", name, namespace);
-                        handler.handle(Future.succeededFuture());
-                    }
-                    else {
-                        log.error("Failed to do rolling update of stateful set {} in namespace {}: {}", name, namespace, res.result());
-                        handler.handle(Future.failedFuture((Exception)res.result()));
-                    }
-                }
-        );
-    }
+        Watch getWatch() {
+            return watch;
+        }
 
-    class RollingUpdateWatcher<T> implements Watcher<T> {
-        //private static final Logger log = LoggerFactory.getLogger(RollingUpdateWatcher.class.getName());
-        private final Future deleted;
+        void fail(Throwable cause) {
+            context.runOnContext(v -> {
+                if (!rolled.isComplete()) {
+                    rolled.fail(cause);
+                }
+            });
+        }
 
-        public RollingUpdateWatcher(Future deleted) {
-            this.deleted = deleted;
+        /**
+         * The pod wasn't there to be deleted, so don't wait for its deletion but just for the replacement pod
+         * to be ready (including any replacement pod event which came in before this)
+         */
+        void missing() {
+            context.runOnContext(v -> {
+                if (rolled.isComplete() || deleted) {
+                    return;
+                }
+                log.info("Pod {} doesn't exist, waiting for it to be re-created", podName);
+                deleted = true;
+                if (ignored != null) {
+                    onEvent(Action.MODIFIED, ignored);
+                }
+            });
         }
 
         @Override
-        public void eventReceived(Action action, T pod) {
+        public void eventReceived(Action action, Pod pod) {
+            context.runOnContext(v -> onEvent(action, pod));
+        }
+
+        private void onEvent(Action action, Pod pod) {
+            if (rolled.isComplete()) {
+                return;
+            }
             switch (action) {
                 case DELETED:
-                    log.info("Pod has been deleted");
-                    deleted.complete();
+                    log.info("Pod {} has been deleted", podName);
+                    deleted = true;
+                    added = false;
                     break;
                 case ADDED:
                 case MODIFIED:
-                    log.info("Ignored action {} while waiting for Pod deletion", action);
+                    if (!deleted) {
+                        log.debug("Ignored action {} while waiting for deletion of pod {}", action, podName);
+                        ignored = pod;
+                        break;
+                    }
+                    if (!added) {
+                        log.info("Pod {} has been re-created, waiting for it to get ready", podName);
+                        added = true;
+                    }
+                    if (isReady(pod)) {
+                        rolled.complete();
+                    }
                     break;
                 case ERROR:
-                    log.error("Error while waiting for Pod deletion");
+                    log.error("Error while watching pod {}", podName);
                     break;
                 default:
-                    log.error("Unknown action {} while waiting for pod deletion", action);
+                    log.error("Unknown action {} while watching pod {}", action, podName);
             }
         }
 
         @Override
         public void onClose(KubernetesClientException e) {
-            if (e != null && !deleted.isComplete()) {
-                log.error("Kubernetes watcher has been closed with exception!", e);
-                deleted.fail(e);
+            if (e != null) {
+                log.error("Kubernetes watcher for pod {} has been closed with exception!", podName, e);
+                fail(e);
             }
             else {
-                log.info("Kubernetes watcher has been closed!");
+                log.info("Kubernetes watcher for pod {} has been closed!", podName);
             }
         }
     }
 }
-
-
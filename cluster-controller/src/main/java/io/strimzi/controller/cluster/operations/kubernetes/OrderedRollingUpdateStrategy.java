@@ -0,0 +1,31 @@
+package io.strimzi.controller.cluster.operations.kubernetes;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.List;
+
+/**
+ * Rolls the pods in index order, moving on to the next pod as soon as the previous one is ready.
+ */
+public class OrderedRollingUpdateStrategy implements RollingUpdateStrategy {
+
+    @Override
+    public Future<List<String>> order(Vertx vertx, List<String> podNames) {
+        return Future.succeededFuture(podNames);
+    }
+
+    @Override
+    public Future<Void> podRolled(Vertx vertx, String podName) {
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public Future<Void> rolled(Vertx vertx) {
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public void close(Vertx vertx) {
+    }
+}
@@ -0,0 +1,94 @@
+package io.strimzi.controller.cluster.operations.kubernetes;
+
+import io.strimzi.controller.cluster.AsyncK8SUtils;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replaces a stateful set, for changing what can't be patched (e.g. the volume claim templates).
+ * The pods are orphaned and adopted by the new stateful set, so they get the new spec only when
+ * they are restarted (e.g. by a rolling update).
+ *
+ * The replacement does not occupy any thread while waiting for the old stateful set to be deleted:
+ * its existence is checked on the worker pool, with a timer between the checks.
+ */
+public class ReplaceStatefulSetOperation extends K8sOperation {
+    private static final Logger log = LoggerFactory.getLogger(ReplaceStatefulSetOperation.class.getName());
+
+    public static final long DEFAULT_DELETION_TIMEOUT_MS = 60_000;
+    private static final long DELETION_POLL_INTERVAL_MS = 1_000;
+
+    private final StatefulSet sfs;
+    private final long deletionTimeoutMs;
+    private AsyncK8SUtils async;
+
+    public ReplaceStatefulSetOperation(StatefulSet sfs) {
+        this(sfs, DEFAULT_DELETION_TIMEOUT_MS);
+    }
+
+    public ReplaceStatefulSetOperation(StatefulSet sfs, long deletionTimeoutMs) {
+        this.sfs = sfs;
+        this.deletionTimeoutMs = deletionTimeoutMs;
+    }
+
+    @Override
+    public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+        String namespace = sfs.getMetadata().getNamespace();
+        String name = sfs.getMetadata().getName();
+        if (async == null) {
+            async = new AsyncK8SUtils(vertx, k8s);
+        }
+
+        log.info("Replacing stateful set {} in namespace {}", name, namespace);
+        long deadline = System.currentTimeMillis() + deletionTimeoutMs;
+        async.execute(k -> {
+            // without cascading the pods (and their claims) are left running
+            k.getStatefulSetResource(namespace, name).cascading(false).delete();
+            return null;
+        }).compose(v -> {
+            Future<Void> deleted = Future.future();
+            awaitDeletion(vertx, namespace, name, deadline, deleted);
+            return deleted;
+        }).compose(v -> async.<Void>execute(k -> {
+            k.createStatefulSet(sfs);
+            return null;
+        })).setHandler(res -> {
+            if (res.succeeded()) {
+                log.info("Stateful set {} in namespace {} has been replaced", name, namespace);
+                handler.handle(Future.succeededFuture());
+            }
+            else {
+                log.error("Stateful set replacement failed", res.cause());
+                handler.handle(Future.failedFuture(res.cause()));
+            }
+        });
+    }
+
+    /**
+     * Complete the given future once the stateful set doesn't exist anymore, or fail it after the deadline.
+     */
+    private void awaitDeletion(Vertx vertx, String namespace, String name, long deadline, Future<Void> deleted) {
+        async.execute(k -> k.statefulSetExists(namespace, name)).setHandler(exists -> {
+            if (exists.failed()) {
+                deleted.fail(exists.cause());
+            }
+            else if (!exists.result()) {
+                deleted.complete();
+            }
+            else if (System.currentTimeMillis() > deadline) {
+                deleted.fail(new TimeoutException("Timed out waiting for stateful set " + name + " to be deleted"));
+            }
+            else {
+                vertx.setTimer(DELETION_POLL_INTERVAL_MS, id -> awaitDeletion(vertx, namespace, name, deadline, deleted));
+            }
+        });
+    }
+}
@@ -0,0 +1,45 @@
+package io.strimzi.controller.cluster.operations.kubernetes;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+
+import java.util.List;
+
+/**
+ * Decides the order in which {@link ManualRollingUpdateOperation} restarts the pods of a stateful set,
+ * and when it is safe to move on to the next pod.
+ * All the methods are called on the Vert.x context of the rolling update and must not block.
+ */
+public interface RollingUpdateStrategy {
+
+    /**
+     * @param vertx     Vert.x instance
+     * @param podNames  Names of the pods to be rolled, in index order
+     * @return  Future which completes with the names of the pods in the order they should be rolled
+     */
+    Future<List<String>> order(Vertx vertx, List<String> podNames);
+
+    /**
+     * Called once the given pod has been restarted and is ready again.
+     *
+     * @param vertx     Vert.x instance
+     * @param podName   Name of the pod which has been rolled
+     * @return  Future which completes when it is safe to roll the next pod
+     */
+    Future<Void> podRolled(Vertx vertx, String podName);
+
+    /**
+     * Called once all the pods have been rolled.
+     *
+     * @param vertx     Vert.x instance
+     * @return  Future which completes when any post-roll work is done
+     */
+    Future<Void> rolled(Vertx vertx);
+
+    /**
+     * Releases any resources held by the strategy. Called once the rolling update has finished, successfully or not.
+     *
+     * @param vertx     Vert.x instance
+     */
+    void close(Vertx vertx);
+}
@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations.openshift;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.fabric8.kubernetes.api.model.extensions.Deployment;
 import io.fabric8.openshift.api.model.Image;
 import io.fabric8.openshift.api.model.ImageStream;
@@ -38,7 +39,7 @@ public class CreateImageStreamOperation extends OpenShiftOperation {
      */
     @Override
     public void execute(Vertx vertx, OpenShiftUtils os, Handler<AsyncResult<Void>> handler) {
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).executeBlocking(
                 future -> {
                     try {
                         if (!os.exists(imageStream.getMetadata().getNamespace(), imageStream.getMetadata().getName(), ImageStream.class)) {
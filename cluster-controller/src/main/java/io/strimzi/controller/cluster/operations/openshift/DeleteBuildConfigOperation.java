@@ -1,5 +1,6 @@
 package io.strimzi.controller.cluster.operations.openshift;
 
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.fabric8.openshift.api.model.BuildConfig;
 import io.strimzi.controller.cluster.OpenShiftUtils;
 import io.vertx.core.AsyncResult;
@@ -37,7 +38,7 @@ public class DeleteBuildConfigOperation extends OpenShiftOperation {
      */
     @Override
     public void execute(Vertx vertx, OpenShiftUtils os, Handler<AsyncResult<Void>> handler) {
-        vertx.createSharedWorkerExecutor("kubernetes-ops-pool").executeBlocking(
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).executeBlocking(
                 future -> {
                     try {
                         if (os.exists(namespace, name, BuildConfig.class)) {
@@ -1,7 +1,9 @@
 package io.strimzi.controller.cluster.operations.openshift;
 
+import io.fabric8.kubernetes.api.model.KubernetesResource;
 import io.fabric8.openshift.api.model.BuildConfig;
 import io.fabric8.openshift.api.model.ImageStream;
+import io.strimzi.controller.cluster.AsyncK8SUtils;
 import io.strimzi.controller.cluster.OpenShiftUtils;
 import io.strimzi.controller.cluster.operations.OperationExecutor;
 import io.strimzi.controller.cluster.resources.Source2Image;
@@ -13,6 +15,9 @@ import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Updates all Source2Image resources
  */
@@ -39,35 +44,53 @@ public class UpdateS2IOperation extends S2IOperation {
     public void execute(Vertx vertx, OpenShiftUtils os, Handler<AsyncResult<Void>> handler) {
         log.info("Updating S2I {} in namespace {}", s2i.getName(), s2i.getNamespace());
 
-        try {
-            if (s2i.diff(os).getDifferent()) {
-                Future<Void> futureSourceImageStream = Future.future();
-                OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getSourceImageStreamName(), ImageStream.class), s2i.patchSourceImageStream((ImageStream) os.get(s2i.getNamespace(), s2i.getSourceImageStreamName(), ImageStream.class))), futureSourceImageStream.completer());
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME).<List<KubernetesResource>>executeBlocking(
+                future -> {
+                    try {
+                        if (s2i.diff(os).getDifferent()) {
+                            future.complete(Arrays.asList(
+                                    s2i.patchSourceImageStream((ImageStream) os.get(s2i.getNamespace(), s2i.getSourceImageStreamName(), ImageStream.class)),
+                                    s2i.patchTargetImageStream((ImageStream) os.get(s2i.getNamespace(), s2i.getName(), ImageStream.class)),
+                                    s2i.patchBuildConfig((BuildConfig) os.get(s2i.getNamespace(), s2i.getName(), BuildConfig.class))));
+                        } else {
+                            future.complete(null);
+                        }
+                    }
+                    catch (Exception e) {
+                        future.fail(e);
+                    }
+                },
+                false,
+                res -> {
+                    if (res.failed()) {
+                        log.error("S2I cluster {} failed to update in namespace {}", s2i.getName(), s2i.getNamespace(), res.cause());
+                        handler.handle(Future.failedFuture("Failed to update S2I"));
+                    } else if (res.result() != null) {
+                        List<KubernetesResource> patches = res.result();
 
-                Future<Void> futureTargetImageStream = Future.future();
-                OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getName(), ImageStream.class), s2i.patchTargetImageStream((ImageStream) os.get(s2i.getNamespace(), s2i.getName(), ImageStream.class))), futureTargetImageStream.completer());
+                        Future<Void> futureSourceImageStream = Future.future();
+                        OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getSourceImageStreamName(), ImageStream.class), patches.get(0)), futureSourceImageStream.completer());
 
-                Future<Void> futureBuildConfig = Future.future();
-                OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getName(), BuildConfig.class), s2i.patchBuildConfig((BuildConfig) os.get(s2i.getNamespace(), s2i.getName(), BuildConfig.class))), futureBuildConfig.completer());
+                        Future<Void> futureTargetImageStream = Future.future();
+                        OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getName(), ImageStream.class), patches.get(1)), futureTargetImageStream.completer());
 
-                CompositeFuture.join(futureSourceImageStream, futureTargetImageStream, futureBuildConfig).setHandler(ar -> {
-                    if (ar.succeeded()) {
-                        log.info("S2I {} successfully updated in namespace {}", s2i.getName(), s2i.getNamespace());
-                        handler.handle(Future.succeededFuture());
+                        Future<Void> futureBuildConfig = Future.future();
+                        OperationExecutor.getInstance().execute(new PatchOperation(os.getResource(s2i.getNamespace(), s2i.getName(), BuildConfig.class), patches.get(2)), futureBuildConfig.completer());
+
+                        CompositeFuture.join(futureSourceImageStream, futureTargetImageStream, futureBuildConfig).setHandler(ar -> {
+                            if (ar.succeeded()) {
+                                log.info("S2I {} successfully updated in namespace {}", s2i.getName(), s2i.getNamespace());
+                                handler.handle(Future.succeededFuture());
+                            } else {
+                                log.error("S2I cluster {} failed to update in namespace {}", s2i.getName(), s2i.getNamespace());
+                                handler.handle(Future.failedFuture("Failed to update S2I"));
+                            }
+                        });
                     } else {
-                        log.error("S2I cluster {} failed to update in namespace {}", s2i.getName(), s2i.getNamespace());
-                        handler.handle(Future.failedFuture("Failed to update S2I"));
+                        log.info("No S2I {} differences found in namespace {}", s2i.getName(), s2i.getNamespace());
+                        handler.handle(Future.succeededFuture());
                     }
-                });
-            } else {
-                log.info("No S2I {} differences found in namespace {}", s2i.getName(), s2i.getNamespace());
-                handler.handle(Future.succeededFuture());
-            }
-        }
-        catch (Exception e) {
-            log.error("S2I cluster {} failed to update in namespace {}", s2i.getName(), s2i.getNamespace(), e);
-            handler.handle(Future.failedFuture("Failed to update S2I"));
-        }
-
+                }
+        );
     }
 }
@@ -18,6 +18,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public abstract class AbstractCluster {
 
@@ -29,6 +30,10 @@ public abstract class AbstractCluster {
 
     protected static final String METRICS_CONFIG_FILE = "config.yml";
 
+    // JVM options, all the images start the JVM through the Kafka scripts which read them from the environment
+    protected static final String KEY_KAFKA_HEAP_OPTS = "KAFKA_HEAP_OPTS";
+    protected static final String KEY_KAFKA_JVM_PERFORMANCE_OPTS = "KAFKA_JVM_PERFORMANCE_OPTS";
+
     protected final String cluster;
     protected final String namespace;
     protected Map<String, String> labels = new HashMap<>();
@@ -55,6 +60,8 @@ public abstract class AbstractCluster {
 
     protected Storage storage;
 
+    protected Resources resources = new Resources();
+
     protected String mounthPath;
     protected String volumeName;
     protected String metricsConfigVolumeName;
@@ -180,6 +187,48 @@ public abstract class AbstractCluster {
         this.storage = storage;
     }
 
+    public Resources getResources() {
+        return resources;
+    }
+
+    protected void setResources(Resources resources) {
+        this.resources = resources;
+    }
+
+    /**
+     * Get the heap and GC options for the JVM, sized from the container resources
+     *
+     * @param heapFraction  fraction of the container memory to use for the heap
+     * @param maxHeap   maximum heap size in bytes
+     * @param maxGCPauseMillis  G1 pause time target
+     * @return  environment variables with the JVM options, empty if the container has no resources
+     */
+    protected List<EnvVar> getJvmEnvVars(double heapFraction, long maxHeap, int maxGCPauseMillis) {
+        List<EnvVar> varList = new ArrayList<>();
+
+        Long memory = resources.memory();
+        if (memory != null) {
+            // a fixed heap, the rest of the container memory is left to off-heap and page cache
+            long heapMb = Math.max(1, Math.min((long) (memory * heapFraction), maxHeap) / (1024 * 1024));
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_HEAP_OPTS).withValue("-Xms" + heapMb + "m -Xmx" + heapMb + "m").build());
+        }
+
+        Integer cpus = resources.cpus();
+        if (memory != null || cpus != null) {
+            StringBuilder opts = new StringBuilder("-server -XX:+UseG1GC")
+                    .append(" -XX:MaxGCPauseMillis=").append(maxGCPauseMillis)
+                    .append(" -XX:InitiatingHeapOccupancyPercent=35 -XX:+ExplicitGCInvokesConcurrent -Djava.awt.headless=true");
+            if (cpus != null) {
+                // JVMs which aren't container aware size these from the CPUs of the node
+                opts.append(" -XX:ParallelGCThreads=").append(cpus)
+                        .append(" -XX:ConcGCThreads=").append(Math.max(1, cpus / 4));
+            }
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_JVM_PERFORMANCE_OPTS).withValue(opts.toString()).build());
+        }
+
+        return varList;
+    }
+
     public String getVolumeName() {
         return this.volumeName;
     }
@@ -218,8 +267,28 @@ public abstract class AbstractCluster {
         return servicePort;
     }
 
+    /**
+     * Get a volume claim template of a StatefulSet by name
+     *
+     * @param ss    the StatefulSet
+     * @param name  name of the volume claim template
+     * @return  the volume claim template, null if the StatefulSet doesn't have it
+     */
+    protected static PersistentVolumeClaim getVolumeClaimTemplate(StatefulSet ss, String name) {
+
+        return ss.getSpec().getVolumeClaimTemplates().stream()
+                .filter(pvc -> name.equals(pvc.getMetadata().getName()))
+                .findFirst()
+                .orElse(null);
+    }
+
     protected PersistentVolumeClaim createPersistentVolumeClaim(String name) {
 
+        return createPersistentVolumeClaim(name, storage);
+    }
+
+    protected PersistentVolumeClaim createPersistentVolumeClaim(String name, Storage storage) {
+
         Map<String, Quantity> requests = new HashMap<>();
         requests.put("storage", storage.size());
 
@@ -352,6 +421,7 @@ public abstract class AbstractCluster {
                 .withName(name)
                 .withImage(getImage())
                 .withEnv(getEnvVars())
+                .withResources(resources.toResourceRequirements())
                 .withVolumeMounts(volumeMounts)
                 .withPorts(ports)
                 .withLivenessProbe(livenessProbe)
@@ -362,17 +432,23 @@ public abstract class AbstractCluster {
         PodSecurityContext securityContext = null;
         // if a persistent volume claim is requested and the running cluster is a Kubernetes one
         // there is an hack on volume mounting which needs an "init-container"
-        if ((this.storage.type() == Storage.StorageType.PERSISTENT_CLAIM) && !isOpenShift) {
+        if (this.storage.isPersistent() && !isOpenShift) {
+
+            // all the volumes backed by the claims need the hack
+            List<String> claimNames = volumeClaims.stream().map(pvc -> pvc.getMetadata().getName()).collect(Collectors.toList());
+            List<VolumeMount> claimMounts = volumeMounts.stream()
+                    .filter(mount -> claimNames.contains(mount.getName()))
+                    .collect(Collectors.toList());
 
             String chown = String.format("chown -R %d:%d %s",
                     AbstractCluster.VOLUME_MOUNT_HACK_GROUPID,
                     AbstractCluster.VOLUME_MOUNT_HACK_GROUPID,
-                    volumeMounts.get(0).getMountPath());
+                    claimMounts.stream().map(VolumeMount::getMountPath).collect(Collectors.joining(" ")));
 
             Container initContainer = new ContainerBuilder()
                     .withName(AbstractCluster.VOLUME_MOUNT_HACK_NAME)
                     .withImage(AbstractCluster.VOLUME_MOUNT_HACK_IMAGE)
-                    .withVolumeMounts(volumeMounts.get(0))
+                    .withVolumeMounts(claimMounts)
                     .withCommand("sh", "-c", chown)
                     .build();
 
@@ -427,6 +503,7 @@ public abstract class AbstractCluster {
                 .withName(name)
                 .withImage(getImage())
                 .withEnv(getEnvVars())
+                .withResources(resources.toResourceRequirements())
                 .withPorts(ports)
                 .withLivenessProbe(livenessProbe)
                 .withReadinessProbe(readinessProbe)
@@ -484,6 +561,7 @@ public abstract class AbstractCluster {
         statefulSet.getSpec().getTemplate().getSpec().getContainers().get(0).setLivenessProbe(livenessProbe);
         statefulSet.getSpec().getTemplate().getSpec().getContainers().get(0).setReadinessProbe(readinessProbe);
         statefulSet.getSpec().getTemplate().getSpec().getContainers().get(0).setEnv(getEnvVars());
+        statefulSet.getSpec().getTemplate().getSpec().getContainers().get(0).setResources(resources.toResourceRequirements());
 
         return statefulSet;
     }
@@ -502,6 +580,7 @@ public abstract class AbstractCluster {
         dep.getSpec().getTemplate().getSpec().getContainers().get(0).setLivenessProbe(livenessProbe);
         dep.getSpec().getTemplate().getSpec().getContainers().get(0).setReadinessProbe(readinessProbe);
         dep.getSpec().getTemplate().getSpec().getContainers().get(0).setEnv(getEnvVars());
+        dep.getSpec().getTemplate().getSpec().getContainers().get(0).setResources(resources.toResourceRequirements());
 
         return dep;
     }
@@ -6,6 +6,8 @@ public class ClusterDiffResult {
     private Boolean scaleUp = false;
     private Boolean scaleDown = false;
     private boolean isMetricsChanged = false;
+    private boolean isVolumesChanged = false;
+    private boolean isDynamicConfigChanged = false;
     private Source2Image.Source2ImageDiff s2i = Source2Image.Source2ImageDiff.NONE;
 
     public ClusterDiffResult() {
@@ -69,6 +71,22 @@ public class ClusterDiffResult {
         isMetricsChanged = metricsChanged;
     }
 
+    public boolean isVolumesChanged() {
+        return isVolumesChanged;
+    }
+
+    public void setVolumesChanged(boolean volumesChanged) {
+        isVolumesChanged = volumesChanged;
+    }
+
+    public boolean isDynamicConfigChanged() {
+        return isDynamicConfigChanged;
+    }
+
+    public void setDynamicConfigChanged(boolean dynamicConfigChanged) {
+        isDynamicConfigChanged = dynamicConfigChanged;
+    }
+
     /**
      * Returns the Diff enum for S2I. This is not the full S2I diff. It just defines whether S2I should be added,
      * removed or updates (or nothing). It doesn't contain any detailed diff information.
@@ -19,6 +19,10 @@ public class KafkaCluster extends AbstractCluster {
 
     private final int clientPort = 9092;
     private final String clientPortName = "clients";
+    // Served by the kafka-agent in the broker's JVM
+    private final int healthPort = 8080;
+    private final String healthPortName = "healthcheck";
+    private final String readinessPath = "/ready";
 
     private static String NAME_SUFFIX = "-kafka";
     private static String HEADLESS_NAME_SUFFIX = NAME_SUFFIX + "-headless";
@@ -29,6 +33,7 @@ public class KafkaCluster extends AbstractCluster {
     private int defaultReplicationFactor = DEFAULT_KAFKA_DEFAULT_REPLICATION_FACTOR;
     private int offsetsTopicReplicationFactor = DEFAULT_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR;
     private int transactionStateLogReplicationFactor = DEFAULT_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR;
+    private KafkaConfiguration configuration = KafkaConfiguration.empty();
 
     // Configuration defaults
     private static String DEFAULT_IMAGE = "strimzi/kafka:latest";
@@ -37,6 +42,13 @@ public class KafkaCluster extends AbstractCluster {
     private static int DEFAULT_HEALTHCHECK_TIMEOUT = 5;
     private static boolean DEFAULT_KAFKA_METRICS_ENABLED = false;
 
+    // JVM and thread pools sizing, when the resources are specified
+    private static double HEAP_FRACTION = 0.5;
+    private static long MAX_HEAP = 6L * 1024 * 1024 * 1024;
+    private static int MAX_GC_PAUSE_MILLIS = 20;
+    private static int MIN_KAFKA_NUM_NETWORK_THREADS = 3;
+    private static int MIN_KAFKA_NUM_IO_THREADS = 8;
+
     // Kafka configuration defaults
     private static String DEFAULT_KAFKA_ZOOKEEPER_CONNECT = "zookeeper:2181";
     private static int DEFAULT_KAFKA_DEFAULT_REPLICATION_FACTOR = 3;
@@ -50,6 +62,8 @@ public class KafkaCluster extends AbstractCluster {
     private static String KEY_HEALTHCHECK_TIMEOUT = "kafka-healthcheck-timeout";
     private static String KEY_METRICS_CONFIG = "kafka-metrics-config";
     private static String KEY_STORAGE = "kafka-storage";
+    private static String KEY_RESOURCES = "kafka-resources";
+    private static String KEY_CONFIG = "kafka-config";
 
     // Kafka configuration keys
     private static String KEY_KAFKA_ZOOKEEPER_CONNECT = "KAFKA_ZOOKEEPER_CONNECT";
@@ -57,6 +71,10 @@ public class KafkaCluster extends AbstractCluster {
     private static String KEY_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR = "KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR";
     private static String KEY_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR = "KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR";
     private static String KEY_KAFKA_METRICS_ENABLED = "KAFKA_METRICS_ENABLED";
+    private static String KEY_KAFKA_DATA_VOLUMES = "KAFKA_DATA_VOLUMES";
+    private static String KEY_KAFKA_NUM_NETWORK_THREADS = "KAFKA_NUM_NETWORK_THREADS";
+    private static String KEY_KAFKA_NUM_IO_THREADS = "KAFKA_NUM_IO_THREADS";
+    private static String KEY_KAFKA_CONFIGURATION = "KAFKA_CONFIGURATION";
 
     /**
      * Constructor
@@ -72,7 +90,7 @@ public class KafkaCluster extends AbstractCluster {
         this.metricsConfigName = cluster + KafkaCluster.METRICS_CONFIG_SUFFIX;
         this.image = DEFAULT_IMAGE;
         this.replicas = DEFAULT_REPLICAS;
-        this.healthCheckPath = "/opt/kafka/kafka_healthcheck.sh";
+        this.healthCheckPath = "/healthy";
         this.healthCheckTimeout = DEFAULT_HEALTHCHECK_TIMEOUT;
         this.healthCheckInitialDelay = DEFAULT_HEALTHCHECK_DELAY;
         this.isMetricsEnabled = DEFAULT_KAFKA_METRICS_ENABLED;
@@ -104,6 +122,11 @@ public class KafkaCluster extends AbstractCluster {
         kafka.setOffsetsTopicReplicationFactor(Integer.parseInt(cm.getData().getOrDefault(KEY_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR))));
         kafka.setTransactionStateLogReplicationFactor(Integer.parseInt(cm.getData().getOrDefault(KEY_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR))));
 
+        String config = cm.getData().get(KEY_CONFIG);
+        if (config != null) {
+            kafka.setConfiguration(KafkaConfiguration.fromJson(new JsonObject(config)));
+        }
+
         String metricsConfig = cm.getData().get(KEY_METRICS_CONFIG);
         kafka.setMetricsEnabled(metricsConfig != null);
         if (kafka.isMetricsEnabled()) {
@@ -113,6 +136,11 @@ public class KafkaCluster extends AbstractCluster {
         String storageConfig = cm.getData().get(KEY_STORAGE);
         kafka.setStorage(Storage.fromJson(new JsonObject(storageConfig)));
 
+        String resourcesConfig = cm.getData().get(KEY_RESOURCES);
+        if (resourcesConfig != null) {
+            kafka.setResources(Resources.fromJson(new JsonObject(resourcesConfig)));
+        }
+
         return kafka;
     }
 
@@ -143,24 +171,15 @@ public class KafkaCluster extends AbstractCluster {
         kafka.setDefaultReplicationFactor(Integer.parseInt(vars.getOrDefault(KEY_KAFKA_DEFAULT_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_DEFAULT_REPLICATION_FACTOR))));
         kafka.setOffsetsTopicReplicationFactor(Integer.parseInt(vars.getOrDefault(KEY_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR))));
         kafka.setTransactionStateLogReplicationFactor(Integer.parseInt(vars.getOrDefault(KEY_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR, String.valueOf(DEFAULT_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR))));
+        kafka.setConfiguration(KafkaConfiguration.fromEnvVar(vars.get(KEY_KAFKA_CONFIGURATION)));
 
         kafka.setMetricsEnabled(Boolean.parseBoolean(vars.getOrDefault(KEY_KAFKA_METRICS_ENABLED, String.valueOf(DEFAULT_KAFKA_METRICS_ENABLED))));
         if (kafka.isMetricsEnabled()) {
             kafka.setMetricsConfigName(cluster + KafkaCluster.METRICS_CONFIG_SUFFIX);
         }
 
-        if (!ss.getSpec().getVolumeClaimTemplates().isEmpty()) {
-
-            Storage storage = Storage.fromPersistentVolumeClaim(ss.getSpec().getVolumeClaimTemplates().get(0));
-            if (ss.getMetadata().getAnnotations() != null) {
-                String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
-                storage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
-            }
-            kafka.setStorage(storage);
-        } else {
-            Storage storage = new Storage(Storage.StorageType.EPHEMERAL);
-            kafka.setStorage(storage);
-        }
+        kafka.setStorage(kafka.getStatefulSetStorage(ss, vars));
+        kafka.setResources(Resources.fromResourceRequirements(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getResources()));
 
         return kafka;
     }
@@ -213,6 +232,31 @@ public class KafkaCluster extends AbstractCluster {
             diff.setRollingUpdate(true);
         }
 
+        KafkaConfiguration ssConfiguration = KafkaConfiguration.fromEnvVar(vars.get(KEY_KAFKA_CONFIGURATION));
+        if (!configuration.staticConfig().equals(ssConfiguration.staticConfig())) {
+            log.info("Diff: Kafka static configuration changed");
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+        // the brokers were started with the removed settings as overrides, which they keep until they restart
+        if (configuration.isDynamicConfigRemoved(ssConfiguration)) {
+            log.info("Diff: Kafka dynamic configuration removed");
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+        // dynamic settings are updated on the running brokers, the StatefulSet keeps them for the restarted ones
+        if (!configuration.dynamicConfig().equals(ssConfiguration.dynamicConfig())) {
+            log.info("Diff: Kafka dynamic configuration changed");
+            diff.setDifferent(true);
+            diff.setDynamicConfigChanged(true);
+        }
+
+        if (ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getHttpGet() == null) {
+            log.info("Diff: Kafka healthcheck changed from exec to http");
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+
         if (healthCheckInitialDelay != ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getInitialDelaySeconds()
                 || healthCheckTimeout != ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getTimeoutSeconds()) {
             log.info("Diff: Kafka healthcheck timing changed");
@@ -220,6 +264,13 @@ public class KafkaCluster extends AbstractCluster {
             diff.setRollingUpdate(true);
         }
 
+        Resources ssResources = Resources.fromResourceRequirements(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getResources());
+        if (!resources.equals(ssResources)) {
+            log.info("Diff: Expected resources {}, actual resources {}", resources, ssResources);
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+
         if (isMetricsEnabled != Boolean.parseBoolean(vars.getOrDefault(KEY_KAFKA_METRICS_ENABLED, String.valueOf(DEFAULT_KAFKA_METRICS_ENABLED)))) {
             log.info("Diff: Kafka metrics enabled/disabled");
             diff.setMetricsChanged(true);
@@ -235,37 +286,103 @@ public class KafkaCluster extends AbstractCluster {
         }
 
         // get the current (deployed) kind of storage
-        Storage ssStorage;
-        if (ss.getSpec().getVolumeClaimTemplates().isEmpty()) {
-            ssStorage = new Storage(Storage.StorageType.EPHEMERAL);
-        } else {
-            ssStorage = Storage.fromPersistentVolumeClaim(ss.getSpec().getVolumeClaimTemplates().get(0));
-            // the delete-claim flack is backed by the StatefulSets
-            if (ss.getMetadata().getAnnotations() != null) {
-                String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
-                ssStorage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
-            }
-        }
+        Storage ssStorage = getStatefulSetStorage(ss, vars);
 
         // compute the differences with the requested storage (from the updated ConfigMap)
         Storage.StorageDiffResult storageDiffResult = storage.diff(ssStorage);
 
         // check for all the not allowed changes to the storage
         boolean isStorageRejected = (storageDiffResult.isType() || storageDiffResult.isSize() ||
-                storageDiffResult.isStorageClass() || storageDiffResult.isSelector());
+                storageDiffResult.isStorageClass() || storageDiffResult.isSelector() || storageDiffResult.isRemovedVolumes());
 
-        // only delete-claim flag can be changed
-        if (!isStorageRejected && (storage.type() == Storage.StorageType.PERSISTENT_CLAIM)) {
+        // only delete-claim flag can be changed and volumes can be added
+        if (!isStorageRejected && storage.isPersistent()) {
             if (storageDiffResult.isDeleteClaim()) {
                 diff.setDifferent(true);
             }
+            // the claim templates can't be patched, the brokers get the new volumes with a new StatefulSet
+            if (storageDiffResult.isAddedVolumes() || storage.type() != ssStorage.type()) {
+                log.info("Diff: Kafka storage volumes changed");
+                diff.setVolumesChanged(true);
+                diff.setRollingUpdate(true);
+            }
         } else if (isStorageRejected) {
-            log.warn("Changing storage configuration other than delete-claim is not supported !");
+            log.warn("Changing storage configuration other than delete-claim or adding volumes is not supported !");
         }
 
         return diff;
     }
 
+    /**
+     * Get the storage currently deployed with the StatefulSet
+     *
+     * @param ss    deployed StatefulSet
+     * @param vars  environment variables of the deployed Kafka container
+     * @return  Storage instance
+     */
+    private Storage getStatefulSetStorage(StatefulSet ss, Map<String, String> vars) {
+
+        List<Storage> volumes = new ArrayList<>();
+        for (PersistentVolumeClaim pvc : ss.getSpec().getVolumeClaimTemplates()) {
+            Integer id = getVolumeId(pvc.getMetadata().getName());
+            if (id != null) {
+                volumes.add(Storage.fromPersistentVolumeClaim(pvc).withId(id));
+            }
+        }
+
+        if (volumes.isEmpty()) {
+            return new Storage(Storage.StorageType.EPHEMERAL);
+        }
+
+        Storage storage;
+        if (vars.containsKey(KEY_KAFKA_DATA_VOLUMES)) {
+            storage = new Storage(Storage.StorageType.JBOD).withVolumes(volumes);
+        } else {
+            storage = Storage.fromPersistentVolumeClaim(getVolumeClaimTemplate(ss, volumeName));
+        }
+
+        // the delete-claim flag is backed by the StatefulSets
+        if (ss.getMetadata().getAnnotations() != null) {
+            String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
+            storage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
+        }
+
+        return storage;
+    }
+
+    /**
+     * Volume 0 keeps the name and the mount path of the single volume, so a "persistent-claim"
+     * storage can become a "jbod" one without moving the existing logs
+     *
+     * @param id    volume id
+     * @return  name of the volume (and of the claim template)
+     */
+    private String getVolumeName(int id) {
+        return id == 0 ? volumeName : volumeName + "-" + id;
+    }
+
+    private String getVolumeMountPath(int id) {
+        return id == 0 ? mounthPath : mounthPath + "-" + id;
+    }
+
+    private Integer getVolumeId(String name) {
+        if (name.equals(volumeName)) {
+            return 0;
+        }
+        String prefix = volumeName + "-";
+        if (name.startsWith(prefix) && name.substring(prefix.length()).matches("[0-9]+")) {
+            return Integer.valueOf(name.substring(prefix.length()));
+        }
+        return null;
+    }
+
+    /**
+     * @return  names of the volume claim templates, a claim for each of them is created per broker
+     */
+    public List<String> getVolumeClaimNames() {
+        return storage.volumes().stream().map(volume -> getVolumeName(volume.id())).collect(Collectors.toList());
+    }
+
     public Service generateService() {
 
         return createService("ClusterIP",
@@ -290,8 +407,8 @@ public class KafkaCluster extends AbstractCluster {
                 getVolumes(),
                 getVolumeClaims(),
                 getVolumeMounts(),
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
+                createHttpProbe(healthCheckPath, healthPortName, healthCheckInitialDelay, healthCheckTimeout),
+                createHttpProbe(readinessPath, healthPortName, healthCheckInitialDelay, healthCheckTimeout),
                 isOpenShift);
     }
 
@@ -317,15 +434,19 @@ public class KafkaCluster extends AbstractCluster {
         annotations.put(String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD),
                 String.valueOf(storage.isDeleteClaim()));
 
-        return patchStatefulSet(statefulSet,
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
-                createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
+        StatefulSet patched = patchStatefulSet(statefulSet,
+                createHttpProbe(healthCheckPath, healthPortName, healthCheckInitialDelay, healthCheckTimeout),
+                createHttpProbe(readinessPath, healthPortName, healthCheckInitialDelay, healthCheckTimeout),
                 annotations);
+        // The probes refer to the health port by name, which StatefulSets created before it existed lack
+        patched.getSpec().getTemplate().getSpec().getContainers().get(0).setPorts(getContainerPortList());
+        return patched;
     }
 
     private List<ContainerPort> getContainerPortList() {
         List<ContainerPort> portList = new ArrayList<>();
         portList.add(createContainerPort(clientPortName, clientPort, "TCP"));
+        portList.add(createContainerPort(healthPortName, healthPort, "TCP"));
         if (isMetricsEnabled) {
             portList.add(createContainerPort(metricsPortName, metricsPort, "TCP"));
         }
@@ -347,15 +468,21 @@ public class KafkaCluster extends AbstractCluster {
 
     private List<PersistentVolumeClaim> getVolumeClaims() {
         List<PersistentVolumeClaim> pvcList = new ArrayList<>();
-        if (storage.type() == Storage.StorageType.PERSISTENT_CLAIM) {
-            pvcList.add(createPersistentVolumeClaim(volumeName));
+        for (Storage volume : storage.volumes()) {
+            pvcList.add(createPersistentVolumeClaim(getVolumeName(volume.id()), volume));
         }
         return pvcList;
     }
 
     private List<VolumeMount> getVolumeMounts() {
         List<VolumeMount> volumeMountList = new ArrayList<>();
-        volumeMountList.add(createVolumeMount(volumeName, mounthPath));
+        if (storage.type() == Storage.StorageType.JBOD) {
+            for (Storage volume : storage.volumes()) {
+                volumeMountList.add(createVolumeMount(getVolumeName(volume.id()), getVolumeMountPath(volume.id())));
+            }
+        } else {
+            volumeMountList.add(createVolumeMount(volumeName, mounthPath));
+        }
         if (isMetricsEnabled) {
             volumeMountList.add(createVolumeMount(metricsConfigVolumeName, metricsConfigMountPath));
         }
@@ -370,10 +497,47 @@ public class KafkaCluster extends AbstractCluster {
         varList.add(new EnvVarBuilder().withName(KEY_KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR).withValue(String.valueOf(offsetsTopicReplicationFactor)).build());
         varList.add(new EnvVarBuilder().withName(KEY_KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR).withValue(String.valueOf(transactionStateLogReplicationFactor)).build());
         varList.add(new EnvVarBuilder().withName(KEY_KAFKA_METRICS_ENABLED).withValue(String.valueOf(isMetricsEnabled)).build());
+        if (storage.type() == Storage.StorageType.JBOD) {
+            String dataVolumes = storage.volumes().stream()
+                    .map(volume -> getVolumeMountPath(volume.id()))
+                    .collect(Collectors.joining(","));
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_DATA_VOLUMES).withValue(dataVolumes).build());
+        }
+
+        if (!configuration.isEmpty()) {
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_CONFIGURATION).withValue(configuration.toEnvVar()).build());
+        }
+
+        varList.addAll(getJvmEnvVars(HEAP_FRACTION, MAX_HEAP, MAX_GC_PAUSE_MILLIS));
+        Integer cpus = resources.cpus();
+        if (cpus != null) {
+            // the defaults are enough for small brokers, bigger ones get more threads to use their CPUs
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_NUM_NETWORK_THREADS).withValue(String.valueOf(Math.max(MIN_KAFKA_NUM_NETWORK_THREADS, cpus / 2))).build());
+            varList.add(new EnvVarBuilder().withName(KEY_KAFKA_NUM_IO_THREADS).withValue(String.valueOf(Math.max(MIN_KAFKA_NUM_IO_THREADS, cpus * 2))).build());
+        }
 
         return varList;
     }
 
+    public String getZookeeperConnect() {
+        return zookeeperConnect;
+    }
+
+    /**
+     * @return  Bootstrap servers for Kafka clients connecting to this cluster through its service
+     */
+    public String getBootstrapServers() {
+        return name + "." + namespace + ".svc:" + clientPort;
+    }
+
+    public KafkaConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    protected void setConfiguration(KafkaConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
     protected void setZookeeperConnect(String zookeeperConnect) {
         this.zookeeperConnect = zookeeperConnect;
     }
@@ -0,0 +1,200 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Represents the broker configuration of a Kafka cluster, split into the static settings, which the brokers
+ * read only at startup, and the dynamic ones, which can be updated on the running brokers (from Kafka 1.1)
+ */
+public class KafkaConfiguration {
+
+    /**
+     * Settings which are already managed by the cluster controller and the Kafka image
+     */
+    private static final Set<String> FORBIDDEN = new HashSet<>(Arrays.asList(
+            "broker.id",
+            "zookeeper.connect",
+            "log.dirs",
+            "listeners",
+            "advertised.listeners",
+            "advertised.host.name"));
+
+    /**
+     * Settings which Kafka 1.1 can update as cluster-wide defaults of all the brokers.
+     * Their hours and minutes synonyms (e.g. log.retention.hours) are read-only, so they're static settings
+     */
+    private static final Set<String> DYNAMIC = new HashSet<>(Arrays.asList(
+            // thread pools
+            "num.network.threads",
+            "num.io.threads",
+            "num.replica.fetchers",
+            "num.recovery.threads.per.data.dir",
+            "background.threads",
+            // log cleaner
+            "log.cleaner.threads",
+            "log.cleaner.io.max.bytes.per.second",
+            "log.cleaner.dedupe.buffer.size",
+            "log.cleaner.io.buffer.size",
+            "log.cleaner.io.buffer.load.factor",
+            "log.cleaner.backoff.ms",
+            // topic defaults
+            "log.segment.bytes",
+            "log.roll.ms",
+            "log.roll.jitter.ms",
+            "log.index.size.max.bytes",
+            "log.flush.interval.messages",
+            "log.flush.interval.ms",
+            "log.retention.bytes",
+            "log.retention.ms",
+            "log.index.interval.bytes",
+            "log.cleaner.delete.retention.ms",
+            "log.cleaner.min.compaction.lag.ms",
+            "log.segment.delete.delay.ms",
+            "log.cleaner.min.cleanable.ratio",
+            "log.cleanup.policy",
+            "log.preallocate",
+            "log.message.timestamp.type",
+            "log.message.timestamp.difference.max.ms",
+            "unclean.leader.election.enable",
+            "min.insync.replicas",
+            "compression.type",
+            "message.max.bytes"));
+
+    private final SortedMap<String, String> config;
+
+    private KafkaConfiguration(SortedMap<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * @return  an empty configuration, the brokers use the Kafka defaults
+     */
+    public static KafkaConfiguration empty() {
+        return new KafkaConfiguration(new TreeMap<>());
+    }
+
+    /**
+     * Returns a KafkaConfiguration instance from a corresponding JSON representation
+     *
+     * @param json  JSON object with the broker settings
+     * @return  KafkaConfiguration instance
+     */
+    public static KafkaConfiguration fromJson(JsonObject json) {
+
+        SortedMap<String, String> config = new TreeMap<>();
+        for (String key : json.fieldNames()) {
+            Object value = json.getValue(key);
+            if (FORBIDDEN.contains(key)) {
+                throw new IllegalArgumentException("Kafka setting '" + key + "' is managed by the cluster controller");
+            }
+            if (value == null || value instanceof JsonObject || value instanceof JsonArray) {
+                throw new IllegalArgumentException("Kafka setting '" + key + "' needs a plain value");
+            }
+            String stringValue = String.valueOf(value);
+            if (stringValue.contains("\n")) {
+                throw new IllegalArgumentException("Kafka setting '" + key + "' can't be multi-line");
+            }
+            config.put(key, stringValue);
+        }
+
+        return new KafkaConfiguration(config);
+    }
+
+    /**
+     * Returns a KafkaConfiguration instance from the environment variable of the deployed container
+     *
+     * @param envVar    the environment variable value (it can be null)
+     * @return  KafkaConfiguration instance
+     */
+    public static KafkaConfiguration fromEnvVar(String envVar) {
+
+        SortedMap<String, String> config = new TreeMap<>();
+        if (envVar != null) {
+            for (String line : envVar.split("\n")) {
+                int index = line.indexOf('=');
+                if (index > 0) {
+                    config.put(line.substring(0, index), line.substring(index + 1));
+                }
+            }
+        }
+
+        return new KafkaConfiguration(config);
+    }
+
+    /**
+     * @return  the environment variable value with a "key=value" line per setting
+     */
+    public String toEnvVar() {
+        return config.entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * @return  if there are no settings
+     */
+    public boolean isEmpty() {
+        return config.isEmpty();
+    }
+
+    /**
+     * @return  settings which need a broker restart to change
+     */
+    public Map<String, String> staticConfig() {
+        return Collections.unmodifiableMap(config.entrySet().stream()
+                .filter(entry -> !DYNAMIC.contains(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    /**
+     * @return  settings which can be changed on the running brokers
+     */
+    public Map<String, String> dynamicConfig() {
+        return Collections.unmodifiableMap(config.entrySet().stream()
+                .filter(entry -> DYNAMIC.contains(entry.getKey()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    /**
+     * The running brokers keep their startup value of a dynamic setting once its dynamic value is removed,
+     * so a removed dynamic setting needs a broker restart like a static one
+     *
+     * @param other the other (e.g. the deployed) configuration
+     * @return  if the other configuration has dynamic settings which this one doesn't have
+     */
+    public boolean isDynamicConfigRemoved(KafkaConfiguration other) {
+        return !dynamicConfig().keySet().containsAll(other.dynamicConfig().keySet());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return config.equals(((KafkaConfiguration) o).config);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(config);
+    }
+
+    @Override
+    public String toString() {
+        return config.toString();
+    }
+}
@@ -43,6 +43,11 @@ public class KafkaConnectCluster extends AbstractCluster {
     private static int DEFAULT_HEALTHCHECK_DELAY = 60;
     private static int DEFAULT_HEALTHCHECK_TIMEOUT = 5;
 
+    // JVM sizing, when the resources are specified
+    private static double HEAP_FRACTION = 0.75;
+    private static long MAX_HEAP = Long.MAX_VALUE;
+    private static int MAX_GC_PAUSE_MILLIS = 200;
+
     // Kafka Connect configuration defaults
     private static String DEFAULT_BOOTSTRAP_SERVERS = "kafka:9092";
     private static String DEFAULT_GROUP_ID = "connect-cluster";
@@ -60,6 +65,7 @@ public class KafkaConnectCluster extends AbstractCluster {
     private static String KEY_HEALTHCHECK_DELAY = "healthcheck-delay";
     private static String KEY_HEALTHCHECK_TIMEOUT = "healthcheck-timeout";
     private static String KEY_S2I = "s2i";
+    private static String KEY_RESOURCES = "resources";
 
     // Kafka Connect configuration keys
     private static String KEY_BOOTSTRAP_SERVERS = "KAFKA_CONNECT_BOOTSTRAP_SERVERS";
@@ -116,6 +122,11 @@ public class KafkaConnectCluster extends AbstractCluster {
         kafkaConnect.setOffsetStorageReplicationFactor(Integer.parseInt(cm.getData().getOrDefault(KEY_OFFSET_STORAGE_REPLICATION_FACTOR, String.valueOf(DEFAULT_OFFSET_STORAGE_REPLICATION_FACTOR))));
         kafkaConnect.setStatusStorageReplicationFactor(Integer.parseInt(cm.getData().getOrDefault(KEY_STATUS_STORAGE_REPLICATION_FACTOR, String.valueOf(DEFAULT_STATUS_STORAGE_REPLICATION_FACTOR))));
 
+        String resourcesConfig = cm.getData().get(KEY_RESOURCES);
+        if (resourcesConfig != null) {
+            kafkaConnect.setResources(Resources.fromJson(new JsonObject(resourcesConfig)));
+        }
+
         if (cm.getData().containsKey(KEY_S2I)) {
             if (k8s.isOpenShift()) {
                 JsonObject config = new JsonObject(cm.getData().get(KEY_S2I));
@@ -163,6 +174,8 @@ public class KafkaConnectCluster extends AbstractCluster {
         kafkaConnect.setOffsetStorageReplicationFactor(Integer.parseInt(vars.getOrDefault(KEY_OFFSET_STORAGE_REPLICATION_FACTOR, String.valueOf(DEFAULT_OFFSET_STORAGE_REPLICATION_FACTOR))));
         kafkaConnect.setStatusStorageReplicationFactor(Integer.parseInt(vars.getOrDefault(KEY_STATUS_STORAGE_REPLICATION_FACTOR, String.valueOf(DEFAULT_STATUS_STORAGE_REPLICATION_FACTOR))));
 
+        kafkaConnect.setResources(Resources.fromResourceRequirements(dep.getSpec().getTemplate().getSpec().getContainers().get(0).getResources()));
+
         String s2iAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Source2Image.ANNOTATION_S2I);
         if (dep.getMetadata().getAnnotations().containsKey(s2iAnnotation) && Boolean.parseBoolean(dep.getMetadata().getAnnotations().getOrDefault(s2iAnnotation, "false"))) {
             if (k8s.isOpenShift()) {
@@ -234,6 +247,13 @@ public class KafkaConnectCluster extends AbstractCluster {
             diff.setRollingUpdate(true);
         }
 
+        Resources ssResources = Resources.fromResourceRequirements(dep.getSpec().getTemplate().getSpec().getContainers().get(0).getResources());
+        if (!resources.equals(ssResources)) {
+            log.info("Diff: Expected resources {}, actual resources {}", resources, ssResources);
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+
         if (k8s.isOpenShift()) {
             Source2Image realS2I = null;
             String s2iAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Source2Image.ANNOTATION_S2I);
@@ -298,6 +318,7 @@ public class KafkaConnectCluster extends AbstractCluster {
         varList.add(new EnvVarBuilder().withName(KEY_CONFIG_STORAGE_REPLICATION_FACTOR).withValue(String.valueOf(configStorageReplicationFactor)).build());
         varList.add(new EnvVarBuilder().withName(KEY_OFFSET_STORAGE_REPLICATION_FACTOR).withValue(String.valueOf(offsetStorageReplicationFactor)).build());
         varList.add(new EnvVarBuilder().withName(KEY_STATUS_STORAGE_REPLICATION_FACTOR).withValue(String.valueOf(statusStorageReplicationFactor)).build());
+        varList.addAll(getJvmEnvVars(HEAP_FRACTION, MAX_HEAP, MAX_GC_PAUSE_MILLIS));
 
         return varList;
     }
@@ -0,0 +1,217 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.fabric8.kubernetes.api.model.ResourceRequirements;
+import io.fabric8.kubernetes.api.model.ResourceRequirementsBuilder;
+import io.vertx.core.json.JsonObject;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Represents the CPU and memory resources (requests and limits) of a container
+ */
+public class Resources {
+
+    public static final String REQUESTS_FIELD = "requests";
+    public static final String LIMITS_FIELD = "limits";
+    public static final String CPU_FIELD = "cpu";
+    public static final String MEMORY_FIELD = "memory";
+
+    private static final List<String> SUFFIXES = Arrays.asList("Ki", "Mi", "Gi", "Ti", "Pi", "Ei", "k", "M", "G", "T", "P", "E", "m");
+    private static final List<BigDecimal> MULTIPLIERS = Arrays.asList(
+            BigDecimal.valueOf(2).pow(10), BigDecimal.valueOf(2).pow(20), BigDecimal.valueOf(2).pow(30),
+            BigDecimal.valueOf(2).pow(40), BigDecimal.valueOf(2).pow(50), BigDecimal.valueOf(2).pow(60),
+            BigDecimal.TEN.pow(3), BigDecimal.TEN.pow(6), BigDecimal.TEN.pow(9),
+            BigDecimal.TEN.pow(12), BigDecimal.TEN.pow(15), BigDecimal.TEN.pow(18),
+            BigDecimal.ONE.movePointLeft(3));
+
+    private final Map<String, Quantity> requests = new HashMap<>();
+    private final Map<String, Quantity> limits = new HashMap<>();
+
+    /**
+     * Specify a resource request
+     *
+     * @param resource  resource name ("cpu" or "memory")
+     * @param quantity  requested quantity
+     * @return  current Resources instance
+     */
+    public Resources withRequest(final String resource, final Quantity quantity) {
+        this.requests.put(resource, quantity);
+        return this;
+    }
+
+    /**
+     * Specify a resource limit
+     *
+     * @param resource  resource name ("cpu" or "memory")
+     * @param quantity  quantity limit
+     * @return  current Resources instance
+     */
+    public Resources withLimit(final String resource, final Quantity quantity) {
+        this.limits.put(resource, quantity);
+        return this;
+    }
+
+    /**
+     * Returns a Resources instance from a corresponding JSON representation
+     *
+     * @param json  resources JSON representation
+     * @return  Resources instance
+     */
+    public static Resources fromJson(JsonObject json) {
+
+        Resources resources = new Resources();
+
+        JsonObject requests = json.getJsonObject(Resources.REQUESTS_FIELD);
+        if (requests != null) {
+            quantitiesFromJson(requests).forEach(resources::withRequest);
+        }
+        JsonObject limits = json.getJsonObject(Resources.LIMITS_FIELD);
+        if (limits != null) {
+            quantitiesFromJson(limits).forEach(resources::withLimit);
+        }
+
+        return resources;
+    }
+
+    private static Map<String, Quantity> quantitiesFromJson(JsonObject json) {
+
+        Map<String, Quantity> quantities = new HashMap<>();
+        for (String resource : json.fieldNames()) {
+            if (!CPU_FIELD.equals(resource) && !MEMORY_FIELD.equals(resource)) {
+                throw new IllegalArgumentException("Unknown resource: " + resource);
+            }
+            Quantity quantity = new Quantity(String.valueOf(json.getValue(resource)));
+            // fail early on quantities Kubernetes/OpenShift wouldn't accept
+            parse(quantity);
+            quantities.put(resource, quantity);
+        }
+        return quantities;
+    }
+
+    /**
+     * Returns a Resources instance from the corresponding container resource requirements
+     *
+     * @param requirements  container resource requirements (it can be null)
+     * @return  Resources instance
+     */
+    public static Resources fromResourceRequirements(ResourceRequirements requirements) {
+
+        Resources resources = new Resources();
+        if (requirements != null) {
+            if (requirements.getRequests() != null) {
+                requirements.getRequests().forEach(resources::withRequest);
+            }
+            if (requirements.getLimits() != null) {
+                requirements.getLimits().forEach(resources::withLimit);
+            }
+        }
+        return resources;
+    }
+
+    /**
+     * @return  container resource requirements, null if there are neither requests nor limits
+     */
+    public ResourceRequirements toResourceRequirements() {
+
+        if (requests.isEmpty() && limits.isEmpty()) {
+            return null;
+        }
+
+        return new ResourceRequirementsBuilder()
+                .withRequests(requests.isEmpty() ? null : new HashMap<>(requests))
+                .withLimits(limits.isEmpty() ? null : new HashMap<>(limits))
+                .build();
+    }
+
+    /**
+     * @return  memory available to the container in bytes (the limit, or the request when there is no limit),
+     *          null if not specified
+     */
+    public Long memory() {
+        BigDecimal memory = parse(limitOrRequest(MEMORY_FIELD));
+        return memory == null ? null : memory.longValue();
+    }
+
+    /**
+     * @return  CPUs available to the container rounded up (the limit, or the request when there is no limit),
+     *          null if not specified
+     */
+    public Integer cpus() {
+        BigDecimal cpus = parse(limitOrRequest(CPU_FIELD));
+        return cpus == null ? null : Math.max(1, cpus.setScale(0, RoundingMode.CEILING).intValue());
+    }
+
+    private Quantity limitOrRequest(String resource) {
+        return limits.containsKey(resource) ? limits.get(resource) : requests.get(resource);
+    }
+
+    /**
+     * Parse a quantity to its plain value (e.g. bytes or cores)
+     *
+     * @param quantity  the quantity (it can be null)
+     * @return  the plain value, null if the quantity is null
+     */
+    static BigDecimal parse(Quantity quantity) {
+
+        if (quantity == null) {
+            return null;
+        }
+
+        String amount = quantity.getAmount() + (quantity.getFormat() != null ? quantity.getFormat() : "");
+        try {
+            for (int i = 0; i < SUFFIXES.size(); i++) {
+                if (amount.endsWith(SUFFIXES.get(i))) {
+                    return new BigDecimal(amount.substring(0, amount.length() - SUFFIXES.get(i).length())).multiply(MULTIPLIERS.get(i));
+                }
+            }
+            return new BigDecimal(amount);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid quantity: " + amount);
+        }
+    }
+
+    /**
+     * Compare two sets of quantities by value, so "1Gi" and "1024Mi" are equals
+     */
+    private static boolean equals(Map<String, Quantity> quantities, Map<String, Quantity> other) {
+
+        if (!quantities.keySet().equals(other.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, Quantity> entry : quantities.entrySet()) {
+            if (parse(entry.getValue()).compareTo(parse(other.get(entry.getKey()))) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Resources other = (Resources) o;
+        return equals(requests, other.requests) && equals(limits, other.limits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(requests.keySet(), limits.keySet());
+    }
+
+    @Override
+    public String toString() {
+        return "Resources(requests=" + requests + ", limits=" + limits + ")";
+    }
+}
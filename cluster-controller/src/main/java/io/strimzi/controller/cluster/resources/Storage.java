@@ -4,11 +4,17 @@ import io.fabric8.kubernetes.api.model.LabelSelector;
 import io.fabric8.kubernetes.api.model.LabelSelectorRequirement;
 import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
 import io.fabric8.kubernetes.api.model.Quantity;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -22,12 +28,18 @@ public class Storage {
     public static final String SELECTOR_FIELD = "selector";
     public static final String SELECTOR_MATCH_LABELS_FIELD = "match-labels";
     public static final String DELETE_CLAIM_FIELD = "delete-claim";
+    public static final String DATA_LOG_FIELD = "data-log";
+    public static final String VOLUMES_FIELD = "volumes";
+    public static final String ID_FIELD = "id";
 
     private final StorageType type;
     private Quantity size;
     private String storageClass;
     private LabelSelector selector;
     private boolean isDeleteClaim = false;
+    private Storage dataLog;
+    private int id = 0;
+    private List<Storage> volumes = Collections.emptyList();
 
     /**
      * Constructor
@@ -83,6 +95,39 @@ public class Storage {
         return this;
     }
 
+    /**
+     * Specify a separate storage for the transaction log (only for "persistent-claim" type)
+     *
+     * @param dataLog   storage for the transaction log
+     * @return  current Storage instance
+     */
+    public Storage withDataLog(final Storage dataLog) {
+        this.dataLog = dataLog;
+        return this;
+    }
+
+    /**
+     * Specify the id of a volume which is part of a "jbod" storage
+     *
+     * @param id    volume id, it identifies the volume across updates
+     * @return  current Storage instance
+     */
+    public Storage withId(final int id) {
+        this.id = id;
+        return this;
+    }
+
+    /**
+     * Specify the volumes of a "jbod" storage
+     *
+     * @param volumes   list of "persistent-claim" storages
+     * @return  current Storage instance
+     */
+    public Storage withVolumes(final List<Storage> volumes) {
+        this.volumes = volumes;
+        return this;
+    }
+
     /**
      * Returns a Storage instance from a corresponding JSON representation
      *
@@ -98,6 +143,10 @@ public class Storage {
 
         Storage storage = new Storage(StorageType.from(type));
 
+        if (storage.type() == StorageType.JBOD) {
+            return jbodFromJson(storage, json);
+        }
+
         String size = json.getString(Storage.SIZE_FIELD);
         if (size != null) {
             storage.withSize(new Quantity(size));
@@ -126,6 +175,71 @@ public class Storage {
             storage.withSelector(new LabelSelector(matchExpressions, matchLabels));
         }
 
+        JsonObject dataLog = json.getJsonObject(Storage.DATA_LOG_FIELD);
+        if (dataLog != null) {
+
+            if (storage.type() != StorageType.PERSISTENT_CLAIM) {
+                throw new IllegalArgumentException("Storage '" + Storage.DATA_LOG_FIELD + "' is supported only with '" +
+                        StorageType.PERSISTENT_CLAIM.type + "' type");
+            }
+
+            // the transaction log lives on the same kind of storage, the type can be omitted
+            if (!dataLog.containsKey(Storage.TYPE_FIELD)) {
+                dataLog = dataLog.copy().put(Storage.TYPE_FIELD, type);
+            }
+            Storage dataLogStorage = Storage.fromJson(dataLog);
+            if (dataLogStorage.type() != StorageType.PERSISTENT_CLAIM) {
+                throw new IllegalArgumentException("Storage '" + Storage.DATA_LOG_FIELD + "' is supported only with '" +
+                        StorageType.PERSISTENT_CLAIM.type + "' type");
+            }
+            storage.withDataLog(dataLogStorage);
+        }
+
+        return storage;
+    }
+
+    /**
+     * Fill a "jbod" Storage instance from the corresponding JSON representation
+     *
+     * @param storage   "jbod" Storage instance to fill
+     * @param json  storage JSON representation
+     * @return  Storage instance
+     */
+    private static Storage jbodFromJson(Storage storage, JsonObject json) {
+
+        JsonArray volumesJson = json.getJsonArray(Storage.VOLUMES_FIELD);
+        if (volumesJson == null || volumesJson.isEmpty()) {
+            throw new IllegalArgumentException("Storage '" + Storage.VOLUMES_FIELD + "' is mandatory with '" + StorageType.JBOD.type + "' type");
+        }
+
+        List<Storage> volumes = new ArrayList<>();
+        Set<Integer> ids = new HashSet<>();
+        for (int i = 0; i < volumesJson.size(); i++) {
+
+            JsonObject volumeJson = volumesJson.getJsonObject(i);
+            // volumes are always persistent claims, the type can be omitted
+            if (!volumeJson.containsKey(Storage.TYPE_FIELD)) {
+                volumeJson = volumeJson.copy().put(Storage.TYPE_FIELD, StorageType.PERSISTENT_CLAIM.type);
+            }
+            Storage volume = Storage.fromJson(volumeJson);
+            if (volume.type() != StorageType.PERSISTENT_CLAIM || volume.dataLog() != null) {
+                throw new IllegalArgumentException("Storage '" + Storage.VOLUMES_FIELD + "' supports only '" +
+                        StorageType.PERSISTENT_CLAIM.type + "' type");
+            }
+
+            Integer id = volumeJson.getInteger(Storage.ID_FIELD);
+            if (id == null || id < 0 || !ids.add(id)) {
+                throw new IllegalArgumentException("Storage '" + Storage.VOLUMES_FIELD + "' needs a unique, not negative '" +
+                        Storage.ID_FIELD + "' for every volume");
+            }
+            volumes.add(volume.withId(id));
+        }
+        storage.withVolumes(volumes);
+
+        if (json.getValue(Storage.DELETE_CLAIM_FIELD) instanceof Boolean) {
+            storage.withDeleteClaim(json.getBoolean(Storage.DELETE_CLAIM_FIELD));
+        }
+
         return storage;
     }
 
@@ -158,13 +272,51 @@ public class Storage {
 
         StorageDiffResult diffResult = new StorageDiffResult();
 
+        if (this.isPersistent() && other.isPersistent() && (this.type == StorageType.JBOD || other.type() == StorageType.JBOD)) {
+            return diffVolumes(other, diffResult);
+        }
+
         diffResult
                 .withDifferentType(this.type != other.type())
                 .withDifferentSize(!this.compareSize(other.size()))
                 .withDifferentDeleteClaim(this.isDeleteClaim != other.isDeleteClaim())
                 .withDifferentStorageClass(!this.compareStorageClass(other.storageClass()))
-                .withDifferentSelector(!this.compareSelector(other.selector()));
+                .withDifferentSelector(!this.compareSelector(other.selector()))
+                .withDifferentDataLog(!this.compareDataLog(other.dataLog()));
+
+
+        return diffResult;
+    }
+
+    /**
+     * Compute the difference between the volumes of two persistent Storage instances, where at least one is "jbod".
+     * A "persistent-claim" storage is handled as a "jbod" with the only volume 0, so it can be turned into a "jbod" one.
+     *
+     * @param other the other instance to compare with
+     * @param diffResult    the result to fill
+     * @return  the result with all differences
+     */
+    private StorageDiffResult diffVolumes(Storage other, StorageDiffResult diffResult) {
 
+        Map<Integer, Storage> volumes = this.volumes().stream().collect(Collectors.toMap(Storage::id, Function.identity()));
+        Map<Integer, Storage> otherVolumes = other.volumes().stream().collect(Collectors.toMap(Storage::id, Function.identity()));
+
+        diffResult
+                .withDifferentDeleteClaim(this.isDeleteClaim != other.isDeleteClaim())
+                .withAddedVolumes(!otherVolumes.keySet().containsAll(volumes.keySet()))
+                .withRemovedVolumes(!volumes.keySet().containsAll(otherVolumes.keySet()));
+
+        // volumes on both sides can't change
+        for (Map.Entry<Integer, Storage> entry : volumes.entrySet()) {
+            Storage otherVolume = otherVolumes.get(entry.getKey());
+            if (otherVolume != null) {
+                StorageDiffResult volumeDiff = entry.getValue().diff(otherVolume);
+                diffResult
+                        .withDifferentSize(diffResult.isSize() || volumeDiff.isSize())
+                        .withDifferentStorageClass(diffResult.isStorageClass() || volumeDiff.isStorageClass())
+                        .withDifferentSelector(diffResult.isSelector() || volumeDiff.isSelector());
+            }
+        }
 
         return diffResult;
     }
@@ -224,6 +376,23 @@ public class Storage {
         }
     }
 
+    /**
+     * Compare two transaction log storages
+     *
+     * @param other the other transaction log storage
+     * @return  if the compared transaction log storages are equals
+     */
+    private boolean compareDataLog(Storage other) {
+
+        if (Objects.isNull(this.dataLog) || Objects.isNull(other)) {
+            return Objects.isNull(this.dataLog) && Objects.isNull(other);
+        }
+
+        // the delete-claim flag is shared with the main storage, so it isn't compared here
+        StorageDiffResult diffResult = this.dataLog.diff(other);
+        return !(diffResult.isType() || diffResult.isSize() || diffResult.isStorageClass() || diffResult.isSelector());
+    }
+
     /**
      * Result after comparing two Storage instances
      */
@@ -234,6 +403,9 @@ public class Storage {
         private boolean isStorageClass;
         private boolean isSelector;
         private boolean isDeleteClaim;
+        private boolean isDataLog;
+        private boolean isAddedVolumes;
+        private boolean isRemovedVolumes;
 
         /**
          * @return  if the Storage type is different
@@ -270,6 +442,27 @@ public class Storage {
             return this.isDeleteClaim;
         }
 
+        /**
+         * @return  if the transaction log storage is different
+         */
+        public boolean isDataLog() {
+            return this.isDataLog;
+        }
+
+        /**
+         * @return  if volumes were added to the storage
+         */
+        public boolean isAddedVolumes() {
+            return this.isAddedVolumes;
+        }
+
+        /**
+         * @return  if volumes were removed from the storage
+         */
+        public boolean isRemovedVolumes() {
+            return this.isRemovedVolumes;
+        }
+
         /**
          * Set if the Storage type is different
          *
@@ -324,6 +517,39 @@ public class Storage {
             this.isDeleteClaim = isDeleteClaim;
             return this;
         }
+
+        /**
+         * Set if the transaction log storage is different
+         *
+         * @param isDataLog if the transaction log storage is different
+         * @return  current StorageDiffResult instance
+         */
+        public StorageDiffResult withDifferentDataLog(boolean isDataLog) {
+            this.isDataLog = isDataLog;
+            return this;
+        }
+
+        /**
+         * Set if volumes were added to the storage
+         *
+         * @param isAddedVolumes    if volumes were added
+         * @return  current StorageDiffResult instance
+         */
+        public StorageDiffResult withAddedVolumes(boolean isAddedVolumes) {
+            this.isAddedVolumes = isAddedVolumes;
+            return this;
+        }
+
+        /**
+         * Set if volumes were removed from the storage
+         *
+         * @param isRemovedVolumes  if volumes were removed
+         * @return  current StorageDiffResult instance
+         */
+        public StorageDiffResult withRemovedVolumes(boolean isRemovedVolumes) {
+            this.isRemovedVolumes = isRemovedVolumes;
+            return this;
+        }
     }
 
 
@@ -334,7 +560,8 @@ public class Storage {
 
         EPHEMERAL("ephemeral"),
         PERSISTENT_CLAIM("persistent-claim"),
-        LOCAL("local");
+        LOCAL("local"),
+        JBOD("jbod");
 
         private final String type;
 
@@ -355,6 +582,8 @@ public class Storage {
                 return PERSISTENT_CLAIM;
             } else if (type.equals(LOCAL.type)) {
                 return LOCAL;
+            } else if (type.equals(JBOD.type)) {
+                return JBOD;
             } else {
                 throw new IllegalArgumentException("Unknown type: " + type);
             }
@@ -396,4 +625,35 @@ public class Storage {
     public boolean isDeleteClaim() {
         return this.isDeleteClaim;
     }
+
+    /**
+     * @return  separate storage for the transaction log, null if it shares the main storage
+     */
+    public Storage dataLog() {
+        return this.dataLog;
+    }
+
+    /**
+     * @return  volume id, when the storage is a volume of a "jbod" one
+     */
+    public int id() {
+        return this.id;
+    }
+
+    /**
+     * @return  the volumes of a "jbod" storage, or the storage itself as volume 0 for a "persistent-claim" one
+     */
+    public List<Storage> volumes() {
+        if (this.type == StorageType.JBOD) {
+            return this.volumes;
+        }
+        return this.type == StorageType.PERSISTENT_CLAIM ? Collections.singletonList(this) : Collections.emptyList();
+    }
+
+    /**
+     * @return  if the storage is backed by persistent volume claims
+     */
+    public boolean isPersistent() {
+        return this.type == StorageType.PERSISTENT_CLAIM || this.type == StorageType.JBOD;
+    }
 }
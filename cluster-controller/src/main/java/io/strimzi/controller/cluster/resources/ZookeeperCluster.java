@@ -38,6 +38,11 @@ public class ZookeeperCluster extends AbstractCluster {
     private static int DEFAULT_HEALTHCHECK_TIMEOUT = 5;
     private static boolean DEFAULT_ZOOKEEPER_METRICS_ENABLED = false;
 
+    // JVM sizing, when the resources are specified
+    private static double HEAP_FRACTION = 0.75;
+    private static long MAX_HEAP = 4L * 1024 * 1024 * 1024;
+    private static int MAX_GC_PAUSE_MILLIS = 20;
+
     // Zookeeper configuration defaults
     // N/A
 
@@ -48,10 +53,15 @@ public class ZookeeperCluster extends AbstractCluster {
     private static String KEY_HEALTHCHECK_TIMEOUT = "zookeeper-healthcheck-timeout";
     private static String KEY_METRICS_CONFIG = "zookeeper-metrics-config";
     private static String KEY_STORAGE = "zookeeper-storage";
+    private static String KEY_RESOURCES = "zookeeper-resources";
 
     // Zookeeper configuration keys
     private static String KEY_ZOOKEEPER_NODE_COUNT = "ZOOKEEPER_NODE_COUNT";
     private static String KEY_ZOOKEEPER_METRICS_ENABLED = "ZOOKEEPER_METRICS_ENABLED";
+    private static String KEY_ZOOKEEPER_DATA_LOG_DIR = "ZOOKEEPER_DATA_LOG_DIR";
+
+    private String dataLogMountPath;
+    private String dataLogVolumeName;
 
     /**
      * Constructor
@@ -74,6 +84,8 @@ public class ZookeeperCluster extends AbstractCluster {
 
         this.mounthPath = "/var/lib/zookeeper";
         this.volumeName = "zookeeper-storage";
+        this.dataLogMountPath = "/var/lib/zookeeper-data-log";
+        this.dataLogVolumeName = "zookeeper-data-log";
         this.metricsConfigVolumeName = "zookeeper-metrics-config";
         this.metricsConfigMountPath = "/opt/prometheus/config/";
     }
@@ -102,7 +114,16 @@ public class ZookeeperCluster extends AbstractCluster {
         }
 
         String storageConfig = cm.getData().get(KEY_STORAGE);
-        zk.setStorage(Storage.fromJson(new JsonObject(storageConfig)));
+        Storage storage = Storage.fromJson(new JsonObject(storageConfig));
+        if (storage.type() == Storage.StorageType.JBOD) {
+            throw new IllegalArgumentException("Storage type 'jbod' isn't supported by Zookeeper");
+        }
+        zk.setStorage(storage);
+
+        String resourcesConfig = cm.getData().get(KEY_RESOURCES);
+        if (resourcesConfig != null) {
+            zk.setResources(Resources.fromJson(new JsonObject(resourcesConfig)));
+        }
 
         return zk;
     }
@@ -135,18 +156,8 @@ public class ZookeeperCluster extends AbstractCluster {
             zk.setMetricsConfigName(cluster + ZookeeperCluster.METRICS_CONFIG_SUFFIX);
         }
 
-        if (!ss.getSpec().getVolumeClaimTemplates().isEmpty()) {
-
-            Storage storage = Storage.fromPersistentVolumeClaim(ss.getSpec().getVolumeClaimTemplates().get(0));
-            if (ss.getMetadata().getAnnotations() != null) {
-                String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
-                storage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
-            }
-            zk.setStorage(storage);
-        } else {
-            Storage storage = new Storage(Storage.StorageType.EPHEMERAL);
-            zk.setStorage(storage);
-        }
+        zk.setStorage(zk.getStatefulSetStorage(ss));
+        zk.setResources(Resources.fromResourceRequirements(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getResources()));
 
         return zk;
     }
@@ -195,6 +206,13 @@ public class ZookeeperCluster extends AbstractCluster {
             diff.setRollingUpdate(true);
         }
 
+        Resources ssResources = Resources.fromResourceRequirements(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getResources());
+        if (!resources.equals(ssResources)) {
+            log.info("Diff: Expected resources {}, actual resources {}", resources, ssResources);
+            diff.setDifferent(true);
+            diff.setRollingUpdate(true);
+        }
+
         Map<String, String> vars = ss.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv().stream().collect(
                 Collectors.toMap(EnvVar::getName, EnvVar::getValue));
 
@@ -213,24 +231,14 @@ public class ZookeeperCluster extends AbstractCluster {
         }
 
         // get the current (deployed) kind of storage
-        Storage ssStorage;
-        if (ss.getSpec().getVolumeClaimTemplates().isEmpty()) {
-            ssStorage = new Storage(Storage.StorageType.EPHEMERAL);
-        } else {
-            ssStorage = Storage.fromPersistentVolumeClaim(ss.getSpec().getVolumeClaimTemplates().get(0));
-            // the delete-claim flack is backed by the StatefulSets
-            if (ss.getMetadata().getAnnotations() != null) {
-                String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
-                ssStorage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
-            }
-        }
+        Storage ssStorage = getStatefulSetStorage(ss);
 
         // compute the differences with the requested storage (from the updated ConfigMap)
         Storage.StorageDiffResult storageDiffResult = storage.diff(ssStorage);
 
         // check for all the not allowed changes to the storage
         boolean isStorageRejected = (storageDiffResult.isType() || storageDiffResult.isSize() ||
-                storageDiffResult.isStorageClass() || storageDiffResult.isSelector());
+                storageDiffResult.isStorageClass() || storageDiffResult.isSelector() || storageDiffResult.isDataLog());
 
         // only delete-claim flag can be changed
         if (!isStorageRejected && (storage.type() == Storage.StorageType.PERSISTENT_CLAIM)) {
@@ -244,6 +252,34 @@ public class ZookeeperCluster extends AbstractCluster {
         return diff;
     }
 
+    /**
+     * Get the storage currently deployed with the StatefulSet, matching the volume claim templates by name
+     *
+     * @param ss    deployed StatefulSet
+     * @return  Storage instance
+     */
+    private Storage getStatefulSetStorage(StatefulSet ss) {
+
+        PersistentVolumeClaim pvc = getVolumeClaimTemplate(ss, volumeName);
+        if (pvc == null) {
+            return new Storage(Storage.StorageType.EPHEMERAL);
+        }
+
+        Storage storage = Storage.fromPersistentVolumeClaim(pvc);
+        // the delete-claim flag is backed by the StatefulSets
+        if (ss.getMetadata().getAnnotations() != null) {
+            String deleteClaimAnnotation = String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD);
+            storage.withDeleteClaim(Boolean.valueOf(ss.getMetadata().getAnnotations().computeIfAbsent(deleteClaimAnnotation, s -> "false")));
+        }
+
+        PersistentVolumeClaim dataLogPvc = getVolumeClaimTemplate(ss, dataLogVolumeName);
+        if (dataLogPvc != null) {
+            storage.withDataLog(Storage.fromPersistentVolumeClaim(dataLogPvc));
+        }
+
+        return storage;
+    }
+
     public Service generateService() {
 
         return createService("ClusterIP",
@@ -294,16 +330,29 @@ public class ZookeeperCluster extends AbstractCluster {
         annotations.put(String.format("%s/%s", ClusterController.STRIMZI_CLUSTER_CONTROLLER_DOMAIN, Storage.DELETE_CLAIM_FIELD),
                 String.valueOf(storage.isDeleteClaim()));
 
-        return patchStatefulSet(statefulSet,
+        StatefulSet patched = patchStatefulSet(statefulSet,
                 createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
                 createExecProbe(healthCheckPath, healthCheckInitialDelay, healthCheckTimeout),
                 annotations);
+
+        // volume claim templates can't be changed, so never point Zookeeper to a transaction log
+        // directory which isn't backed by the deployed StatefulSet
+        if (getVolumeClaimTemplate(patched, dataLogVolumeName) == null) {
+            patched.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv()
+                    .removeIf(var -> KEY_ZOOKEEPER_DATA_LOG_DIR.equals(var.getName()));
+        }
+
+        return patched;
     }
 
     protected List<EnvVar> getEnvVars() {
         List<EnvVar> varList = new ArrayList<>();
         varList.add(new EnvVarBuilder().withName(KEY_ZOOKEEPER_NODE_COUNT).withValue(Integer.toString(replicas)).build());
         varList.add(new EnvVarBuilder().withName(KEY_ZOOKEEPER_METRICS_ENABLED).withValue(String.valueOf(isMetricsEnabled)).build());
+        if (hasDataLog()) {
+            varList.add(new EnvVarBuilder().withName(KEY_ZOOKEEPER_DATA_LOG_DIR).withValue(dataLogMountPath).build());
+        }
+        varList.addAll(getJvmEnvVars(HEAP_FRACTION, MAX_HEAP, MAX_GC_PAUSE_MILLIS));
 
         return varList;
     }
@@ -345,6 +394,9 @@ public class ZookeeperCluster extends AbstractCluster {
         List<PersistentVolumeClaim> pvcList = new ArrayList<>();
         if (storage.type() == Storage.StorageType.PERSISTENT_CLAIM) {
             pvcList.add(createPersistentVolumeClaim(volumeName));
+            if (hasDataLog()) {
+                pvcList.add(createPersistentVolumeClaim(dataLogVolumeName, storage.dataLog()));
+            }
         }
         return pvcList;
     }
@@ -352,6 +404,9 @@ public class ZookeeperCluster extends AbstractCluster {
     private List<VolumeMount> getVolumeMounts() {
         List<VolumeMount> volumeMountList = new ArrayList<>();
         volumeMountList.add(createVolumeMount(volumeName, mounthPath));
+        if (hasDataLog()) {
+            volumeMountList.add(createVolumeMount(dataLogVolumeName, dataLogMountPath));
+        }
         if (isMetricsEnabled) {
             volumeMountList.add(createVolumeMount(metricsConfigVolumeName, metricsConfigMountPath));
         }
@@ -359,6 +414,17 @@ public class ZookeeperCluster extends AbstractCluster {
         return volumeMountList;
     }
 
+    /**
+     * @return  if the transaction log is on a separate volume
+     */
+    public boolean hasDataLog() {
+        return storage.type() == Storage.StorageType.PERSISTENT_CLAIM && storage.dataLog() != null;
+    }
+
+    public String getDataLogVolumeName() {
+        return dataLogVolumeName;
+    }
+
     protected void setLabels(Map<String, String> labels) {
         Map<String, String> newLabels = new HashMap<>(labels);
 
@@ -0,0 +1,272 @@
+package io.strimzi.controller.cluster.operations;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.DoneablePod;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.strimzi.controller.cluster.AsyncK8SUtils;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.invocation.InvocationOnMock;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the create, update (with a rolling update) and delete operations of several Kafka clusters at once
+ * against a slow (mocked) Kubernetes API, checking that none of the blocking calls is made on the event loop
+ * and that Vert.x doesn't warn about a blocked event loop thread.
+ */
+@RunWith(VertxUnitRunner.class)
+public class ClusterOperationsEventLoopTest {
+
+    private static final String NAMESPACE = "test";
+    private static final int CLUSTERS = 5;
+    private static final long API_LATENCY_MS = 100;
+    private static final int REPLICAS = 3;
+
+    private final Map<String, ConfigMap> configMaps = new ConcurrentHashMap<>();
+    private final Map<String, Service> services = new ConcurrentHashMap<>();
+    private final Map<String, StatefulSet> statefulSets = new ConcurrentHashMap<>();
+    private final Map<String, Watcher<Pod>> podWatchers = new ConcurrentHashMap<>();
+    private final AtomicInteger podsRolled = new AtomicInteger();
+    private final AtomicInteger apiCalls = new AtomicInteger();
+    private final AtomicInteger apiCallsOnEventLoop = new AtomicInteger();
+    private final AtomicInteger blockedThreadWarnings = new AtomicInteger();
+
+    private final Logger blockedThreadChecker = Logger.getLogger("io.vertx.core.impl.BlockedThreadChecker");
+    private final Handler blockedThreadHandler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+                blockedThreadWarnings.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private Vertx vertx;
+    private OperationExecutor executor;
+
+    @Before
+    public void setup() {
+        blockedThreadChecker.addHandler(blockedThreadHandler);
+        // Any Kubernetes API call on the event loop would block it for longer than allowed
+        vertx = Vertx.vertx(new VertxOptions()
+                .setBlockedThreadCheckInterval(10)
+                .setMaxEventLoopExecuteTime(TimeUnit.MILLISECONDS.toNanos(API_LATENCY_MS / 2)));
+        vertx.createSharedWorkerExecutor(AsyncK8SUtils.WORKER_POOL_NAME, 5, TimeUnit.SECONDS.toNanos(120));
+        K8SUtils k8s = mock(K8SUtils.class, this::api);
+        executor = OperationExecutor.getInstance(vertx, k8s);
+        executor.setMaxConcurrentOperations(CLUSTERS);
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        blockedThreadChecker.removeHandler(blockedThreadHandler);
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    /**
+     * Every request to the API server takes a while
+     */
+    private void request() throws InterruptedException {
+        apiCalls.incrementAndGet();
+        if (Context.isOnEventLoopThread()) {
+            apiCallsOnEventLoop.incrementAndGet();
+        }
+        Thread.sleep(API_LATENCY_MS);
+    }
+
+    /**
+     * A slow in-memory Kubernetes API
+     */
+    private Object api(InvocationOnMock invocation) throws Throwable {
+        Object[] args = invocation.getArguments();
+        switch (invocation.getMethod().getName()) {
+            // these just build a client-side handle on a resource, without a request
+            case "getServiceResource":
+            case "getStatefulSetResource":
+            case "getConfigmapResource":
+                return mock(invocation.getMethod().getReturnType(), Answers.RETURNS_SELF);
+            case "getPodResource":
+                return podResource((String) args[1]);
+            default:
+        }
+
+        request();
+        switch (invocation.getMethod().getName()) {
+            case "isOpenShift":
+                return false;
+            case "getConfigmap":
+                return configMaps.get((String) args[1]);
+            case "getService":
+                return services.get((String) args[1]);
+            case "serviceExists":
+                return services.containsKey((String) args[1]);
+            case "createService":
+                services.put(name(args[0]), (Service) args[0]);
+                return null;
+            case "deleteService":
+                services.remove((String) args[1]);
+                return null;
+            case "statefulSetExists":
+                return statefulSets.containsKey((String) args[1]);
+            case "getStatefulSet":
+                return statefulSets.get((String) args[1]);
+            case "createStatefulSet":
+                statefulSets.put(name(args[0]), (StatefulSet) args[0]);
+                return null;
+            case "deleteStatefulSet":
+                statefulSets.remove((String) args[1]);
+                return null;
+            case "patch":
+                if (args[1] instanceof Service) {
+                    services.put(name(args[1]), (Service) args[1]);
+                } else if (args[1] instanceof StatefulSet) {
+                    statefulSets.put(name(args[1]), (StatefulSet) args[1]);
+                }
+                return null;
+            case "createPodWatch":
+                podWatchers.put((String) args[1], (Watcher<Pod>) args[2]);
+                return mock(Watch.class);
+            default:
+                return Answers.RETURNS_DEFAULTS.answer(invocation);
+        }
+    }
+
+    /**
+     * A pod which, once deleted, is re-created and gets ready, as the stateful set controller would do
+     */
+    @SuppressWarnings("unchecked")
+    private PodResource<Pod, DoneablePod> podResource(String podName) {
+        PodResource<Pod, DoneablePod> resource = mock(PodResource.class);
+        when(resource.delete()).thenAnswer(invocation -> {
+            request();
+            Watcher<Pod> watcher = podWatchers.get(podName);
+            new Thread(() -> {
+                watcher.eventReceived(Watcher.Action.DELETED, pod(podName, "False"));
+                watcher.eventReceived(Watcher.Action.ADDED, pod(podName, "False"));
+                watcher.eventReceived(Watcher.Action.MODIFIED, pod(podName, "True"));
+                podsRolled.incrementAndGet();
+            }).start();
+            return true;
+        });
+        return resource;
+    }
+
+    private static Pod pod(String name, String ready) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                .endMetadata()
+                .withNewStatus()
+                    .addNewCondition()
+                        .withType("Ready")
+                        .withStatus(ready)
+                    .endCondition()
+                .endStatus()
+                .build();
+    }
+
+    private static String name(Object resource) {
+        return ((HasMetadata) resource).getMetadata().getName();
+    }
+
+    private void addConfigMap(String name) {
+        configMaps.put(name, new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                .endMetadata()
+                .addToData("kafka-storage", "{ \"type\": \"ephemeral\" }")
+                .addToData("kafka-nodes", String.valueOf(REPLICAS))
+                .build());
+    }
+
+    private void createAndDelete(TestContext context, int clusters) {
+        for (int i = 0; i < clusters; i++) {
+            addConfigMap("cluster-" + i);
+        }
+
+        Async created = context.async(clusters);
+        for (int i = 0; i < clusters; i++) {
+            executor.execute(new CreateKafkaClusterOperation(NAMESPACE, "cluster-" + i), context.asyncAssertSuccess(v -> created.countDown()));
+        }
+        created.await();
+        context.assertEquals(clusters, statefulSets.size());
+        context.assertEquals(2 * clusters, services.size());
+
+        // a changed healthcheck needs the stateful set patched and the brokers rolled
+        podsRolled.set(0);
+        for (int i = 0; i < clusters; i++) {
+            configMaps.get("cluster-" + i).getData().put("kafka-healthcheck-delay", "20");
+        }
+        Async updated = context.async(clusters);
+        for (int i = 0; i < clusters; i++) {
+            executor.execute(new UpdateKafkaClusterOperation(NAMESPACE, "cluster-" + i), context.asyncAssertSuccess(v -> updated.countDown()));
+        }
+        updated.await();
+        context.assertEquals(clusters * REPLICAS, podsRolled.get());
+        for (StatefulSet ss : statefulSets.values()) {
+            context.assertEquals(20, ss.getSpec().getTemplate().getSpec().getContainers().get(0).getReadinessProbe().getInitialDelaySeconds());
+        }
+
+        Async deleted = context.async(clusters);
+        for (int i = 0; i < clusters; i++) {
+            executor.execute(new DeleteKafkaClusterOperation(NAMESPACE, "cluster-" + i), context.asyncAssertSuccess(v -> deleted.countDown()));
+        }
+        deleted.await();
+        context.assertTrue(statefulSets.isEmpty());
+        context.assertTrue(services.isEmpty());
+    }
+
+    @Test
+    public void testNoBlockingCallsOnEventLoop(TestContext context) {
+        // the first run loads the classes (and bootstraps the lambdas) on the event loop, which can take longer than allowed
+        createAndDelete(context, 1);
+        apiCalls.set(0);
+        apiCallsOnEventLoop.set(0);
+        blockedThreadWarnings.set(0);
+
+        createAndDelete(context, CLUSTERS);
+
+        context.assertTrue(apiCalls.get() > 0);
+        context.assertEquals(0, apiCallsOnEventLoop.get(), "Kubernetes API calls made on the event loop");
+        context.assertEquals(0, blockedThreadWarnings.get(), "Blocked thread warnings");
+    }
+}
@@ -0,0 +1,241 @@
+package io.strimzi.controller.cluster.operations;
+
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the queueing of cluster operations by the {@link OperationExecutor}, using operations
+ * whose completion is controlled by the test.
+ */
+@RunWith(VertxUnitRunner.class)
+public class OperationExecutorTest {
+
+    private static final String NAMESPACE = "test";
+    private static final long TIMEOUT_S = 5;
+
+    /** The operations which have started executing, in order. */
+    private final BlockingQueue<TestOperation> started = new LinkedBlockingQueue<>();
+
+    private Vertx vertx;
+    private OperationExecutor executor;
+
+    /**
+     * A cluster operation which only completes when the test tells it to.
+     */
+    private class TestOperation extends ClusterOperation {
+        private Handler<AsyncResult<Void>> handler;
+
+        TestOperation(String name) {
+            super(NAMESPACE, name);
+        }
+
+        @Override
+        protected String getLockName() {
+            return "lock::" + namespace + "::" + name;
+        }
+
+        @Override
+        public void execute(Vertx vertx, K8SUtils k8s, Handler<AsyncResult<Void>> handler) {
+            synchronized (this) {
+                this.handler = handler;
+            }
+            started.add(this);
+        }
+
+        void succeed() {
+            complete(Future.succeededFuture());
+        }
+
+        void fail() {
+            complete(Future.failedFuture("failed"));
+        }
+
+        private void complete(AsyncResult<Void> result) {
+            Handler<AsyncResult<Void>> handler;
+            synchronized (this) {
+                handler = this.handler;
+            }
+            handler.handle(result);
+        }
+    }
+
+    /**
+     * Another kind of cluster operation, for the same key as a {@link TestOperation} with the same name.
+     */
+    private class OtherTestOperation extends TestOperation {
+        OtherTestOperation(String name) {
+            super(name);
+        }
+    }
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        executor = OperationExecutor.getInstance(vertx, mock(K8SUtils.class));
+        executor.setMaxConcurrentOperations(OperationExecutor.DEFAULT_MAX_CONCURRENT_OPERATIONS);
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        context.assertEquals(0, executor.getRunning());
+        context.assertEquals(0, executor.getQueueDepth());
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    private TestOperation awaitStarted(TestContext context) throws InterruptedException {
+        TestOperation op = started.poll(TIMEOUT_S, TimeUnit.SECONDS);
+        context.assertNotNull(op, "Timed out waiting for an operation to start");
+        return op;
+    }
+
+    private void assertNoneStarted(TestContext context) throws InterruptedException {
+        context.assertNull(started.poll(100, TimeUnit.MILLISECONDS), "Unexpected operation started");
+    }
+
+    private void awaitQueuedKeys(TestContext context, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_S);
+        while (executor.getQueuedKeys() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        context.assertEquals(expected, executor.getQueuedKeys());
+    }
+
+    @Test
+    public void testDuplicateQueuedOperationsAreCollapsed(TestContext context) throws InterruptedException {
+        long deduplicated = executor.getDeduplicated();
+        AtomicInteger firstCalls = new AtomicInteger();
+        AtomicInteger secondCalls = new AtomicInteger();
+        AtomicInteger otherCalls = new AtomicInteger();
+        AtomicInteger lastCalls = new AtomicInteger();
+
+        TestOperation running = new TestOperation("cluster");
+        executor.execute(running, context.asyncAssertSuccess());
+        context.assertEquals(running, awaitStarted(context));
+
+        // Queued behind the running operation: the second one of the same class is collapsed into the first,
+        // but one of another class is not, nor is one following it
+        TestOperation first = new TestOperation("cluster");
+        executor.execute(first, context.asyncAssertSuccess(v -> firstCalls.incrementAndGet()));
+        executor.execute(new TestOperation("cluster"), context.asyncAssertSuccess(v -> secondCalls.incrementAndGet()));
+        TestOperation other = new OtherTestOperation("cluster");
+        executor.execute(other, context.asyncAssertSuccess(v -> otherCalls.incrementAndGet()));
+        TestOperation last = new TestOperation("cluster");
+        executor.execute(last, context.asyncAssertSuccess(v -> lastCalls.incrementAndGet()));
+        context.assertEquals(deduplicated + 1, executor.getDeduplicated());
+        context.assertEquals(3, executor.getQueueDepth());
+
+        running.succeed();
+        context.assertEquals(first, awaitStarted(context));
+        first.succeed();
+        context.assertEquals(1, firstCalls.get());
+        context.assertEquals(1, secondCalls.get());
+
+        context.assertEquals(other, awaitStarted(context));
+        other.succeed();
+        context.assertEquals(1, otherCalls.get());
+
+        context.assertEquals(last, awaitStarted(context));
+        last.succeed();
+        context.assertEquals(1, lastCalls.get());
+
+        assertNoneStarted(context);
+        awaitQueuedKeys(context, 0);
+    }
+
+    @Test
+    public void testMaxConcurrentOperations(TestContext context) throws InterruptedException {
+        executor.setMaxConcurrentOperations(2);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(new TestOperation("cluster-" + i), context.asyncAssertSuccess());
+        }
+
+        TestOperation op0 = awaitStarted(context);
+        TestOperation op1 = awaitStarted(context);
+        assertNoneStarted(context);
+        context.assertEquals(2, executor.getRunning());
+        context.assertEquals(2, executor.getQueueDepth());
+
+        op0.succeed();
+        TestOperation op2 = awaitStarted(context);
+        assertNoneStarted(context);
+        context.assertEquals(2, executor.getRunning());
+
+        op1.succeed();
+        TestOperation op3 = awaitStarted(context);
+        op2.succeed();
+        op3.succeed();
+        assertNoneStarted(context);
+        awaitQueuedKeys(context, 0);
+    }
+
+    @Test
+    public void testBackOffDelay(TestContext context) {
+        context.assertEquals(1_000L, OperationExecutor.backOffDelayMs(1));
+        context.assertEquals(2_000L, OperationExecutor.backOffDelayMs(2));
+        context.assertEquals(64_000L, OperationExecutor.backOffDelayMs(7));
+        context.assertEquals(120_000L, OperationExecutor.backOffDelayMs(8));
+        context.assertEquals(120_000L, OperationExecutor.backOffDelayMs(1_000));
+    }
+
+    @Test
+    public void testFailureDelaysOperationsForTheSameKeyOnly(TestContext context) throws InterruptedException {
+        TestOperation failing = new TestOperation("failing");
+        executor.execute(failing, context.asyncAssertFailure());
+        awaitStarted(context);
+
+        TestOperation next = new TestOperation("failing");
+        executor.execute(next, context.asyncAssertSuccess());
+        long failedAt = System.nanoTime();
+        failing.fail();
+
+        // another cluster is unaffected by the back-off
+        TestOperation unrelated = new TestOperation("unrelated");
+        executor.execute(unrelated, context.asyncAssertSuccess());
+        context.assertEquals(unrelated, awaitStarted(context));
+        unrelated.succeed();
+
+        context.assertEquals(next, awaitStarted(context));
+        long delayMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - failedAt);
+        context.assertTrue(delayMs >= OperationExecutor.backOffDelayMs(1), "Not delayed: " + delayMs + "ms");
+        next.succeed();
+        awaitQueuedKeys(context, 0);
+    }
+
+    @Test
+    public void testDrainedKeysAreForgotten(TestContext context) throws InterruptedException {
+        Async done = context.async(3);
+        for (int i = 0; i < 3; i++) {
+            executor.execute(new TestOperation("cluster-" + i), context.asyncAssertSuccess(v -> done.countDown()));
+        }
+        context.assertEquals(3, executor.getQueuedKeys());
+        for (int i = 0; i < 3; i++) {
+            awaitStarted(context).succeed();
+        }
+        done.await();
+        awaitQueuedKeys(context, 0);
+
+        // a key whose back-off has expired is forgotten too, together with its failure count
+        TestOperation failing = new TestOperation("failing");
+        executor.execute(failing, context.asyncAssertFailure());
+        awaitStarted(context).fail();
+        context.assertEquals(1, executor.getQueuedKeys());
+        awaitQueuedKeys(context, 0);
+    }
+}
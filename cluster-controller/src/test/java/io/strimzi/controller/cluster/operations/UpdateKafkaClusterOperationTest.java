@@ -0,0 +1,154 @@
+package io.strimzi.controller.cluster.operations;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.strimzi.controller.cluster.operations.kafka.AlterBrokerConfigOperation;
+import io.strimzi.controller.cluster.resources.ClusterDiffResult;
+import io.strimzi.controller.cluster.resources.KafkaCluster;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.errors.UnsupportedVersionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks that a change of the dynamic broker configuration is either applied to the running brokers
+ * or, when that fails, rolled out by a rolling update.
+ */
+@RunWith(VertxUnitRunner.class)
+public class UpdateKafkaClusterOperationTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String CLUSTER = "my-cluster";
+
+    /** Whether the brokers accepted the new dynamic configuration */
+    private final AtomicBoolean applied = new AtomicBoolean();
+
+    private Vertx vertx;
+    private AdminClient adminClient;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        OperationExecutor.getInstance(vertx, mock(K8SUtils.class));
+        adminClient = mock(AdminClient.class);
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    private static KafkaCluster kafka() {
+        ConfigMap cm = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName(CLUSTER)
+                    .withNamespace(NAMESPACE)
+                    .addToLabels("strimzi.io/kind", "cluster")
+                    .addToLabels("strimzi.io/type", "kafka")
+                .endMetadata()
+                .addToData("kafka-storage", "{\"type\": \"ephemeral\"}")
+                .addToData("kafka-config", "{\"num.io.threads\": 16}")
+                .build();
+        return KafkaCluster.fromConfigMap(cm);
+    }
+
+    /** A diff of the dynamic configuration only, so there's no rolling update unless altering the brokers fails */
+    private static ClusterDiffResult dynamicConfigDiff(boolean rollingUpdate) {
+        ClusterDiffResult diff = new ClusterDiffResult(true, rollingUpdate);
+        diff.setDynamicConfigChanged(true);
+        return diff;
+    }
+
+    private void alterConfigs(KafkaFuture<Void> result) {
+        AlterConfigsResult alterConfigsResult = mock(AlterConfigsResult.class);
+        when(alterConfigsResult.all()).thenReturn(result);
+        when(adminClient.alterConfigs(anyMap())).thenAnswer(invocation -> {
+            applied.set(!result.isCompletedExceptionally());
+            return alterConfigsResult;
+        });
+    }
+
+    private static KafkaFuture<Void> failed(Throwable error) {
+        KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private UpdateKafkaClusterOperation operation() {
+        return new UpdateKafkaClusterOperation(NAMESPACE, CLUSTER) {
+            @Override
+            protected Operation alterBrokerConfigOperation(KafkaCluster kafka) {
+                return new AlterBrokerConfigOperation(kafka.getBootstrapServers(), kafka.getConfiguration().dynamicConfig()) {
+                    @Override
+                    protected AdminClient createAdminClient() {
+                        return adminClient;
+                    }
+                };
+            }
+        };
+    }
+
+    private void assertAlterBrokerConfig(TestContext context, ClusterDiffResult diff, boolean expectRollingUpdate) {
+        Async async = context.async();
+        operation().alterBrokerConfig(kafka(), diff).setHandler(context.asyncAssertSuccess(v -> {
+            context.assertEquals(expectRollingUpdate, diff.getRollingUpdate());
+            // the new configuration gets to the brokers one way or the other
+            context.assertTrue(applied.get() || diff.getRollingUpdate());
+            async.complete();
+        }));
+    }
+
+    @Test
+    public void testAppliedWithoutRollingUpdate(TestContext context) {
+        alterConfigs(KafkaFuture.completedFuture(null));
+        assertAlterBrokerConfig(context, dynamicConfigDiff(false), false);
+    }
+
+    @Test
+    public void testFailedAlterConfigsTriggersRollingUpdate(TestContext context) {
+        alterConfigs(failed(new UnsupportedVersionException("brokers older than 1.1")));
+        assertAlterBrokerConfig(context, dynamicConfigDiff(false), true);
+    }
+
+    @Test
+    public void testFailedAlterConfigsKeepsRollingUpdate(TestContext context) {
+        alterConfigs(failed(new UnsupportedVersionException("brokers older than 1.1")));
+        assertAlterBrokerConfig(context, dynamicConfigDiff(true), true);
+    }
+
+    @Test
+    public void testUnreachableBrokersTriggerRollingUpdate(TestContext context) {
+        when(adminClient.alterConfigs(anyMap())).thenThrow(new KafkaException("No resolvable bootstrap urls"));
+        assertAlterBrokerConfig(context, dynamicConfigDiff(false), true);
+    }
+
+    @Test
+    public void testUnchangedDynamicConfigIsNotApplied(TestContext context) {
+        ClusterDiffResult diff = new ClusterDiffResult(true, false);
+        Async async = context.async();
+        operation().alterBrokerConfig(kafka(), diff).setHandler(context.asyncAssertSuccess(v -> {
+            context.assertFalse(diff.getRollingUpdate());
+            verify(adminClient, never()).alterConfigs(anyMap());
+            async.complete();
+        }));
+    }
+}
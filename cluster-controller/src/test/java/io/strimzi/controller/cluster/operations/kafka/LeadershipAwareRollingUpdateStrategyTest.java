@@ -0,0 +1,204 @@
+package io.strimzi.controller.cluster.operations.kafka;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.DisconnectException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class LeadershipAwareRollingUpdateStrategyTest {
+
+    private static final List<String> PODS = asList("my-cluster-kafka-0", "my-cluster-kafka-1", "my-cluster-kafka-2");
+
+    private final AtomicInteger describes = new AtomicInteger();
+    private final AtomicInteger adminClientsCreatedOnEventLoop = new AtomicInteger();
+    /** The partitions returned by successive describes, the last one is repeated */
+    private final List<List<TopicPartitionInfo>> partitions = new ArrayList<>();
+
+    private Vertx vertx;
+    private AdminClient adminClient;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        adminClient = mock(AdminClient.class);
+
+        ListTopicsResult listTopicsResult = mock(ListTopicsResult.class);
+        when(listTopicsResult.names()).thenReturn(KafkaFuture.completedFuture(Collections.singleton("my-topic")));
+        when(adminClient.listTopics(any(ListTopicsOptions.class))).thenReturn(listTopicsResult);
+        when(adminClient.describeTopics(anyCollection())).thenAnswer(invocation -> {
+            int describe = describes.getAndIncrement();
+            Map<String, TopicDescription> descriptions = new HashMap<>();
+            descriptions.put("my-topic", new TopicDescription("my-topic", false,
+                    partitions.get(Math.min(describe, partitions.size() - 1))));
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.all()).thenReturn(KafkaFuture.completedFuture(descriptions));
+            return result;
+        });
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    private static Node node(int id) {
+        return new Node(id, "my-cluster-kafka-" + id, 9092);
+    }
+
+    private static TopicPartitionInfo partition(int partition, List<Integer> replicas, List<Integer> isr) {
+        List<Node> replicaNodes = new ArrayList<>();
+        replicas.forEach(id -> replicaNodes.add(node(id)));
+        List<Node> isrNodes = new ArrayList<>();
+        isr.forEach(id -> isrNodes.add(node(id)));
+        return new TopicPartitionInfo(partition, isrNodes.isEmpty() ? null : isrNodes.get(0), replicaNodes, isrNodes);
+    }
+
+    private void controller(KafkaFuture<Node> controller) {
+        DescribeClusterResult result = mock(DescribeClusterResult.class);
+        when(result.controller()).thenReturn(controller);
+        when(adminClient.describeCluster()).thenReturn(result);
+    }
+
+    private LeadershipAwareRollingUpdateStrategy strategy(long urpTimeoutMs) {
+        return new LeadershipAwareRollingUpdateStrategy("my-cluster-kafka:9092", "my-cluster-zookeeper:2181", false, urpTimeoutMs, 10) {
+            @Override
+            protected AdminClient createAdminClient() {
+                if (Context.isOnEventLoopThread()) {
+                    adminClientsCreatedOnEventLoop.incrementAndGet();
+                }
+                return adminClient;
+            }
+        };
+    }
+
+    @Test
+    public void testControllerIsRolledLast(TestContext context) {
+        controller(KafkaFuture.completedFuture(node(1)));
+        Async async = context.async();
+        strategy(1_000).order(vertx, PODS).setHandler(context.asyncAssertSuccess(ordered -> {
+            context.assertEquals(asList("my-cluster-kafka-0", "my-cluster-kafka-2", "my-cluster-kafka-1"), ordered);
+            async.complete();
+        }));
+    }
+
+    @Test
+    public void testAdminClientIsNotCreatedOnEventLoop(TestContext context) {
+        controller(KafkaFuture.completedFuture(node(1)));
+        Async async = context.async();
+        vertx.runOnContext(v -> strategy(1_000).order(vertx, PODS).setHandler(context.asyncAssertSuccess(ordered -> {
+            context.assertEquals(asList("my-cluster-kafka-0", "my-cluster-kafka-2", "my-cluster-kafka-1"), ordered);
+            context.assertEquals(0, adminClientsCreatedOnEventLoop.get());
+            async.complete();
+        })));
+    }
+
+    @Test
+    public void testFallbackWhenAdminClientCannotBeCreated(TestContext context) {
+        LeadershipAwareRollingUpdateStrategy strategy = new LeadershipAwareRollingUpdateStrategy("my-cluster-kafka:9092",
+                "my-cluster-zookeeper:2181", false, 1_000, 10) {
+            @Override
+            protected AdminClient createAdminClient() {
+                throw new KafkaException("No resolvable bootstrap urls");
+            }
+        };
+        Async async = context.async();
+        strategy.order(vertx, PODS).setHandler(context.asyncAssertSuccess(ordered -> {
+            context.assertEquals(PODS, ordered);
+            // without an AdminClient a rolled broker isn't waited for
+            strategy.podRolled(vertx, "my-cluster-kafka-0").setHandler(context.asyncAssertSuccess(v -> async.complete()));
+        }));
+    }
+
+    @Test
+    public void testFallbackWhenControllerIsUnknown(TestContext context) {
+        KafkaFutureImpl<Node> controller = new KafkaFutureImpl<>();
+        controller.completeExceptionally(new DisconnectException("unreachable"));
+        controller(controller);
+        LeadershipAwareRollingUpdateStrategy strategy = strategy(1_000);
+        Async async = context.async();
+        strategy.order(vertx, PODS).setHandler(context.asyncAssertSuccess(ordered -> {
+            context.assertEquals(PODS, ordered);
+            // without waiting for the partitions
+            strategy.podRolled(vertx, "my-cluster-kafka-0").setHandler(context.asyncAssertSuccess(v -> {
+                verify(adminClient, never()).listTopics(any(ListTopicsOptions.class));
+                async.complete();
+            }));
+        }));
+    }
+
+    @Test
+    public void testWaitsForRolledBrokerToRejoinIsr(TestContext context) {
+        controller(KafkaFuture.completedFuture(node(1)));
+        partitions.add(asList(partition(0, asList(0, 1), asList(1)), partition(1, asList(1, 2), asList(1, 2))));
+        partitions.add(asList(partition(0, asList(0, 1), asList(1)), partition(1, asList(1, 2), asList(1, 2))));
+        partitions.add(asList(partition(0, asList(0, 1), asList(1, 0)), partition(1, asList(1, 2), asList(1, 2))));
+        LeadershipAwareRollingUpdateStrategy strategy = strategy(10_000);
+        Async async = context.async();
+        strategy.order(vertx, PODS).compose(ordered -> strategy.podRolled(vertx, "my-cluster-kafka-0"))
+                .setHandler(context.asyncAssertSuccess(v -> {
+                    context.assertEquals(3, describes.get());
+                    async.complete();
+                }));
+    }
+
+    @Test
+    public void testIgnoresPartitionsUnderReplicatedElsewhere(TestContext context) {
+        controller(KafkaFuture.completedFuture(node(1)));
+        // broker 5 is gone, so partition 0 stays under-replicated whatever is rolled
+        partitions.add(asList(partition(0, asList(0, 5), asList(0)), partition(1, asList(1, 2), asList(1, 2))));
+        LeadershipAwareRollingUpdateStrategy strategy = strategy(10_000);
+        Async async = context.async();
+        strategy.order(vertx, PODS).compose(ordered -> strategy.podRolled(vertx, "my-cluster-kafka-0"))
+                .setHandler(context.asyncAssertSuccess(v -> {
+                    context.assertEquals(1, describes.get());
+                    async.complete();
+                }));
+    }
+
+    @Test
+    public void testTimesOutWhenRolledBrokerDoesNotRejoinIsr(TestContext context) {
+        controller(KafkaFuture.completedFuture(node(1)));
+        partitions.add(asList(partition(0, asList(0, 1), asList(1))));
+        LeadershipAwareRollingUpdateStrategy strategy = strategy(100);
+        Async async = context.async();
+        strategy.order(vertx, PODS).compose(ordered -> strategy.podRolled(vertx, "my-cluster-kafka-0"))
+                .setHandler(context.asyncAssertFailure(error -> {
+                    context.assertTrue(error instanceof TimeoutException);
+                    async.complete();
+                }));
+    }
+}
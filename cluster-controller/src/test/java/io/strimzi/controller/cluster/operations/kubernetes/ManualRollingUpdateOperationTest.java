@@ -0,0 +1,137 @@
+package io.strimzi.controller.cluster.operations.kubernetes;
+
+import io.fabric8.kubernetes.api.model.DoneablePod;
+import io.fabric8.kubernetes.api.model.Pod;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.PodResource;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class ManualRollingUpdateOperationTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String NAME = "my-cluster-kafka";
+    private static final long POD_TIMEOUT_MS = 60_000;
+
+    private final Map<String, Watcher<Pod>> watchers = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> existing = new ConcurrentHashMap<>();
+
+    private Vertx vertx;
+    private K8SUtils k8s;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        vertx = Vertx.vertx();
+        k8s = mock(K8SUtils.class);
+        when(k8s.createPodWatch(eq(NAMESPACE), anyString(), any())).thenAnswer(invocation -> {
+            watchers.put(invocation.getArgument(1), invocation.getArgument(2));
+            return mock(Watch.class);
+        });
+        when(k8s.getPodResource(eq(NAMESPACE), anyString())).thenAnswer(invocation -> {
+            String podName = invocation.getArgument(1);
+            PodResource<Pod, DoneablePod> resource = mock(PodResource.class);
+            when(resource.delete()).thenAnswer(i -> {
+                boolean deleted = existing.getOrDefault(podName, false);
+                if (deleted) {
+                    // the stateful set re-creates the pod
+                    vertx.setTimer(10, id -> {
+                        watchers.get(podName).eventReceived(Watcher.Action.DELETED, pod(podName, false));
+                        watchers.get(podName).eventReceived(Watcher.Action.ADDED, pod(podName, false));
+                        watchers.get(podName).eventReceived(Watcher.Action.MODIFIED, pod(podName, true));
+                    });
+                }
+                return deleted;
+            });
+            return resource;
+        });
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    private static Pod pod(String name, boolean ready) {
+        return new PodBuilder()
+                .withNewMetadata()
+                    .withName(name)
+                    .withNamespace(NAMESPACE)
+                .endMetadata()
+                .withNewStatus()
+                    .addNewCondition()
+                        .withType("Ready")
+                        .withStatus(ready ? "True" : "False")
+                    .endCondition()
+                .endStatus()
+                .build();
+    }
+
+    @Test
+    public void testRollingUpdate(TestContext context) {
+        existing.put(NAME + "-0", true);
+        existing.put(NAME + "-1", true);
+
+        Async async = context.async();
+        new ManualRollingUpdateOperation(NAMESPACE, NAME, 2, new OrderedRollingUpdateStrategy(), POD_TIMEOUT_MS)
+                .execute(vertx, k8s, context.asyncAssertSuccess(v -> async.complete()));
+        async.await(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test
+    public void testMissingPodIsNotWaitedForDeletion(TestContext context) {
+        // pod 0 is missing (e.g. it's being re-created already), its replacement gets ready
+        // once the rolling update has started, well before the pod timeout
+        existing.put(NAME + "-1", true);
+        vertx.setPeriodic(10, id -> {
+            Watcher<Pod> watcher = watchers.get(NAME + "-0");
+            if (watcher != null) {
+                vertx.cancelTimer(id);
+                watcher.eventReceived(Watcher.Action.ADDED, pod(NAME + "-0", false));
+                vertx.setTimer(100, id2 -> watcher.eventReceived(Watcher.Action.MODIFIED, pod(NAME + "-0", true)));
+            }
+        });
+
+        Async async = context.async();
+        new ManualRollingUpdateOperation(NAMESPACE, NAME, 2, new OrderedRollingUpdateStrategy(), POD_TIMEOUT_MS)
+                .execute(vertx, k8s, context.asyncAssertSuccess(v -> async.complete()));
+        async.await(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    @Test
+    public void testMissingPodAlreadyReplaced(TestContext context) {
+        // the replacement of pod 0 is reported before finding out that there was nothing to delete
+        existing.put(NAME + "-1", true);
+        when(k8s.createPodWatch(eq(NAMESPACE), eq(NAME + "-0"), any())).thenAnswer(invocation -> {
+            Watcher<Pod> watcher = invocation.getArgument(2);
+            watchers.put(NAME + "-0", watcher);
+            watcher.eventReceived(Watcher.Action.ADDED, pod(NAME + "-0", true));
+            return mock(Watch.class);
+        });
+
+        Async async = context.async();
+        new ManualRollingUpdateOperation(NAMESPACE, NAME, 2, new OrderedRollingUpdateStrategy(), POD_TIMEOUT_MS)
+                .execute(vertx, k8s, context.asyncAssertSuccess(v -> async.complete()));
+        async.await(TimeUnit.SECONDS.toMillis(10));
+    }
+}
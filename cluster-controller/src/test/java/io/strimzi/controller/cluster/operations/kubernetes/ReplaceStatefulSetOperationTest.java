@@ -0,0 +1,92 @@
+package io.strimzi.controller.cluster.operations.kubernetes;
+
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetBuilder;
+import io.fabric8.kubernetes.client.dsl.RollableScalableResource;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class ReplaceStatefulSetOperationTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String NAME = "my-cluster-kafka";
+
+    private final AtomicInteger existsCalls = new AtomicInteger();
+    private final AtomicInteger callsOnEventLoop = new AtomicInteger();
+
+    private Vertx vertx;
+    private K8SUtils k8s;
+    private StatefulSet sfs;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        k8s = mock(K8SUtils.class);
+        when(k8s.getStatefulSetResource(NAMESPACE, NAME)).thenReturn(mock(RollableScalableResource.class, Answers.RETURNS_DEEP_STUBS));
+        sfs = new StatefulSetBuilder()
+                .withNewMetadata()
+                    .withName(NAME)
+                    .withNamespace(NAMESPACE)
+                .endMetadata()
+                .build();
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    /**
+     * The stateful set exists for the given number of checks after its deletion
+     */
+    private void deletedAfter(int checks) {
+        when(k8s.statefulSetExists(NAMESPACE, NAME)).thenAnswer(invocation -> {
+            if (Context.isOnEventLoopThread()) {
+                callsOnEventLoop.incrementAndGet();
+            }
+            return existsCalls.incrementAndGet() <= checks;
+        });
+    }
+
+    @Test
+    public void testWaitsForDeletionBeforeCreating(TestContext context) {
+        deletedAfter(2);
+        Async async = context.async();
+        new ReplaceStatefulSetOperation(sfs).execute(vertx, k8s, context.asyncAssertSuccess(v -> {
+            context.assertEquals(3, existsCalls.get());
+            context.assertEquals(0, callsOnEventLoop.get());
+            verify(k8s, times(1)).createStatefulSet(sfs);
+            async.complete();
+        }));
+    }
+
+    @Test
+    public void testDeletionTimeout(TestContext context) {
+        deletedAfter(Integer.MAX_VALUE);
+        Async async = context.async();
+        new ReplaceStatefulSetOperation(sfs, 0).execute(vertx, k8s, context.asyncAssertFailure(error -> {
+            context.assertTrue(error instanceof TimeoutException);
+            verify(k8s, never()).createStatefulSet(sfs);
+            async.complete();
+        }));
+    }
+}
@@ -0,0 +1,262 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.EnvVar;
+import io.fabric8.kubernetes.api.model.PersistentVolumeClaim;
+import io.fabric8.kubernetes.api.model.VolumeMount;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.strimzi.controller.cluster.K8SUtils;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KafkaClusterTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String CLUSTER = "my-cluster";
+    private static final String EPHEMERAL = "{\"type\": \"ephemeral\"}";
+    private static final String PERSISTENT_CLAIM = "{\"type\": \"persistent-claim\", \"size\": \"100Gi\"}";
+    private static final String JBOD = "{\"type\": \"jbod\", \"volumes\": ["
+            + "{\"id\": 0, \"size\": \"100Gi\"}, {\"id\": 2, \"size\": \"200Gi\"}]}";
+    private static final String JBOD_ADDED = "{\"type\": \"jbod\", \"volumes\": ["
+            + "{\"id\": 2, \"size\": \"200Gi\"}, {\"id\": 0, \"size\": \"100Gi\"}, {\"id\": 1, \"size\": \"50Gi\"}]}";
+    private static final String JBOD_REMOVED = "{\"type\": \"jbod\", \"volumes\": [{\"id\": 0, \"size\": \"100Gi\"}]}";
+    private static final String JBOD_RESIZED = "{\"type\": \"jbod\", \"volumes\": ["
+            + "{\"id\": 0, \"size\": \"100Gi\"}, {\"id\": 2, \"size\": \"300Gi\"}]}";
+
+    private static ConfigMap configMap(String storage, JsonObject config) {
+        return configMap(storage, config, null);
+    }
+
+    private static ConfigMap configMap(String storage, JsonObject config, String resources) {
+        Map<String, String> data = new HashMap<>();
+        data.put("kafka-storage", storage);
+        if (config != null) {
+            data.put("kafka-config", config.encode());
+        }
+        if (resources != null) {
+            data.put("kafka-resources", resources);
+        }
+        return new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName(CLUSTER)
+                    .withNamespace(NAMESPACE)
+                    .addToLabels("strimzi.io/kind", "cluster")
+                    .addToLabels("strimzi.io/type", "kafka")
+                .endMetadata()
+                .withData(data)
+                .build();
+    }
+
+    private static K8SUtils deployed(StatefulSet ss) {
+        K8SUtils k8s = mock(K8SUtils.class);
+        when(k8s.getStatefulSet(NAMESPACE, ss.getMetadata().getName())).thenReturn(ss);
+        return k8s;
+    }
+
+    private static Map<String, String> mounts(StatefulSet ss) {
+        return ss.getSpec().getTemplate().getSpec().getContainers().get(0).getVolumeMounts().stream()
+                .collect(Collectors.toMap(VolumeMount::getName, VolumeMount::getMountPath));
+    }
+
+    private static Map<String, String> env(StatefulSet ss) {
+        return ss.getSpec().getTemplate().getSpec().getContainers().get(0).getEnv().stream()
+                .collect(Collectors.toMap(EnvVar::getName, EnvVar::getValue));
+    }
+
+    /**
+     * Diff the cluster of the given ConfigMap against the StatefulSet deployed from the other ConfigMap
+     */
+    private static ClusterDiffResult diff(ConfigMap deployed, ConfigMap updated) {
+        StatefulSet ss = KafkaCluster.fromConfigMap(deployed).generateStatefulSet(false);
+        return KafkaCluster.fromConfigMap(updated).diff(deployed(ss), NAMESPACE);
+    }
+
+    @Test
+    public void testUnchangedConfig() {
+        JsonObject config = new JsonObject().put("log.retention.ms", 3_600_000).put("auto.create.topics.enable", false);
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, config), configMap(EPHEMERAL, config.copy()));
+        assertFalse(diff.getDifferent());
+        assertFalse(diff.getRollingUpdate());
+        assertFalse(diff.isDynamicConfigChanged());
+    }
+
+    @Test
+    public void testStaticConfigChangeRolls() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, new JsonObject().put("auto.create.topics.enable", false)),
+                configMap(EPHEMERAL, new JsonObject().put("auto.create.topics.enable", true)));
+        assertTrue(diff.getRollingUpdate());
+        assertFalse(diff.isDynamicConfigChanged());
+    }
+
+    @Test
+    public void testDynamicConfigChangeDoesNotRoll() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, new JsonObject().put("log.retention.ms", 3_600_000)),
+                configMap(EPHEMERAL, new JsonObject().put("log.retention.ms", 7_200_000).put("num.io.threads", 16)));
+        assertTrue(diff.getDifferent());
+        assertTrue(diff.isDynamicConfigChanged());
+        assertFalse(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testDynamicConfigRemovalRolls() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, new JsonObject().put("log.retention.ms", 3_600_000)),
+                configMap(EPHEMERAL, null));
+        assertTrue(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testReadOnlySynonymChangeRolls() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, new JsonObject().put("log.retention.hours", 24)),
+                configMap(EPHEMERAL, new JsonObject().put("log.retention.hours", 48)));
+        assertTrue(diff.getRollingUpdate());
+        assertFalse(diff.isDynamicConfigChanged());
+    }
+
+    @Test
+    public void testJbodClaimNamesAndMountPaths() {
+        KafkaCluster kafka = KafkaCluster.fromConfigMap(configMap(JBOD, null));
+        // volume 0 keeps the name and the mount path of the persistent-claim storage
+        assertEquals(asList("kafka-storage", "kafka-storage-2"), kafka.getVolumeClaimNames());
+        StatefulSet ss = kafka.generateStatefulSet(false);
+        assertEquals(asList("kafka-storage", "kafka-storage-2"), ss.getSpec().getVolumeClaimTemplates().stream()
+                .map(pvc -> pvc.getMetadata().getName()).collect(Collectors.toList()));
+        Map<String, String> mounts = mounts(ss);
+        assertEquals("/var/lib/kafka", mounts.get("kafka-storage"));
+        assertEquals("/var/lib/kafka-2", mounts.get("kafka-storage-2"));
+        assertEquals("/var/lib/kafka,/var/lib/kafka-2", env(ss).get("KAFKA_DATA_VOLUMES"));
+
+        // adding a volume, even in another position, doesn't move the existing ones
+        StatefulSet added = KafkaCluster.fromConfigMap(configMap(JBOD_ADDED, null)).generateStatefulSet(false);
+        Map<String, String> addedMounts = mounts(added);
+        assertEquals("/var/lib/kafka", addedMounts.get("kafka-storage"));
+        assertEquals("/var/lib/kafka-1", addedMounts.get("kafka-storage-1"));
+        assertEquals("/var/lib/kafka-2", addedMounts.get("kafka-storage-2"));
+
+        PersistentVolumeClaim single = KafkaCluster.fromConfigMap(configMap(PERSISTENT_CLAIM, null)).generateStatefulSet(false)
+                .getSpec().getVolumeClaimTemplates().get(0);
+        assertEquals("kafka-storage", single.getMetadata().getName());
+    }
+
+    @Test
+    public void testJbodFromStatefulSet() {
+        StatefulSet ss = KafkaCluster.fromConfigMap(configMap(JBOD, null)).generateStatefulSet(false);
+        KafkaCluster kafka = KafkaCluster.fromStatefulSet(deployed(ss), NAMESPACE, CLUSTER);
+        assertEquals(asList("kafka-storage", "kafka-storage-2"), kafka.getVolumeClaimNames());
+        assertEquals(env(ss).get("KAFKA_DATA_VOLUMES"), env(kafka.generateStatefulSet(false)).get("KAFKA_DATA_VOLUMES"));
+
+        // a single volume without KAFKA_DATA_VOLUMES is a persistent-claim storage
+        StatefulSet single = KafkaCluster.fromConfigMap(configMap(PERSISTENT_CLAIM, null)).generateStatefulSet(false);
+        assertFalse(env(single).containsKey("KAFKA_DATA_VOLUMES"));
+        assertFalse(env(KafkaCluster.fromStatefulSet(deployed(single), NAMESPACE, CLUSTER).generateStatefulSet(false))
+                .containsKey("KAFKA_DATA_VOLUMES"));
+    }
+
+    @Test
+    public void testUnchangedJbod() {
+        ClusterDiffResult diff = diff(configMap(JBOD, null), configMap(JBOD, null));
+        assertFalse(diff.getDifferent());
+        assertFalse(diff.isVolumesChanged());
+    }
+
+    @Test
+    public void testPersistentClaimToJbodIsAccepted() {
+        ClusterDiffResult diff = diff(configMap(PERSISTENT_CLAIM, null), configMap(JBOD, null));
+        assertTrue(diff.isVolumesChanged());
+        assertTrue(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testAddingJbodVolumeIsAccepted() {
+        ClusterDiffResult diff = diff(configMap(JBOD, null), configMap(JBOD_ADDED, null));
+        assertTrue(diff.isVolumesChanged());
+        assertTrue(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testRemovingJbodVolumeIsRejected() {
+        ClusterDiffResult diff = diff(configMap(JBOD, null), configMap(JBOD_REMOVED, null));
+        assertFalse(diff.isVolumesChanged());
+        assertFalse(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testResizingJbodVolumeIsRejected() {
+        ClusterDiffResult diff = diff(configMap(JBOD, null), configMap(JBOD_RESIZED, null));
+        assertFalse(diff.isVolumesChanged());
+        assertFalse(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testJvmOptionsFromResources() {
+        Map<String, String> env = env(KafkaCluster.fromConfigMap(configMap(EPHEMERAL, null,
+                "{\"requests\": {\"cpu\": \"2\", \"memory\": \"4Gi\"}, \"limits\": {\"cpu\": \"4\", \"memory\": \"8Gi\"}}"))
+                .generateStatefulSet(false));
+        // half of the memory limit
+        assertEquals("-Xms4096m -Xmx4096m", env.get("KAFKA_HEAP_OPTS"));
+        String opts = env.get("KAFKA_JVM_PERFORMANCE_OPTS");
+        assertTrue(opts, opts.contains("-XX:+UseG1GC"));
+        assertTrue(opts, opts.contains("-XX:MaxGCPauseMillis=20"));
+        assertTrue(opts, opts.contains("-XX:ParallelGCThreads=4"));
+        assertTrue(opts, opts.contains("-XX:ConcGCThreads=1"));
+        // small brokers keep the Kafka defaults
+        assertEquals("3", env.get("KAFKA_NUM_NETWORK_THREADS"));
+        assertEquals("8", env.get("KAFKA_NUM_IO_THREADS"));
+    }
+
+    @Test
+    public void testJvmOptionsFromLargeResources() {
+        Map<String, String> env = env(KafkaCluster.fromConfigMap(configMap(EPHEMERAL, null,
+                "{\"limits\": {\"cpu\": \"15500m\", \"memory\": \"64Gi\"}}"))
+                .generateStatefulSet(false));
+        // the heap is capped, the rest is left to the page cache
+        assertEquals("-Xms6144m -Xmx6144m", env.get("KAFKA_HEAP_OPTS"));
+        String opts = env.get("KAFKA_JVM_PERFORMANCE_OPTS");
+        assertTrue(opts, opts.contains("-XX:ParallelGCThreads=16"));
+        assertTrue(opts, opts.contains("-XX:ConcGCThreads=4"));
+        assertEquals("8", env.get("KAFKA_NUM_NETWORK_THREADS"));
+        assertEquals("32", env.get("KAFKA_NUM_IO_THREADS"));
+    }
+
+    @Test
+    public void testNoJvmOptionsWithoutResources() {
+        StatefulSet ss = KafkaCluster.fromConfigMap(configMap(EPHEMERAL, null)).generateStatefulSet(false);
+        Map<String, String> env = env(ss);
+        assertFalse(env.containsKey("KAFKA_HEAP_OPTS"));
+        assertFalse(env.containsKey("KAFKA_JVM_PERFORMANCE_OPTS"));
+        assertFalse(env.containsKey("KAFKA_NUM_NETWORK_THREADS"));
+        assertFalse(env.containsKey("KAFKA_NUM_IO_THREADS"));
+        assertNull(ss.getSpec().getTemplate().getSpec().getContainers().get(0).getResources());
+    }
+
+    @Test
+    public void testResourcesAreDiffedByValue() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, null, "{\"limits\": {\"cpu\": \"1\", \"memory\": \"1Gi\"}}"),
+                configMap(EPHEMERAL, null, "{\"limits\": {\"cpu\": \"1000m\", \"memory\": \"1024Mi\"}}"));
+        assertFalse(diff.getDifferent());
+        assertFalse(diff.getRollingUpdate());
+    }
+
+    @Test
+    public void testResourcesChangeRolls() {
+        ClusterDiffResult diff = diff(configMap(EPHEMERAL, null, "{\"limits\": {\"memory\": \"1Gi\"}}"),
+                configMap(EPHEMERAL, null, "{\"limits\": {\"memory\": \"2Gi\"}}"));
+        assertTrue(diff.getDifferent());
+        assertTrue(diff.getRollingUpdate());
+
+        ClusterDiffResult added = diff(configMap(EPHEMERAL, null), configMap(EPHEMERAL, null, "{\"limits\": {\"memory\": \"1Gi\"}}"));
+        assertTrue(added.getRollingUpdate());
+    }
+}
@@ -0,0 +1,94 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class KafkaConfigurationTest {
+
+    private static void assertRejected(JsonObject json) {
+        try {
+            KafkaConfiguration.fromJson(json);
+            fail("Expected " + json + " to be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testForbiddenSettingsAreRejected() {
+        for (String key : new String[] {"broker.id", "zookeeper.connect", "log.dirs", "listeners", "advertised.listeners", "advertised.host.name"}) {
+            assertRejected(new JsonObject().put(key, "foo"));
+        }
+    }
+
+    @Test
+    public void testNonPlainValuesAreRejected() {
+        assertRejected(new JsonObject().putNull("log.retention.ms"));
+        assertRejected(new JsonObject().put("log.retention.ms", new JsonObject().put("foo", "bar")));
+        assertRejected(new JsonObject().put("log.retention.ms", new JsonArray().add(1)));
+        assertRejected(new JsonObject().put("log.retention.ms", "1\nbroker.id=2"));
+    }
+
+    @Test
+    public void testStaticAndDynamicSplit() {
+        KafkaConfiguration config = KafkaConfiguration.fromJson(new JsonObject()
+                .put("log.retention.ms", 3_600_000)
+                .put("num.io.threads", 16)
+                .put("unclean.leader.election.enable", false)
+                .put("log.retention.hours", 24)
+                .put("log.roll.hours", 1)
+                .put("auto.create.topics.enable", false));
+
+        Map<String, String> expectedDynamic = new HashMap<>();
+        expectedDynamic.put("log.retention.ms", "3600000");
+        expectedDynamic.put("num.io.threads", "16");
+        expectedDynamic.put("unclean.leader.election.enable", "false");
+        assertEquals(expectedDynamic, config.dynamicConfig());
+
+        // the hours synonyms are read-only in Kafka 1.1
+        Map<String, String> expectedStatic = new HashMap<>();
+        expectedStatic.put("log.retention.hours", "24");
+        expectedStatic.put("log.roll.hours", "1");
+        expectedStatic.put("auto.create.topics.enable", "false");
+        assertEquals(expectedStatic, config.staticConfig());
+    }
+
+    @Test
+    public void testEnvVarRoundTrip() {
+        KafkaConfiguration config = KafkaConfiguration.fromJson(new JsonObject()
+                .put("log.retention.ms", 3_600_000)
+                .put("auto.create.topics.enable", false)
+                .put("ssl.cipher.suites", "a=b,c"));
+        assertEquals("auto.create.topics.enable=false\nlog.retention.ms=3600000\nssl.cipher.suites=a=b,c", config.toEnvVar());
+        assertEquals(config, KafkaConfiguration.fromEnvVar(config.toEnvVar()));
+
+        assertTrue(KafkaConfiguration.fromEnvVar(null).isEmpty());
+        assertEquals(KafkaConfiguration.empty(), KafkaConfiguration.fromEnvVar(KafkaConfiguration.empty().toEnvVar()));
+    }
+
+    @Test
+    public void testDynamicConfigRemoved() {
+        KafkaConfiguration deployed = KafkaConfiguration.fromJson(new JsonObject()
+                .put("log.retention.ms", 3_600_000)
+                .put("auto.create.topics.enable", false));
+
+        // changing or adding dynamic settings, or removing static ones, doesn't remove dynamic settings
+        assertFalse(KafkaConfiguration.fromJson(new JsonObject()
+                .put("log.retention.ms", 7_200_000)
+                .put("num.io.threads", 16)).isDynamicConfigRemoved(deployed));
+
+        assertTrue(KafkaConfiguration.fromJson(new JsonObject()
+                .put("auto.create.topics.enable", false)).isDynamicConfigRemoved(deployed));
+        assertTrue(KafkaConfiguration.fromJson(new JsonObject(Collections.emptyMap())).isDynamicConfigRemoved(deployed));
+    }
+}
@@ -0,0 +1,123 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.fabric8.kubernetes.api.model.Quantity;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class ResourcesTest {
+
+    private static BigDecimal parse(String quantity) {
+        return Resources.parse(new Quantity(quantity));
+    }
+
+    private static void assertParsed(String expected, String quantity) {
+        assertEquals(quantity, 0, new BigDecimal(expected).compareTo(parse(quantity)));
+    }
+
+    private static Resources resources(String json) {
+        return Resources.fromJson(new JsonObject(json));
+    }
+
+    @Test
+    public void testParseBinarySuffixes() {
+        assertParsed("1024", "1Ki");
+        assertParsed("1048576", "1Mi");
+        assertParsed("1073741824", "1Gi");
+        assertParsed("1099511627776", "1Ti");
+        assertParsed("1610612736", "1.5Gi");
+    }
+
+    @Test
+    public void testParseDecimalSuffixes() {
+        assertParsed("1000", "1k");
+        assertParsed("1000000", "1M");
+        assertParsed("1000000000", "1G");
+        assertParsed("2000000000000", "2T");
+    }
+
+    @Test
+    public void testParseMillis() {
+        assertParsed("0.5", "500m");
+        assertParsed("1.5", "1500m");
+        assertParsed("0.001", "1m");
+    }
+
+    @Test
+    public void testParsePlain() {
+        assertParsed("2", "2");
+        assertParsed("0.25", "0.25");
+        assertParsed("536870912", "536870912");
+        assertNull(Resources.parse(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalid() {
+        parse("lots");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownSuffix() {
+        parse("1Xi");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidQuantityIsRejectedFromJson() {
+        resources("{\"limits\": {\"memory\": \"1 gigabyte\"}}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownResourceIsRejectedFromJson() {
+        resources("{\"limits\": {\"gpu\": \"1\"}}");
+    }
+
+    @Test
+    public void testCpusAreRoundedUp() {
+        assertEquals(Integer.valueOf(1), resources("{\"limits\": {\"cpu\": \"100m\"}}").cpus());
+        assertEquals(Integer.valueOf(1), resources("{\"limits\": {\"cpu\": \"1000m\"}}").cpus());
+        assertEquals(Integer.valueOf(2), resources("{\"limits\": {\"cpu\": \"1500m\"}}").cpus());
+        assertEquals(Integer.valueOf(2), resources("{\"limits\": {\"cpu\": \"1.1\"}}").cpus());
+        assertEquals(Integer.valueOf(4), resources("{\"limits\": {\"cpu\": 4}}").cpus());
+        assertNull(resources("{\"limits\": {\"memory\": \"1Gi\"}}").cpus());
+    }
+
+    @Test
+    public void testLimitIsPreferredToRequest() {
+        Resources resources = resources("{\"requests\": {\"cpu\": \"1\", \"memory\": \"1Gi\"}, "
+                + "\"limits\": {\"cpu\": \"3\", \"memory\": \"2Gi\"}}");
+        assertEquals(Integer.valueOf(3), resources.cpus());
+        assertEquals(Long.valueOf(2L * 1024 * 1024 * 1024), resources.memory());
+
+        Resources requestsOnly = resources("{\"requests\": {\"cpu\": \"1\", \"memory\": \"1Gi\"}}");
+        assertEquals(Integer.valueOf(1), requestsOnly.cpus());
+        assertEquals(Long.valueOf(1024L * 1024 * 1024), requestsOnly.memory());
+
+        assertNull(new Resources().memory());
+        assertNull(new Resources().cpus());
+    }
+
+    @Test
+    public void testEqualsComparesByValue() {
+        assertEquals(resources("{\"limits\": {\"memory\": \"1Gi\"}}"), resources("{\"limits\": {\"memory\": \"1024Mi\"}}"));
+        assertEquals(resources("{\"limits\": {\"cpu\": \"1\"}}"), resources("{\"limits\": {\"cpu\": \"1000m\"}}"));
+        assertEquals(resources("{\"limits\": {\"memory\": \"1Gi\"}}").hashCode(),
+                resources("{\"limits\": {\"memory\": \"1024Mi\"}}").hashCode());
+
+        assertNotEquals(resources("{\"limits\": {\"memory\": \"1Gi\"}}"), resources("{\"limits\": {\"memory\": \"1G\"}}"));
+        assertNotEquals(resources("{\"limits\": {\"memory\": \"1Gi\"}}"), resources("{\"requests\": {\"memory\": \"1Gi\"}}"));
+        assertNotEquals(resources("{\"limits\": {\"memory\": \"1Gi\"}}"), new Resources());
+    }
+
+    @Test
+    public void testResourceRequirementsRoundTrip() {
+        Resources resources = resources("{\"requests\": {\"cpu\": \"500m\", \"memory\": \"1Gi\"}, \"limits\": {\"memory\": \"2Gi\"}}");
+        assertEquals(resources, Resources.fromResourceRequirements(resources.toResourceRequirements()));
+        assertNull(new Resources().toResourceRequirements());
+        assertEquals(new Resources(), Resources.fromResourceRequirements(null));
+    }
+}
@@ -0,0 +1,105 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StorageTest {
+
+    private static JsonObject volume(int id, String size) {
+        return new JsonObject().put("id", id).put("size", size);
+    }
+
+    private static Storage jbod(JsonObject... volumes) {
+        JsonArray array = new JsonArray();
+        for (JsonObject volume : volumes) {
+            array.add(volume);
+        }
+        return Storage.fromJson(new JsonObject().put("type", "jbod").put("volumes", array));
+    }
+
+    private static Storage persistentClaim(String size) {
+        return Storage.fromJson(new JsonObject().put("type", "persistent-claim").put("size", size));
+    }
+
+    @Test
+    public void testJbodFromJson() {
+        Storage storage = jbod(volume(0, "100Gi"), volume(3, "200Gi"));
+        assertEquals(Storage.StorageType.JBOD, storage.type());
+        assertTrue(storage.isPersistent());
+        assertEquals(2, storage.volumes().size());
+        assertEquals(0, storage.volumes().get(0).id());
+        assertEquals(3, storage.volumes().get(1).id());
+        assertEquals("200Gi", storage.volumes().get(1).size().getAmount());
+    }
+
+    @Test
+    public void testInvalidJbodIsRejected() {
+        JsonObject[] invalid = {
+            new JsonObject().put("type", "jbod"),
+            new JsonObject().put("type", "jbod").put("volumes", new JsonArray()),
+            // missing, negative and duplicate ids
+            new JsonObject().put("type", "jbod").put("volumes", new JsonArray().add(new JsonObject().put("size", "1Gi"))),
+            new JsonObject().put("type", "jbod").put("volumes", new JsonArray().add(volume(-1, "1Gi"))),
+            new JsonObject().put("type", "jbod").put("volumes", new JsonArray().add(volume(1, "1Gi")).add(volume(1, "2Gi"))),
+            new JsonObject().put("type", "jbod").put("volumes", new JsonArray().add(new JsonObject().put("id", 0).put("type", "ephemeral")))
+        };
+        for (JsonObject json : invalid) {
+            try {
+                Storage.fromJson(json);
+                fail("Expected " + json + " to be rejected");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testPersistentClaimToJbodAddsVolumes() {
+        Storage.StorageDiffResult diff = jbod(volume(0, "100Gi"), volume(1, "100Gi")).diff(persistentClaim("100Gi"));
+        assertTrue(diff.isAddedVolumes());
+        assertFalse(diff.isRemovedVolumes());
+        assertFalse(diff.isType());
+        assertFalse(diff.isSize());
+    }
+
+    @Test
+    public void testAddingVolume() {
+        Storage.StorageDiffResult diff = jbod(volume(0, "100Gi"), volume(1, "100Gi"), volume(2, "50Gi"))
+                .diff(jbod(volume(0, "100Gi"), volume(1, "100Gi")));
+        assertTrue(diff.isAddedVolumes());
+        assertFalse(diff.isRemovedVolumes());
+        assertFalse(diff.isSize());
+    }
+
+    @Test
+    public void testRemovingVolume() {
+        Storage.StorageDiffResult diff = jbod(volume(0, "100Gi")).diff(jbod(volume(0, "100Gi"), volume(1, "100Gi")));
+        assertTrue(diff.isRemovedVolumes());
+        assertFalse(diff.isAddedVolumes());
+
+        // going back from jbod to persistent-claim removes the other volumes too
+        assertTrue(persistentClaim("100Gi").diff(jbod(volume(0, "100Gi"), volume(1, "100Gi"))).isRemovedVolumes());
+    }
+
+    @Test
+    public void testResizingVolume() {
+        Storage.StorageDiffResult diff = jbod(volume(0, "100Gi"), volume(1, "200Gi")).diff(jbod(volume(0, "100Gi"), volume(1, "100Gi")));
+        assertTrue(diff.isSize());
+        assertFalse(diff.isAddedVolumes());
+        assertFalse(diff.isRemovedVolumes());
+    }
+
+    @Test
+    public void testRenumberingVolumeIsRemoval() {
+        // volumes are identified by id, not by their position
+        Storage.StorageDiffResult diff = jbod(volume(0, "100Gi"), volume(2, "100Gi")).diff(jbod(volume(0, "100Gi"), volume(1, "100Gi")));
+        assertTrue(diff.isAddedVolumes());
+        assertTrue(diff.isRemovedVolumes());
+    }
+}
@@ -0,0 +1,129 @@
+package io.strimzi.controller.cluster.resources;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.strimzi.controller.cluster.K8SUtils;
+import org.junit.Test;
+
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ZookeeperClusterTest {
+
+    private static final String NAMESPACE = "test";
+    private static final String CLUSTER = "my-cluster";
+    private static final String EPHEMERAL = "{\"type\": \"ephemeral\"}";
+    private static final String PERSISTENT_CLAIM = "{\"type\": \"persistent-claim\", \"size\": \"10Gi\"}";
+    private static final String PERSISTENT_CLAIM_DELETE = "{\"type\": \"persistent-claim\", \"size\": \"10Gi\", \"delete-claim\": true}";
+    private static final String DATA_LOG = "{\"type\": \"persistent-claim\", \"size\": \"10Gi\", \"data-log\": {\"size\": \"5Gi\"}}";
+    private static final String DATA_LOG_RESIZED = "{\"type\": \"persistent-claim\", \"size\": \"10Gi\", \"data-log\": {\"size\": \"8Gi\"}}";
+
+    private static ConfigMap configMap(String storage) {
+        return new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName(CLUSTER)
+                    .withNamespace(NAMESPACE)
+                    .addToLabels("strimzi.io/kind", "cluster")
+                    .addToLabels("strimzi.io/type", "kafka")
+                .endMetadata()
+                .addToData("zookeeper-storage", storage)
+                .build();
+    }
+
+    private static K8SUtils deployed(StatefulSet ss) {
+        K8SUtils k8s = mock(K8SUtils.class);
+        when(k8s.getStatefulSet(NAMESPACE, ss.getMetadata().getName())).thenReturn(ss);
+        return k8s;
+    }
+
+    /**
+     * Diff the cluster of the given ConfigMap against the StatefulSet deployed from the other ConfigMap
+     */
+    private static ClusterDiffResult diff(ConfigMap deployed, ConfigMap updated) {
+        StatefulSet ss = ZookeeperCluster.fromConfigMap(deployed).generateStatefulSet(false);
+        return ZookeeperCluster.fromConfigMap(updated).diff(deployed(ss), NAMESPACE);
+    }
+
+    /**
+     * The storage differences between the cluster of the given ConfigMap and the one deployed from the other ConfigMap
+     */
+    private static Storage.StorageDiffResult storageDiff(ConfigMap deployed, ConfigMap updated) {
+        StatefulSet ss = ZookeeperCluster.fromConfigMap(deployed).generateStatefulSet(false);
+        Storage ssStorage = ZookeeperCluster.fromStatefulSet(deployed(ss), NAMESPACE, CLUSTER).getStorage();
+        return ZookeeperCluster.fromConfigMap(updated).getStorage().diff(ssStorage);
+    }
+
+    private static void assertUnchanged(ClusterDiffResult diff) {
+        assertFalse(diff.getDifferent());
+        assertFalse(diff.getRollingUpdate());
+        assertFalse(diff.getScaleUp());
+        assertFalse(diff.getScaleDown());
+    }
+
+    @Test
+    public void testDataLogVolumeClaim() {
+        StatefulSet ss = ZookeeperCluster.fromConfigMap(configMap(DATA_LOG)).generateStatefulSet(false);
+        assertEquals(asList("zookeeper-storage", "zookeeper-data-log"), ss.getSpec().getVolumeClaimTemplates().stream()
+                .map(pvc -> pvc.getMetadata().getName()).collect(Collectors.toList()));
+        assertEquals("5Gi", ss.getSpec().getVolumeClaimTemplates().get(1).getSpec().getResources().getRequests().get("storage").getAmount());
+
+        StatefulSet withoutDataLog = ZookeeperCluster.fromConfigMap(configMap(PERSISTENT_CLAIM)).generateStatefulSet(false);
+        assertEquals(singletonList("zookeeper-storage"), withoutDataLog.getSpec().getVolumeClaimTemplates().stream()
+                .map(pvc -> pvc.getMetadata().getName()).collect(Collectors.toList()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDataLogWithEphemeralIsRejected() {
+        ZookeeperCluster.fromConfigMap(configMap("{\"type\": \"ephemeral\", \"data-log\": {\"size\": \"5Gi\"}}"));
+    }
+
+    @Test
+    public void testUnchangedEphemeral() {
+        assertUnchanged(diff(configMap(EPHEMERAL), configMap(EPHEMERAL)));
+    }
+
+    @Test
+    public void testUnchangedWithoutDataLog() {
+        assertUnchanged(diff(configMap(PERSISTENT_CLAIM), configMap(PERSISTENT_CLAIM)));
+        assertFalse(storageDiff(configMap(PERSISTENT_CLAIM), configMap(PERSISTENT_CLAIM)).isDataLog());
+    }
+
+    @Test
+    public void testUnchangedWithDataLog() {
+        assertUnchanged(diff(configMap(DATA_LOG), configMap(DATA_LOG)));
+        assertFalse(storageDiff(configMap(DATA_LOG), configMap(DATA_LOG)).isDataLog());
+    }
+
+    @Test
+    public void testAddingDataLogIsRejected() {
+        assertUnchanged(diff(configMap(PERSISTENT_CLAIM), configMap(DATA_LOG)));
+        assertTrue(storageDiff(configMap(PERSISTENT_CLAIM), configMap(DATA_LOG)).isDataLog());
+    }
+
+    @Test
+    public void testRemovingDataLogIsRejected() {
+        assertUnchanged(diff(configMap(DATA_LOG), configMap(PERSISTENT_CLAIM)));
+        assertTrue(storageDiff(configMap(DATA_LOG), configMap(PERSISTENT_CLAIM)).isDataLog());
+    }
+
+    @Test
+    public void testResizingDataLogIsRejected() {
+        assertUnchanged(diff(configMap(DATA_LOG), configMap(DATA_LOG_RESIZED)));
+        assertTrue(storageDiff(configMap(DATA_LOG), configMap(DATA_LOG_RESIZED)).isDataLog());
+    }
+
+    @Test
+    public void testDeleteClaimChangeIsAccepted() {
+        ClusterDiffResult diff = diff(configMap(PERSISTENT_CLAIM), configMap(PERSISTENT_CLAIM_DELETE));
+        assertTrue(diff.getDifferent());
+        assertFalse(diff.getRollingUpdate());
+    }
+}
@@ -9,8 +9,16 @@ export KAFKA_APP_LOGS_BASE_NAME="logs"
 export KAFKA_BROKER_ID=$(hostname | awk -F'-' '{print $NF}')
 echo "KAFKA_BROKER_ID=$KAFKA_BROKER_ID"
 
-# create data dir
-export KAFKA_LOG_DIRS=$KAFKA_VOLUME$KAFKA_LOG_BASE_NAME$KAFKA_BROKER_ID
+# create data dir, one per volume when the storage is JBOD
+if [ -n "$KAFKA_DATA_VOLUMES" ]; then
+  KAFKA_LOG_DIRS=""
+  for VOLUME in ${KAFKA_DATA_VOLUMES//,/ }; do
+    KAFKA_LOG_DIRS="${KAFKA_LOG_DIRS:+$KAFKA_LOG_DIRS,}$VOLUME/$KAFKA_LOG_BASE_NAME$KAFKA_BROKER_ID"
+  done
+  export KAFKA_LOG_DIRS
+else
+  export KAFKA_LOG_DIRS=$KAFKA_VOLUME$KAFKA_LOG_BASE_NAME$KAFKA_BROKER_ID
+fi
 echo "KAFKA_LOG_DIRS=$KAFKA_LOG_DIRS"
 
 # Disable Kafka's GC logging (which logs to a file)...
@@ -25,15 +33,35 @@ if [ -z "$KAFKA_LOG4J_OPTS" ]; then
   export KAFKA_LOG4J_OPTS="-Dlog4j.configuration=file:$KAFKA_HOME/config/log4j.properties -Dkafka.root.logger.level=$KAFKA_LOG_LEVEL,CONSOLE"
 fi
 
+# enabling the agent serving readiness and liveness on port 8080
+export KAFKA_OPTS="-javaagent:/opt/kafka-agent/kafka-agent.jar=8080"
+
 # enabling Prometheus JMX exporter as Java agent
 if [ "$KAFKA_METRICS_ENABLED" = "true" ]; then
-  export KAFKA_OPTS="-javaagent:/opt/prometheus/jmx_prometheus_javaagent.jar=9404:/opt/prometheus/config/config.yml"
+  export KAFKA_OPTS="$KAFKA_OPTS -javaagent:/opt/prometheus/jmx_prometheus_javaagent.jar=9404:/opt/prometheus/config/config.yml"
 fi
 
 # We don't need LOG_DIR because we write no log files, but setting it to a
 # directory avoids trying to create it (and logging a permission denied error)
 export LOG_DIR="$KAFKA_HOME"
 
+# thread pools sized by the controller from the CPU resources, Kafka defaults otherwise
+KAFKA_THREADS_OPTS=""
+if [ -n "$KAFKA_NUM_NETWORK_THREADS" ]; then
+  KAFKA_THREADS_OPTS="$KAFKA_THREADS_OPTS --override num.network.threads=$KAFKA_NUM_NETWORK_THREADS"
+fi
+if [ -n "$KAFKA_NUM_IO_THREADS" ]; then
+  KAFKA_THREADS_OPTS="$KAFKA_THREADS_OPTS --override num.io.threads=$KAFKA_NUM_IO_THREADS"
+fi
+
+# broker settings from the cluster ConfigMap, one "key=value" per line, they win over the ones above
+KAFKA_CONFIG_OPTS=()
+while IFS= read -r SETTING; do
+  if [ -n "$SETTING" ]; then
+    KAFKA_CONFIG_OPTS+=(--override "$SETTING")
+  fi
+done <<< "$KAFKA_CONFIGURATION"
+
 # starting Kafka server with final configuration
 exec $KAFKA_HOME/bin/kafka-server-start.sh $KAFKA_HOME/config/server.properties \
 --override broker.id=$KAFKA_BROKER_ID \
@@ -42,4 +70,6 @@ exec $KAFKA_HOME/bin/kafka-server-start.sh $KAFKA_HOME/config/server.properties
 --override log.dirs=$KAFKA_LOG_DIRS \
 --override default.replication.factor=${KAFKA_DEFAULT_REPLICATION_FACTOR:-1} \
 --override offsets.topic.replication.factor=${KAFKA_OFFSETS_TOPIC_REPLICATION_FACTOR:-3} \
---override transaction.state.log.replication.factor=${KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR:-3}
+--override transaction.state.log.replication.factor=${KAFKA_TRANSACTION_STATE_LOG_REPLICATION_FACTOR:-3} \
+$KAFKA_THREADS_OPTS \
+"${KAFKA_CONFIG_OPTS[@]}"
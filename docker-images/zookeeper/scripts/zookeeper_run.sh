@@ -22,6 +22,11 @@ export LOG_DIR=$ZOOKEEPER_VOLUME$ZOOKEEPER_LOG_BASE_NAME
 export ZOOKEEPER_DATA_DIR=$ZOOKEEPER_VOLUME$ZOOKEEPER_DATA_BASE_NAME
 mkdir -p $ZOOKEEPER_DATA_DIR
 
+# create transaction log dir, when it's on a separate volume
+if [ -n "$ZOOKEEPER_DATA_LOG_DIR" ]; then
+  mkdir -p $ZOOKEEPER_DATA_LOG_DIR
+fi
+
 # Create myid file
 echo $ZOOKEEPER_ID > $ZOOKEEPER_DATA_DIR/myid
 
@@ -36,6 +41,14 @@ dataDir=${ZOOKEEPER_DATA_DIR}
 clientPort=2181
 quorumListenOnAllIPs=true
 maxClientCnxns=0
+EOF
+
+# the directory where the transaction log is written, if not the data dir
+if [ -n "$ZOOKEEPER_DATA_LOG_DIR" ]; then
+  echo "dataLogDir=${ZOOKEEPER_DATA_LOG_DIR}" >> /tmp/zookeeper.properties
+fi
+
+cat >> /tmp/zookeeper.properties <<EOF
 
 # Snapshot autopurging
 autopurge.snapRetainCount=3
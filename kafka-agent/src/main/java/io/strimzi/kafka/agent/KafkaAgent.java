@@ -0,0 +1,173 @@
+package io.strimzi.kafka.agent;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.instrument.Instrumentation;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * A Java agent, loaded into the Kafka broker's JVM with {@code -javaagent:kafka-agent.jar=<port>},
+ * which serves the broker's readiness ({@code /ready}) and liveness ({@code /healthy}) over HTTP.
+ *
+ * The probes are answered from the broker's own state (its MBeans and threads), rather than by
+ * starting a new JVM and AdminClient to connect to the broker for every probe.
+ *
+ * The broker is ready when:
+ * <ul>
+ *     <li>it's running as a broker (rather than starting up, recovering logs or shutting down),</li>
+ *     <li>its ZooKeeper session is connected, so it's registered in ZooKeeper,</li>
+ *     <li>its request handler threads are alive, and</li>
+ *     <li>none of its log directories are offline.</li>
+ * </ul>
+ * The broker is healthy unless its request handler threads have all died after it started,
+ * which a restart would fix. Anything else is left to the readiness probe.
+ */
+public class KafkaAgent {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaAgent.class.getName());
+
+    public static final int DEFAULT_PORT = 8080;
+
+    static final ObjectName BROKER_STATE = objectName("kafka.server:type=KafkaServer,name=BrokerState");
+    static final ObjectName SESSION_STATE = objectName("kafka.server:type=SessionExpireListener,name=SessionState");
+    static final ObjectName OFFLINE_LOG_DIRS = objectName("kafka.log:type=LogManager,name=OfflineLogDirectoryCount");
+
+    /** The value of the BrokerState gauge once the broker has started (kafka.server.RunningAsBroker). */
+    static final int RUNNING_AS_BROKER = 3;
+
+    static final String REQUEST_HANDLER_THREAD_PREFIX = "kafka-request-handler-";
+
+    private final MBeanServer server;
+    private final IntSupplier requestHandlers;
+    private volatile boolean requestHandlersStarted = false;
+
+    KafkaAgent(MBeanServer server, IntSupplier requestHandlers) {
+        this.server = server;
+        this.requestHandlers = requestHandlers;
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (JMException e) {
+            throw new IllegalArgumentException(name, e);
+        }
+    }
+
+    /**
+     * Agent entry point.
+     * @param agentArgs The port to listen on, or null for {@link #DEFAULT_PORT}.
+     */
+    public static void premain(String agentArgs, Instrumentation inst) {
+        int port = agentArgs == null || agentArgs.trim().isEmpty() ? DEFAULT_PORT : Integer.parseInt(agentArgs.trim());
+        KafkaAgent agent = new KafkaAgent(ManagementFactory.getPlatformMBeanServer(), KafkaAgent::aliveRequestHandlers);
+        // The HTTP server's dispatcher thread inherits daemon-ness from the thread which starts it,
+        // so start it from a daemon thread, so as not to keep the broker's JVM alive once it has shut down
+        Thread starter = new Thread(() -> {
+            try {
+                agent.start(port);
+            } catch (IOException e) {
+                log.error("Error starting the health server on port {}", port, e);
+            }
+        }, "kafka-agent-starter");
+        starter.setDaemon(true);
+        starter.start();
+    }
+
+    void start(int port) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        httpServer.createContext("/ready", exchange -> respond(exchange, readinessProblems()));
+        httpServer.createContext("/healthy", exchange -> respond(exchange, livenessProblems()));
+        httpServer.start();
+        log.info("Serving broker readiness and liveness on port {}", port);
+    }
+
+    private static void respond(HttpExchange exchange, List<String> problems) throws IOException {
+        byte[] body = (problems.isEmpty() ? "ok" : String.join("\n", problems)).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(problems.isEmpty() ? 200 : 503, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+
+    /** The reasons the broker isn't ready, or an empty list if it's ready. */
+    List<String> readinessProblems() {
+        List<String> problems = new ArrayList<>(0);
+        Object brokerState = gauge(BROKER_STATE);
+        if (!(brokerState instanceof Number) || ((Number) brokerState).intValue() != RUNNING_AS_BROKER) {
+            problems.add("Broker state is " + brokerState + ", not running as broker");
+        }
+        Object sessionState = gauge(SESSION_STATE);
+        if (sessionState == null || !"CONNECTED".equals(sessionState.toString())) {
+            problems.add("ZooKeeper session state is " + sessionState);
+        }
+        if (!requestHandlersAlive()) {
+            problems.add("No request handler threads are alive");
+        }
+        Object offlineLogDirs = gauge(OFFLINE_LOG_DIRS);
+        if (offlineLogDirs instanceof Number && ((Number) offlineLogDirs).intValue() > 0) {
+            problems.add(offlineLogDirs + " log directories are offline");
+        }
+        return problems;
+    }
+
+    /** The reasons the broker isn't healthy, or an empty list if it's healthy. */
+    List<String> livenessProblems() {
+        List<String> problems = new ArrayList<>(0);
+        if (!requestHandlersAlive() && requestHandlersStarted) {
+            problems.add("The request handler threads have died");
+        }
+        return problems;
+    }
+
+    private boolean requestHandlersAlive() {
+        boolean alive = requestHandlers.getAsInt() > 0;
+        if (alive) {
+            requestHandlersStarted = true;
+        }
+        return alive;
+    }
+
+    /** The value of the given Yammer gauge, or null if it's not (yet) registered. */
+    private Object gauge(ObjectName name) {
+        try {
+            return server.getAttribute(name, "Value");
+        } catch (JMException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The number of live request handler threads in this JVM.
+     * This enumerates the threads without taking their stack traces, so it's cheap.
+     */
+    static int aliveRequestHandlers() {
+        ThreadGroup root = Thread.currentThread().getThreadGroup();
+        while (root.getParent() != null) {
+            root = root.getParent();
+        }
+        Thread[] threads = new Thread[root.activeCount() * 2 + 16];
+        int count = root.enumerate(threads, true);
+        int alive = 0;
+        for (int i = 0; i < count; i++) {
+            if (threads[i].getName().startsWith(REQUEST_HANDLER_THREAD_PREFIX) && threads[i].isAlive()) {
+                alive++;
+            }
+        }
+        return alive;
+    }
+}
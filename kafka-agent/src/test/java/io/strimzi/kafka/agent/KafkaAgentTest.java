@@ -0,0 +1,111 @@
+package io.strimzi.kafka.agent;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class KafkaAgentTest {
+
+    public interface GaugeMBean {
+        Object getValue();
+    }
+
+    public static class Gauge implements GaugeMBean {
+        private volatile Object value;
+
+        Gauge(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    private MBeanServer server;
+    private AtomicInteger requestHandlers;
+    private KafkaAgent agent;
+
+    @Before
+    public void setup() {
+        server = MBeanServerFactory.newMBeanServer();
+        requestHandlers = new AtomicInteger();
+        agent = new KafkaAgent(server, requestHandlers::get);
+    }
+
+    private Gauge register(ObjectName name, Object value) throws Exception {
+        Gauge gauge = new Gauge(value);
+        server.registerMBean(gauge, name);
+        return gauge;
+    }
+
+    @Test
+    public void testNotReadyBeforeStartup() {
+        assertEquals(3, agent.readinessProblems().size());
+        assertTrue(agent.livenessProblems().isEmpty());
+    }
+
+    @Test
+    public void testReadyOnceRunning() throws Exception {
+        Gauge brokerState = register(KafkaAgent.BROKER_STATE, 1);
+        Gauge sessionState = register(KafkaAgent.SESSION_STATE, "CONNECTED");
+        Gauge offlineLogDirs = register(KafkaAgent.OFFLINE_LOG_DIRS, 0);
+        requestHandlers.set(8);
+        assertEquals(1, agent.readinessProblems().size());
+
+        brokerState.value = KafkaAgent.RUNNING_AS_BROKER;
+        assertTrue(agent.readinessProblems().isEmpty());
+        assertTrue(agent.livenessProblems().isEmpty());
+
+        sessionState.value = "CONNECTING";
+        assertEquals(1, agent.readinessProblems().size());
+        sessionState.value = "CONNECTED";
+
+        offlineLogDirs.value = 1;
+        assertEquals(1, agent.readinessProblems().size());
+        assertTrue(agent.livenessProblems().isEmpty());
+    }
+
+    @Test
+    public void testUnhealthyWhenRequestHandlersDie() throws Exception {
+        register(KafkaAgent.BROKER_STATE, KafkaAgent.RUNNING_AS_BROKER);
+        register(KafkaAgent.SESSION_STATE, "CONNECTED");
+        requestHandlers.set(8);
+        assertTrue(agent.readinessProblems().isEmpty());
+        assertTrue(agent.livenessProblems().isEmpty());
+
+        requestHandlers.set(0);
+        assertEquals(1, agent.readinessProblems().size());
+        assertEquals(1, agent.livenessProblems().size());
+    }
+
+    @Test
+    public void testAliveRequestHandlers() throws Exception {
+        int before = KafkaAgent.aliveRequestHandlers();
+        CountDownLatch stop = new CountDownLatch(1);
+        Thread handler = new Thread(() -> {
+            try {
+                stop.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, KafkaAgent.REQUEST_HANDLER_THREAD_PREFIX + "0");
+        handler.start();
+        try {
+            assertEquals(before + 1, KafkaAgent.aliveRequestHandlers());
+        } finally {
+            stop.countDown();
+            handler.join();
+        }
+        assertEquals(before, KafkaAgent.aliveRequestHandlers());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link ClusterLoadModel} takes to model a cluster of 100 brokers hosting
+ * 100k partitions, and to assign 100k new partitions on it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ClusterLoadModelBenchmark {
+
+    static final int BROKERS = 100;
+    static final int RACKS = 3;
+    static final int TOPICS = 1_000;
+    static final int PARTITIONS_PER_TOPIC = 100;
+    static final int REPLICATION_FACTOR = 3;
+
+    private List<Node> nodes;
+    private List<TopicDescription> topics;
+    private Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> logDirs;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        nodes = new ArrayList<>(BROKERS);
+        for (int id = 0; id < BROKERS; id++) {
+            nodes.add(new Node(id, "broker-" + id, 9092, "rack-" + (id % RACKS)));
+        }
+        topics = new ArrayList<>(TOPICS);
+        Map<Integer, Map<TopicPartition, DescribeLogDirsResponse.ReplicaInfo>> replicaInfos = new HashMap<>();
+        for (int t = 0; t < TOPICS; t++) {
+            String name = "topic-" + t;
+            List<TopicPartitionInfo> partitions = new ArrayList<>(PARTITIONS_PER_TOPIC);
+            for (int p = 0; p < PARTITIONS_PER_TOPIC; p++) {
+                List<Node> replicas = new ArrayList<>(REPLICATION_FACTOR);
+                int first = random.nextInt(BROKERS);
+                for (int r = 0; r < REPLICATION_FACTOR; r++) {
+                    Node node = nodes.get((first + r) % BROKERS);
+                    replicas.add(node);
+                    replicaInfos.computeIfAbsent(node.id(), id -> new HashMap<>()).put(new TopicPartition(name, p),
+                            new DescribeLogDirsResponse.ReplicaInfo(random.nextInt(1_000_000_000), 0, false));
+                }
+                partitions.add(new TopicPartitionInfo(p, replicas.get(0), replicas, replicas));
+            }
+            topics.add(new TopicDescription(name, false, partitions));
+        }
+        logDirs = new HashMap<>();
+        for (Map.Entry<Integer, Map<TopicPartition, DescribeLogDirsResponse.ReplicaInfo>> entry : replicaInfos.entrySet()) {
+            logDirs.put(entry.getKey(), Collections.singletonMap("/var/lib/kafka",
+                    new DescribeLogDirsResponse.LogDirInfo(Errors.NONE, entry.getValue())));
+        }
+    }
+
+    @Benchmark
+    public ClusterLoadModel build() {
+        return ClusterLoadModel.build(nodes, topics, logDirs);
+    }
+
+    @Benchmark
+    public Map<Integer, List<Integer>> buildAndAssign() {
+        return ClusterLoadModel.build(nodes, topics, logDirs).assign(0, TOPICS * PARTITIONS_PER_TOPIC, REPLICATION_FACTOR);
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Event;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Reconciliations per second of {@link Controller#reconcile(ConfigMap, TopicName, Handler)} when
+ * the work is partitioned across 1 to 8 {@link ReconciliationVerticle}s.
+ * Kafka, Kubernetes and the topic store are in-memory and already agree, so each reconciliation is the
+ * CPU-bound part of a real one: converting the ConfigMap and the Kafka metadata to {@link Topic}s and diffing
+ * them with the stored topic. The numbers therefore show how that part scales with the number of cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=benchmark-log4j.properties")
+public class ReconciliationBenchmark {
+
+    private static final int NUM_TOPICS = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    private Vertx vertx;
+    private Controller controller;
+    private List<TopicName> topicNames;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        vertx = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(Math.max(8, VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE)));
+        LabelPredicate cmPredicate = new LabelPredicate("strimzi.io/kind", "topic");
+        InMemory state = new InMemory();
+        topicNames = new ArrayList<>(NUM_TOPICS);
+        for (int i = 0; i < NUM_TOPICS; i++) {
+            Topic topic = TopicSerializationBenchmark.topic("topic-" + i);
+            ConfigMap cm = TopicSerialization.toConfigMap(topic, cmPredicate);
+            TopicName topicName = topic.getTopicName();
+            topicNames.add(topicName);
+            state.maps.put(topic.getOrAsMapName(), cm);
+            state.store.put(topicName, TopicSerialization.fromConfigMap(cm));
+            state.metadata.put(topicName, metadata(topic));
+        }
+
+        List<ReconciliationVerticle> verticles = new ArrayList<>(partitions);
+        CountDownLatch deployed = new CountDownLatch(partitions);
+        for (int i = 0; i < partitions; i++) {
+            ReconciliationVerticle verticle = new ReconciliationVerticle();
+            verticles.add(verticle);
+            vertx.deployVerticle(verticle, ar -> deployed.countDown());
+        }
+        deployed.await();
+        List<InFlight> inFlights = new ArrayList<>(partitions);
+        for (ReconciliationVerticle verticle : verticles) {
+            inFlights.add(verticle.inFlight());
+        }
+        controller = new Controller(vertx, state, state, state, cmPredicate, "benchmark", inFlights);
+    }
+
+    @TearDown
+    public void teardown() {
+        vertx.close();
+    }
+
+    private static TopicMetadata metadata(Topic topic) {
+        List<Node> nodes = asList(new Node(0, "broker-0", 9092), new Node(1, "broker-1", 9092), new Node(2, "broker-2", 9092));
+        List<TopicPartitionInfo> partitions = new ArrayList<>(topic.getNumPartitions());
+        for (int p = 0; p < topic.getNumPartitions(); p++) {
+            partitions.add(new TopicPartitionInfo(p, nodes.get(p % 3), nodes, nodes));
+        }
+        List<ConfigEntry> entries = new ArrayList<>();
+        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+            entries.add(new ConfigEntry(entry.getKey(), entry.getValue()));
+        }
+        return new TopicMetadata(new TopicDescription(topic.getTopicName().toString(), false, partitions), new Config(entries));
+    }
+
+    /**
+     * Reconcile every topic, as a full reconciliation would, and wait for them all to finish.
+     */
+    @Benchmark
+    @OperationsPerInvocation(NUM_TOPICS)
+    public void reconcile() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(NUM_TOPICS);
+        Handler<AsyncResult<Void>> handler = ar -> {
+            if (ar.failed()) {
+                throw new RuntimeException(ar.cause());
+            }
+            done.countDown();
+        };
+        for (TopicName topicName : topicNames) {
+            controller.reconcile(null, topicName, handler);
+        }
+        done.await();
+    }
+
+    /** Kafka, Kubernetes and topic store, which all agree. */
+    private static class InMemory implements Kafka, K8s, TopicStore {
+        final Map<TopicName, TopicMetadata> metadata = new HashMap<>();
+        final Map<MapName, ConfigMap> maps = new HashMap<>();
+        final Map<TopicName, Topic> store = new HashMap<>();
+
+        @Override
+        public void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
+            handler.handle(Future.succeededFuture(metadata.get(topicName)));
+        }
+
+        @Override
+        public void getFromName(MapName mapName, Handler<AsyncResult<ConfigMap>> handler) {
+            handler.handle(Future.succeededFuture(maps.get(mapName)));
+        }
+
+        @Override
+        public void read(TopicName name, Handler<AsyncResult<Topic>> handler) {
+            handler.handle(Future.succeededFuture(store.get(name)));
+        }
+
+        // None of the following are used when everything agrees
+
+        @Override
+        public void createTopic(Topic newTopic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteTopic(TopicName topicName, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateTopicConfig(Topic topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void increasePartitions(Topic topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void changeReplicationFactor(Topic topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void numPartitions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void listTopics(Handler<AsyncResult<Set<String>>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteConfigMap(MapName mapName, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void listMaps(Handler<AsyncResult<List<ConfigMap>>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void createEvent(Event event, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void create(Topic topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void delete(TopicName topic, Handler<AsyncResult<Void>> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void list(Handler<AsyncResult<List<TopicName>>> handler) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
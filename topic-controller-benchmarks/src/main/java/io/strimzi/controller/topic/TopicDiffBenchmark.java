@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link TopicDiff#diff(Topic, Topic)}, which is computed for every topic during a full reconciliation,
+ * both for identical topics (the common case) and for topics which differ.
+ * Run with {@code -prof gc} to see the bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicDiffBenchmark {
+
+    private Topic topic;
+    private Topic same;
+    private Topic changed;
+
+    @Setup
+    public void setup() {
+        topic = TopicSerializationBenchmark.topic("my-topic");
+        same = TopicSerializationBenchmark.topic("my-topic");
+        changed = new Topic.Builder(topic)
+                .withNumPartitions(24)
+                .withConfigEntry("retention.ms", "3600000")
+                .withoutConfigEntry("compression.type")
+                .build();
+    }
+
+    @Benchmark
+    public TopicDiff diffSame() {
+        return TopicDiff.diff(topic, same);
+    }
+
+    @Benchmark
+    public TopicDiff diffChanged() {
+        return TopicDiff.diff(topic, changed);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the conversions done by {@link TopicSerialization} for every topic during a full reconciliation.
+ * Run with {@code -prof gc} to see the bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicSerializationBenchmark {
+
+    private Topic topic;
+    private ConfigMap configMap;
+    private byte[] json;
+    private LabelPredicate cmPredicate;
+
+    static Topic topic(String name) {
+        Map<String, String> config = new HashMap<>();
+        config.put("cleanup.policy", "compact");
+        config.put("retention.ms", "86400000");
+        config.put("segment.bytes", "1073741824");
+        config.put("min.insync.replicas", "2");
+        config.put("compression.type", "producer");
+        return new Topic.Builder(name, 12, (short) 3, config).build();
+    }
+
+    @Setup
+    public void setup() {
+        cmPredicate = new LabelPredicate("strimzi.io/kind", "topic");
+        topic = topic("my-topic");
+        configMap = TopicSerialization.toConfigMap(topic, cmPredicate);
+        json = TopicSerialization.toJson(topic);
+    }
+
+    @Benchmark
+    public Topic fromConfigMap() {
+        return TopicSerialization.fromConfigMap(configMap);
+    }
+
+    @Benchmark
+    public ConfigMap toConfigMap() {
+        return TopicSerialization.toConfigMap(topic, cmPredicate);
+    }
+
+    @Benchmark
+    public byte[] toJson() {
+        return TopicSerialization.toJson(topic);
+    }
+
+    @Benchmark
+    public Topic fromJson() {
+        return TopicSerialization.fromJson(json);
+    }
+}
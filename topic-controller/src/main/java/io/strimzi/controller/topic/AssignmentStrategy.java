@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which brokers the new partitions of a topic should be placed on
+ * when {@link ControllerAssignedKafkaImpl} creates a topic or increases its partitions.
+ */
+public interface AssignmentStrategy {
+
+    /**
+     * Asynchronously compute the assignment of those partitions of the given topic which don't exist yet,
+     * i.e. of all its partitions when it is being created. Invoke the given handler with a map from partition
+     * to replicas (the first replica being the preferred leader), or with a null map if the brokers should
+     * decide for themselves.
+     */
+    void assign(Topic topic, Handler<AsyncResult<Map<Integer, List<Integer>>>> handler);
+}
@@ -18,6 +18,7 @@
 package io.strimzi.controller.topic;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
@@ -31,10 +32,10 @@ import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 
 /**
  * Partial implementation of {@link Kafka} omitting those methods which imply a partition assignment.
@@ -48,12 +49,24 @@ public abstract class BaseKafkaImpl implements Kafka {
 
     protected final AdminClient adminClient;
 
+    protected final BatchingAdminClient batchingAdminClient;
+
     protected final Vertx vertx;
 
     private volatile boolean stopped = false;
 
     public BaseKafkaImpl(AdminClient adminClient, Vertx vertx) {
+        this(adminClient, vertx, 0, 1);
+    }
+
+    /**
+     * @param batchWindowMs The window during which describe, alter and delete requests are
+     *                      accumulated into a single AdminClient request, or zero to disable batching.
+     * @param batchMaxSize The maximum number of topics in a single batched request.
+     */
+    public BaseKafkaImpl(AdminClient adminClient, Vertx vertx, long batchWindowMs, int batchMaxSize) {
         this.adminClient = adminClient;
+        this.batchingAdminClient = new BatchingAdminClient(adminClient, vertx, batchWindowMs, batchMaxSize);
         this.vertx = vertx;
     }
 
@@ -61,20 +74,40 @@ public abstract class BaseKafkaImpl implements Kafka {
         this.stopped = true;
     }
 
-    abstract class Work implements Runnable, Handler<Void> {
-        @Override
-        public void run() {
-            if (!stopped && !complete()) {
-                vertx.runOnContext(this);
-            }
-        }
+    /**
+     * Some work that depends on one or more {@link KafkaFuture}s.
+     * Rather than polling the futures, the work registers a completion callback with each of them
+     * and hops back onto the Vert.x context exactly once per future, when it completes.
+     */
+    abstract class Work {
 
-        @Override
-        public void handle(Void v) {
-            run();
+        private Context context;
+
+        /**
+         * Start the work: Remember the Vert.x context to complete on and register the
+         * completion callbacks with the futures.
+         */
+        void start(Context context) {
+            this.context = context;
+            register();
         }
 
-        protected abstract boolean complete();
+        /** Register completion callbacks with the future(s) this work depends on. */
+        protected abstract void register();
+
+        /**
+         * Returns a callback suitable for {@code KafkaFuture.whenComplete()} which will run
+         * the given {@code callback} on the context this work was started on.
+         */
+        protected <T> KafkaFuture.BiConsumer<T, Throwable> onContext(KafkaFuture.BiConsumer<T, Throwable> callback) {
+            return (result, error) -> {
+                if (stopped) {
+                    logger.trace("Ignoring completion of work {} because we're stopped", this);
+                    return;
+                }
+                context.runOnContext(ignored -> callback.accept(result, error));
+            };
+        }
     }
 
     /** Some work that depends on a single future */
@@ -96,33 +129,25 @@ public abstract class BaseKafkaImpl implements Kafka {
         }
 
         @Override
-        protected boolean complete() {
-            if (this.future.isDone()) {
-                logger.trace("Future {} of work {} is done", future, this);
-                try {
-                    try {
-                        T result = this.future.get();
-                        logger.debug("Future {} has result {}", future, result);
-                        this.handler.handle(Future.succeededFuture(result));
-                        logger.debug("Handler for work {} executed ok", this);
-                    } catch (ExecutionException e) {
-                        logger.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e.getCause()));
-                    } catch (InterruptedException e) {
-                        logger.debug("Future {} threw {}", future, e.toString());
-                        this.handler.handle(Future.failedFuture(e));
-                    }
-                } catch (ControllerException e) {
-                    // TODO handler threw, but I have no context for creating a k8s error event
-                    logger.trace("Handler for work {} threw {}", this, e.toString());
-                    e.printStackTrace();
-                }
-                return true;
-            } else {
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Future {} is not done", future);
+        protected void register() {
+            future.whenComplete(onContext(this::complete));
+        }
+
+        private void complete(T result, Throwable error) {
+            logger.trace("Future {} of work {} is done", future, this);
+            try {
+                if (error == null) {
+                    logger.debug("Future {} has result {}", future, result);
+                    this.handler.handle(Future.succeededFuture(result));
+                    logger.debug("Handler for work {} executed ok", this);
+                } else {
+                    logger.debug("Future {} threw {}", future, error.toString());
+                    this.handler.handle(Future.failedFuture(error));
                 }
-                return false;
+            } catch (ControllerException e) {
+                // TODO handler threw, but I have no context for creating a k8s error event
+                logger.trace("Handler for work {} threw {}", this, e.toString());
+                e.printStackTrace();
             }
         }
 
@@ -137,7 +162,11 @@ public abstract class BaseKafkaImpl implements Kafka {
         private final KafkaFuture<TopicDescription> descFuture;
         private final KafkaFuture<Config> configFuture;
         private final Handler<AsyncResult<TopicMetadata>> handler;
-        private boolean handled = false;
+        // Only accessed on the context
+        private int outstanding = 2;
+        private TopicDescription desc;
+        private Config config;
+        private Throwable error;
 
         public MetadataWork(KafkaFuture<TopicDescription> descFuture,
                             KafkaFuture<Config> configFuture, Handler<AsyncResult<TopicMetadata>> handler) {
@@ -155,70 +184,112 @@ public abstract class BaseKafkaImpl implements Kafka {
             this.handler = handler;
         }
 
+        @Override
+        protected void register() {
+            descFuture.whenComplete(onContext((TopicDescription result, Throwable e) -> {
+                logger.trace("Description future {} has result {}", descFuture, result);
+                desc = result;
+                completed(e);
+            }));
+            configFuture.whenComplete(onContext((Config result, Throwable e) -> {
+                logger.trace("Config future {} has result {}", configFuture, result);
+                config = result;
+                completed(e);
+            }));
+        }
 
-        private <T> T result(KafkaFuture<T> future) {
-            T result;
-            try {
-                result = future.get();
-                logger.trace("Future {} has result {}", future, result);
-            } catch (ExecutionException e) {
-                logger.debug("Future {} threw {}", future, e.toString());
-                if (e.getCause() instanceof UnknownTopicOrPartitionException) {
-                    result = null;
-                } else{
-                    if (!handled) {
-                        handler.handle(Future.failedFuture(e.getCause()));
-                    }
-                    handled = true;
-                    return null;
+        private void completed(Throwable e) {
+            if (e != null) {
+                logger.debug("Future of work {} threw {}", this, e.toString());
+                // A non-existent topic is not an error: The handler gets a null result
+                if (!(e instanceof UnknownTopicOrPartitionException)
+                        && error == null) {
+                    error = e;
                 }
-            } catch (InterruptedException e) {
-                logger.debug("Future {} threw {}", future, e.toString());
-                if (!handled) {
-                    handler.handle(Future.failedFuture(e));
+            }
+            if (--outstanding > 0) {
+                return;
+            }
+            if (error != null) {
+                handler.handle(Future.failedFuture(error));
+            } else {
+                TopicMetadata metadata;
+                if (desc != null && config != null) {
+                    metadata = new TopicMetadata(desc, config);
+                } else {
+                    metadata = null;
                 }
-                handled = true;
-                return null;
+                this.handler.handle(Future.succeededFuture(metadata));
+                logger.trace("Handler for work {} executed ok", this);
             }
-            return result;
+        }
+    }
+
+    /** Some work that depends on the descriptions of many topics, of which only the partition counts are needed */
+    class PartitionCountsWork extends Work {
+        private final Map<TopicName, KafkaFuture<TopicDescription>> descFutures;
+        private final Handler<AsyncResult<Map<TopicName, Integer>>> handler;
+        // Only accessed on the context
+        private int outstanding;
+        private final Map<TopicName, Integer> counts;
+        private Throwable error;
+
+        public PartitionCountsWork(Map<TopicName, KafkaFuture<TopicDescription>> descFutures,
+                                   Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+            if (handler == null) {
+                throw new NullPointerException();
+            }
+            this.descFutures = descFutures;
+            this.handler = handler;
+            this.outstanding = descFutures.size();
+            this.counts = new HashMap<>(descFutures.size());
         }
 
         @Override
-        protected boolean complete() {
-            if (this.descFuture.isDone()
-                    && this.configFuture.isDone()) {
-                final TopicDescription desc = result(this.descFuture);
-                final Config config = result(this.configFuture);
-                if (!handled) {
-                    TopicMetadata metadata;
-                    if (desc != null && config != null) {
-                        metadata = new TopicMetadata(desc, config);
-                    } else {
-                        metadata = null;
+        protected void register() {
+            if (outstanding == 0) {
+                handler.handle(Future.succeededFuture(counts));
+                return;
+            }
+            for (Map.Entry<TopicName, KafkaFuture<TopicDescription>> entry : descFutures.entrySet()) {
+                TopicName topicName = entry.getKey();
+                entry.getValue().whenComplete(onContext((TopicDescription result, Throwable e) -> {
+                    if (result != null) {
+                        counts.put(topicName, result.partitions().size());
                     }
-                    this.handler.handle(Future.succeededFuture(metadata));
-                    this.handled = true;
-                    logger.trace("Handler for work {} executed ok", this);
-                } else {
+                    completed(e);
+                }));
+            }
+        }
+
+        private void completed(Throwable e) {
+            if (e != null) {
+                logger.debug("Future of work {} threw {}", this, e.toString());
+                // A non-existent topic is not an error: It's just absent from the result
+                if (!(e instanceof UnknownTopicOrPartitionException)
+                        && error == null) {
+                    error = e;
                 }
-                return handled;
+            }
+            if (--outstanding > 0) {
+                return;
+            }
+            if (error != null) {
+                handler.handle(Future.failedFuture(error));
             } else {
-                if (!this.descFuture.isDone())
-                    logger.trace("Description future {} is not done", descFuture);
-                if (!this.configFuture.isDone())
-                    logger.trace("Config future {} is not done", configFuture);
-                return false;
+                handler.handle(Future.succeededFuture(counts));
+                logger.trace("Handler for work {} executed ok", this);
             }
         }
     }
 
     /**
-     * Queue a future and callback. The callback will be invoked (on a separate thread)
+     * Queue a future and callback. The callback will be invoked (on the current context)
      * when the future is ready.
      */
     protected void queueWork(Work work) {
-        logger.trace("Queuing work {} for immediate execution", work);
-        vertx.runOnContext(work);
+        logger.trace("Queuing work {} for completion", work);
+        work.start(vertx.getOrCreateContext());
     }
 
     /**
@@ -228,15 +299,15 @@ public abstract class BaseKafkaImpl implements Kafka {
     @Override
     public void deleteTopic(TopicName topicName, Handler<AsyncResult<Void>> handler) {
         logger.debug("Deleting topic {}", topicName);
-        KafkaFuture<Void> future = adminClient.deleteTopics(
-                Collections.singleton(topicName.toString())).values().get(topicName.toString());
+        KafkaFuture<Void> future = batchingAdminClient.deleteTopic(topicName.toString());
         queueWork(new UniWork<>("deleteTopic", future, handler));
     }
 
     @Override
     public void updateTopicConfig(Topic topic, Handler<AsyncResult<Void>> handler) {
         Map<ConfigResource, Config> configs = TopicSerialization.toTopicConfig(topic);
-        KafkaFuture<Void> future = adminClient.alterConfigs(configs).values().get(configs.keySet().iterator().next());
+        Map.Entry<ConfigResource, Config> entry = configs.entrySet().iterator().next();
+        KafkaFuture<Void> future = batchingAdminClient.alterConfig(entry.getKey(), entry.getValue());
         queueWork(new UniWork<>("updateTopicConfig", future, handler));
     }
 
@@ -248,15 +319,28 @@ public abstract class BaseKafkaImpl implements Kafka {
     public void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler) {
         logger.debug("Getting metadata for topic {}", topicName);
         ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, topicName.toString());
-        KafkaFuture<TopicDescription> descriptionFuture = adminClient.describeTopics(
-                Collections.singleton(topicName.toString())).values().get(topicName.toString());
-        KafkaFuture<Config> configFuture = adminClient.describeConfigs(
-                Collections.singleton(resource)).values().get(resource);
+        KafkaFuture<TopicDescription> descriptionFuture = batchingAdminClient.describeTopic(topicName.toString());
+        KafkaFuture<Config> configFuture = batchingAdminClient.describeConfig(resource);
         queueWork(new MetadataWork(descriptionFuture,
                     configFuture,
                     result -> handler.handle(result)));
     }
 
+    /**
+     * Get the partition counts of some topics via the Kafka AdminClient API, calling the given handler
+     * (in a different thread) with the result.
+     * The describe requests are batched by the {@link BatchingAdminClient}.
+     */
+    @Override
+    public void numPartitions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+        logger.debug("Getting partition counts for {} topics", topicNames.size());
+        Map<TopicName, KafkaFuture<TopicDescription>> descFutures = new HashMap<>(topicNames.size());
+        for (TopicName topicName : topicNames) {
+            descFutures.put(topicName, batchingAdminClient.describeTopic(topicName.toString()));
+        }
+        queueWork(new PartitionCountsWork(descFutures, handler));
+    }
+
     @Override
     public void listTopics(Handler<AsyncResult<Set<String>>> handler) {
         logger.debug("Listing topics");
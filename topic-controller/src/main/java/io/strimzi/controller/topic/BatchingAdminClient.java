@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces the single-topic describe, alter and delete requests made by {@link BaseKafkaImpl}
+ * into multi-topic {@link AdminClient} requests.
+ * Requests of the same kind arriving within a window of {@code windowMs}, or until
+ * {@code maxBatchSize} distinct topics have accumulated (whichever happens first), are sent
+ * as a single request, and the per-topic {@link KafkaFuture}s of the result are fanned back
+ * out to each caller.
+ * A {@code windowMs} of zero disables batching.
+ */
+public class BatchingAdminClient {
+
+    private final static Logger logger = LoggerFactory.getLogger(BatchingAdminClient.class);
+
+    /**
+     * Statistics about the batches sent for one kind of request.
+     */
+    public static class BatchStats {
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong maxBatchSize = new AtomicLong();
+        private final AtomicLong totalFlushLatencyNs = new AtomicLong();
+
+        void record(int batchSize, long flushLatencyNs) {
+            batches.incrementAndGet();
+            requests.addAndGet(batchSize);
+            maxBatchSize.accumulateAndGet(batchSize, Math::max);
+            totalFlushLatencyNs.addAndGet(flushLatencyNs);
+        }
+
+        /** The number of batches sent. */
+        public long batches() {
+            return batches.get();
+        }
+
+        /** The number of single-topic requests sent as part of a batch. */
+        public long requests() {
+            return requests.get();
+        }
+
+        /** The largest batch sent. */
+        public long maxBatchSize() {
+            return maxBatchSize.get();
+        }
+
+        /** The mean number of single-topic requests per batch. */
+        public double meanBatchSize() {
+            long b = batches.get();
+            return b == 0 ? 0.0 : (double) requests.get() / b;
+        }
+
+        /**
+         * The total time, in nanoseconds, between sending a batch and
+         * all the futures of that batch completing.
+         */
+        public long totalFlushLatencyNs() {
+            return totalFlushLatencyNs.get();
+        }
+
+        @Override
+        public String toString() {
+            return "BatchStats(batches=" + batches + ", requests=" + requests
+                    + ", maxBatchSize=" + maxBatchSize + ", totalFlushLatencyNs=" + totalFlushLatencyNs + ")";
+        }
+    }
+
+    /**
+     * Accumulates the pending requests of one kind.
+     * @param <K> The type of key identifying what is requested (e.g. topic name).
+     * @param <A> The type of the argument of the request (e.g. the new config), or Void.
+     * @param <V> The type of the result of the request.
+     */
+    private class Batch<K, A, V> {
+        private final String name;
+        private final boolean shareable;
+        private final Function<Map<K, A>, Map<K, KafkaFuture<V>>> send;
+        private final BatchStats stats = new BatchStats();
+        // Guarded by this
+        private Map<K, A> args = new LinkedHashMap<>();
+        private Map<K, List<KafkaFutureImpl<V>>> waiters = new LinkedHashMap<>();
+        private long timerId = -1;
+
+        /**
+         * @param name The name, for logging.
+         * @param shareable Whether two requests with the same key and argument can share a single result.
+         *                  When false a second request for a key already in the batch causes the batch to be sent.
+         * @param send The function for sending the batch using the AdminClient.
+         */
+        Batch(String name, boolean shareable, Function<Map<K, A>, Map<K, KafkaFuture<V>>> send) {
+            this.name = name;
+            this.shareable = shareable;
+            this.send = send;
+        }
+
+        KafkaFuture<V> add(K key, A arg) {
+            KafkaFutureImpl<V> result = new KafkaFutureImpl<>();
+            synchronized (this) {
+                if (waiters.containsKey(key) && !shareable) {
+                    flush();
+                }
+                args.put(key, arg);
+                waiters.computeIfAbsent(key, k -> new ArrayList<>(1)).add(result);
+                if (windowMs <= 0 || waiters.size() >= maxBatchSize) {
+                    flush();
+                } else if (timerId == -1) {
+                    timerId = vertx.setTimer(windowMs, id -> {
+                        synchronized (this) {
+                            if (timerId == id) {
+                                flush();
+                            }
+                        }
+                    });
+                }
+            }
+            return result;
+        }
+
+        // Must be called with the monitor held
+        private void flush() {
+            if (timerId != -1) {
+                vertx.cancelTimer(timerId);
+                timerId = -1;
+            }
+            if (waiters.isEmpty()) {
+                return;
+            }
+            Map<K, A> batchArgs = this.args;
+            Map<K, List<KafkaFutureImpl<V>>> batchWaiters = this.waiters;
+            this.args = new LinkedHashMap<>();
+            this.waiters = new LinkedHashMap<>();
+            int size = batchWaiters.size();
+            logger.debug("Sending {} batch of {} topics", name, size);
+            long t0 = System.nanoTime();
+            Map<K, KafkaFuture<V>> futures;
+            try {
+                futures = send.apply(batchArgs);
+            } catch (RuntimeException e) {
+                for (List<KafkaFutureImpl<V>> ws : batchWaiters.values()) {
+                    for (KafkaFutureImpl<V> w : ws) {
+                        w.completeExceptionally(e);
+                    }
+                }
+                return;
+            }
+            AtomicLong outstanding = new AtomicLong(size);
+            for (Map.Entry<K, List<KafkaFutureImpl<V>>> entry : batchWaiters.entrySet()) {
+                List<KafkaFutureImpl<V>> ws = entry.getValue();
+                KafkaFuture<V> future = futures.get(entry.getKey());
+                if (future == null) {
+                    for (KafkaFutureImpl<V> w : ws) {
+                        w.completeExceptionally(new IllegalStateException("No result for " + entry.getKey() + " in " + name + " batch"));
+                    }
+                    if (outstanding.decrementAndGet() == 0) {
+                        stats.record(size, System.nanoTime() - t0);
+                    }
+                    continue;
+                }
+                future.whenComplete((value, error) -> {
+                    if (outstanding.decrementAndGet() == 0) {
+                        stats.record(size, System.nanoTime() - t0);
+                    }
+                    for (KafkaFutureImpl<V> w : ws) {
+                        if (error != null) {
+                            w.completeExceptionally(error);
+                        } else {
+                            w.complete(value);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private final AdminClient adminClient;
+    private final Vertx vertx;
+    private final long windowMs;
+    private final int maxBatchSize;
+
+    private final Batch<String, Void, TopicDescription> describeTopics;
+    private final Batch<ConfigResource, Void, Config> describeConfigs;
+    private final Batch<ConfigResource, Config, Void> alterConfigs;
+    private final Batch<String, Void, Void> deleteTopics;
+
+    public BatchingAdminClient(AdminClient adminClient, Vertx vertx, long windowMs, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be strictly positive");
+        }
+        this.adminClient = adminClient;
+        this.vertx = vertx;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.describeTopics = new Batch<>("describeTopics", true,
+            args -> this.adminClient.describeTopics(args.keySet()).values());
+        this.describeConfigs = new Batch<>("describeConfigs", true,
+            args -> this.adminClient.describeConfigs(args.keySet()).values());
+        this.alterConfigs = new Batch<>("alterConfigs", false,
+            args -> this.adminClient.alterConfigs(args).values());
+        this.deleteTopics = new Batch<>("deleteTopics", true,
+            args -> this.adminClient.deleteTopics(args.keySet()).values());
+    }
+
+    /** Describe the given topic, as part of a batched {@link AdminClient#describeTopics(java.util.Collection)}. */
+    public KafkaFuture<TopicDescription> describeTopic(String topicName) {
+        return describeTopics.add(topicName, null);
+    }
+
+    /** Describe the config of the given resource, as part of a batched {@link AdminClient#describeConfigs(java.util.Collection)}. */
+    public KafkaFuture<Config> describeConfig(ConfigResource resource) {
+        return describeConfigs.add(resource, null);
+    }
+
+    /** Alter the config of the given resource, as part of a batched {@link AdminClient#alterConfigs(Map)}. */
+    public KafkaFuture<Void> alterConfig(ConfigResource resource, Config config) {
+        return alterConfigs.add(resource, config);
+    }
+
+    /** Delete the given topic, as part of a batched {@link AdminClient#deleteTopics(java.util.Collection)}. */
+    public KafkaFuture<Void> deleteTopic(String topicName) {
+        return deleteTopics.add(topicName, null);
+    }
+
+    public BatchStats describeTopicsStats() {
+        return describeTopics.stats;
+    }
+
+    public BatchStats describeConfigsStats() {
+        return describeConfigs.stats;
+    }
+
+    public BatchStats alterConfigsStats() {
+        return alterConfigs.stats;
+    }
+
+    public BatchStats deleteTopicsStats() {
+        return deleteTopics.stats;
+    }
+}
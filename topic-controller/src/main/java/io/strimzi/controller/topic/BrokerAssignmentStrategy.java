@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link AssignmentStrategy} which leaves the assignment to the brokers, which place replicas
+ * round-robin (and rack-aware, if so configured).
+ */
+public class BrokerAssignmentStrategy implements AssignmentStrategy {
+
+    @Override
+    public void assign(Topic topic, Handler<AsyncResult<Map<Integer, List<Integer>>>> handler) {
+        handler.handle(Future.succeededFuture(null));
+    }
+}
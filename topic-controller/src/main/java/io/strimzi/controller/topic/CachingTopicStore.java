@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A write-through cache of parsed {@link Topic}s in front of a {@link ZkTopicStore}.
+ * The cache relies on the controller being the only writer of the znodes of the topics it reconciles:
+ * once the cache has been populated (by {@link #start(Handler)}) a {@link #read(TopicName, Handler)}
+ * is served from memory, without a ZooKeeper round trip or JSON parse.
+ * When the topics are sharded across several controllers, a topic's znode is written by another member
+ * until the topic is handed over, so the cache must be re-populated (by calling {@link #start(Handler)}
+ * again) whenever this controller gains topics, before they're reconciled.
+ * Writes go to ZooKeeper first and the cache is updated only once the write succeeded.
+ * The cache remembers the znode version of each topic and uses it for updates and deletes,
+ * so a write by anyone else is detected (as a version mismatch). The write then fails with a
+ * {@link ConcurrentWriteException}, rather than overwriting the other write, and the cached entry
+ * is refreshed from ZooKeeper so that the topic can be reconciled against the current state.
+ * An update to a topic whose cached state is already equal to the given topic is not written at all,
+ * so it doesn't fire the data watch of the znode.
+ */
+public class CachingTopicStore implements TopicStore {
+
+    private final static Logger logger = LoggerFactory.getLogger(CachingTopicStore.class);
+
+    private final static Metrics.Counter SUPPRESSED_WRITES = Metrics.DEFAULT.counter(
+            Metrics.PREFIX + "topic_store_writes_suppressed_total",
+            "The number of topic store updates not written because the stored topic was already equal");
+
+    private static class Entry {
+        final Topic topic;
+        final int version;
+
+        Entry(Topic topic, int version) {
+            this.topic = topic;
+            this.version = version;
+        }
+    }
+
+    private final Zk zk;
+    private final ZkTopicStore delegate;
+    private final ConcurrentHashMap<TopicName, Entry> cache = new ConcurrentHashMap<>();
+    /** Topics whose cached entry can't be trusted, and which are re-read from ZooKeeper on next use */
+    private final Set<TopicName> invalid = ConcurrentHashMap.newKeySet();
+    private volatile boolean populated = false;
+    /** Incremented by each {@link #start(Handler)}, so that an earlier, overlapping population doesn't mark the cache populated */
+    private final AtomicInteger populations = new AtomicInteger();
+
+    public CachingTopicStore(Zk zk, ZkTopicStore delegate) {
+        this.zk = zk;
+        this.delegate = delegate;
+    }
+
+    /**
+     * Populate the cache by reading all the topics in the store, calling the given handler when done.
+     * Until the cache is populated reads are passed through to ZooKeeper.
+     * Calling this again discards the cached topics and re-populates the cache.
+     */
+    public void start(Handler<AsyncResult<Void>> handler) {
+        int population = populations.incrementAndGet();
+        populated = false;
+        cache.clear();
+        invalid.clear();
+        zk.children(ZkTopicStore.TOPICS_PATH, childrenResult -> {
+            final List<String> children;
+            if (childrenResult.succeeded()) {
+                children = childrenResult.result();
+            } else if (childrenResult.cause() instanceof KeeperException.NoNodeException) {
+                children = Collections.emptyList();
+            } else {
+                handler.handle(childrenResult.map((Void) null));
+                return;
+            }
+            logger.debug("Populating cache with {} topics", children.size());
+            List<Future> futures = new ArrayList<>(children.size());
+            for (String child : children) {
+                TopicName topicName = new TopicName(child);
+                Future<Void> f = Future.future();
+                futures.add(f);
+                refresh(topicName, ar -> f.handle(ar.map((Void) null)));
+            }
+            CompositeFuture.all(futures).setHandler(ar -> {
+                if (ar.succeeded() && population == populations.get()) {
+                    populated = true;
+                    logger.info("Cached {} topics", cache.size());
+                }
+                handler.handle(ar.map((Void) null));
+            });
+        });
+    }
+
+    /**
+     * Re-read the given topic from ZooKeeper into the cache,
+     * calling the given handler with the cached entry (null if the topic doesn't exist).
+     */
+    private void refresh(TopicName topicName, Handler<AsyncResult<Entry>> handler) {
+        zk.getDataWithStat(ZkTopicStore.getTopicPath(topicName), dataResult -> {
+            if (dataResult.succeeded()) {
+                Entry fresh = new Entry(TopicSerialization.fromJson(dataResult.result().data()), dataResult.result().version());
+                // A concurrent write might already have cached a later version
+                Entry entry = cache.merge(topicName, fresh, (current, candidate) -> current.version >= candidate.version ? current : candidate);
+                invalid.remove(topicName);
+                handler.handle(Future.succeededFuture(entry));
+            } else if (dataResult.cause() instanceof KeeperException.NoNodeException) {
+                cache.remove(topicName);
+                invalid.remove(topicName);
+                handler.handle(Future.succeededFuture(null));
+            } else {
+                handler.handle(dataResult.map((Entry) null));
+            }
+        });
+    }
+
+    /**
+     * Mark the given topic's cached entry as stale,
+     * so that it's re-read from ZooKeeper the next time it's used.
+     */
+    private void invalidate(TopicName topicName) {
+        invalid.add(topicName);
+        cache.remove(topicName);
+    }
+
+    private static int version(Entry entry) {
+        return entry != null ? entry.version : -1;
+    }
+
+    @Override
+    public void read(TopicName name, Handler<AsyncResult<Topic>> handler) {
+        if (populated && invalid.contains(name)) {
+            refresh(name, ar -> handler.handle(ar.map(entry -> entry != null ? entry.topic : null)));
+        } else if (populated) {
+            Entry entry = cache.get(name);
+            handler.handle(Future.succeededFuture(entry != null ? entry.topic : null));
+        } else {
+            delegate.read(name, handler);
+        }
+    }
+
+    @Override
+    public void create(Topic topic, Handler<AsyncResult<Void>> handler) {
+        delegate.create(topic, ar -> {
+            if (ar.succeeded()) {
+                // A newly created znode has version 0
+                cache.put(topic.getTopicName(), new Entry(topic, 0));
+            }
+            handler.handle(ar);
+        });
+    }
+
+    @Override
+    public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
+        if (invalid.contains(topic.getTopicName())) {
+            refresh(topic.getTopicName(), ar -> {
+                if (ar.succeeded()) {
+                    update(topic, version(ar.result()), handler);
+                } else {
+                    handler.handle(ar.map((Void) null));
+                }
+            });
+            return;
+        }
+        Entry entry = cache.get(topic.getTopicName());
+        if (entry != null && topic.equals(entry.topic)
+                && Objects.equals(topic.getMapName(), entry.topic.getMapName())) {
+            logger.debug("Topic {} is unchanged in the store, not updating it", topic.getTopicName());
+            SUPPRESSED_WRITES.inc();
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+        update(topic, version(entry), handler);
+    }
+
+    private void update(Topic topic, int version, Handler<AsyncResult<Void>> handler) {
+        TopicName topicName = topic.getTopicName();
+        zk.setDataWithStat(ZkTopicStore.getTopicPath(topicName), TopicSerialization.toJson(topic), version, result -> {
+            if (result.succeeded()) {
+                cache.put(topicName, new Entry(topic, result.result().getVersion()));
+                handler.handle(Future.succeededFuture());
+            } else if (result.cause() instanceof KeeperException.BadVersionException) {
+                concurrentWrite(topicName, result.cause(), handler);
+            } else {
+                if (result.cause() instanceof KeeperException.NoNodeException) {
+                    cache.remove(topicName);
+                }
+                handler.handle(result.map((Void) null));
+            }
+        });
+    }
+
+    @Override
+    public void delete(TopicName topicName, Handler<AsyncResult<Void>> handler) {
+        if (invalid.contains(topicName)) {
+            refresh(topicName, ar -> {
+                if (ar.succeeded()) {
+                    delete(topicName, version(ar.result()), handler);
+                } else {
+                    handler.handle(ar.map((Void) null));
+                }
+            });
+            return;
+        }
+        delete(topicName, version(cache.get(topicName)), handler);
+    }
+
+    private void delete(TopicName topicName, int version, Handler<AsyncResult<Void>> handler) {
+        zk.delete(ZkTopicStore.getTopicPath(topicName), version, result -> {
+            if (result.succeeded()) {
+                cache.remove(topicName);
+                handler.handle(result);
+            } else if (result.cause() instanceof KeeperException.NoNodeException) {
+                cache.remove(topicName);
+                handler.handle(Future.failedFuture(new NoSuchEntityExistsException()));
+            } else if (result.cause() instanceof KeeperException.BadVersionException) {
+                concurrentWrite(topicName, result.cause(), handler);
+            } else {
+                handler.handle(result);
+            }
+        });
+    }
+
+    /**
+     * Refresh the cached entry of a topic which was modified in the store by someone else,
+     * then fail the given handler with a {@link ConcurrentWriteException}.
+     */
+    private void concurrentWrite(TopicName topicName, Throwable cause, Handler<AsyncResult<Void>> handler) {
+        logger.warn("Topic {} was modified in the store by someone else, refreshing cache", topicName);
+        // The entry stays invalid if the refresh fails, so it's retried on next use
+        invalidate(topicName);
+        refresh(topicName, refreshResult -> {
+            if (refreshResult.failed()) {
+                logger.warn("Failed to refresh topic {} from the store", topicName, refreshResult.cause());
+            }
+            handler.handle(Future.failedFuture(new ConcurrentWriteException(
+                    "Topic " + topicName + " was modified in the store by someone else", cause)));
+        });
+    }
+
+    @Override
+    public void list(Handler<AsyncResult<List<TopicName>>> handler) {
+        if (populated && invalid.isEmpty()) {
+            handler.handle(Future.succeededFuture(new ArrayList<>(cache.keySet())));
+        } else {
+            delegate.list(handler);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachingTopicStore(delegate=" + delegate + ", size=" + cache.size() + ")";
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory model of the load on each broker of a Kafka cluster, in terms of the number of replicas
+ * and leaders it hosts and the disk space used by its log dirs, which can be used to decide where new
+ * partitions should be placed.
+ */
+public class ClusterLoadModel {
+
+    static class BrokerLoad {
+        final int id;
+        final String rack;
+        int replicas;
+        int leaders;
+        long diskBytes;
+
+        BrokerLoad(int id, String rack) {
+            this.id = id;
+            this.rack = rack;
+        }
+
+        @Override
+        public String toString() {
+            return "BrokerLoad(id=" + id + ", rack=" + rack + ", replicas=" + replicas
+                    + ", leaders=" + leaders + ", diskBytes=" + diskBytes + ")";
+        }
+    }
+
+    private final List<BrokerLoad> brokers;
+    private final Map<Integer, BrokerLoad> brokersById;
+    private long totalReplicas;
+    private long totalLeaders;
+    private long totalDiskBytes;
+    private long measuredReplicas;
+
+    public ClusterLoadModel(Collection<Node> nodes) {
+        this.brokers = new ArrayList<>(nodes.size());
+        this.brokersById = new HashMap<>();
+        for (Node node : nodes) {
+            BrokerLoad broker = new BrokerLoad(node.id(), node.rack());
+            brokers.add(broker);
+            brokersById.put(node.id(), broker);
+        }
+        brokers.sort(Comparator.comparingInt(b -> b.id));
+    }
+
+    /**
+     * Build a model from the cluster's brokers, the descriptions of (all) its topics, and the log dirs of its brokers.
+     * @param logDirs The log dirs of each broker, as returned by {@code AdminClient.describeLogDirs()},
+     *                or an empty map if the disk usage is not known.
+     */
+    public static ClusterLoadModel build(Collection<Node> nodes, Collection<TopicDescription> topics,
+                                         Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> logDirs) {
+        ClusterLoadModel model = new ClusterLoadModel(nodes);
+        for (TopicDescription topic : topics) {
+            for (TopicPartitionInfo partition : topic.partitions()) {
+                Node leader = partition.leader();
+                for (Node replica : partition.replicas()) {
+                    model.addReplica(replica.id(), leader != null && leader.id() == replica.id());
+                }
+            }
+        }
+        for (Map.Entry<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> entry : logDirs.entrySet()) {
+            for (DescribeLogDirsResponse.LogDirInfo logDir : entry.getValue().values()) {
+                for (DescribeLogDirsResponse.ReplicaInfo replica : logDir.replicaInfos.values()) {
+                    model.addDiskBytes(entry.getKey(), replica.size);
+                }
+            }
+        }
+        return model;
+    }
+
+    /** Record a replica on the given broker. Replicas on brokers not in the model are ignored. */
+    void addReplica(int brokerId, boolean leader) {
+        BrokerLoad broker = brokersById.get(brokerId);
+        if (broker != null) {
+            broker.replicas++;
+            totalReplicas++;
+            if (leader) {
+                broker.leaders++;
+                totalLeaders++;
+            }
+        }
+    }
+
+    /** Record the size of a replica on the given broker's disks. Brokers not in the model are ignored. */
+    void addDiskBytes(int brokerId, long bytes) {
+        BrokerLoad broker = brokersById.get(brokerId);
+        if (broker != null) {
+            broker.diskBytes += bytes;
+            totalDiskBytes += bytes;
+            measuredReplicas++;
+        }
+    }
+
+    BrokerLoad broker(int brokerId) {
+        return brokersById.get(brokerId);
+    }
+
+    /**
+     * The cost of placing one more replica on the given broker: Its replica count and disk usage,
+     * each relative to the cluster average, plus, for a leader, its leader count relative to the average.
+     */
+    private double cost(BrokerLoad broker, boolean leader, double meanReplicas, double meanLeaders, double meanDiskBytes) {
+        double cost = broker.replicas / meanReplicas;
+        if (meanDiskBytes > 0) {
+            cost += broker.diskBytes / meanDiskBytes;
+        }
+        if (leader) {
+            cost += broker.leaders / meanLeaders;
+        }
+        return cost;
+    }
+
+    private static boolean isRackUsed(BrokerLoad broker, List<BrokerLoad> replicas) {
+        if (broker.rack == null) {
+            return false;
+        }
+        for (BrokerLoad replica : replicas) {
+            if (broker.rack.equals(replica.rack)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assign {@code numPartitions} new partitions, numbered from {@code firstPartition}, with
+     * {@code replicationFactor} replicas each. Each replica goes to the least loaded broker not already hosting
+     * the partition, preferring brokers in racks which the partition doesn't use yet.
+     * The first replica of each partition (its preferred leader) also takes the brokers' leader counts into account.
+     * The model is updated as partitions are assigned, so that successive assignments take each other into account.
+     *
+     * @return The assignment, partition to replicas.
+     * @throws InvalidReplicationFactorException If there are fewer brokers than {@code replicationFactor}.
+     */
+    public Map<Integer, List<Integer>> assign(int firstPartition, int numPartitions, int replicationFactor) {
+        if (replicationFactor > brokers.size()) {
+            throw new InvalidReplicationFactorException("Replication factor: " + replicationFactor
+                    + " larger than available brokers: " + brokers.size());
+        }
+        // New replicas are assumed to grow to the average replica size
+        long replicaBytesEstimate = measuredReplicas == 0 ? 0 : totalDiskBytes / measuredReplicas;
+        int numBrokers = brokers.size();
+        Map<Integer, List<Integer>> assignment = new LinkedHashMap<>(numPartitions * 2);
+        List<BrokerLoad> replicas = new ArrayList<>(replicationFactor);
+        for (int partition = firstPartition; partition < firstPartition + numPartitions; partition++) {
+            replicas.clear();
+            // Averages are smoothed so that they're never zero
+            double meanReplicas = (double) (totalReplicas + numBrokers) / numBrokers;
+            double meanLeaders = (double) (totalLeaders + numBrokers) / numBrokers;
+            double meanDiskBytes = (double) totalDiskBytes / numBrokers;
+            for (int replica = 0; replica < replicationFactor; replica++) {
+                boolean leader = replica == 0;
+                BrokerLoad best = null;
+                boolean bestRackUsed = false;
+                double bestCost = 0;
+                for (int i = 0; i < numBrokers; i++) {
+                    // Start from a different broker for each partition, so that ties are spread around
+                    BrokerLoad candidate = brokers.get((partition + i) % numBrokers);
+                    if (replicas.contains(candidate)) {
+                        continue;
+                    }
+                    boolean rackUsed = isRackUsed(candidate, replicas);
+                    double cost = cost(candidate, leader, meanReplicas, meanLeaders, meanDiskBytes);
+                    if (best == null
+                            || (bestRackUsed && !rackUsed)
+                            || (bestRackUsed == rackUsed && cost < bestCost)) {
+                        best = candidate;
+                        bestRackUsed = rackUsed;
+                        bestCost = cost;
+                    }
+                }
+                replicas.add(best);
+                best.replicas++;
+                best.diskBytes += replicaBytesEstimate;
+                totalReplicas++;
+                totalDiskBytes += replicaBytesEstimate;
+                if (leader) {
+                    best.leaders++;
+                    totalLeaders++;
+                }
+            }
+            List<Integer> ids = new ArrayList<>(replicationFactor);
+            for (BrokerLoad broker : replicas) {
+                ids.add(broker.id);
+            }
+            assignment.put(partition, ids);
+        }
+        return assignment;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterLoadModel(" + brokers + ")";
+    }
+}
@@ -58,6 +58,13 @@ public class Config {
         }
     };
 
+    private static Type<? extends Integer> INTEGER = new Type<Integer>("integer", "A Java int.") {
+        @Override
+        public Integer parse(String s) {
+            return Integer.parseInt(s);
+        }
+    };
+
     private static Type<? extends Long> DURATION = new Type<Long>("duration",
             "A time duration composed of a non-negative integer quantity and time unit taken from " + Arrays.toString(TimeUnit.values()) + ". For example '5 seconds'.") {
 
@@ -115,8 +122,25 @@ public class Config {
     public static final String TC_ZK_CONNECT = "STRIMZI_ZOOKEEPER_CONNECT";
     public static final String TC_ZK_SESSION_TIMEOUT = "STRIMZI_ZOOKEEPER_SESSION_TIMEOUT";
     public static final String TC_PERIODIC_INTERVAL = "STRIMZI_FULL_RECONCILIATION_INTERVAL";
+    public static final String TC_PERIODIC_CONCURRENCY = "STRIMZI_FULL_RECONCILIATION_CONCURRENCY";
     public static final String TC_REASSIGN_THROTTLE = "STRIMZI_REASSIGN_THROTTLE";
     public static final String TC_REASSIGN_VERIFY_INTERVAL = "STRIMZI_REASSIGN_VERIFY_INTERVAL";
+    public static final String TC_ADMIN_BATCH_WINDOW = "STRIMZI_ADMIN_BATCH_WINDOW";
+    public static final String TC_ADMIN_BATCH_MAX_SIZE = "STRIMZI_ADMIN_BATCH_MAX_SIZE";
+    public static final String TC_ASSIGNMENT_STRATEGY = "STRIMZI_ASSIGNMENT_STRATEGY";
+    public static final String TC_ASSIGNMENT_REFRESH_INTERVAL = "STRIMZI_ASSIGNMENT_REFRESH_INTERVAL";
+    public static final String TC_ZK_WATCH_MODE = "STRIMZI_ZOOKEEPER_WATCH_MODE";
+    public static final String TC_PARTITIONS_POLL_INTERVAL = "STRIMZI_PARTITIONS_POLL_INTERVAL";
+    public static final String TC_SHARD_MEMBER_ID = "STRIMZI_SHARD_MEMBER_ID";
+    public static final String TC_RECONCILIATION_PARTITIONS = "STRIMZI_RECONCILIATION_PARTITIONS";
+    public static final String TC_METRICS_PORT = "STRIMZI_METRICS_PORT";
+    public static final String TC_KUBERNETES_CONCURRENCY = "STRIMZI_KUBERNETES_CONCURRENCY";
+
+    public static final String ASSIGNMENT_STRATEGY_BROKER = "broker";
+    public static final String ASSIGNMENT_STRATEGY_LOAD_AWARE = "load-aware";
+
+    public static final String ZOOKEEPER_WATCH_MODE_PER_TOPIC = "per-topic";
+    public static final String ZOOKEEPER_WATCH_MODE_NOTIFICATIONS = "notifications";
 
     private static final Map<String, Value> CONFIG_VALUES = new HashMap<>();
     private static final Set<Type> TYPES = new HashSet<>();
@@ -133,10 +157,40 @@ public class Config {
             "The zookeeper session timeout.");
     public static final Value<Long> FULL_RECONCILIATION_INTERVAL_MS = new Value(TC_PERIODIC_INTERVAL, DURATION, "15 minutes",
             "The period between full reconciliations.");
+    public static final Value<Integer> FULL_RECONCILIATION_CONCURRENCY = new Value(TC_PERIODIC_CONCURRENCY, INTEGER, "10",
+            "The maximum number of topics being reconciled at once by a full reconciliation.");
     public static final Value<Long> REASSIGN_THROTTLE = new Value(TC_REASSIGN_THROTTLE, LONG, Long.toString(Long.MAX_VALUE),
             "The interbroker throttled rate to use when a topic change requires partition reassignment.");
     public static final Value<Long> REASSIGN_VERIFY_INTERVAL_MS = new Value(TC_REASSIGN_VERIFY_INTERVAL, DURATION, "2 minutes",
-            "The interval between verification executions (as in kafka-reassign-partitions.sh --verify ...) when a topic change requires partition reassignment.");
+            "The interval between checks for the completion of a partition reassignment, in addition to watching the reassignment znode, when a topic change requires partition reassignment.");
+    public static final Value<Long> ADMIN_BATCH_WINDOW_MS = new Value(TC_ADMIN_BATCH_WINDOW, DURATION, "5 milliseconds",
+            "The window during which topic describe, alter and delete requests are accumulated into a single AdminClient request. Zero disables batching.");
+    public static final Value<Integer> ADMIN_BATCH_MAX_SIZE = new Value(TC_ADMIN_BATCH_MAX_SIZE, INTEGER, "500",
+            "The maximum number of topics in a single batched AdminClient request.");
+    public static final Value<String> ASSIGNMENT_STRATEGY = new Value(TC_ASSIGNMENT_STRATEGY, STRING, ASSIGNMENT_STRATEGY_BROKER,
+            "How the replicas of new partitions are placed: '" + ASSIGNMENT_STRATEGY_BROKER + "' leaves it to the brokers, '"
+                    + ASSIGNMENT_STRATEGY_LOAD_AWARE + "' places them on the least loaded brokers.");
+    public static final Value<Long> ASSIGNMENT_REFRESH_INTERVAL_MS = new Value(TC_ASSIGNMENT_REFRESH_INTERVAL, DURATION, "5 minutes",
+            "The interval between rebuilds of the model of the brokers' load when " + TC_ASSIGNMENT_STRATEGY + " is '" + ASSIGNMENT_STRATEGY_LOAD_AWARE + "'. "
+                    + "In between, the model is kept up to date with the assignments made by this controller.");
+    public static final Value<String> ZOOKEEPER_WATCH_MODE = new Value(TC_ZK_WATCH_MODE, STRING, ZOOKEEPER_WATCH_MODE_PER_TOPIC,
+            "How topic changes made directly in Kafka are detected: '" + ZOOKEEPER_WATCH_MODE_PER_TOPIC + "' sets two zookeeper watches per topic, '"
+                    + ZOOKEEPER_WATCH_MODE_NOTIFICATIONS + "' follows Kafka's config change notifications and polls for partition changes, "
+                    + "using a fixed number of watches however many topics there are.");
+    public static final Value<Long> PARTITIONS_POLL_INTERVAL_MS = new Value(TC_PARTITIONS_POLL_INTERVAL, DURATION, "30 seconds",
+            "The interval between polls for changed partition counts when " + TC_ZK_WATCH_MODE + " is '" + ZOOKEEPER_WATCH_MODE_NOTIFICATIONS + "'.");
+
+    public static final Value<String> SHARD_MEMBER_ID = new Value(TC_SHARD_MEMBER_ID, STRING, false,
+            "The unique id of this controller among the controllers sharing the topics, for example the pod name. "
+                    + "If unset this controller handles all the topics.");
+    public static final Value<Integer> RECONCILIATION_PARTITIONS = new Value(TC_RECONCILIATION_PARTITIONS, INTEGER, "1",
+            "The number of event loops across which reconciliations are partitioned by topic. "
+                    + "Reconciliations of the same topic always happen in order on the same event loop.");
+    public static final Value<Integer> METRICS_PORT = new Value(TC_METRICS_PORT, INTEGER, "8080",
+            "The port on which the /metrics endpoint is served, in the Prometheus text format.");
+    public static final Value<Integer> KUBERNETES_CONCURRENCY = new Value(TC_KUBERNETES_CONCURRENCY, INTEGER,
+            Integer.toString(K8sImpl.DEFAULT_CONCURRENCY),
+            "The maximum number of Kubernetes API calls made at the same time.");
 
     static {
         Map<String, Value> configValues = CONFIG_VALUES;
@@ -146,8 +200,19 @@ public class Config {
         addConfigValue(configValues, ZOOKEEPER_CONNECT);
         addConfigValue(configValues, ZOOKEEPER_SESSION_TIMEOUT_MS);
         addConfigValue(configValues, FULL_RECONCILIATION_INTERVAL_MS);
+        addConfigValue(configValues, FULL_RECONCILIATION_CONCURRENCY);
         addConfigValue(configValues, REASSIGN_THROTTLE);
         addConfigValue(configValues, REASSIGN_VERIFY_INTERVAL_MS);
+        addConfigValue(configValues, ADMIN_BATCH_WINDOW_MS);
+        addConfigValue(configValues, ADMIN_BATCH_MAX_SIZE);
+        addConfigValue(configValues, ASSIGNMENT_STRATEGY);
+        addConfigValue(configValues, ASSIGNMENT_REFRESH_INTERVAL_MS);
+        addConfigValue(configValues, ZOOKEEPER_WATCH_MODE);
+        addConfigValue(configValues, PARTITIONS_POLL_INTERVAL_MS);
+        addConfigValue(configValues, SHARD_MEMBER_ID);
+        addConfigValue(configValues, RECONCILIATION_PARTITIONS);
+        addConfigValue(configValues, METRICS_PORT);
+        addConfigValue(configValues, KUBERNETES_CONCURRENCY);
     }
 
     static void addConfigValue(Map<String, Value> configValues, Value cv) {
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.Handler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ZooKeeper watcher for the sequential config change notification znodes which
+ * Kafka creates under {@code /config/changes} whenever an entity's config is changed,
+ * calling {@link Controller#onTopicConfigChanged(TopicName, Handler)} for each
+ * topic named in a new notification.
+ *
+ * Unlike {@link TopicConfigsWatcher} this needs a single children watch however
+ * many topics there are, so {@link #addChild(String)} and {@link #removeChild(String)}
+ * don't touch ZooKeeper at all.
+ */
+class ConfigChangesWatcher extends ZkWatcher {
+
+    static final String CHANGES_ZNODE = "/config/changes";
+    static final String CHANGE_PREFIX = "config_change_";
+
+    private static final ObjectReader NOTIFICATION_READER = new ObjectMapper().readerFor(Map.class);
+
+    /**
+     * The sequence number of the most recent notification we've processed,
+     * or null until we've seen the initial children. Only accessed on the context.
+     */
+    private Long lastSequence = null;
+
+    ConfigChangesWatcher(Controller controller) {
+        super(controller, CHANGES_ZNODE);
+    }
+
+    @Override
+    protected void start(Zk zk) {
+        super.start(zk);
+        lastSequence = null;
+        zk.watchChildren(CHANGES_ZNODE, childResult -> {
+            if (!started()) {
+                zk.unwatchChildren(CHANGES_ZNODE);
+                return;
+            }
+            if (childResult.failed()) {
+                log.error("While watching znode {}", CHANGES_ZNODE, childResult.cause());
+                return;
+            }
+            onChildren(zk, childResult.result());
+        }).children(CHANGES_ZNODE, childResult -> {
+            if (childResult.failed()) {
+                log.error("While getting children of znode {}", CHANGES_ZNODE, childResult.cause());
+                return;
+            }
+            // Notifications which predate us are covered by the initial full reconciliation
+            if (lastSequence == null) {
+                lastSequence = maxSequence(childResult.result());
+                log.debug("Ignoring config change notifications up to {}", lastSequence);
+            }
+        });
+    }
+
+    private void onChildren(Zk zk, List<String> children) {
+        if (lastSequence == null) {
+            lastSequence = maxSequence(children);
+            log.debug("Ignoring config change notifications up to {}", lastSequence);
+            return;
+        }
+        List<String> unseen = new ArrayList<>();
+        for (String child : children) {
+            long sequence = sequence(child);
+            if (sequence > lastSequence) {
+                unseen.add(child);
+            }
+        }
+        if (unseen.isEmpty()) {
+            // Kafka purging expired notifications
+            return;
+        }
+        Collections.sort(unseen);
+        lastSequence = sequence(unseen.get(unseen.size() - 1));
+        log.debug("New config change notifications {}", unseen);
+        // Several notifications for the same topic result in a single controller event
+        Set<String> topics = new LinkedHashSet<>();
+        int[] outstanding = {unseen.size()};
+        for (String child : unseen) {
+            String path = getPath(child);
+            zk.getData(path, dataResult -> {
+                if (dataResult.succeeded()) {
+                    String topic = topicName(dataResult.result());
+                    if (topic != null) {
+                        topics.add(topic);
+                    }
+                } else {
+                    // Most likely already purged by Kafka
+                    log.debug("While getting znode {}", path, dataResult.cause());
+                }
+                if (--outstanding[0] == 0) {
+                    for (String t : topics) {
+                        notifyIfOwned(t);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Return the sequence number of the given notification znode name, or -1 if it's not a notification.
+     */
+    static long sequence(String child) {
+        if (child.startsWith(CHANGE_PREFIX)) {
+            try {
+                return Long.parseLong(child.substring(CHANGE_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                // Fall through
+            }
+        }
+        return -1;
+    }
+
+    private static long maxSequence(List<String> children) {
+        long max = -1;
+        for (String child : children) {
+            max = Math.max(max, sequence(child));
+        }
+        return max;
+    }
+
+    /**
+     * Return the name of the topic in the given notification, or null if the notification
+     * is about some other kind of entity or cannot be parsed.
+     * Version 1 notifications have {@code entity_type} and {@code entity_name},
+     * version 2 notifications have an {@code entity_path} such as {@code topics/my-topic}.
+     */
+    static String topicName(byte[] notification) {
+        Map<String, Object> map;
+        try {
+            map = NOTIFICATION_READER.readValue(notification);
+        } catch (IOException e) {
+            return null;
+        }
+        Object version = map.get("version");
+        if (Integer.valueOf(1).equals(version)) {
+            if ("topics".equals(map.get("entity_type"))) {
+                Object name = map.get("entity_name");
+                return name instanceof String ? (String) name : null;
+            }
+        } else if (Integer.valueOf(2).equals(version)) {
+            Object path = map.get("entity_path");
+            if (path instanceof String && ((String) path).startsWith("topics/")) {
+                return ((String) path).substring("topics/".length());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void addChild(String child) {
+        // Notifications name their topic, so there's nothing to watch per topic
+    }
+
+    @Override
+    protected void removeChild(String child) {
+    }
+
+    @Override
+    protected void notifyController(String child) {
+        log.debug("Config change notification for topic {}", child);
+        controller.onTopicConfigChanged(new TopicName(child), ar2 -> {
+            log.info("Reconciliation result due to topic config change: {}", ar2);
+        });
+    }
+}
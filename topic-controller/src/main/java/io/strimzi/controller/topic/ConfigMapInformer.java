@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains a local copy of the ConfigMaps in a namespace, using one list followed by a watch,
+ * so that {@link K8sImpl} can serve {@link K8s#getFromName(MapName, Handler)} and
+ * {@link K8s#listMaps(Handler)} without a request to the API server.
+ * The copy is indexed by name, and the maps matching the {@link LabelPredicate} are additionally
+ * indexed so they can be listed without a scan.
+ *
+ * <p>Events from the watch are applied to the copy before being passed on to the
+ * (optional) downstream {@link Watcher}, so the downstream sees a copy at least as fresh as the event.
+ * An event older than the map already held (e.g. one written through after a create or update by the
+ * controller) is neither applied nor passed on.
+ * If the watch is closed with an error, the informer re-lists, compares the
+ * {@code resourceVersion} of each listed map with the one it holds, passes just the
+ * differences to the downstream watcher, and then watches again from the
+ * {@code resourceVersion} of the list.</p>
+ */
+public class ConfigMapInformer implements Watcher<ConfigMap> {
+
+    private final static Logger logger = LoggerFactory.getLogger(ConfigMapInformer.class);
+
+    private final Vertx vertx;
+    private final KubernetesClient client;
+    private final LabelPredicate cmPredicate;
+    private final String namespace;
+    private final long relistDelayMs;
+
+    private final ConcurrentHashMap<String, ConfigMap> byName = new ConcurrentHashMap<>();
+    private final Set<String> matching = ConcurrentHashMap.newKeySet();
+    private volatile boolean synced = false;
+    private volatile boolean stopped = false;
+    private volatile Watch watch;
+    private volatile Watcher<ConfigMap> downstream;
+
+    /**
+     * @param relistDelayMs How long to wait after the watch failed before re-listing.
+     */
+    public ConfigMapInformer(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace,
+                             long relistDelayMs) {
+        this.vertx = vertx;
+        this.client = client;
+        this.cmPredicate = cmPredicate;
+        this.namespace = namespace;
+        this.relistDelayMs = relistDelayMs;
+    }
+
+    /**
+     * List the ConfigMaps and start watching, calling the given handler once the local copy is populated.
+     * @param downstream The watcher to pass events on to, or null.
+     */
+    public void start(Watcher<ConfigMap> downstream, Handler<AsyncResult<Void>> handler) {
+        this.downstream = downstream;
+        vertx.<Void>executeBlocking(future -> {
+            try {
+                listAndWatch();
+                future.complete();
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, ar -> {
+            handler.handle(ar);
+            if (ar.failed()) {
+                vertx.setTimer(relistDelayMs, timerId -> relist());
+            }
+        });
+    }
+
+    public void stop() {
+        stopped = true;
+        Watch w = watch;
+        if (w != null) {
+            w.close();
+        }
+    }
+
+    /** Whether the initial list has been completed, and so whether the local copy can be used. */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /** The ConfigMap with the given name, or null. */
+    public ConfigMap get(String name) {
+        return byName.get(name);
+    }
+
+    /** The ConfigMaps matching the label predicate. */
+    public List<ConfigMap> list() {
+        List<ConfigMap> result = new ArrayList<>(matching.size());
+        for (String name : matching) {
+            ConfigMap cm = byName.get(name);
+            if (cm != null) {
+                result.add(cm);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Record a ConfigMap returned by a successful create or update,
+     * so it's visible before the corresponding watch event arrives.
+     * @return Whether the given map was recorded, i.e. whether it is at least as new as the one already held.
+     */
+    boolean cache(ConfigMap cm) {
+        boolean[] recorded = {false};
+        byName.compute(cm.getMetadata().getName(), (name, current) -> {
+            recorded[0] = current == null || isNewer(cm, current);
+            ConfigMap result = recorded[0] ? cm : current;
+            index(name, result);
+            return result;
+        });
+        return recorded[0];
+    }
+
+    /**
+     * Forget a ConfigMap which was successfully deleted.
+     */
+    void uncache(String name) {
+        byName.remove(name);
+        matching.remove(name);
+    }
+
+    private void index(String name, ConfigMap cm) {
+        if (cmPredicate.test(cm)) {
+            matching.add(name);
+        } else {
+            matching.remove(name);
+        }
+    }
+
+    /**
+     * Resource versions are opaque, but in practice they're increasing integers.
+     * If they can't be compared we assume the given map is newer.
+     */
+    private static boolean isNewer(ConfigMap cm, ConfigMap than) {
+        try {
+            return Long.parseLong(cm.getMetadata().getResourceVersion())
+                    >= Long.parseLong(than.getMetadata().getResourceVersion());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private void listAndWatch() {
+        ConfigMapList list = client.configMaps().inNamespace(namespace).list();
+        Map<String, ConfigMap> listed = new HashMap<>();
+        for (ConfigMap cm : list.getItems()) {
+            listed.put(cm.getMetadata().getName(), cm);
+        }
+        for (ConfigMap cm : listed.values()) {
+            ConfigMap current = byName.get(cm.getMetadata().getName());
+            if (current == null) {
+                apply(Action.ADDED, cm);
+            } else if (!cm.getMetadata().getResourceVersion().equals(current.getMetadata().getResourceVersion())) {
+                apply(Action.MODIFIED, cm);
+            }
+        }
+        for (ConfigMap cm : new ArrayList<>(byName.values())) {
+            if (!listed.containsKey(cm.getMetadata().getName())) {
+                apply(Action.DELETED, cm);
+            }
+        }
+        synced = true;
+        String resourceVersion = list.getMetadata().getResourceVersion();
+        logger.debug("Listed {} ConfigMaps in namespace {}, watching from resourceVersion {}", listed.size(), namespace, resourceVersion);
+        watch = client.configMaps().inNamespace(namespace).withResourceVersion(resourceVersion).watch(this);
+    }
+
+    private void apply(Action action, ConfigMap cm) {
+        String name = cm.getMetadata().getName();
+        switch (action) {
+            case ADDED:
+            case MODIFIED:
+                // a delayed event mustn't overwrite a newer map written through by the controller
+                if (!cache(cm)) {
+                    logger.debug("Ignoring {} of ConfigMap {} at resourceVersion {}, already have a newer one",
+                            action, name, cm.getMetadata().getResourceVersion());
+                    return;
+                }
+                break;
+            case DELETED:
+                // nor remove a map which has been re-created since
+                ConfigMap current = byName.get(name);
+                if (current != null && !isNewer(cm, current)) {
+                    logger.debug("Ignoring {} of ConfigMap {} at resourceVersion {}, already have a newer one",
+                            action, name, cm.getMetadata().getResourceVersion());
+                    return;
+                }
+                uncache(name);
+                break;
+            default:
+        }
+        Watcher<ConfigMap> downstream = this.downstream;
+        if (downstream != null) {
+            downstream.eventReceived(action, cm);
+        }
+    }
+
+    @Override
+    public void eventReceived(Action action, ConfigMap cm) {
+        if (action == Action.ERROR) {
+            logger.error("Watch received action=ERROR for ConfigMap {}", cm != null ? cm.getMetadata().getName() : null);
+            return;
+        }
+        apply(action, cm);
+    }
+
+    @Override
+    public void onClose(KubernetesClientException e) {
+        if (stopped || e == null) {
+            logger.debug("Closing {}", this);
+            return;
+        }
+        logger.warn("ConfigMap watch closed, re-listing in {}ms", relistDelayMs, e);
+        vertx.setTimer(relistDelayMs, timerId -> relist());
+    }
+
+    private void relist() {
+        if (stopped) {
+            return;
+        }
+        vertx.executeBlocking(future -> {
+            try {
+                listAndWatch();
+                future.complete();
+            } catch (Exception e) {
+                future.fail(e);
+            }
+        }, ar -> {
+            if (ar.failed()) {
+                logger.error("Error re-listing ConfigMaps, retrying in {}ms", relistDelayMs, ar.cause());
+                vertx.setTimer(relistDelayMs, timerId -> relist());
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigMapInformer(namespace=" + namespace + ", size=" + byName.size() + ", synced=" + synced + ")";
+    }
+}
@@ -45,6 +45,10 @@ class ConfigMapWatcher implements Watcher<ConfigMap> {
         Map<String, String> labels = metadata.getLabels();
         if (cmPredicate.test(configMap)) {
             String name = metadata.getName();
+            if (!owns(configMap)) {
+                logger.debug("Ignoring ConfigMap watch event {} on map {} for a topic owned by another controller", action, name);
+                return;
+            }
             logger.info("ConfigMap watch received event {} on map {} with labels {}", action, name, labels);
             Handler<AsyncResult<Void>> resultHandler = ar -> {
                 if (ar.succeeded()) {
@@ -78,6 +82,15 @@ class ConfigMapWatcher implements Watcher<ConfigMap> {
         }
     }
 
+    private boolean owns(ConfigMap configMap) {
+        try {
+            return controller.owns(new TopicName(configMap));
+        } catch (RuntimeException e) {
+            // An invalid topic name: Let the controller report it
+            return true;
+        }
+    }
+
     public void onClose(KubernetesClientException e) {
         logger.debug("Closing {}", this);
     }
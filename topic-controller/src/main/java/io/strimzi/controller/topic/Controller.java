@@ -29,23 +29,33 @@ import org.apache.kafka.common.errors.TopicExistsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import static java.util.Collections.disjoint;
+import static java.util.Collections.singletonList;
 
 public class Controller {
 
     private final static Logger logger = LoggerFactory.getLogger(Controller.class);
     private final static Logger eventLogger = LoggerFactory.getLogger("Event");
+    private final static Metrics.Histogram RECONCILIATION_DURATION = Metrics.DEFAULT.histogram(
+            Metrics.PREFIX + "reconciliation_duration_seconds",
+            "The time taken to run reconciliations, by type and result",
+            Metrics.LATENCY_BUCKETS, "type", "result");
     private final Kafka kafka;
     private final K8s k8s;
     private final Vertx vertx;
     private final LabelPredicate cmPredicate;
     private final String namespace;
     private TopicStore topicStore;
-    private final InFlight inFlight;
+    /** One per reconciliation partition, each running its actions on its own context */
+    private final List<InFlight> inFlights;
+    private volatile Predicate<TopicName> ownership = topicName -> true;
 
     enum EventType {
         INFO("Info"),
@@ -345,29 +355,77 @@ public class Controller {
         this.vertx = vertx;
         this.cmPredicate = cmPredicate;
         this.topicStore = topicStore;
-        this.inFlight = new InFlight(vertx);
+        this.inFlights = singletonList(new InFlight(vertx));
         this.namespace = namespace;
     }
 
-    void reconcile(ConfigMap cm, TopicName topicName) {
-        try {
-            Topic k8sTopic = cm != null ? TopicSerialization.fromConfigMap(cm) : null;
-            Future<Topic> topicResult = Future.future();
-            Future<TopicMetadata> metadataResult = Future.future();
-            kafka.topicMetadata(topicName, metadataResult.completer());
-            topicStore.read(topicName, topicResult.completer());
-            CompositeFuture.all(topicResult, metadataResult).setHandler(ar -> {
-                Topic privateTopic = ar.result().resultAt(0);
-                TopicMetadata kafkaTopicMeta = ar.result().resultAt(1);
-                Topic kafkaTopic = TopicSerialization.fromTopicMetadata(kafkaTopicMeta);
-                reconcile(cm, k8sTopic, kafkaTopic, privateTopic, reconcileResult -> {
+    /**
+     * A controller whose work is partitioned by topic across the given {@code inFlights},
+     * so that the reconciliations of different topics can run on different contexts (and so cores)
+     * while those of the same topic still run in order.
+     */
+    public Controller(Vertx vertx, Kafka kafka,
+                      K8s k8s,
+                      TopicStore topicStore,
+                      LabelPredicate cmPredicate,
+                      String namespace,
+                      List<InFlight> inFlights) {
+        this.kafka = kafka;
+        this.k8s = k8s;
+        this.vertx = vertx;
+        this.cmPredicate = cmPredicate;
+        this.topicStore = topicStore;
+        this.inFlights = new ArrayList<>(inFlights);
+        this.namespace = namespace;
+    }
+
+    /** The InFlight of the partition of the given topic. */
+    private InFlight inFlight(TopicName topicName) {
+        return inFlights.get(Math.floorMod(topicName.hashCode(), inFlights.size()));
+    }
+
+    /**
+     * Reconcile the given topic, as part of a full reconciliation.
+     * The ConfigMap, Kafka and topic store states are read afresh once the reconciliation
+     * is executed, since other inflight work for the topic might precede it.
+     * @param cm The ConfigMap for the topic, if one was known, used to find the ConfigMap's name.
+     */
+    void reconcile(ConfigMap cm, TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
+        Handler<Future<Void>> action = new Reconciliation("reconcile") {
+            @Override
+            protected void run(Future<Void> fut) {
+                Future<Topic> topicResult = Future.future();
+                Future<TopicMetadata> metadataResult = Future.future();
+                kafka.topicMetadata(topicName, metadataResult.completer());
+                topicStore.read(topicName, topicResult.completer());
+                CompositeFuture.all(topicResult, metadataResult).setHandler(ar -> {
+                    if (ar.failed()) {
+                        fut.fail(ar.cause());
+                        return;
+                    }
+                    Topic privateTopic = ar.result().resultAt(0);
+                    Topic kafkaTopic = TopicSerialization.fromTopicMetadata(ar.result().resultAt(1));
+                    MapName mapName = privateTopic != null ? privateTopic.getMapName()
+                            : cm != null ? new MapName(cm) : topicName.asMapName();
+                    k8s.getFromName(mapName, kubeResult -> {
+                        if (kubeResult.failed()) {
+                            fut.fail(kubeResult.cause());
+                            return;
+                        }
+                        ConfigMap currentCm = kubeResult.result();
+                        final Topic k8sTopic;
+                        try {
+                            k8sTopic = TopicSerialization.fromConfigMap(currentCm);
+                        } catch (InvalidConfigMapException e) {
+                            fut.fail(e);
+                            return;
+                        }
+                        reconcile(currentCm, k8sTopic, kafkaTopic, privateTopic, fut.completer());
+                    });
                 });
-            });
-        } catch (InvalidConfigMapException e) {
-            logger.error("Error reconciling ConfigMap {}: Invalid 'data' section: ", cm.getMetadata().getName(), e.getMessage());
-        } catch (ControllerException e) {
-            logger.error("Error reconciling ConfigMap {}: ", cm.getMetadata().getName(), e);
-        }
+            }
+        };
+        inFlight(topicName).enqueue(topicName, true, resultHandler, action);
     }
 
     /**
@@ -591,18 +649,18 @@ public class Controller {
     void onTopicDeleted(TopicName topicName, Handler<AsyncResult<Void>> handler) {
         Handler<Future<Void>> futureHandler = new Reconciliation("onTopicDeleted") {
             @Override
-            public void handle(Future<Void> fut) {
+            protected void run(Future<Void> fut) {
                 Controller.this.reconcileOnTopicChange(topicName, null, fut.completer());
             }
         };
-        inFlight.enqueue(topicName, handler, futureHandler);
+        inFlight(topicName).enqueue(topicName, handler, futureHandler);
 
     }
 
     void onTopicConfigChanged(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
         Handler<Future<Void>> futureHandler = new Reconciliation("onTopicConfigChanged") {
             @Override
-            public void handle(Future<Void> fut) {
+            protected void run(Future<Void> fut) {
                 kafka.topicMetadata(topicName, metadataResult -> {
                     if (metadataResult.succeeded()) {
                         Topic topic = TopicSerialization.fromTopicMetadata(metadataResult.result());
@@ -613,13 +671,13 @@ public class Controller {
                 });
             }
         };
-        inFlight.enqueue(topicName, resultHandler, futureHandler);
+        inFlight(topicName).enqueue(topicName, true, resultHandler, futureHandler);
     }
 
     void onTopicPartitionsChanged(TopicName topicName, Handler<AsyncResult<Void>> resultHandler) {
         Handler<Future<Void>> futureHandler = new Reconciliation("onTopicPartitionsChanged") {
             @Override
-            public void handle(Future<Void> fut) {
+            protected void run(Future<Void> fut) {
 
                 // getting topic information from the private store
                 topicStore.read(topicName, topicResult -> {
@@ -658,7 +716,7 @@ public class Controller {
                 });
             }
         };
-        inFlight.enqueue(topicName, resultHandler, futureHandler);
+        inFlight(topicName).enqueue(topicName, resultHandler, futureHandler);
     }
 
     private void reconcileOnTopicChange(TopicName topicName, Topic kafkaTopic, Handler<AsyncResult<Void>> resultHandler) {
@@ -718,7 +776,7 @@ public class Controller {
         // is it better to put this check in the topic deleted event?
         Handler<Future<Void>> futureHandler = new Reconciliation("onTopicCreated") {
             @Override
-            public void handle(Future<Void> fut) {
+            protected void run(Future<Void> fut) {
 
                 TopicMetadataHandler handler = new TopicMetadataHandler(vertx, kafka, topicName) {
 
@@ -750,7 +808,7 @@ public class Controller {
                 kafka.topicMetadata(topicName, handler);
             }
         };
-        inFlight.enqueue(topicName, resultHandler, futureHandler);
+        inFlight(topicName).enqueue(topicName, resultHandler, futureHandler);
     }
 
     /** Called when a ConfigMap is added in k8s */
@@ -765,16 +823,21 @@ public class Controller {
             }
             Handler<Future<Void>> action = new Reconciliation("onConfigMapAdded") {
                 @Override
-                public void handle(Future<Void> fut) {
+                protected void run(Future<Void> fut) {
                     Controller.this.reconcileOnCmChange(configMap, k8sTopic, false, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap), resultHandler, action);
+            TopicName topicName = new TopicName(configMap);
+            inFlight(topicName).enqueue(topicName, resultHandler, action);
         } else {
             resultHandler.handle(Future.succeededFuture());
         }
     }
 
+    /**
+     * An action run by the {@link InFlight}, whose duration is observed in the
+     * reconciliation duration histogram, labelled with its name.
+     */
     abstract class Reconciliation implements Handler<Future<Void>> {
         private final String name;
 
@@ -782,11 +845,25 @@ public class Controller {
             this.name = name;
         }
 
+        @Override
+        public final void handle(Future<Void> fut) {
+            long start = System.nanoTime();
+            Future<Void> timed = Future.future();
+            timed.setHandler(ar -> {
+                RECONCILIATION_DURATION.observeSince(start, name, ar.succeeded() ? "success" : "failure");
+                fut.handle(ar);
+            });
+            run(timed);
+        }
+
+        /** Perform the reconciliation, completing the given future once done. */
+        protected abstract void run(Future<Void> fut);
+
         @Override
         public String toString() {
             return name + "-" + System.identityHashCode(this);
         }
-    };
+    }
 
     /** Called when a ConfigMap is modified in k8s */
     void onConfigMapModified(ConfigMap configMap, Handler<AsyncResult<Void>> handler) {
@@ -800,11 +877,13 @@ public class Controller {
             }
             Reconciliation action = new Reconciliation("onConfigMapModified") {
                 @Override
-                public void handle(Future<Void> fut) {
+                protected void run(Future<Void> fut) {
                     Controller.this.reconcileOnCmChange(configMap, k8sTopic, true, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap),
+            TopicName topicName = new TopicName(configMap);
+            inFlight(topicName).enqueue(topicName,
+                    true,
                     handler,
                     action
             );
@@ -840,11 +919,12 @@ public class Controller {
         if (cmPredicate.test(configMap)) {
             Reconciliation handlerHandler = new Reconciliation("onConfigMapDeleted") {
                 @Override
-                public void handle(Future<Void> fut) {
+                protected void run(Future<Void> fut) {
                     Controller.this.reconcileOnCmChange(configMap, null, false, fut);
                 }
             };
-            inFlight.enqueue(new TopicName(configMap), handler,
+            TopicName topicName = new TopicName(configMap);
+            inFlight(topicName).enqueue(topicName, handler,
                     handlerHandler);
         } else {
             handler.handle(Future.succeededFuture());
@@ -865,7 +945,7 @@ public class Controller {
         @Override
         public void handle(Void v) throws ControllerException {
             topicStore.update(topic, ar-> {
-                if (ar.failed()) {
+                if (ar.failed() && !requeueOnConcurrentWrite(topic.getTopicName(), involvedObject, ar.cause())) {
                     enqueue(new Event(involvedObject, ar.cause().toString(), EventType.WARNING, eventResult -> {}));
                 }
                 handler.handle(ar);
@@ -926,7 +1006,7 @@ public class Controller {
         @Override
         public void handle(Void v) throws ControllerException {
             topicStore.delete(topicName, ar-> {
-                if (ar.failed()) {
+                if (ar.failed() && !requeueOnConcurrentWrite(topicName, involvedObject, ar.cause())) {
                     enqueue(new Event(involvedObject, ar.cause().toString(), EventType.WARNING, eventResult -> {}));
                 }
                 handler.handle(ar);
@@ -939,8 +1019,82 @@ public class Controller {
         }
     }
 
+    /**
+     * If the given failure is a {@link ConcurrentWriteException}, reconcile the given topic again
+     * once the current work for it is done, so that the concurrent write isn't overwritten
+     * with what was computed from the state before it.
+     * @return Whether a reconciliation was requeued.
+     */
+    private boolean requeueOnConcurrentWrite(TopicName topicName, HasMetadata involvedObject, Throwable cause) {
+        if (!(cause instanceof ConcurrentWriteException)) {
+            return false;
+        }
+        logger.info("Requeuing reconciliation of topic {}: {}", topicName, cause.getMessage());
+        ConfigMap cm = involvedObject instanceof ConfigMap ? (ConfigMap) involvedObject : null;
+        reconcile(cm, topicName, ar -> {
+            if (ar.failed()) {
+                logger.warn("Requeued reconciliation of topic {} failed", topicName, ar.cause());
+            }
+        });
+        return true;
+    }
+
+    /** Whether there is currently work inflight for the given topic. */
+    boolean isWorkInflight(TopicName topicName) {
+        return inFlight(topicName).isInflight(topicName);
+    }
+
+    /** Whether there is currently work inflight for any topic matching the given predicate. */
+    boolean isWorkInflight(Predicate<TopicName> predicate) {
+        for (InFlight inFlight : inFlights) {
+            if (inFlight.isInflight(predicate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Set the predicate which decides which topics this controller is responsible for,
+     * when topics are sharded across several controllers (see {@link ShardMembership}).
+     */
+    void setOwnership(Predicate<TopicName> ownership) {
+        this.ownership = ownership;
+    }
+
+    /**
+     * Whether this controller is responsible for the given topic.
+     * The watchers drop events for topics which it's not responsible for.
+     */
+    boolean owns(TopicName topicName) {
+        return ownership.test(topicName);
+    }
+
+    /** The number of events which were coalesced into an already pending reconciliation of the same topic. */
+    long coalescedEvents() {
+        long coalesced = 0;
+        for (InFlight inFlight : inFlights) {
+            coalesced += inFlight.coalesced();
+        }
+        return coalesced;
+    }
+
+    /** The number of topics which currently have work inflight. */
+    int inflightTopics() {
+        int size = 0;
+        for (InFlight inFlight : inFlights) {
+            size += inFlight.size();
+        }
+        return size;
+    }
+
     public boolean isWorkInflight() {
-        return inFlight.size() > 0;
+        for (InFlight inFlight : inFlights) {
+            if (inFlight.size() > 0) {
+                return true;
+            }
+        }
+        return false;
     }
 }
 
@@ -17,9 +17,7 @@
 
 package io.strimzi.controller.topic;
 
-import com.fasterxml.jackson.core.JsonEncoding;
-import com.fasterxml.jackson.core.JsonFactory;
-import com.fasterxml.jackson.core.JsonGenerator;
+import io.strimzi.controller.topic.zk.Zk;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
@@ -28,394 +26,160 @@ import io.vertx.core.Vertx;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.NewPartitions;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
-import java.util.regex.Pattern;
+import java.util.TreeMap;
 
 /**
- * An implementation of {@link Kafka} which leave partition assignment decisions to the Kafka controller.
- * The controller is able to make rack-aware assignments (if so configured), but does not take into account
- * other aspects (e.g. disk utilisation, CPU load, network IO).
+ * An implementation of {@link Kafka} which places new partitions according to an {@link AssignmentStrategy}:
+ * Either the Kafka controller decides, which is able to make rack-aware assignments (if so configured),
+ * but does not take into account other aspects (e.g. disk utilisation, CPU load, network IO),
+ * or the {@link LoadAwareAssignmentStrategy} places them on the least loaded brokers.
+ * Changes to the replication factor are done in-process by a {@link PartitionReassignment}.
  */
 public class ControllerAssignedKafkaImpl extends BaseKafkaImpl {
 
     private final static Logger logger = LoggerFactory.getLogger(ControllerAssignedKafkaImpl.class);
-    private final Config config;
-
-    public ControllerAssignedKafkaImpl(AdminClient adminClient, Vertx vertx, Config config) {
-        super(adminClient, vertx);
-        this.config = config;
-    }
-
-    @Override
-    public void increasePartitions(Topic topic, Handler<AsyncResult<Void>> handler) {
-        final NewPartitions newPartitions = NewPartitions.increaseTo(topic.getNumPartitions());
-        final Map<String, NewPartitions> request = Collections.singletonMap(topic.getTopicName().toString(), newPartitions);
-        KafkaFuture<Void> future = adminClient.createPartitions(request).values().get(topic.getTopicName().toString());
-        queueWork(new UniWork<>("increasePartitions", future, handler));
+    private final PartitionReassignment reassignment;
+    private final AssignmentStrategy assignmentStrategy;
+
+    public ControllerAssignedKafkaImpl(AdminClient adminClient, Vertx vertx, Config config, Zk zk) {
+        super(adminClient, vertx, config.get(Config.ADMIN_BATCH_WINDOW_MS), config.get(Config.ADMIN_BATCH_MAX_SIZE));
+        this.reassignment = new PartitionReassignment(vertx, zk,
+                config.get(Config.REASSIGN_THROTTLE), config.get(Config.REASSIGN_VERIFY_INTERVAL_MS));
+        this.assignmentStrategy = assignmentStrategy(config.get(Config.ASSIGNMENT_STRATEGY), adminClient, vertx,
+                config.get(Config.ASSIGNMENT_REFRESH_INTERVAL_MS));
     }
 
-    /**
-     * Create a new topic via the Kafka AdminClient API, calling the given handler
-     * (in a different thread) with the result.
-     */
-    @Override
-    public void createTopic(Topic topic, Handler<AsyncResult<Void>> handler) {
-        NewTopic newTopic = TopicSerialization.toNewTopic(topic, null);
-
-        logger.debug("Creating topic {}", newTopic);
-        KafkaFuture<Void> future = adminClient.createTopics(
-                Collections.singleton(newTopic)).values().get(newTopic.name());
-        queueWork(new UniWork<>("createTopic", future, handler));
+    static AssignmentStrategy assignmentStrategy(String name, AdminClient adminClient, Vertx vertx, long refreshIntervalMs) {
+        switch (name) {
+            case Config.ASSIGNMENT_STRATEGY_BROKER:
+                return new BrokerAssignmentStrategy();
+            case Config.ASSIGNMENT_STRATEGY_LOAD_AWARE:
+                return new LoadAwareAssignmentStrategy(adminClient, vertx, refreshIntervalMs);
+            default:
+                throw new IllegalArgumentException("Unknown assignment strategy '" + name + "', expected one of "
+                        + Config.ASSIGNMENT_STRATEGY_BROKER + ", " + Config.ASSIGNMENT_STRATEGY_LOAD_AWARE);
+        }
     }
 
     @Override
-    public void changeReplicationFactor(Topic topic, Handler<AsyncResult<Void>> handler) {
-
-        logger.info("Changing replication factor of topic {} to {}", topic.getTopicName(), topic.getNumReplicas());
-
-        final String zookeeper = config.get(Config.ZOOKEEPER_CONNECT);
-        Future<File> generateFuture = Future.future();
-
-        // generate a reassignment
-        vertx.executeBlocking(fut -> {
-            try {
-                logger.debug("Generating reassignment json for topic {}", topic.getTopicName());
-                String reassignment = generateReassignment(topic, zookeeper);
-                logger.debug("Reassignment json for topic {}: {}", topic.getTopicName(), reassignment);
-                File reassignmentJsonFile = createTmpFile("-reassignment.json");
-                try (Writer w = new OutputStreamWriter(new FileOutputStream(reassignmentJsonFile), StandardCharsets.UTF_8)) {
-                    w.write(reassignment);
-                }
-                fut.complete(reassignmentJsonFile);
-            } catch (Exception e) {
-                fut.fail(e);
+    public void increasePartitions(Topic topic, Handler<AsyncResult<Void>> handler) {
+        final TopicName topicName = topic.getTopicName();
+        final int newCount = topic.getNumPartitions();
+        assign(topic, assignment -> {
+            if (assignment == null) {
+                createPartitions(topicName, NewPartitions.increaseTo(newCount), handler);
+                return;
             }
-        },
-        generateFuture.completer());
-
-        Future<File> executeFuture = Future.future();
-
-        generateFuture.compose(reassignmentJsonFile-> {
-            // execute the reassignment
-            vertx.executeBlocking((fut) -> {
-                final Long throttle = config.get(Config.REASSIGN_THROTTLE);
-                try {
-                    logger.debug("Starting reassignment for topic {} with throttle {}", topic.getTopicName(), throttle);
-                    executeReassignment(reassignmentJsonFile, zookeeper, throttle);
-                    fut.complete(reassignmentJsonFile);
-                } catch (Exception e) {
-                    fut.fail(e);
+            // the assignment must be of exactly the new partitions, in order
+            numPartitions(Collections.singleton(topicName), countsResult -> {
+                List<List<Integer>> newAssignments = countsResult.succeeded()
+                        ? newPartitionAssignments(assignment, countsResult.result().get(topicName), newCount) : null;
+                if (newAssignments == null) {
+                    logger.warn("Assignment {} doesn't match the new partitions of topic {}, the brokers will assign them",
+                            assignment, topicName, countsResult.cause());
+                    createPartitions(topicName, NewPartitions.increaseTo(newCount), handler);
+                } else {
+                    createPartitions(topicName, NewPartitions.increaseTo(newCount, newAssignments), handler);
                 }
-            },
-            executeFuture.completer());
-        }, executeFuture);
-
-        Future<Void> periodicFuture = Future.future();
-        Future<Void> reassignmentFinishedFuture = Future.future();
-
-        executeFuture.compose(reassignmentJsonFile-> {
-            // Poll repeatedly, calling --verify to remove the throttle
-            long timeout = 10_000;
-            long first = System.currentTimeMillis();
-            final Long periodMs = config.get(Config.REASSIGN_VERIFY_INTERVAL_MS);
-            logger.debug("Verifying reassignment every {} seconds", TimeUnit.SECONDS.convert(periodMs, TimeUnit.MILLISECONDS));
-            vertx.setPeriodic(periodMs, (timerId) ->
-                vertx.<Boolean>executeBlocking(fut -> {
-                    logger.debug(String.format("Verifying reassignment for topic {} (timer id=%s)", topic.getTopicName(), timerId));
-
-                    final Long throttle = config.get(Config.REASSIGN_THROTTLE);
-                    final boolean reassignmentComplete;
-                    try {
-                        reassignmentComplete = verifyReassignment(reassignmentJsonFile, zookeeper, throttle);
-                    } catch (Exception e) {
-                        fut.fail(e);
-                        return;
-                    }
-                    fut.complete(reassignmentComplete);
-                }, ar -> {
-                    if (ar.succeeded()) {
-                        if (ar.result()) {
-                            logger.info("Reassignment complete");
-                            delete(reassignmentJsonFile);
-                            logger.debug("Cancelling timer " + timerId);
-                            vertx.cancelTimer(timerId);
-                            reassignmentFinishedFuture.complete();
-                        } else if (System.currentTimeMillis() - first > timeout) {
-                            logger.error("Reassignment timed out");
-                            delete(reassignmentJsonFile);
-                            logger.debug("Cancelling timer " + timerId);
-                            vertx.cancelTimer(timerId);
-                            reassignmentFinishedFuture.fail("Timeout");
-                        }
-                    } else {
-                        //reassignmentFinishedFuture.fail(ar.cause());
-                        logger.error("Error while verifying reassignment", ar.cause());
-                    }
-                })
-            );
-            periodicFuture.complete();
-        },
-        periodicFuture);
-
-
-        CompositeFuture.all(periodicFuture, reassignmentFinishedFuture).map((Void)null).setHandler(handler);
-
-        // TODO The algorithm should really be more like this:
-        // 1. Use the cmdline tool to generate an assignment
-        // 2. Set the throttles
-        // 3. Update the reassign_partitions znode
-        // 4. Watch for changes or deletion of reassign_partitions
-        //    a. Update the throttles
-        //    b. complete the handler
-        // Doing this is much better because means we don't have to batch reassignments
-        // and also means we need less state for reassignment
-        // though we aren't relieved of the statefullness wrt removing throttles :-(
+            });
+        });
     }
 
-    private static void delete(File file) {
-        /*if (!file.delete()) {
-            logger.warn("Unable to delete temporary file {}", file);
-        }*/
-    }
-
-    private static File createTmpFile(String suffix) throws IOException {
-        File tmpFile = File.createTempFile(ControllerAssignedKafkaImpl.class.getName(), suffix);
-        if (logger.isTraceEnabled()) {
-            logger.trace("Created temporary file {}", tmpFile);
-        }
-        /*tmpFile.deleteOnExit();*/
-        return tmpFile;
+    private void createPartitions(TopicName topicName, NewPartitions newPartitions, Handler<AsyncResult<Void>> handler) {
+        final Map<String, NewPartitions> request = Collections.singletonMap(topicName.toString(), newPartitions);
+        KafkaFuture<Void> future = adminClient.createPartitions(request).values().get(topicName.toString());
+        queueWork(new UniWork<>("increasePartitions", future, handler));
     }
 
-    private static class VerifyLineParser implements Function<String, Void> {
-        int complete = 0;
-        int inProgress = 0;
-
-        @Override
-        public Void apply(String line) {
-            if (line.contains("Partitions reassignment failed due to")
-                    || Pattern.matches("Reassignment of partition .* failed", line)) {
-                throw new ControllerException("Reassigment failed: " + line);
-            } else if (Pattern.matches("Reassignment of partition .* completed successfully", line)) {
-                complete++;
-            } else if (Pattern.matches("Reassignment of partition .* is still in progress", line)) {
-                inProgress++;
-            }
+    /**
+     * The replicas of partitions {@code oldCount} to {@code newCount - 1}, in partition order,
+     * or null if the given assignment isn't of exactly those partitions.
+     */
+    static List<List<Integer>> newPartitionAssignments(Map<Integer, List<Integer>> assignment, Integer oldCount, int newCount) {
+        if (oldCount == null || oldCount >= newCount || assignment.size() != newCount - oldCount) {
             return null;
         }
-    }
-
-    private boolean verifyReassignment(File reassignmentJsonFile, String zookeeper, Long throttle) throws IOException, InterruptedException {
-        List<String> verifyArgs = new ArrayList<>();
-        addJavaArgs(verifyArgs);
-        // command args
-        verifyArgs.add("--zookeeper");
-        verifyArgs.add(zookeeper);
-        if (throttle != null) {
-            verifyArgs.add("--throttle");
-            verifyArgs.add(Long.toString(throttle));
-        }
-        verifyArgs.add("--reassignment-json-file");
-        verifyArgs.add(reassignmentJsonFile.toString());
-        verifyArgs.add("--verify");
-        VerifyLineParser verifyLineParser = new VerifyLineParser();
-        executeSubprocess(verifyArgs).forEachLineStdout(verifyLineParser);
-        return verifyLineParser.inProgress == 0;
-    }
-
-    private void executeReassignment(File reassignmentJsonFile, String zookeeper, Long throttle) throws IOException, InterruptedException {
-        List<String> executeArgs = new ArrayList<>();
-        addJavaArgs(executeArgs);
-        executeArgs.add("--zookeeper");
-        executeArgs.add(zookeeper);
-        if (throttle != null) {
-            executeArgs.add("--throttle");
-            executeArgs.add(Long.toString(throttle));
-        }
-        executeArgs.add("--reassignment-json-file");
-        executeArgs.add(reassignmentJsonFile.toString());
-        executeArgs.add("--execute");
-
-        if (!executeSubprocess(executeArgs).forEachLineStdout(line -> {
-            if (line.contains("Partitions reassignment failed due to")
-                    || line.contains("There is an existing assignment running")
-                    || line.contains("Failed to reassign partitions")) {
-                throw new TransientControllerException("Reassigment failed: " + line);
-            } else if (line.contains("Successfully started reassignment of partitions.")) {
-                return true;
-            } else {
+        List<List<Integer>> result = new ArrayList<>(newCount - oldCount);
+        for (int partition = oldCount; partition < newCount; partition++) {
+            List<Integer> replicas = assignment.get(partition);
+            if (replicas == null) {
                 return null;
             }
-        })) {
-            throw new TransientControllerException("Reassignment execution neither failed nor finished");
+            result.add(replicas);
         }
+        return result;
     }
 
-    private String generateReassignment(Topic topic, String zookeeper) throws IOException, InterruptedException, ExecutionException {
-        JsonFactory factory = new JsonFactory();
-
-        File topicsToMove = createTmpFile("-topics-to-move.json");
-
-        try (JsonGenerator gen = factory.createGenerator(topicsToMove, JsonEncoding.UTF8)){
-            gen.writeStartObject();
-            gen.writeNumberField("version", 1);
-            gen.writeArrayFieldStart("topics");
-            gen.writeStartObject();
-            gen.writeStringField("topic", topic.getTopicName().toString());
-            gen.writeEndObject();
-            gen.writeEndArray();
-            gen.writeEndObject();
-            gen.flush();
-        }
-        List<String> executeArgs = new ArrayList<>();
-        addJavaArgs(executeArgs);
-        executeArgs.add("--zookeeper");
-        executeArgs.add(zookeeper);
-        executeArgs.add("--topics-to-move-json-file");
-        executeArgs.add(topicsToMove.toString());
-        executeArgs.add("--broker-list");
-        executeArgs.add(brokerList());
-        executeArgs.add("--generate");
-
-        final ProcessResult processResult = executeSubprocess(executeArgs);
-        delete(topicsToMove);
-        String json = processResult.forEachLineStdout(new ReassignmentLineParser());
-        return json;
-
+    /**
+     * Create a new topic via the Kafka AdminClient API, calling the given handler
+     * (in a different thread) with the result.
+     */
+    @Override
+    public void createTopic(Topic topic, Handler<AsyncResult<Void>> handler) {
+        assign(topic, assignment -> {
+            NewTopic newTopic = TopicSerialization.toNewTopic(topic,
+                    assignment != null && assignment.size() == topic.getNumPartitions() ? assignment : null);
+
+            logger.debug("Creating topic {}", newTopic);
+            KafkaFuture<Void> future = adminClient.createTopics(
+                    Collections.singleton(newTopic)).values().get(newTopic.name());
+            queueWork(new UniWork<>("createTopic", future, handler));
+        });
     }
 
-    /** Use the AdminClient to get a comma-separated list of the broker ids in the Kafka cluster */
-    private String brokerList() throws InterruptedException, ExecutionException {
-        StringBuilder sb = new StringBuilder();
-        for (Node node: adminClient.describeCluster().nodes().get()) {
-            if (sb.length() != 0) {
-                sb.append(",");
+    /**
+     * Compute the assignment of the new partitions of the given topic using the {@link AssignmentStrategy},
+     * falling back to letting the brokers decide (a null assignment) if the strategy fails.
+     */
+    private void assign(Topic topic, Handler<Map<Integer, List<Integer>>> handler) {
+        assignmentStrategy.assign(topic, ar -> {
+            if (ar.succeeded()) {
+                logger.debug("Assignment for topic {}: {}", topic.getTopicName(), ar.result());
+                handler.handle(ar.result());
+            } else {
+                logger.warn("Unable to compute an assignment for topic {}, the brokers will assign it", topic.getTopicName(), ar.cause());
+                handler.handle(null);
             }
-            sb.append(node.id());
-        }
-        return sb.toString();
-    }
-
-    protected void addJavaArgs(List<String> verifyArgs) {
-        // protected access only for testing purposes
-
-        // use the same java executable that's executing this code
-        verifyArgs.add(System.getProperty("java.home")+"/bin/java");
-        // use the same classpath as we have
-        verifyArgs.add("-cp");
-        verifyArgs.add(System.getProperty("java.class.path"));
-        // main
-        verifyArgs.add("kafka.admin.ReassignPartitionsCommand");
-    }
-
-    private ProcessResult executeSubprocess(List<String> verifyArgs) throws IOException, InterruptedException {
-        // We choose to run the reassignment as an external process because the Scala class:
-        //  a) doesn't throw on errors, but
-        //  b) writes them to stdout
-        // so we need to parse its output, but we can't do that in an isolated way if we run it in our process
-        // (System.setOut being global to the VM).
-
-        if(verifyArgs.isEmpty() || !new File(verifyArgs.get(0)).canExecute()) {
-            throw new ControllerException("Command " + verifyArgs + " lacks an executable arg[0]");
-        }
-
-        ProcessBuilder pb = new ProcessBuilder(verifyArgs);
-        // If we redirect stderr to stdout we could break the predicates because the
-        // characters will be jumbled.
-        // Reading two pipes without deadlocking on the blocking is difficult, so let's just write stderr to a file.
-        File stdout = createTmpFile(".out");
-        File stderr = createTmpFile(".err");
-        pb.redirectError(stderr);
-        pb.redirectOutput(stdout);
-        Process p = pb.start();
-        logger.info("Started process {} with command line {}", p, verifyArgs);
-        p.getOutputStream().close();
-        int exitCode = p.waitFor();
-        // TODO timeout on wait
-        logger.info("Process {}: exited with status {}", p, exitCode);
-        return new ProcessResult(p, stdout, stderr);
+        });
     }
 
+    @Override
+    public void changeReplicationFactor(Topic topic, Handler<AsyncResult<Void>> handler) {
 
+        logger.info("Changing replication factor of topic {} to {}", topic.getTopicName(), topic.getNumReplicas());
 
-    private static class ProcessResult implements AutoCloseable {
-        private final File stdout;
-        private final File stderr;
-        private final Object pid;
-
-        ProcessResult(Object pid, File stdout, File stderr) {
-            this.pid = pid;
-            this.stdout = stdout;
-            this.stderr = stderr;
-        }
-
-        public <T> T forEachLineStdout(Function<String, T> fn) throws IOException {
-            return forEachLine(this.stdout, fn);
-        }
-
-        private <T> T forEachLine(File file, Function<String, T> fn) throws IOException {
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
-                    // Use platform default charset, on assumption that
-                    // the ReassignPartitionsCommand will output in that
-                    new FileInputStream(file), Charset.defaultCharset()))) {
-                String line = reader.readLine();
-                while (line != null) {
-                    logger.debug("Process {}: stdout: {}", pid, line);
-                    T result = fn.apply(line);
-                    if (result != null) {
-                        return result;
-                    }
-                    line = reader.readLine();
+        final String topicName = topic.getTopicName().toString();
+        Future<Collection<Node>> nodesFuture = Future.future();
+        queueWork(new UniWork<>("describeCluster", adminClient.describeCluster().nodes(), nodesFuture.completer()));
+        Future<TopicDescription> descriptionFuture = Future.future();
+        queueWork(new UniWork<>("describeTopic", batchingAdminClient.describeTopic(topicName), descriptionFuture.completer()));
+
+        CompositeFuture.all(nodesFuture, descriptionFuture).compose(ignored -> {
+            Map<Integer, List<Integer>> current = new TreeMap<>();
+            for (TopicPartitionInfo partition : descriptionFuture.result().partitions()) {
+                List<Integer> replicas = new ArrayList<>(partition.replicas().size());
+                for (Node node : partition.replicas()) {
+                    replicas.add(node.id());
                 }
-                return null;
-            }
-        }
-
-        @Override
-        public void close() throws Exception {
-            delete(stdout);
-            delete(stderr);
-        }
-    }
-
-    private static class ReassignmentLineParser implements Function<String, String> {
-        boolean returnLine = false;
-
-        @Override
-        public String apply(String line) {
-            if (line.contains("Partitions reassignment failed due to")) {
-                throw new TransientControllerException("Reassignment failed: " + line);
+                current.put(partition.partition(), replicas);
             }
-            if (returnLine) {
-                return line;
-            }
-            if (line.contains("Proposed partition reassignment configuration")) {
-                // Return the line following this one, since that's the JSON representation of the reassignment
-                returnLine = true;
-            }
-            return null;
-        }
+            Map<Integer, List<Integer>> proposed = PartitionReassignment.propose(current, nodesFuture.result(), topic.getNumReplicas());
+            logger.debug("Proposed reassignment for topic {}: {}", topicName, proposed);
+            Future<Void> reassigned = Future.future();
+            reassignment.reassign(topicName, current, proposed, reassigned.completer());
+            return reassigned;
+        }).setHandler(handler);
     }
 }
-
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically measures how long a task submitted to each of some event loop contexts waits before it runs.
+ * A lag which stays high means that loop is saturated (or blocked), and reconciliations
+ * of the topics it runs are being delayed.
+ */
+class EventLoopLag {
+
+    private final Vertx vertx;
+    private final long intervalMs;
+    private final Map<String, Probe> probes = new LinkedHashMap<>();
+    private long timerId = -1;
+
+    private static class Probe {
+        private final Context context;
+        /** The nanoTime at which the pending probe was submitted, or 0 if none is pending. */
+        private final AtomicLong pendingSince = new AtomicLong();
+        private volatile long lastLagNs;
+
+        Probe(Context context) {
+            this.context = context;
+        }
+
+        void submit() {
+            long now = System.nanoTime();
+            if (pendingSince.compareAndSet(0, now)) {
+                context.runOnContext(v -> {
+                    lastLagNs = System.nanoTime() - now;
+                    pendingSince.set(0);
+                });
+            }
+        }
+
+        long lagNs() {
+            long since = pendingSince.get();
+            long lag = lastLagNs;
+            // A loop which never runs the probe is at least as lagged as the probe's wait so far
+            return since != 0 ? Math.max(lag, System.nanoTime() - since) : lag;
+        }
+    }
+
+    /**
+     * @param vertx The Vertx instance used for the timer.
+     * @param contexts The contexts to probe, keyed by the name used in the metrics.
+     * @param intervalMs The interval between probes.
+     */
+    EventLoopLag(Vertx vertx, Map<String, Context> contexts, long intervalMs) {
+        this.vertx = vertx;
+        this.intervalMs = intervalMs;
+        for (Map.Entry<String, Context> entry : contexts.entrySet()) {
+            probes.put(entry.getKey(), new Probe(entry.getValue()));
+        }
+    }
+
+    synchronized void start() {
+        if (timerId == -1) {
+            timerId = vertx.setPeriodic(intervalMs, id -> {
+                for (Probe probe : probes.values()) {
+                    probe.submit();
+                }
+            });
+        }
+    }
+
+    synchronized void stop() {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /** The most recently measured lag of each context, in seconds. */
+    Map<String, Double> lagSeconds() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Probe> entry : probes.entrySet()) {
+            result.put(entry.getKey(), (double) entry.getValue().lagNs() / TimeUnit.SECONDS.toNanos(1));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically compares the topics known to Kafka, the ConfigMaps matching the label predicate
+ * and the topics in the {@link TopicStore}, and reconciles any topic which doesn't exist in all three,
+ * or whose ConfigMap or Kafka topic differs from the topic store.
+ *
+ * <p>The three sets of names are sorted and walked in a single merge pass. The topics needing
+ * reconciliation are then handed to the {@link Controller} with at most {@code concurrency}
+ * reconciliations outstanding at once. Topics which already have inflight work when the pass
+ * gets to them are skipped: the inflight work will reconcile them anyway. So are topics which
+ * the controller doesn't {@linkplain Controller#owns(TopicName) own}.</p>
+ *
+ * <p>A pass which is still running when the next one is due causes the next one to be skipped,
+ * so passes never pile up. A pass requested with {@link #runOrQueue(String, Handler)} is instead
+ * performed once the running one has finished, for when the running pass may have missed
+ * topics (e.g. ones just gained from other members); the requests made while it waits share it.</p>
+ */
+public class FullReconciliation {
+
+    private final static Logger logger = LoggerFactory.getLogger(FullReconciliation.class);
+
+    private final Vertx vertx;
+    private final Kafka kafka;
+    private final K8s k8s;
+    private final TopicStore topicStore;
+    private final Controller controller;
+    private final int concurrency;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong passes = new AtomicLong();
+    private final AtomicLong skippedPasses = new AtomicLong();
+    /** The type of the pass queued to follow the running one, or null. Guarded by this. */
+    private String queuedType = null;
+    /** The handlers of the queued pass. Guarded by this. */
+    private final List<Handler<AsyncResult<Void>>> queuedHandlers = new ArrayList<>();
+    private volatile long lastPassDurationMs = -1;
+    private volatile int lastPassTopics = 0;
+    private volatile int lastPassReconciled = 0;
+    private volatile int lastPassSkipped = 0;
+
+    public FullReconciliation(Vertx vertx, Kafka kafka, K8s k8s, TopicStore topicStore, Controller controller, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be strictly positive");
+        }
+        this.vertx = vertx;
+        this.kafka = kafka;
+        this.k8s = k8s;
+        this.topicStore = topicStore;
+        this.controller = controller;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Perform a pass, unless one is already running, calling the given handler when done.
+     */
+    public void run(String reconciliationType, Handler<AsyncResult<Void>> handler) {
+        if (!running.compareAndSet(false, true)) {
+            logger.warn("Skipping {} reconciliation because the previous one is still running", reconciliationType);
+            skippedPasses.incrementAndGet();
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+        pass(reconciliationType, handler);
+    }
+
+    /**
+     * Perform a pass, or if one is already running, queue a pass to be performed once it has finished,
+     * calling the given handler when done.
+     */
+    public void runOrQueue(String reconciliationType, Handler<AsyncResult<Void>> handler) {
+        synchronized (this) {
+            if (!running.compareAndSet(false, true)) {
+                logger.info("Queueing {} reconciliation until the running one has finished", reconciliationType);
+                if (queuedType == null) {
+                    queuedType = reconciliationType;
+                }
+                queuedHandlers.add(handler);
+                return;
+            }
+        }
+        pass(reconciliationType, handler);
+    }
+
+    /**
+     * Perform the queued pass, if any, otherwise stop running.
+     */
+    private void finished() {
+        String reconciliationType;
+        List<Handler<AsyncResult<Void>>> handlers;
+        synchronized (this) {
+            if (queuedType == null) {
+                running.set(false);
+                return;
+            }
+            reconciliationType = queuedType;
+            handlers = new ArrayList<>(queuedHandlers);
+            queuedType = null;
+            queuedHandlers.clear();
+        }
+        pass(reconciliationType, ar -> handlers.forEach(handler -> handler.handle(ar)));
+    }
+
+    private void pass(String reconciliationType, Handler<AsyncResult<Void>> handler) {
+        logger.info("Starting {} reconciliation", reconciliationType);
+        long t0 = System.nanoTime();
+        Future<Set<String>> kafkaResult = Future.future();
+        Future<List<ConfigMap>> k8sResult = Future.future();
+        Future<List<TopicName>> storeResult = Future.future();
+        kafka.listTopics(kafkaResult.completer());
+        k8s.listMaps(k8sResult.completer());
+        topicStore.list(storeResult.completer());
+        CompositeFuture.all(kafkaResult, k8sResult, storeResult).setHandler(ar -> {
+            if (ar.failed()) {
+                finished();
+                logger.error("Error performing {} reconciliation", reconciliationType, ar.cause());
+                handler.handle(Future.failedFuture(ar.cause()));
+                return;
+            }
+            Map<String, ConfigMap> maps = new HashMap<>();
+            for (ConfigMap cm : k8sResult.result()) {
+                try {
+                    maps.put(new TopicName(cm).toString(), cm);
+                } catch (RuntimeException e) {
+                    logger.warn("Ignoring ConfigMap {} with invalid topic name during {} reconciliation",
+                            cm.getMetadata().getName(), reconciliationType);
+                }
+            }
+            List<String> storeNames = new ArrayList<>(storeResult.result().size());
+            for (TopicName name : storeResult.result()) {
+                storeNames.add(name.toString());
+            }
+            List<Work> work = diff(kafkaResult.result(), maps, storeNames);
+            Pass pass = new Pass(reconciliationType, t0, work, passResult -> {
+                finished();
+                handler.handle(passResult);
+            });
+            pass.start();
+        });
+    }
+
+    /** A topic found by the merge pass which may need reconciling. */
+    private static class Work {
+        final TopicName topicName;
+        final ConfigMap cm;
+        /** True if the topic is in all three places, so only needs reconciling if the ConfigMap or Kafka differ from the store. */
+        final boolean inAll;
+
+        Work(TopicName topicName, ConfigMap cm, boolean inAll) {
+            this.topicName = topicName;
+            this.cm = cm;
+            this.inAll = inAll;
+        }
+    }
+
+    /**
+     * Merge the three sorted name sets in one pass, returning the topics to examine further.
+     */
+    private List<Work> diff(Collection<String> kafkaNames, Map<String, ConfigMap> maps, List<String> storeNames) {
+        String[] kafka = kafkaNames.toArray(new String[0]);
+        String[] k8s = maps.keySet().toArray(new String[0]);
+        String[] store = storeNames.toArray(new String[0]);
+        Arrays.sort(kafka);
+        Arrays.sort(k8s);
+        Arrays.sort(store);
+        List<Work> result = new ArrayList<>();
+        int i = 0, j = 0, k = 0;
+        while (i < kafka.length || j < k8s.length || k < store.length) {
+            String min = null;
+            if (i < kafka.length) {
+                min = kafka[i];
+            }
+            if (j < k8s.length && (min == null || k8s[j].compareTo(min) < 0)) {
+                min = k8s[j];
+            }
+            if (k < store.length && (min == null || store[k].compareTo(min) < 0)) {
+                min = store[k];
+            }
+            boolean inKafka = i < kafka.length && kafka[i].equals(min);
+            boolean inK8s = j < k8s.length && k8s[j].equals(min);
+            boolean inStore = k < store.length && store[k].equals(min);
+            if (inKafka) {
+                i++;
+            }
+            if (inK8s) {
+                j++;
+            }
+            if (inStore) {
+                k++;
+            }
+            TopicName topicName = new TopicName(min);
+            if (controller.owns(topicName)) {
+                result.add(new Work(topicName, maps.get(min), inKafka && inK8s && inStore));
+            }
+        }
+        return result;
+    }
+
+    /** The state of one pass. */
+    private class Pass {
+        private final String reconciliationType;
+        private final long t0;
+        private final int total;
+        private final Queue<Work> queue;
+        private final Handler<AsyncResult<Void>> handler;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger reconciled = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        Pass(String reconciliationType, long t0, List<Work> work, Handler<AsyncResult<Void>> handler) {
+            this.reconciliationType = reconciliationType;
+            this.t0 = t0;
+            this.total = work.size();
+            this.queue = new ConcurrentLinkedQueue<>(work);
+            this.handler = handler;
+        }
+
+        void start() {
+            for (int n = 0; n < concurrency; n++) {
+                outstanding.incrementAndGet();
+                next();
+            }
+        }
+
+        /** Take work from the queue until one item needs an asynchronous reconciliation, or the queue is empty. */
+        private void next() {
+            Work work;
+            while ((work = queue.poll()) != null) {
+                if (controller.isWorkInflight(work.topicName)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                Work w = work;
+                if (w.inAll) {
+                    // Only reconcile if the ConfigMap or Kafka disagree with the topic store
+                    Future<Topic> storeResult = Future.future();
+                    Future<TopicMetadata> kafkaResult = Future.future();
+                    topicStore.read(w.topicName, storeResult.completer());
+                    kafka.topicMetadata(w.topicName, kafkaResult.completer());
+                    CompositeFuture.all(storeResult, kafkaResult).setHandler(ar -> {
+                        if (ar.failed()
+                                || !sameAsConfigMap(storeResult.result(), w.cm)
+                                || !sameAsKafka(storeResult.result(), kafkaResult.result())) {
+                            reconcile(w);
+                        } else {
+                            // The read may have completed synchronously, so don't recurse
+                            vertx.runOnContext(v -> next());
+                        }
+                    });
+                } else {
+                    reconcile(w);
+                }
+                return;
+            }
+            if (outstanding.decrementAndGet() == 0 && done.compareAndSet(false, true)) {
+                finish();
+            }
+        }
+
+        private void reconcile(Work w) {
+            reconciled.incrementAndGet();
+            logger.debug("{} reconciliation of topic {}", reconciliationType, w.topicName);
+            controller.reconcile(w.cm, w.topicName, ar -> {
+                if (ar.failed()) {
+                    failed.incrementAndGet();
+                    logger.warn("Error during {} reconciliation of topic {}", reconciliationType, w.topicName, ar.cause());
+                }
+                next();
+            });
+        }
+
+        private void finish() {
+            long durationMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+            lastPassDurationMs = durationMs;
+            lastPassTopics = total;
+            lastPassReconciled = reconciled.get();
+            lastPassSkipped = skipped.get();
+            passes.incrementAndGet();
+            logger.info("Finished {} reconciliation of {} topics in {}ms ({} topics/s): {} reconciled ({} failed), {} skipped as inflight",
+                    reconciliationType, total, durationMs, String.format("%.1f", topicsPerSecond()),
+                    lastPassReconciled, failed.get(), lastPassSkipped);
+            handler.handle(Future.succeededFuture());
+        }
+    }
+
+    private static boolean sameAsConfigMap(Topic storeTopic, ConfigMap cm) {
+        try {
+            return storeTopic != null && storeTopic.equals(TopicSerialization.fromConfigMap(cm));
+        } catch (InvalidConfigMapException e) {
+            return false;
+        }
+    }
+
+    private static boolean sameAsKafka(Topic storeTopic, TopicMetadata metadata) {
+        return storeTopic != null && storeTopic.equals(TopicSerialization.fromTopicMetadata(metadata));
+    }
+
+    /** The number of completed passes. */
+    public long passes() {
+        return passes.get();
+    }
+
+    /** The number of passes skipped because the previous pass was still running. */
+    public long skippedPasses() {
+        return skippedPasses.get();
+    }
+
+    /** The duration of the last completed pass, in milliseconds, or -1 if there has been no pass. */
+    public long lastPassDurationMs() {
+        return lastPassDurationMs;
+    }
+
+    /** The number of distinct topic names examined by the last completed pass. */
+    public int lastPassTopics() {
+        return lastPassTopics;
+    }
+
+    /** The number of topics reconciled by the last completed pass. */
+    public int lastPassReconciled() {
+        return lastPassReconciled;
+    }
+
+    /** The number of topics skipped by the last completed pass, because they had work inflight. */
+    public int lastPassSkipped() {
+        return lastPassSkipped;
+    }
+
+    /** The throughput of the last completed pass. */
+    public double topicsPerSecond() {
+        long ms = lastPassDurationMs;
+        return ms <= 0 ? lastPassTopics : lastPassTopics * 1000.0 / ms;
+    }
+
+    @Override
+    public String toString() {
+        return "FullReconciliation(concurrency=" + concurrency + ", passes=" + passes.get() + ")";
+    }
+}
@@ -18,13 +18,18 @@
 package io.strimzi.controller.topic;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * Inflight tracks the current reconciliation jobs being done, and prevents
@@ -48,6 +53,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * due to event 1 is complete. The reconciliation algorithm is smart
  * enough realize, when reconciling the ConfigMap creation that the Kafka
  * and TopicStore state is already correct, and so the reconciliation is a noop.
+ *
+ * Actions which reconcile using the then-current state can be enqueued as mergeable,
+ * so that a burst of events for the same key, arriving while an action for that key is running,
+ * collapses into a single pending action (see {@link #enqueue(Object, boolean, Handler, Handler)}).
  */
 class InFlight<T> {
 
@@ -55,19 +64,29 @@ class InFlight<T> {
 
     private final Vertx vertx;
 
+    private final Context context;
+
     private final ConcurrentHashMap<T, InflightHandler> map = new ConcurrentHashMap<>();
 
+    private final AtomicLong coalesced = new AtomicLong();
+
     class InflightHandler implements Handler<AsyncResult<Void>> {
 
-        private final Handler<AsyncResult<Void>> h1;
+        private final List<Handler<AsyncResult<Void>>> h1 = new ArrayList<>(1);
         private final Handler<AsyncResult<Void>> h2;
-        private final String fur;
+        private final boolean mergeable;
+        // Guarded by this
+        private String fur;
+        private Handler<Future<Void>> action;
+        private boolean started = false;
         private Handler<AsyncResult<Void>> h3;
         private final Future<Void> fut;
 
-        public InflightHandler(T key, String fur, Handler<AsyncResult<Void>> h1) {
-            this.fur = fur;
-            this.h1 = h1;
+        public InflightHandler(T key, boolean mergeable, Handler<Future<Void>> action, Handler<AsyncResult<Void>> h1) {
+            this.mergeable = mergeable;
+            this.action = action;
+            this.fur = action.toString();
+            this.h1.add(h1);
             this.h2 = x-> {
                 // remove from map if fut is the current key
                 map.compute(key, (k2, v)-> {
@@ -84,56 +103,153 @@ class InFlight<T> {
             fut.setHandler(this);
         }
 
+        /** Run the action. */
+        void start() {
+            Handler<Future<Void>> action;
+            synchronized (this) {
+                started = true;
+                action = this.action;
+            }
+            action.handle(fut);
+        }
+
+        /**
+         * If this action is mergeable and has not started, replace it with the given action
+         * and also call the given result handler once that action completes.
+         * @return Whether the given action was coalesced into this one.
+         */
+        synchronized boolean coalesce(Handler<Future<Void>> action, Handler<AsyncResult<Void>> resultHandler) {
+            if (!mergeable || started) {
+                return false;
+            }
+            logger.debug("Coalescing pending action {} into {}", fur, action);
+            this.action = action;
+            this.fur = action.toString();
+            this.h1.add(resultHandler);
+            return true;
+        }
+
         @Override
         public void handle(AsyncResult<Void> event) {
-            h1.handle(event);
+            List<Handler<AsyncResult<Void>>> h1;
+            synchronized (this) {
+                h1 = new ArrayList<>(this.h1);
+            }
+            for (Handler<AsyncResult<Void>> h : h1) {
+                h.handle(event);
+            }
             h2.handle(event);
+            // Once h2 has removed us from the map no further h3 can be set
+            Handler<AsyncResult<Void>> h3;
+            synchronized (this) {
+                h3 = this.h3;
+            }
             if (h3 != null) {
                 h3.handle(event);
             }
         }
 
-        public void setHandler(Handler<AsyncResult<Void>> h3) {
+        public synchronized void setHandler(Handler<AsyncResult<Void>> h3) {
             this.h3 = h3;
         }
 
-        public String toString() {
+        public synchronized String toString() {
             return fur;
         }
     }
 
     public InFlight(Vertx vertx) {
+        this(vertx, null);
+    }
+
+    /**
+     * @param vertx Vertx instance
+     * @param context The context to run the actions on,
+     *                or null to run them on the context of the caller of {@link #enqueue(Object, Handler, Handler)}.
+     */
+    public InFlight(Vertx vertx, Context context) {
         this.vertx = vertx;
+        this.context = context;
+    }
+
+    private void runOnContext(Handler<Void> action) {
+        if (context != null) {
+            context.runOnContext(action);
+        } else {
+            vertx.runOnContext(action);
+        }
     }
 
 
     /**
-     * Run the given {@code action} on the context thread,
+     * Run the given {@code action} on the context thread (see {@link #InFlight(Vertx, Context)}),
      * immediately if there are currently no other actions with the given {@code key},
      * or when the other actions with the given {@code key} have completed.
      * When the given {@code action} is complete it must complete its argument future,
      * which will complete the given {@code resultHandler}.
      */
     public void enqueue(T key, Handler<AsyncResult<Void>> resultHandler, Handler<Future<Void>> action) {
-        InflightHandler fut = new InflightHandler(key, action.toString(), resultHandler);
-        logger.debug("resultHandler:{}, action:{}, fut:{}", resultHandler, action, fut);
+        enqueue(key, false, resultHandler, action);
+    }
+
+    /**
+     * Like {@link #enqueue(Object, Handler, Handler)}, but if the given {@code action} is {@code mergeable}
+     * and the last action enqueued with the given {@code key} is also mergeable and has not yet started,
+     * then the pending action is replaced by the given {@code action} ("latest wins").
+     * In that case the {@code resultHandler}s of both are called with the result of the given {@code action}.
+     * Mergeable actions must therefore be equivalent to one another when run later,
+     * for example because they reconcile using the then-current state.
+     */
+    public void enqueue(T key, boolean mergeable, Handler<AsyncResult<Void>> resultHandler, Handler<Future<Void>> action) {
         map.compute(key, (k, current) -> {
             if (current == null) {
+                InflightHandler fut = new InflightHandler(key, mergeable, action, resultHandler);
+                logger.debug("resultHandler:{}, action:{}, fut:{}", resultHandler, action, fut);
                 logger.debug("Queueing {} for immediate execution", action);
-                vertx.runOnContext(ignored-> action.handle(fut.fut));
+                runOnContext(ignored -> fut.start());
                 return fut;
+            } else if (mergeable && current.coalesce(action, resultHandler)) {
+                coalesced.incrementAndGet();
+                return current;
             } else {
+                InflightHandler fut = new InflightHandler(key, mergeable, action, resultHandler);
+                logger.debug("resultHandler:{}, action:{}, fut:{}", resultHandler, action, fut);
                 logger.debug("Queueing {} for deferred execution after {}", action, current);
                 current.setHandler(ar -> {
                     logger.debug("Queueing {} after deferred execution", action);
-                    vertx.runOnContext(ar2 ->
-                            action.handle(fut.fut) );
+                    runOnContext(ar2 -> fut.start());
                 });
                 return fut;
             }
         });
     }
 
+    /**
+     * The number of actions which have been coalesced into a pending action, rather than being run.
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Whether there are currently any actions with the given {@code key}.
+     */
+    public boolean isInflight(T key) {
+        return map.containsKey(key);
+    }
+
+    /**
+     * Whether there are currently any actions with a key matching the given {@code predicate}.
+     */
+    public boolean isInflight(Predicate<T> predicate) {
+        for (T key : map.keySet()) {
+            if (predicate.test(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * The number of keys with inflight actions.
      */
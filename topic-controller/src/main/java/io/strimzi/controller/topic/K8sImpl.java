@@ -18,21 +18,52 @@
 package io.strimzi.controller.topic;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.Event;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.HttpURLConnection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class K8sImpl implements K8s {
 
     private final static Logger logger = LoggerFactory.getLogger(Controller.class);
 
+    /** The name of the worker pool used for Kubernetes API calls. */
+    public static final String WORKER_POOL_NAME = "strimzi-topic-controller-k8s";
+
+    /** The number of concurrent Kubernetes API calls when not given. */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    private final static Metrics.Histogram QUEUE_WAIT = Metrics.DEFAULT.histogram(
+            Metrics.PREFIX + "k8s_queue_wait_seconds",
+            "The time Kubernetes API calls waited for a worker thread, by operation",
+            Metrics.LATENCY_BUCKETS, "operation");
+
+    private final static Metrics.Counter SUPPRESSED_WRITES = Metrics.DEFAULT.counter(
+            Metrics.PREFIX + "configmap_writes_suppressed_total",
+            "The number of ConfigMap updates not sent because the ConfigMap already had the desired content");
+
+    private final static Metrics.Counter WRITE_CONFLICTS = Metrics.DEFAULT.counter(
+            Metrics.PREFIX + "configmap_write_conflicts_total",
+            "The number of ConfigMap updates which conflicted with a concurrent modification");
+
+    private final static Metrics.Histogram EXECUTION = Metrics.DEFAULT.histogram(
+            Metrics.PREFIX + "k8s_execution_seconds",
+            "The time taken to execute Kubernetes API calls on a worker thread, by operation",
+            Metrics.LATENCY_BUCKETS, "operation");
+
     private final LabelPredicate cmPredicate;
     private final String namespace;
 
@@ -40,18 +71,71 @@ public class K8sImpl implements K8s {
 
     private Vertx vertx;
 
+    private final ConfigMapInformer informer;
+
+    private final WorkerExecutor executor;
+
     public K8sImpl(Vertx vertx, KubernetesClient client, LabelPredicate cmPredicate, String namespace) {
+        this(vertx, client, null, cmPredicate, namespace);
+    }
+
+    public K8sImpl(Vertx vertx, KubernetesClient client, ConfigMapInformer informer, LabelPredicate cmPredicate, String namespace) {
+        this(vertx, client, informer, cmPredicate, namespace, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param informer If not null, once it has synced {@link #getFromName(MapName, Handler)} and
+     *                 {@link #listMaps(Handler)} are served from the informer's local copy.
+     * @param concurrency The maximum number of Kubernetes API calls made at the same time.
+     *                    Calls are not ordered with respect to one another: the {@link InFlight} already
+     *                    orders the work for any one topic, and a slow call shouldn't hold up other topics.
+     */
+    public K8sImpl(Vertx vertx, KubernetesClient client, ConfigMapInformer informer, LabelPredicate cmPredicate,
+                   String namespace, int concurrency) {
         this.vertx = vertx;
         this.client = client;
+        this.informer = informer;
         this.cmPredicate = cmPredicate;
         this.namespace = namespace;
+        this.executor = vertx.createSharedWorkerExecutor(WORKER_POOL_NAME, concurrency);
+    }
+
+    /**
+     * Release the worker pool.
+     */
+    public void close() {
+        executor.close();
+    }
+
+    /**
+     * Execute the given blocking Kubernetes API call on the worker pool, unordered,
+     * observing how long it waited for a worker and how long it took.
+     */
+    private <T> void execute(String operation, Handler<Future<T>> blockingHandler, Handler<AsyncResult<T>> resultHandler) {
+        long queued = System.nanoTime();
+        executor.executeBlocking(future -> {
+            long started = System.nanoTime();
+            QUEUE_WAIT.labels(operation).observeSince(queued);
+            try {
+                blockingHandler.handle(future);
+            } finally {
+                EXECUTION.labels(operation).observeSince(started);
+            }
+        }, false, resultHandler);
+    }
+
+    private boolean useInformer() {
+        return informer != null && informer.isSynced();
     }
 
     @Override
     public void createConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
-        vertx.executeBlocking(future -> {
+        execute("createConfigMap", future -> {
             try {
-                client.configMaps().inNamespace(namespace).create(cm);
+                ConfigMap created = client.configMaps().inNamespace(namespace).create(cm);
+                if (informer != null && created != null) {
+                    informer.cache(created);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -59,11 +143,31 @@ public class K8sImpl implements K8s {
         }, handler);
     }
 
+    /**
+     * Update the given ConfigMap.
+     * If the informer's copy of the ConfigMap already has the desired content nothing is written,
+     * so that the write doesn't echo back as a MODIFIED event and cause another reconciliation.
+     * Otherwise the informer's copy is updated with the given data and labels (leaving any other labels
+     * and annotations alone) and replaced conditionally on its resourceVersion.
+     * If that conflicts with a concurrent modification the current ConfigMap is read and the update retried once.
+     */
     @Override
     public void updateConfigMap(ConfigMap cm, Handler<AsyncResult<Void>> handler) {
-        vertx.executeBlocking(future -> {
+        ConfigMap current = useInformer() ? informer.get(cm.getMetadata().getName()) : null;
+        if (current != null && isUnchanged(current, cm)) {
+            logger.debug("ConfigMap {} is unchanged, not updating it", cm.getMetadata().getName());
+            SUPPRESSED_WRITES.inc();
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+        execute("updateConfigMap", future -> {
             try {
-                client.configMaps().inNamespace(namespace).createOrReplace(cm);
+                ConfigMap updated = current != null
+                        ? replace(current, cm)
+                        : client.configMaps().inNamespace(namespace).createOrReplace(cm);
+                if (informer != null && updated != null) {
+                    informer.cache(updated);
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -71,12 +175,70 @@ public class K8sImpl implements K8s {
         }, handler);
     }
 
+    private ConfigMap replace(ConfigMap current, ConfigMap cm) {
+        String name = cm.getMetadata().getName();
+        try {
+            return lockedReplace(current, cm);
+        } catch (KubernetesClientException e) {
+            if (e.getCode() != HttpURLConnection.HTTP_CONFLICT) {
+                throw e;
+            }
+            WRITE_CONFLICTS.inc();
+            logger.info("ConfigMap {} was modified concurrently, retrying the update", name);
+            ConfigMap latest = client.configMaps().inNamespace(namespace).withName(name).get();
+            if (latest == null) {
+                return client.configMaps().inNamespace(namespace).create(cm);
+            } else if (isUnchanged(latest, cm)) {
+                SUPPRESSED_WRITES.inc();
+                return latest;
+            } else {
+                return lockedReplace(latest, cm);
+            }
+        }
+    }
+
+    private ConfigMap lockedReplace(ConfigMap current, ConfigMap cm) {
+        ConfigMap merged = new ConfigMapBuilder(current)
+                .editMetadata()
+                    .addToLabels(labels(cm))
+                .endMetadata()
+                .withData(cm.getData())
+                .build();
+        return client.configMaps().inNamespace(namespace).withName(cm.getMetadata().getName())
+                .lockResourceVersion(current.getMetadata().getResourceVersion())
+                .replace(merged);
+    }
+
+    /**
+     * Whether the {@code current} ConfigMap already has the data and labels of the {@code desired} one.
+     */
+    static boolean isUnchanged(ConfigMap current, ConfigMap desired) {
+        if (!Objects.equals(current.getData(), desired.getData())) {
+            return false;
+        }
+        Map<String, String> currentLabels = labels(current);
+        for (Map.Entry<String, String> label : labels(desired).entrySet()) {
+            if (!label.getValue().equals(currentLabels.get(label.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, String> labels(ConfigMap cm) {
+        Map<String, String> labels = cm.getMetadata() != null ? cm.getMetadata().getLabels() : null;
+        return labels != null ? labels : Collections.emptyMap();
+    }
+
     @Override
     public void deleteConfigMap(MapName mapName, Handler<AsyncResult<Void>> handler) {
-        vertx.executeBlocking(future -> {
+        execute("deleteConfigMap", future -> {
             try {
                 // Delete the CM by the topic name, because neither ZK nor Kafka know the CM name
                 client.configMaps().inNamespace(namespace).withName(mapName.toString()).delete();
+                if (informer != null) {
+                    informer.uncache(mapName.toString());
+                }
                 future.complete();
             } catch (Exception e) {
                 future.fail(e);
@@ -86,7 +248,11 @@ public class K8sImpl implements K8s {
 
     @Override
     public void listMaps(Handler<AsyncResult<List<ConfigMap> >> handler) {
-        vertx.executeBlocking(future -> {
+        if (useInformer()) {
+            handler.handle(Future.succeededFuture(informer.list()));
+            return;
+        }
+        execute("listMaps", future -> {
             try {
                 future.complete(client.configMaps().inNamespace(namespace).withLabels(cmPredicate.labels()).list().getItems());
             } catch (Exception e) {
@@ -97,7 +263,11 @@ public class K8sImpl implements K8s {
 
     @Override
     public void getFromName(MapName mapName, Handler<AsyncResult<ConfigMap >> handler) {
-        vertx.executeBlocking(future -> {
+        if (useInformer()) {
+            handler.handle(Future.succeededFuture(informer.get(mapName.toString())));
+            return;
+        }
+        execute("getFromName", future -> {
             try {
                 future.complete(client.configMaps().inNamespace(namespace).withName(mapName.toString()).get());
             } catch (Exception e) {
@@ -112,7 +282,7 @@ public class K8sImpl implements K8s {
      */
     @Override
     public void createEvent(Event event, Handler<AsyncResult<Void>> handler) {
-        vertx.executeBlocking(future -> {
+        execute("createEvent", future -> {
             try {
                 try {
                     logger.debug("Creating event {}", event);
@@ -20,6 +20,8 @@ package io.strimzi.controller.topic;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -77,6 +79,15 @@ public interface Kafka {
      */
     void topicMetadata(TopicName topicName, Handler<AsyncResult<TopicMetadata>> handler);
 
+    /**
+     * Asynchronously fetch the number of partitions of each of the given topics in Kafka.
+     * Invoke the given handler with the result. If the operation fails the given handler
+     * will be called with a failed AsyncResult whose {@code cause()} is the
+     * KafkaException (not an ExecutionException).
+     * Topics which do not exist are absent from the {@link AsyncResult#result()}.
+     */
+    void numPartitions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler);
+
     /**
      * Asynchronously list the topics available in Kafka. Invoke the given
      * handler with the result. If the operation fails the given handler
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import org.apache.kafka.common.KafkaFuture;
+
+/**
+ * Bridges the futures of the Kafka AdminClient to Vert.x.
+ */
+public class KafkaFutures {
+
+    private KafkaFutures() {
+    }
+
+    /**
+     * Returns a Vert.x future which is completed on the given {@code context}
+     * when the given {@code kafkaFuture} completes.
+     */
+    public static <T> Future<T> toFuture(Context context, KafkaFuture<T> kafkaFuture) {
+        Future<T> future = Future.future();
+        kafkaFuture.whenComplete((value, error) -> context.runOnContext(v -> {
+            if (error != null) {
+                future.fail(error);
+            } else {
+                future.complete(value);
+            }
+        }));
+        return future;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link AssignmentStrategy} which places new partitions on the least loaded brokers,
+ * spreading the replicas of each partition across racks.
+ * The load of each broker is modelled by a long-lived {@link ClusterLoadModel}, which is built from
+ * {@code describeCluster}, {@code describeTopics} (of all the topics in the cluster) and {@code describeLogDirs}
+ * at most once per refresh interval (concurrent assignments wait for the same build). In between, each assignment
+ * is reserved in the model as it is made, so that concurrent and successive assignments take each other into account,
+ * and only the topic being assigned is described. Changes made by others (e.g. deleted topics) are picked up
+ * by the next build. If the log dirs can't be described the model is built without disk usage.
+ */
+public class LoadAwareAssignmentStrategy implements AssignmentStrategy {
+
+    private final static Logger logger = LoggerFactory.getLogger(LoadAwareAssignmentStrategy.class);
+
+    private final AdminClient adminClient;
+    private final Vertx vertx;
+    private final long refreshIntervalMs;
+
+    // Guarded by this
+    private ClusterLoadModel model;
+    private long modelBuiltAt;
+    private List<Handler<AsyncResult<ClusterLoadModel>>> waiters;
+
+    public LoadAwareAssignmentStrategy(AdminClient adminClient, Vertx vertx, long refreshIntervalMs) {
+        this.adminClient = adminClient;
+        this.vertx = vertx;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    @Override
+    public void assign(Topic topic, Handler<AsyncResult<Map<Integer, List<Integer>>>> handler) {
+        Context context = vertx.getOrCreateContext();
+        String topicName = topic.getTopicName().toString();
+        Future<ClusterLoadModel> modelFuture = model(context);
+        Future<Integer> existingFuture = KafkaFutures.toFuture(context,
+                adminClient.describeTopics(Collections.singleton(topicName)).values().get(topicName))
+                .map(description -> description.partitions().size())
+                // a topic being created doesn't exist yet
+                .recover(error -> error instanceof UnknownTopicOrPartitionException
+                        ? Future.succeededFuture(0) : Future.failedFuture(error));
+
+        CompositeFuture.all(modelFuture, existingFuture).<Map<Integer, List<Integer>>>map(ignored -> {
+            int firstPartition = existingFuture.result();
+            synchronized (this) {
+                // the model assigns and reserves the new replicas in one go
+                logger.debug("Assigning partitions {} to {} of topic {} using {}",
+                        firstPartition, topic.getNumPartitions() - 1, topicName, model);
+                return model.assign(firstPartition, Math.max(0, topic.getNumPartitions() - firstPartition), topic.getNumReplicas());
+            }
+        }).setHandler(handler);
+    }
+
+    /**
+     * Get the current model, building it first if there is none yet or it's older than the refresh interval.
+     * The returned future completes on the given context.
+     */
+    private Future<ClusterLoadModel> model(Context context) {
+        Future<ClusterLoadModel> result = Future.future();
+        synchronized (this) {
+            if (model != null && System.currentTimeMillis() - modelBuiltAt < refreshIntervalMs) {
+                return Future.succeededFuture(model);
+            }
+            Handler<AsyncResult<ClusterLoadModel>> waiter = ar -> context.runOnContext(v -> result.handle(ar));
+            if (waiters != null) {
+                // a build is already in progress
+                waiters.add(waiter);
+                return result;
+            }
+            waiters = new ArrayList<>();
+            waiters.add(waiter);
+        }
+        build(context).setHandler(ar -> {
+            List<Handler<AsyncResult<ClusterLoadModel>>> done;
+            synchronized (this) {
+                if (ar.succeeded()) {
+                    model = ar.result();
+                    modelBuiltAt = System.currentTimeMillis();
+                    logger.debug("Built {}", model);
+                } else {
+                    logger.warn("Unable to build the cluster load model", ar.cause());
+                }
+                done = waiters;
+                waiters = null;
+            }
+            for (Handler<AsyncResult<ClusterLoadModel>> waiter : done) {
+                waiter.handle(ar);
+            }
+        });
+        return result;
+    }
+
+    private Future<ClusterLoadModel> build(Context context) {
+        Future<Collection<Node>> nodesFuture = KafkaFutures.toFuture(context, adminClient.describeCluster().nodes());
+        Future<Map<String, TopicDescription>> topicsFuture = KafkaFutures.toFuture(context, adminClient.listTopics(new ListTopicsOptions().listInternal(true)).names())
+                .compose(names -> KafkaFutures.toFuture(context, adminClient.describeTopics(names).all()));
+        // composed, because a Future has only one handler and CompositeFuture.all would replace a second one
+        Future<Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>>> logDirsFuture = nodesFuture.compose(nodes -> {
+            List<Integer> brokerIds = new ArrayList<>(nodes.size());
+            for (Node node : nodes) {
+                brokerIds.add(node.id());
+            }
+            Future<Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>>> result = Future.future();
+            KafkaFutures.toFuture(context, adminClient.describeLogDirs(brokerIds).all()).setHandler(logDirs -> {
+                if (logDirs.succeeded()) {
+                    result.complete(logDirs.result());
+                } else {
+                    logger.debug("Unable to describe log dirs, building the cluster load model without disk usage", logDirs.cause());
+                    result.complete(Collections.emptyMap());
+                }
+            });
+            return result;
+        });
+
+        return CompositeFuture.all(topicsFuture, logDirsFuture).map(ignored ->
+                ClusterLoadModel.build(nodesFuture.result(), topicsFuture.result().values(), logDirsFuture.result()));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Decorates an asynchronous client interface (such as {@link Kafka}, {@link K8s}, {@link TopicStore}
+ * or {@link io.strimzi.controller.topic.zk.Zk}) so that the latency of each operation is observed in a histogram,
+ * labelled with the component, the operation (method name) and whether it succeeded.
+ *
+ * An operation is a method whose last parameter is a completion {@link Handler},
+ * which is timed from the call until the handler is called.
+ * Methods which register watches ({@code watch*}/{@code unwatch*}) are not timed,
+ * because their handlers are watchers which are called for each change.
+ * Methods returning their delegate (for chaining) return the proxy instead.
+ */
+class MeteredProxy implements InvocationHandler {
+
+    private final Object delegate;
+    private final Metrics.Histogram histogram;
+    private final String component;
+    private Object proxy;
+
+    private MeteredProxy(Object delegate, Metrics.Histogram histogram, String component) {
+        this.delegate = delegate;
+        this.histogram = histogram;
+        this.component = component;
+    }
+
+    /**
+     * Return a proxy for the given {@code delegate} which observes operations in the given {@code histogram},
+     * which must have the labels component, operation and result.
+     */
+    static <T> T create(Class<T> iface, T delegate, Metrics.Histogram histogram, String component) {
+        MeteredProxy handler = new MeteredProxy(delegate, histogram, component);
+        T proxy = iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, handler));
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(method.getName())) {
+                return "Metered(" + delegate + ")";
+            }
+        } else if (isOperation(method, args)) {
+            int last = args.length - 1;
+            Handler<AsyncResult<Object>> handler = (Handler<AsyncResult<Object>>) args[last];
+            String operation = method.getName();
+            long start = System.nanoTime();
+            args = args.clone();
+            args[last] = (Handler<AsyncResult<Object>>) ar -> {
+                histogram.observeSince(start, component, operation, ar.succeeded() ? "success" : "failure");
+                handler.handle(ar);
+            };
+        }
+        Object result;
+        try {
+            result = method.invoke(delegate, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        return result == delegate ? this.proxy : result;
+    }
+
+    private static boolean isOperation(Method method, Object[] args) {
+        if (args == null || args.length == 0 || args[args.length - 1] == null) {
+            return false;
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        String name = method.getName();
+        return parameterTypes[parameterTypes.length - 1] == Handler.class
+                && !name.startsWith("watch")
+                && !name.startsWith("unwatch");
+    }
+}
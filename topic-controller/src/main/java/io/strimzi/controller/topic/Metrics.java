@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A minimal registry of metrics, rendered in the Prometheus text exposition format by {@link #scrape()}.
+ *
+ * Recording into a {@link Histogram} or {@link Counter} only touches {@link LongAdder}s,
+ * so it doesn't contend between threads and is cheap enough to leave on in production.
+ * Values which are already maintained elsewhere (such as {@link BatchingAdminClient.BatchStats})
+ * are exported by registering a supplier, which is only called when the metrics are scraped.
+ *
+ * Registering a metric with the name of an existing one replaces it.
+ */
+public class Metrics {
+
+    /** The registry used by the controller. */
+    public static final Metrics DEFAULT = new Metrics();
+
+    public static final String PREFIX = "strimzi_topic_controller_";
+
+    /** Bucket upper bounds (in seconds) suitable for the latency of remote calls and reconciliations. */
+    public static final double[] LATENCY_BUCKETS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300
+    };
+
+    /** Bucket upper bounds (in seconds) suitable for partition reassignments. */
+    public static final double[] REASSIGNMENT_BUCKETS = {
+        1, 5, 10, 30, 60, 120, 300, 600, 1800, 3600, 7200
+    };
+
+    private final ConcurrentSkipListMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+
+    private abstract static class Metric {
+        final String name;
+        final String help;
+        final String type;
+
+        Metric(String name, String help, String type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+
+        final void write(StringBuilder sb) {
+            sb.append("# HELP ").append(name).append(' ').append(escapeHelp(help)).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            writeSamples(sb);
+        }
+
+        abstract void writeSamples(StringBuilder sb);
+    }
+
+    /**
+     * A histogram, with a child for each combination of label values.
+     */
+    public static class Histogram extends Metric {
+        private final String[] labelNames;
+        private final double[] bounds;
+        private final ConcurrentHashMap<List<String>, Child> children = new ConcurrentHashMap<>();
+
+        Histogram(String name, String help, double[] bounds, String... labelNames) {
+            super(name, help, "histogram");
+            this.bounds = bounds.clone();
+            this.labelNames = labelNames.clone();
+            for (int i = 1; i < this.bounds.length; i++) {
+                if (this.bounds[i] <= this.bounds[i - 1]) {
+                    throw new IllegalArgumentException("Bucket bounds must be increasing");
+                }
+            }
+        }
+
+        /**
+         * The child for the given label values.
+         * Callers on a hot path can keep hold of the child rather than looking it up for each observation.
+         */
+        public Child labels(String... labelValues) {
+            if (labelValues.length != labelNames.length) {
+                throw new IllegalArgumentException("Expected " + labelNames.length + " label values for " + name
+                        + " but got " + labelValues.length);
+            }
+            List<String> key = Arrays.asList(labelValues);
+            Child child = children.get(key);
+            if (child == null) {
+                child = children.computeIfAbsent(key, k -> new Child(bounds));
+            }
+            return child;
+        }
+
+        /** Observe the time since the given {@link System#nanoTime()}, in seconds. */
+        public void observeSince(long startNs, String... labelValues) {
+            labels(labelValues).observeSince(startNs);
+        }
+
+        @Override
+        void writeSamples(StringBuilder sb) {
+            for (Map.Entry<List<String>, Child> entry : children.entrySet()) {
+                List<String> labelValues = entry.getKey();
+                Child child = entry.getValue();
+                long cumulative = 0;
+                for (int i = 0; i <= bounds.length; i++) {
+                    cumulative += child.buckets[i].sum();
+                    sb.append(name).append("_bucket");
+                    appendLabels(sb, labelNames, labelValues,
+                            "le", i < bounds.length ? Double.toString(bounds[i]) : "+Inf");
+                    sb.append(' ').append(cumulative).append('\n');
+                }
+                sb.append(name).append("_sum");
+                appendLabels(sb, labelNames, labelValues, null, null);
+                sb.append(' ').append(child.sum.sum()).append('\n');
+                sb.append(name).append("_count");
+                appendLabels(sb, labelNames, labelValues, null, null);
+                sb.append(' ').append(cumulative).append('\n');
+            }
+        }
+    }
+
+    /**
+     * The histogram for one combination of label values.
+     */
+    public static class Child {
+        private final double[] bounds;
+        private final LongAdder[] buckets;
+        private final DoubleAdder sum = new DoubleAdder();
+
+        Child(double[] bounds) {
+            this.bounds = bounds;
+            this.buckets = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observe(double value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            sum.add(value);
+        }
+
+        /** Observe the time since the given {@link System#nanoTime()}, in seconds. */
+        public void observeSince(long startNs) {
+            observe((double) (System.nanoTime() - startNs) / TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * A counter without labels.
+     */
+    public static class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name, String help) {
+            super(name, help, "counter");
+        }
+
+        public void inc() {
+            value.increment();
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        @Override
+        void writeSamples(StringBuilder sb) {
+            sb.append(name).append(' ').append(value.sum()).append('\n');
+        }
+    }
+
+    private static class Callback extends Metric {
+        private final DoubleSupplier supplier;
+
+        Callback(String name, String help, String type, DoubleSupplier supplier) {
+            super(name, help, type);
+            this.supplier = supplier;
+        }
+
+        @Override
+        void writeSamples(StringBuilder sb) {
+            sb.append(name).append(' ').append(formatValue(supplier.getAsDouble())).append('\n');
+        }
+    }
+
+    private static class LabelledCallback extends Metric {
+        private final String[] labelNames;
+        private final Supplier<Map<String, ? extends Number>> supplier;
+
+        LabelledCallback(String name, String help, String type, String labelName,
+                         Supplier<Map<String, ? extends Number>> supplier) {
+            super(name, help, type);
+            this.labelNames = new String[]{labelName};
+            this.supplier = supplier;
+        }
+
+        @Override
+        void writeSamples(StringBuilder sb) {
+            for (Map.Entry<String, ? extends Number> entry : supplier.get().entrySet()) {
+                sb.append(name);
+                appendLabels(sb, labelNames, Arrays.asList(entry.getKey()), null, null);
+                sb.append(' ').append(formatValue(entry.getValue().doubleValue())).append('\n');
+            }
+        }
+    }
+
+    private <M extends Metric> M register(M metric) {
+        metrics.put(metric.name, metric);
+        return metric;
+    }
+
+    /** Register a histogram with the given bucket upper bounds and label names. */
+    public Histogram histogram(String name, String help, double[] bounds, String... labelNames) {
+        return register(new Histogram(name, help, bounds, labelNames));
+    }
+
+    /** Register a counter. */
+    public Counter counter(String name, String help) {
+        return register(new Counter(name, help));
+    }
+
+    /** Register a counter whose value is maintained elsewhere. */
+    public void counter(String name, String help, DoubleSupplier supplier) {
+        register(new Callback(name, help, "counter", supplier));
+    }
+
+    /** Register a counter whose values, keyed by the value of the given label, are maintained elsewhere. */
+    public void counter(String name, String help, String labelName, Supplier<Map<String, ? extends Number>> supplier) {
+        register(new LabelledCallback(name, help, "counter", labelName, supplier));
+    }
+
+    /** Register a gauge. */
+    public void gauge(String name, String help, DoubleSupplier supplier) {
+        register(new Callback(name, help, "gauge", supplier));
+    }
+
+    /** Register a gauge whose values are keyed by the value of the given label. */
+    public void gauge(String name, String help, String labelName, Supplier<Map<String, ? extends Number>> supplier) {
+        register(new LabelledCallback(name, help, "gauge", labelName, supplier));
+    }
+
+    /** Unregister the metric with the given name, if any. */
+    public void remove(String name) {
+        metrics.remove(name);
+    }
+
+    /** The current value of all the metrics in the Prometheus text exposition format (version 0.0.4). */
+    public String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Metric metric : metrics.values()) {
+            metric.write(sb);
+        }
+        return sb.toString();
+    }
+
+    private static void appendLabels(StringBuilder sb, String[] labelNames, List<String> labelValues,
+                                     String extraName, String extraValue) {
+        if (labelNames.length == 0 && extraName == null) {
+            return;
+        }
+        sb.append('{');
+        for (int i = 0; i < labelNames.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labelNames[i]).append("=\"").append(escapeLabelValue(labelValues.get(i))).append('"');
+        }
+        if (extraName != null) {
+            if (labelNames.length > 0) {
+                sb.append(',');
+            }
+            sb.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+        sb.append('}');
+    }
+
+    static String formatValue(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return "+Inf";
+        } else if (value == Double.NEGATIVE_INFINITY) {
+            return "-Inf";
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        } else {
+            return Double.toString(value);
+        }
+    }
+
+    static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeHelp(String help) {
+        return help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Reassigns the partitions of a topic in-process, doing what {@code kafka-reassign-partitions.sh} does
+ * with {@code --generate}, {@code --execute} and {@code --verify}, but without forking a JVM for each step:
+ * <ol>
+ *     <li>A new assignment is proposed from the current one (see {@link #propose(Map, Collection, int)}).</li>
+ *     <li>If a throttle is configured, the throttled replicas of the topic and the throttled rates of the
+ *         brokers involved are set via their {@code /config} znodes.</li>
+ *     <li>The reassignment is started by creating the {@code /admin/reassign_partitions} znode.</li>
+ *     <li>The Kafka controller deletes that znode once all the partitions have been reassigned, so completion
+ *         is detected by watching it (and by checking it every {@code verifyIntervalMs}, in case a watch
+ *         event is lost).</li>
+ *     <li>Finally the throttles are removed again.</li>
+ * </ol>
+ */
+public class PartitionReassignment {
+
+    private final static Logger logger = LoggerFactory.getLogger(PartitionReassignment.class);
+
+    private final static Metrics.Histogram REASSIGNMENT_DURATION = Metrics.DEFAULT.histogram(
+            Metrics.PREFIX + "reassignment_duration_seconds",
+            "The time taken by partition reassignments, including removing any throttles, by result",
+            Metrics.REASSIGNMENT_BUCKETS, "result");
+
+    static final String REASSIGN_PARTITIONS_PATH = "/admin/reassign_partitions";
+    static final String CONFIG_CHANGE_PATH = "/config/changes/config_change_";
+    static final String LEADER_THROTTLED_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_THROTTLED_RATE = "follower.replication.throttled.rate";
+    static final String LEADER_THROTTLED_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_THROTTLED_REPLICAS = "follower.replication.throttled.replicas";
+
+    private final Vertx vertx;
+    private final Zk zk;
+    private final Long throttle;
+    private final long verifyIntervalMs;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * @param throttle The interbroker throttled rate, in bytes/second.
+     *                 Null, negative and {@code Long.MAX_VALUE} all mean the reassignment is not throttled.
+     * @param verifyIntervalMs The interval between checks for completion which don't rely on the watch.
+     */
+    public PartitionReassignment(Vertx vertx, Zk zk, Long throttle, long verifyIntervalMs) {
+        this.vertx = vertx;
+        this.zk = zk;
+        this.throttle = throttle;
+        this.verifyIntervalMs = verifyIntervalMs;
+    }
+
+    /**
+     * Propose a new assignment for the partitions of a topic which gives each partition
+     * {@code replicationFactor} replicas, moving as little data as possible:
+     * When decreasing the replication factor the last replicas are dropped, so the preferred leader is kept.
+     * When increasing it the existing replicas are kept and each new replica goes to a broker,
+     * in a rack not already used by the partition where possible, having the fewest replicas of the topic.
+     *
+     * @param current The current assignment, partition to replicas.
+     * @param brokers The brokers in the cluster.
+     * @param replicationFactor The new replication factor.
+     * @return The proposed assignment, partition to replicas.
+     */
+    static Map<Integer, List<Integer>> propose(Map<Integer, List<Integer>> current, Collection<Node> brokers, int replicationFactor) {
+        if (replicationFactor > brokers.size()) {
+            throw new InvalidReplicationFactorException("Replication factor: " + replicationFactor
+                    + " larger than available brokers: " + brokers.size());
+        }
+        Map<Integer, String> racks = new HashMap<>();
+        for (Node node : brokers) {
+            racks.put(node.id(), node.rack());
+        }
+        List<Integer> brokerIds = new ArrayList<>(new TreeSet<>(racks.keySet()));
+        Map<Integer, Integer> load = new HashMap<>();
+        Map<Integer, List<Integer>> proposed = new TreeMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : new TreeMap<>(current).entrySet()) {
+            List<Integer> replicas = entry.getValue();
+            List<Integer> kept = new ArrayList<>(replicas.subList(0, Math.min(replicationFactor, replicas.size())));
+            for (Integer broker : kept) {
+                load.merge(broker, 1, Integer::sum);
+            }
+            proposed.put(entry.getKey(), kept);
+        }
+        for (Map.Entry<Integer, List<Integer>> entry : proposed.entrySet()) {
+            int partition = entry.getKey();
+            List<Integer> replicas = entry.getValue();
+            while (replicas.size() < replicationFactor) {
+                Integer best = null;
+                for (int i = 0; i < brokerIds.size(); i++) {
+                    // Start from a different broker for each partition, so that ties are spread around
+                    Integer candidate = brokerIds.get((partition + i) % brokerIds.size());
+                    if (!replicas.contains(candidate)
+                            && (best == null || isBetter(candidate, best, replicas, racks, load))) {
+                        best = candidate;
+                    }
+                }
+                replicas.add(best);
+                load.merge(best, 1, Integer::sum);
+            }
+        }
+        return proposed;
+    }
+
+    private static boolean isBetter(Integer candidate, Integer best, List<Integer> replicas,
+                                    Map<Integer, String> racks, Map<Integer, Integer> load) {
+        boolean candidateRackUsed = isRackUsed(candidate, replicas, racks);
+        boolean bestRackUsed = isRackUsed(best, replicas, racks);
+        if (candidateRackUsed != bestRackUsed) {
+            return !candidateRackUsed;
+        }
+        return load.getOrDefault(candidate, 0) < load.getOrDefault(best, 0);
+    }
+
+    private static boolean isRackUsed(Integer broker, List<Integer> replicas, Map<Integer, String> racks) {
+        String rack = racks.get(broker);
+        if (rack == null) {
+            return false;
+        }
+        for (Integer replica : replicas) {
+            if (rack.equals(racks.get(replica))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reassign the partitions of the given topic from the {@code current} to the {@code proposed} assignment,
+     * calling the given handler once the reassignment has completed and any throttles have been removed.
+     * The handler fails with a {@link TransientControllerException} if another reassignment is already running.
+     */
+    public void reassign(String topic, Map<Integer, List<Integer>> current, Map<Integer, List<Integer>> proposed,
+                         Handler<AsyncResult<Void>> handler) {
+        Map<Integer, List<Integer>> moving = new TreeMap<>();
+        for (Map.Entry<Integer, List<Integer>> entry : proposed.entrySet()) {
+            if (!entry.getValue().equals(current.get(entry.getKey()))) {
+                moving.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (moving.isEmpty()) {
+            logger.debug("No partitions of topic {} need to be moved", topic);
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+        final byte[] json;
+        try {
+            json = reassignmentJson(topic, moving);
+        } catch (IOException e) {
+            handler.handle(Future.failedFuture(e));
+            return;
+        }
+        logger.info("Reassigning partitions of topic {}: {}", topic, moving);
+        long start = System.nanoTime();
+        checkNoReassignment().compose(v -> {
+            Supplier<Future<Void>> work = () -> startReassignment(json).compose(v2 -> awaitCompletion(topic));
+            if (isThrottled()) {
+                return withThrottles(topic, current, moving, work);
+            } else {
+                return work.get();
+            }
+        }).setHandler(ar -> {
+            // Reassignments rejected because another one is running aren't interesting
+            if (ar.succeeded() || !(ar.cause() instanceof TransientControllerException)) {
+                REASSIGNMENT_DURATION.observeSince(start, ar.succeeded() ? "success" : "failure");
+            }
+            handler.handle(ar);
+        });
+    }
+
+    private boolean isThrottled() {
+        return throttle != null && throttle >= 0 && throttle != Long.MAX_VALUE;
+    }
+
+    private byte[] reassignmentJson(String topic, Map<Integer, List<Integer>> assignment) throws IOException {
+        List<Map<String, Object>> partitions = new ArrayList<>(assignment.size());
+        for (Map.Entry<Integer, List<Integer>> entry : assignment.entrySet()) {
+            Map<String, Object> partition = new LinkedHashMap<>();
+            partition.put("topic", topic);
+            partition.put("partition", entry.getKey());
+            partition.put("replicas", entry.getValue());
+            partitions.add(partition);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("version", 1);
+        root.put("partitions", partitions);
+        return mapper.writeValueAsBytes(root);
+    }
+
+    private static boolean isAbsent(AsyncResult<Stat> ar) {
+        return ar.succeeded() ? ar.result() == null : ar.cause() instanceof KeeperException.NoNodeException;
+    }
+
+    private Future<Void> checkNoReassignment() {
+        Future<Void> result = Future.future();
+        zk.exists(REASSIGN_PARTITIONS_PATH, ar -> {
+            if (isAbsent(ar)) {
+                result.complete();
+            } else if (ar.failed()) {
+                result.fail(ar.cause());
+            } else {
+                result.fail(new TransientControllerException("Reassigment failed: There is an existing assignment running."));
+            }
+        });
+        return result;
+    }
+
+    private Future<Void> startReassignment(byte[] json) {
+        Future<Void> result = Future.future();
+        zk.create(REASSIGN_PARTITIONS_PATH, json, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT, ar -> {
+            if (ar.failed() && ar.cause() instanceof KeeperException.NodeExistsException) {
+                result.fail(new TransientControllerException("Reassigment failed: There is an existing assignment running."));
+            } else {
+                result.handle(ar);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Wait for the Kafka controller to delete the reassignment znode.
+     */
+    private Future<Void> awaitCompletion(String topic) {
+        Future<Void> done = Future.future();
+        Handler<AsyncResult<Stat>> check = ar -> {
+            if (done.isComplete()) {
+                return;
+            }
+            if (isAbsent(ar)) {
+                logger.info("Reassignment of topic {} complete", topic);
+                done.complete();
+            } else if (ar.failed()) {
+                logger.warn("Error checking reassignment of topic {}, will retry", topic, ar.cause());
+            } else {
+                logger.debug("Reassignment of topic {} still in progress", topic);
+            }
+        };
+        zk.watchExists(REASSIGN_PARTITIONS_PATH, check);
+        long timerId = vertx.setPeriodic(verifyIntervalMs, id -> zk.exists(REASSIGN_PARTITIONS_PATH, check));
+        zk.exists(REASSIGN_PARTITIONS_PATH, check);
+
+        Future<Void> result = Future.future();
+        done.setHandler(ar -> {
+            vertx.cancelTimer(timerId);
+            zk.unwatchExists(REASSIGN_PARTITIONS_PATH);
+            result.handle(ar);
+        });
+        return result;
+    }
+
+    /**
+     * Throttle the replicas of the given topic which are being moved, do the given work,
+     * and then remove the throttles whether or not the work succeeded.
+     */
+    private Future<Void> withThrottles(String topic, Map<Integer, List<Integer>> current, Map<Integer, List<Integer>> moving,
+                                       Supplier<Future<Void>> work) {
+        List<String> leaderReplicas = new ArrayList<>();
+        List<String> followerReplicas = new ArrayList<>();
+        Set<Integer> brokers = new TreeSet<>();
+        for (Map.Entry<Integer, List<Integer>> entry : moving.entrySet()) {
+            int partition = entry.getKey();
+            List<Integer> existing = current.get(partition);
+            for (Integer broker : existing) {
+                leaderReplicas.add(partition + ":" + broker);
+            }
+            for (Integer broker : entry.getValue()) {
+                if (!existing.contains(broker)) {
+                    followerReplicas.add(partition + ":" + broker);
+                }
+            }
+            brokers.addAll(existing);
+            brokers.addAll(entry.getValue());
+        }
+        String rate = Long.toString(throttle);
+        logger.debug("Throttling reassignment of topic {} to {} bytes/s on brokers {}", topic, rate, brokers);
+
+        List<Future> added = new ArrayList<>();
+        added.add(changeConfig("topics", topic, config -> {
+            config.put(LEADER_THROTTLED_REPLICAS, String.join(",", leaderReplicas));
+            config.put(FOLLOWER_THROTTLED_REPLICAS, String.join(",", followerReplicas));
+        }));
+        for (Integer broker : brokers) {
+            added.add(changeConfig("brokers", broker.toString(), config -> {
+                config.put(LEADER_THROTTLED_RATE, rate);
+                config.put(FOLLOWER_THROTTLED_RATE, rate);
+            }));
+        }
+
+        Future<Void> result = Future.future();
+        CompositeFuture.join(added).compose(v -> work.get()).setHandler(ar -> {
+            List<Future> removed = new ArrayList<>();
+            removed.add(changeConfig("topics", topic, config -> {
+                config.remove(LEADER_THROTTLED_REPLICAS);
+                config.remove(FOLLOWER_THROTTLED_REPLICAS);
+            }));
+            for (Integer broker : brokers) {
+                removed.add(changeConfig("brokers", broker.toString(), config -> {
+                    config.remove(LEADER_THROTTLED_RATE);
+                    config.remove(FOLLOWER_THROTTLED_RATE);
+                }));
+            }
+            CompositeFuture.join(removed).setHandler(removal -> {
+                if (removal.failed()) {
+                    logger.warn("Error removing reassignment throttles of topic {}", topic, removal.cause());
+                }
+                result.handle(ar);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * Update the dynamic config of the given entity in its {@code /config/<entityType>/<entityName>} znode,
+     * and notify the brokers of the change, as Kafka's {@code AdminZkClient} does.
+     */
+    private Future<Void> changeConfig(String entityType, String entityName, Consumer<Map<String, Object>> update) {
+        String path = "/config/" + entityType + "/" + entityName;
+        Future<Void> result = Future.future();
+        zk.getDataWithStat(path, ar -> {
+            if (ar.failed() && !(ar.cause() instanceof KeeperException.NoNodeException)) {
+                result.fail(ar.cause());
+                return;
+            }
+            final byte[] data;
+            try {
+                Map<String, Object> root = ar.succeeded() ? mapper.readValue(ar.result().data(), Map.class) : new LinkedHashMap<>();
+                root.putIfAbsent("version", 1);
+                Map<String, Object> config = (Map<String, Object>) root.computeIfAbsent("config", k -> new LinkedHashMap<>());
+                update.accept(config);
+                data = mapper.writeValueAsBytes(root);
+            } catch (IOException e) {
+                result.fail(e);
+                return;
+            }
+            Handler<AsyncResult<Void>> written = wr -> {
+                if (wr.failed() && (wr.cause() instanceof KeeperException.BadVersionException
+                        || wr.cause() instanceof KeeperException.NodeExistsException)) {
+                    // Someone else changed the config concurrently: Start over
+                    changeConfig(entityType, entityName, update).setHandler(result.completer());
+                } else if (wr.failed()) {
+                    result.fail(wr.cause());
+                } else {
+                    notifyConfigChange(entityType + "/" + entityName).setHandler(result.completer());
+                }
+            };
+            if (ar.succeeded()) {
+                zk.setData(path, data, ar.result().version(), written);
+            } else {
+                zk.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT, written);
+            }
+        });
+        return result;
+    }
+
+    private Future<Void> notifyConfigChange(String entityPath) {
+        Future<Void> result = Future.future();
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("version", 2);
+        notification.put("entity_path", entityPath);
+        try {
+            zk.create(CONFIG_CHANGE_PATH, mapper.writeValueAsBytes(notification),
+                    ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT_SEQUENTIAL, result.completer());
+        } catch (IOException e) {
+            result.fail(e);
+        }
+        return result;
+    }
+}
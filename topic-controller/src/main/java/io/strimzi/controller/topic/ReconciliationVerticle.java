@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+
+/**
+ * A verticle owning one partition of the topics, whose reconciliations are run
+ * on the verticle's own event loop context via its {@link InFlight}.
+ * Several of these let the {@link Controller} use several cores.
+ */
+class ReconciliationVerticle extends AbstractVerticle {
+
+    private volatile InFlight<TopicName> inFlight;
+
+    @Override
+    public void start() {
+        this.inFlight = new InFlight<>(vertx, context);
+    }
+
+    /** The context on which this partition's actions run. */
+    Context context() {
+        return context;
+    }
+
+    /** The InFlight for this partition, available once the verticle has started. */
+    InFlight<TopicName> inFlight() {
+        return inFlight;
+    }
+}
@@ -17,28 +17,37 @@
 
 package io.strimzi.controller.topic;
 
-import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.Watch;
 import io.strimzi.controller.topic.zk.Zk;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.http.HttpServer;
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 public class Session extends AbstractVerticle {
 
     private final static Logger logger = LoggerFactory.getLogger(Session.class);
 
+    private final static Metrics.Histogram OPERATION_DURATION = Metrics.DEFAULT.histogram(
+            Metrics.PREFIX + "operation_duration_seconds",
+            "The time taken by Kafka, Kubernetes, ZooKeeper and topic store operations, by component, operation and result",
+            Metrics.LATENCY_BUCKETS, "component", "operation", "result");
+
+    private final static long EVENT_LOOP_LAG_INTERVAL_MS = 1_000;
+
     private final Config config;
     private final KubernetesClient kubeClient;
 
@@ -46,10 +55,14 @@ public class Session extends AbstractVerticle {
     AdminClient adminClient;
     K8sImpl k8s;
     Controller controller;
-    Watch topicCmWatch;
+    ConfigMapInformer configMapInformer;
     TopicsWatcher topicsWatcher;
-    TopicConfigsWatcher topicConfigsWatcher;
-    TopicWatcher topicWatcher;
+    ZkWatcher topicConfigsWatcher;
+    ZkWatcher topicWatcher;
+    FullReconciliation fullReconciliation;
+    ShardMembership shardMembership;
+    EventLoopLag eventLoopLag;
+    HttpServer metricsServer;
     private volatile boolean stopped = false;
     private Zk zk;
 
@@ -73,9 +86,16 @@ public class Session extends AbstractVerticle {
             long timeout = 120_000L;
             logger.info("Stopping");
             logger.debug("Stopping kube watch");
-            topicCmWatch.close();
+            configMapInformer.stop();
             logger.debug("Stopping zk watches");
             topicsWatcher.stop();
+            if (shardMembership != null) {
+                shardMembership.stop();
+            }
+            eventLoopLag.stop();
+            if (metricsServer != null) {
+                metricsServer.close();
+            }
 
             while (controller.isWorkInflight()) {
                 if (System.currentTimeMillis() - t0 > timeout) {
@@ -89,6 +109,8 @@ public class Session extends AbstractVerticle {
                     Thread.currentThread().interrupt();
                 }
             }
+            logger.debug("Stopping k8s {}", k8s);
+            k8s.close();
             logger.debug("Stopping kafka {}", kafka);
             kafka.stop();
             try {
@@ -105,102 +127,218 @@ public class Session extends AbstractVerticle {
     }
 
     @Override
-    public void start() {
+    public void start(Future<Void> startFuture) {
         logger.info("Starting");
+        // Deploy the verticles across which reconciliations are partitioned
+        int partitions = config.get(Config.RECONCILIATION_PARTITIONS);
+        List<ReconciliationVerticle> verticles = new ArrayList<>(partitions);
+        List<Future> deployed = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            ReconciliationVerticle verticle = new ReconciliationVerticle();
+            Future<String> deployment = Future.future();
+            vertx.deployVerticle(verticle, deployment.completer());
+            verticles.add(verticle);
+            deployed.add(deployment);
+        }
+        CompositeFuture.all(deployed).setHandler(ar -> {
+            if (ar.failed()) {
+                startFuture.fail(ar.cause());
+                return;
+            }
+            List<InFlight> inFlights = new ArrayList<>(partitions);
+            Map<String, Context> contexts = new LinkedHashMap<>();
+            contexts.put("session", context);
+            for (ReconciliationVerticle verticle : verticles) {
+                inFlights.add(verticle.inFlight());
+                contexts.put("reconciliation-" + (contexts.size() - 1), verticle.context());
+            }
+            this.eventLoopLag = new EventLoopLag(vertx, contexts, EVENT_LOOP_LAG_INTERVAL_MS);
+            eventLoopLag.start();
+            start(inFlights);
+            startFuture.complete();
+        });
+    }
+
+    private void start(List<InFlight> inFlights) {
         Properties adminClientProps = new Properties();
         adminClientProps.setProperty(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, config.get(Config.KAFKA_BOOTSTRAP_SERVERS));
         this.adminClient = AdminClient.create(adminClientProps);
         logger.debug("Using AdminClient {}", adminClient);
-        this.kafka = new ControllerAssignedKafkaImpl(adminClient, vertx, config);
+        this.zk = MeteredProxy.create(Zk.class,
+                Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT), this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue()),
+                OPERATION_DURATION, "zookeeper");
+        logger.debug("Using ZooKeeper {}", zk);
+
+        this.kafka = new ControllerAssignedKafkaImpl(adminClient, vertx, config, zk);
         logger.debug("Using Kafka {}", kafka);
+        Kafka meteredKafka = MeteredProxy.create(Kafka.class, kafka, OPERATION_DURATION, "kafka");
         LabelPredicate cmPredicate = config.get(Config.LABELS);
 
         String namespace = config.get(Config.NAMESPACE);
         logger.debug("Using namespace {}", namespace);
-        this.k8s = new K8sImpl(vertx, kubeClient, cmPredicate, namespace);
+        this.configMapInformer = new ConfigMapInformer(vertx, kubeClient, cmPredicate, namespace, 5_000);
+        logger.debug("Using ConfigMapInformer {}", configMapInformer);
+        this.k8s = new K8sImpl(vertx, kubeClient, configMapInformer, cmPredicate, namespace,
+                config.get(Config.KUBERNETES_CONCURRENCY));
         logger.debug("Using k8s {}", k8s);
+        K8s meteredK8s = MeteredProxy.create(K8s.class, k8s, OPERATION_DURATION, "k8s");
 
-        this.zk = Zk.create(vertx, config.get(Config.ZOOKEEPER_CONNECT), this.config.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue());
-        logger.debug("Using ZooKeeper {}", zk);
-
-        ZkTopicStore topicStore = new ZkTopicStore(zk);
+        CachingTopicStore topicStore = new CachingTopicStore(zk, new ZkTopicStore(zk));
         logger.debug("Using TopicStore {}", topicStore);
+        topicStore.start(ar -> {
+            if (ar.failed()) {
+                logger.error("Error populating the topic store cache, reads will be uncached", ar.cause());
+            }
+        });
+        TopicStore meteredTopicStore = MeteredProxy.create(TopicStore.class, topicStore, OPERATION_DURATION, "topic_store");
 
-        this.controller = new Controller(vertx, kafka, k8s, topicStore, cmPredicate, namespace);
+        this.controller = new Controller(vertx, meteredKafka, meteredK8s, meteredTopicStore, cmPredicate, namespace, inFlights);
         logger.debug("Using Controller {}", controller);
 
-        this.topicConfigsWatcher = new TopicConfigsWatcher(controller);
-        logger.debug("Using TopicConfigsWatcher {}", topicConfigsWatcher);
-        this.topicWatcher = new TopicWatcher(controller);
-        logger.debug("Using TopicWatcher {}", topicWatcher);
+        this.fullReconciliation = new FullReconciliation(vertx, meteredKafka, meteredK8s, meteredTopicStore, controller,
+                config.get(Config.FULL_RECONCILIATION_CONCURRENCY));
+        logger.debug("Using FullReconciliation {}", fullReconciliation);
+
+        String memberId = config.get(Config.SHARD_MEMBER_ID);
+        if (memberId != null) {
+            // Topics gained from other members are reconciled once they've been handed over.
+            // Until then their znodes were written by the other members, so the cache is re-populated first
+            this.shardMembership = new ShardMembership(vertx, zk, memberId, controller,
+                    v -> topicStore.start(ar -> {
+                        if (ar.failed()) {
+                            logger.error("Error re-populating the topic store cache, reads will be uncached", ar.cause());
+                        }
+                        fullReconciliation.runOrQueue("rebalance", reconcileResult -> { });
+                    }));
+            logger.debug("Using ShardMembership {}", shardMembership);
+            controller.setOwnership(shardMembership);
+            shardMembership.start(ar -> {
+                if (ar.failed()) {
+                    logger.error("Error joining the members, no topics will be handled", ar.cause());
+                }
+            });
+        }
+
+        String watchMode = config.get(Config.ZOOKEEPER_WATCH_MODE);
+        switch (watchMode) {
+            case Config.ZOOKEEPER_WATCH_MODE_PER_TOPIC:
+                this.topicConfigsWatcher = new TopicConfigsWatcher(controller);
+                this.topicWatcher = new TopicWatcher(controller);
+                break;
+            case Config.ZOOKEEPER_WATCH_MODE_NOTIFICATIONS:
+                this.topicConfigsWatcher = new ConfigChangesWatcher(controller);
+                this.topicWatcher = new TopicPartitionsPoller(controller, vertx, meteredKafka,
+                        config.get(Config.PARTITIONS_POLL_INTERVAL_MS));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown " + Config.TC_ZK_WATCH_MODE + ": " + watchMode);
+        }
+        logger.debug("Using topic configs watcher {}", topicConfigsWatcher);
+        logger.debug("Using topic partitions watcher {}", topicWatcher);
         this.topicsWatcher = new TopicsWatcher(controller, topicConfigsWatcher, topicWatcher);
         logger.debug("Using TopicsWatcher {}", topicsWatcher);
         topicsWatcher.start(zk);
 
-        Thread configMapThread = new Thread(() -> {
-            logger.debug("Watching configmaps matching {}", cmPredicate);
-            Session.this.topicCmWatch = kubeClient.configMaps().inNamespace(kubeClient.getNamespace()).watch(new ConfigMapWatcher(controller, cmPredicate));
-            logger.debug("Watching setup");
-        }, "configmap-watcher");
-        logger.debug("Starting {}", configMapThread);
-        configMapThread.start();
-
-//        // Reconcile initially
-//        reconcileTopics("initial");
-//        // And periodically after that
-//        vertx.setPeriodic(this.config.get(Config.FULL_RECONCILIATION_INTERVAL_MS),
-//                (timerId) -> {
-//                    if (stopped) {
-//                        vertx.cancelTimer(timerId);
-//                        return;
-//                    }
-//                    reconcileTopics("periodic");
-//                });
+        registerMetrics();
+        startMetricsServer(config.get(Config.METRICS_PORT));
+
+        logger.debug("Watching configmaps matching {}", cmPredicate);
+        configMapInformer.start(new ConfigMapWatcher(controller, cmPredicate), ar -> {
+            if (ar.succeeded()) {
+                logger.debug("Watching setup");
+                // Reconcile initially
+                fullReconciliation.run("initial", reconcileResult -> { });
+            } else {
+                logger.error("Error listing configmaps, reads will go to the API server", ar.cause());
+            }
+        });
+
+        // Reconcile periodically
+        vertx.setPeriodic(this.config.get(Config.FULL_RECONCILIATION_INTERVAL_MS),
+                (timerId) -> {
+                    if (stopped) {
+                        vertx.cancelTimer(timerId);
+                        return;
+                    }
+                    fullReconciliation.run("periodic", ar -> { });
+                });
         logger.info("Started");
     }
 
-    private void reconcileTopics(String reconciliationType) {
-        logger.info("Starting {} reconciliation", reconciliationType);
-        kafka.listTopics(arx -> {
-            if (arx.succeeded()) {
-                Set<String> kafkaTopics = arx.result();
-                logger.debug("Reconciling kafka topics {}", kafkaTopics);
-                // First reconcile the topics in kafka
-                for (String name : kafkaTopics) {
-                    logger.debug("{} reconciliation of topic {}", reconciliationType, name);
-                    TopicName topicName = new TopicName(name);
-                    k8s.getFromName(topicName.asMapName(), ar -> {
-                        ConfigMap cm = ar.result();
-                        // TODO need to check inflight
-                        // TODO And need to prevent pileup of inflight periodic reconciliations
-                        controller.reconcile(cm, topicName);
-                    });
-                }
+    /**
+     * Export the state of this session's components, which is read only when the metrics are scraped.
+     */
+    private void registerMetrics() {
+        Metrics metrics = Metrics.DEFAULT;
+        metrics.gauge(Metrics.PREFIX + "inflight_topics",
+                "The number of topics which currently have reconciliation work inflight",
+                controller::inflightTopics);
+        metrics.counter(Metrics.PREFIX + "coalesced_events_total",
+                "The number of events coalesced into an already pending reconciliation of the same topic",
+                controller::coalescedEvents);
+        metrics.gauge(Metrics.PREFIX + "event_loop_lag_seconds",
+                "The time a task submitted to an event loop most recently waited before it ran",
+                "loop", eventLoopLag::lagSeconds);
 
-                logger.debug("Reconciling configmaps");
-                // Then those in k8s which aren't in kafka
-                k8s.listMaps(ar -> {
-                    List<ConfigMap> configMaps = ar.result();
-                    Map<String, ConfigMap> configMapsMap = configMaps.stream().collect(Collectors.toMap(
-                            cm -> cm.getMetadata().getName(),
-                            cm -> cm));
-                    configMapsMap.keySet().removeAll(kafkaTopics);
-                    logger.debug("Reconciling configmaps: {}", configMapsMap.keySet());
-                    for (ConfigMap cm : configMapsMap.values()) {
-                        logger.debug("{} reconciliation of configmap {}", reconciliationType, cm.getMetadata().getName());
-                        // TODO need to check inflight
-                        // TODO And need to prevent pileup of inflight periodic reconciliations
-                        TopicName topicName = new TopicName(cm);
-                        controller.reconcile(cm, topicName);
-                    }
+        metrics.counter(Metrics.PREFIX + "full_reconciliation_passes_total",
+                "The number of full reconciliation passes run", fullReconciliation::passes);
+        metrics.counter(Metrics.PREFIX + "full_reconciliation_skipped_passes_total",
+                "The number of full reconciliation passes skipped because the previous one was still running",
+                fullReconciliation::skippedPasses);
+        metrics.gauge(Metrics.PREFIX + "full_reconciliation_last_duration_seconds",
+                "The duration of the last full reconciliation pass",
+                () -> fullReconciliation.lastPassDurationMs() / 1000.0);
+        metrics.gauge(Metrics.PREFIX + "full_reconciliation_last_topics",
+                "The number of topics considered by the last full reconciliation pass",
+                fullReconciliation::lastPassTopics);
+        metrics.gauge(Metrics.PREFIX + "full_reconciliation_last_reconciled_topics",
+                "The number of topics reconciled by the last full reconciliation pass",
+                fullReconciliation::lastPassReconciled);
 
-                    // Finally those in private store which we've not dealt with so far...
-                    // TODO ^^
+        BatchingAdminClient admin = kafka.batchingAdminClient;
+        Map<String, BatchingAdminClient.BatchStats> batchStats = new LinkedHashMap<>();
+        batchStats.put("describeTopics", admin.describeTopicsStats());
+        batchStats.put("describeConfigs", admin.describeConfigsStats());
+        batchStats.put("alterConfigs", admin.alterConfigsStats());
+        batchStats.put("deleteTopics", admin.deleteTopicsStats());
+        metrics.counter(Metrics.PREFIX + "admin_client_batches_total",
+                "The number of AdminClient batches sent, by request kind",
+                "kind", () -> batchStat(batchStats, BatchingAdminClient.BatchStats::batches));
+        metrics.counter(Metrics.PREFIX + "admin_client_batched_requests_total",
+                "The number of requests sent in AdminClient batches, by request kind",
+                "kind", () -> batchStat(batchStats, BatchingAdminClient.BatchStats::requests));
+        metrics.counter(Metrics.PREFIX + "admin_client_batch_flush_seconds_total",
+                "The total time spent sending AdminClient batches, by request kind",
+                "kind", () -> batchStat(batchStats, stats -> stats.totalFlushLatencyNs() / 1e9));
+    }
+
+    private static Map<String, Number> batchStat(Map<String, BatchingAdminClient.BatchStats> batchStats,
+                                                 Function<BatchingAdminClient.BatchStats, Number> stat) {
+        Map<String, Number> result = new LinkedHashMap<>();
+        for (Map.Entry<String, BatchingAdminClient.BatchStats> entry : batchStats.entrySet()) {
+            result.put(entry.getKey(), stat.apply(entry.getValue()));
+        }
+        return result;
+    }
+
+    private void startMetricsServer(int port) {
+        this.metricsServer = vertx.createHttpServer()
+                .requestHandler(request -> {
+                    if ("/metrics".equals(request.path())) {
+                        request.response()
+                                .putHeader("Content-Type", "text/plain; version=0.0.4; charset=utf-8")
+                                .end(Metrics.DEFAULT.scrape());
+                    } else {
+                        request.response().setStatusCode(404).end();
+                    }
+                })
+                .listen(port, ar -> {
+                    if (ar.succeeded()) {
+                        logger.info("Serving metrics on port {}", port);
+                    } else {
+                        logger.error("Error serving metrics on port {}", port, ar.cause());
+                    }
                 });
-            } else {
-                logger.error("Error performing {} reconciliation", reconciliationType, arx.cause());
-            }
-        });
     }
 
 }
@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.strimzi.controller.topic.zk.AclBuilder;
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.apache.kafka.common.utils.Utils;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Shards the {@link TopicName} space across several controllers, so that each topic is
+ * {@linkplain #owns(TopicName) owned} by exactly one of them.
+ *
+ * <p>Each controller is a member with an ephemeral znode {@code /strimzi/members/<memberId>}.
+ * Topics are assigned to members by consistent hashing, so when a member joins or leaves
+ * only the topics of that member move.</p>
+ *
+ * <p>Moved topics are handed over without two members ever working on the same topic:</p>
+ * <ol>
+ *     <li>When the members change, each member immediately stops owning the topics
+ *     which hash to another member.</li>
+ *     <li>Once it has no inflight work for such topics it writes the new view of the members
+ *     to its znode.</li>
+ *     <li>When every member's znode has the new view, the handover is complete and each member
+ *     starts owning the topics it gained. It then calls the {@code rebalanced} handler, so that
+ *     events for those topics which were dropped during the handover get reconciled.</li>
+ * </ol>
+ *
+ * <p>While disconnected from ZooKeeper a member can't see the others taking over its topics
+ * (its session may expire meanwhile), so it stops owning any topic as soon as the connection is lost.
+ * Once reconnected it reads the members and their views afresh, and owns topics again only
+ * after a fresh handover.</p>
+ */
+class ShardMembership implements Predicate<TopicName> {
+
+    private final static Logger logger = LoggerFactory.getLogger(ShardMembership.class);
+
+    static final String MEMBERS_PATH = "/strimzi/members";
+
+    /** The number of points on the hash ring per member, which evens out the share of each member */
+    static final int VIRTUAL_NODES = 64;
+
+    /** The interval between checks for the inflight work for moved topics having finished */
+    static final long DRAIN_CHECK_INTERVAL_MS = 100;
+
+    private final Vertx vertx;
+    private final Zk zk;
+    private final String memberId;
+    private final Controller controller;
+    private final Handler<Void> rebalanced;
+
+    /** The ring of the latest view of the members, or null until we've joined */
+    private volatile HashRing current = null;
+    /** The ring of the last view whose handover completed */
+    private volatile HashRing stable = new HashRing(Collections.emptyList());
+    /** The ring of the last view we published once our inflight work for moved topics finished */
+    private volatile HashRing drained = null;
+    /** Whether the connection to ZooKeeper was lost. Only accessed on the context. */
+    private boolean disconnected = false;
+    /** The views published by each member. Only accessed on the context. */
+    private final Map<String, String> published = new HashMap<>();
+    private volatile boolean stopped = false;
+
+    /**
+     * Constructor
+     *
+     * @param vertx     Vertx instance
+     * @param zk    Zookeeper client instance
+     * @param memberId  the unique id of this member, for example the pod name
+     * @param controller    the controller whose inflight work must be drained when topics move
+     * @param rebalanced    called when this member has started owning topics it gained
+     */
+    ShardMembership(Vertx vertx, Zk zk, String memberId, Controller controller, Handler<Void> rebalanced) {
+        this.vertx = vertx;
+        this.zk = zk;
+        this.memberId = memberId;
+        this.controller = controller;
+        this.rebalanced = rebalanced;
+    }
+
+    private String memberPath(String member) {
+        return MEMBERS_PATH + "/" + member;
+    }
+
+    /**
+     * Join the members and start following membership changes.
+     */
+    void start(Handler<AsyncResult<Void>> handler) {
+        createParent("/strimzi", parent -> createParent(MEMBERS_PATH, members -> {
+            if (members.failed()) {
+                handler.handle(members);
+                return;
+            }
+            join(joined -> {
+                if (joined.failed()) {
+                    handler.handle(joined);
+                    return;
+                }
+                zk.watchSession(this::onSession);
+                zk.watchChildren(MEMBERS_PATH, childResult -> {
+                    if (stopped) {
+                        zk.unwatchChildren(MEMBERS_PATH);
+                        return;
+                    }
+                    onMembers(childResult);
+                }).children(MEMBERS_PATH, childResult -> {
+                    onMembers(childResult);
+                    handler.handle(childResult.map((Void) null));
+                });
+            });
+        }));
+    }
+
+    void stop() {
+        stopped = true;
+        current = null;
+        zk.watchSession(null);
+    }
+
+    private void createParent(String path, Handler<AsyncResult<Void>> handler) {
+        zk.create(path, null, AclBuilder.PUBLIC, CreateMode.PERSISTENT, result -> {
+            if (result.failed() && !(result.cause() instanceof KeeperException.NodeExistsException)) {
+                logger.error("Error creating {}", path, result.cause());
+                handler.handle(result);
+            } else {
+                handler.handle(Future.succeededFuture());
+            }
+        });
+    }
+
+    private void join(Handler<AsyncResult<Void>> handler) {
+        zk.create(memberPath(memberId), null, AclBuilder.PUBLIC, CreateMode.EPHEMERAL, result -> {
+            if (result.failed() && !(result.cause() instanceof KeeperException.NodeExistsException)) {
+                logger.error("Error joining as member {}", memberId, result.cause());
+                handler.handle(result);
+            } else {
+                logger.info("Joined as member {}", memberId);
+                handler.handle(Future.succeededFuture());
+            }
+        });
+    }
+
+    private void onSession(Watcher.Event.KeeperState state) {
+        if (stopped) {
+            return;
+        }
+        switch (state) {
+            case Disconnected:
+            case Expired:
+                if (!disconnected) {
+                    logger.warn("Lost the connection to ZooKeeper ({}), owning no topics until the next handover", state);
+                }
+                disconnected = true;
+                current = null;
+                stable = new HashRing(Collections.emptyList());
+                drained = null;
+                // The views may have changed meanwhile without us being told
+                for (String member : published.keySet()) {
+                    zk.unwatchData(memberPath(member));
+                }
+                published.clear();
+                break;
+            case SyncConnected:
+                if (disconnected) {
+                    disconnected = false;
+                    logger.info("Reconnected to ZooKeeper, re-reading the members");
+                    zk.children(MEMBERS_PATH, this::onMembers);
+                }
+                break;
+            default:
+        }
+    }
+
+    private void onMembers(AsyncResult<List<String>> childResult) {
+        if (childResult.failed()) {
+            logger.error("Error getting members", childResult.cause());
+            return;
+        }
+        List<String> members = new ArrayList<>(childResult.result());
+        if (!members.contains(memberId)) {
+            // Our session expired, taking our znode with it. Until we're back we own nothing.
+            logger.warn("Member {} is missing from the members {}, rejoining", memberId, members);
+            current = new HashRing(members);
+            // Others may have taken over our topics meanwhile, so we need a full handover to get them back
+            stable = new HashRing(Collections.emptyList());
+            join(ignored -> { });
+            return;
+        }
+        HashRing ring = new HashRing(members);
+        if (current != null && current.view.equals(ring.view)) {
+            return;
+        }
+        logger.info("Members are now {}", ring.view);
+        current = ring;
+        // Follow what the members publish
+        Set<String> gone = new HashSet<>(published.keySet());
+        gone.removeAll(members);
+        for (String member : gone) {
+            published.remove(member);
+            zk.unwatchData(memberPath(member));
+        }
+        for (String member : members) {
+            if (!published.containsKey(member)) {
+                published.put(member, "");
+                String path = memberPath(member);
+                Handler<AsyncResult<byte[]>> dataHandler = dataResult -> onPublished(member, dataResult);
+                zk.watchData(path, dataHandler).getData(path, dataHandler);
+            }
+        }
+        drain(ring);
+        maybeComplete();
+    }
+
+    /**
+     * Wait for the inflight work for topics we no longer own to finish, then publish the view.
+     */
+    private void drain(HashRing ring) {
+        if (stopped || current != ring) {
+            // Superseded by a newer view
+            return;
+        }
+        if (controller.isWorkInflight(topicName -> !owns(topicName))) {
+            logger.debug("Waiting for inflight work for moved topics to finish");
+            vertx.setTimer(DRAIN_CHECK_INTERVAL_MS, id -> drain(ring));
+            return;
+        }
+        logger.debug("Publishing view {}", ring.view);
+        zk.setData(memberPath(memberId), ring.view.getBytes(StandardCharsets.UTF_8), -1, result -> {
+            if (result.failed()) {
+                logger.error("Error publishing view {}", ring.view, result.cause());
+            } else {
+                drained = ring;
+                maybeComplete();
+            }
+        });
+    }
+
+    private void onPublished(String member, AsyncResult<byte[]> dataResult) {
+        if (dataResult.failed()) {
+            // Most likely the member has just left
+            logger.debug("Error getting the view of member {}", member, dataResult.cause());
+            return;
+        }
+        if (published.containsKey(member)) {
+            byte[] data = dataResult.result();
+            published.put(member, data == null ? "" : new String(data, StandardCharsets.UTF_8));
+            maybeComplete();
+        }
+    }
+
+    /**
+     * If we've drained for the current view and every member has published it, the handover is complete.
+     */
+    private void maybeComplete() {
+        HashRing ring = current;
+        if (ring == null || ring != drained || ring == stable || ring.view.equals(stable.view)) {
+            return;
+        }
+        for (String member : ring.members) {
+            if (!ring.view.equals(published.get(member))) {
+                return;
+            }
+        }
+        logger.info("Handover to members {} is complete", ring.view);
+        stable = ring;
+        rebalanced.handle(null);
+    }
+
+    /**
+     * Whether this member owns the given topic: It hashes to this member both in the
+     * current view and in the last view whose handover completed.
+     */
+    boolean owns(TopicName topicName) {
+        HashRing current = this.current;
+        return current != null
+                && memberId.equals(current.owner(topicName))
+                && memberId.equals(stable.owner(topicName));
+    }
+
+    @Override
+    public boolean test(TopicName topicName) {
+        return owns(topicName);
+    }
+
+    /**
+     * A consistent hash ring of the members.
+     */
+    static class HashRing {
+        final List<String> members;
+        /** The sorted members, as a string */
+        final String view;
+        private final TreeMap<Integer, String> ring = new TreeMap<>();
+
+        HashRing(Collection<String> members) {
+            List<String> sorted = new ArrayList<>(members);
+            Collections.sort(sorted);
+            this.members = Collections.unmodifiableList(sorted);
+            this.view = String.join(",", sorted);
+            for (String member : sorted) {
+                for (int i = 0; i < VIRTUAL_NODES; i++) {
+                    ring.put(hash(member + "#" + i), member);
+                }
+            }
+        }
+
+        private static int hash(String s) {
+            return Utils.murmur2(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /** The member which owns the given topic, or null if there are no members. */
+        String owner(TopicName topicName) {
+            if (ring.isEmpty()) {
+                return null;
+            }
+            Map.Entry<Integer, String> entry = ring.ceilingEntry(hash(topicName.toString()));
+            return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+        }
+    }
+}
@@ -33,6 +33,14 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
 
     private static final Logger log = LoggerFactory.getLogger(TopicMetadataHandler.class);
 
+    private static final Metrics.Counter RETRIES = Metrics.DEFAULT.counter(
+            Metrics.PREFIX + "topic_metadata_retries_total",
+            "The number of times getting topic metadata was retried");
+
+    private static final Metrics.Counter RETRIES_EXHAUSTED = Metrics.DEFAULT.counter(
+            Metrics.PREFIX + "topic_metadata_retries_exhausted_total",
+            "The number of times getting topic metadata gave up after the maximum number of attempts");
+
     private final BackOff backOff;
 
     private final Vertx vertx;
@@ -77,9 +85,11 @@ public abstract class TopicMetadataHandler implements Handler<AsyncResult<TopicM
             log.debug("Backing off for {}ms on getting metadata for {}", delay, topicName);
         } catch (MaxAttemptsExceededException e) {
             log.info("Max attempts reached on getting metadata for {} after {}ms, giving up for now", topicName, backOff.totalDelayMs());
+            RETRIES_EXHAUSTED.inc();
             this.onMaxAttemptsExceeded(e);
             return;
         }
+        RETRIES.inc();
 
         if (delay < 1) {
             // vertx won't tolerate a zero delay
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects changes to the number of partitions of the child znodes of {@code /brokers/topics}
+ * by periodically describing all the topics via Kafka and comparing the partition counts
+ * with those seen by the previous poll, calling
+ * {@link Controller#onTopicPartitionsChanged(TopicName, Handler)} for the topics which changed.
+ *
+ * Unlike {@link TopicWatcher} this doesn't set any watches in ZooKeeper, and the
+ * describe requests of a poll are coalesced into a few batched AdminClient requests.
+ */
+class TopicPartitionsPoller extends ZkWatcher {
+
+    private static final String TOPICS_ZNODE = "/brokers/topics";
+
+    /** Partition count of a topic which hasn't been polled yet */
+    private static final int UNKNOWN = -1;
+
+    private final Vertx vertx;
+    private final Kafka kafka;
+    private final long pollIntervalMs;
+
+    private final ConcurrentHashMap<String, Integer> partitions = new ConcurrentHashMap<>();
+    private volatile long timerId = -1;
+    private volatile boolean polling = false;
+
+    /**
+     * Constructor
+     *
+     * @param controller    Controller instance to notify
+     * @param vertx     Vertx instance
+     * @param kafka     Kafka to describe the topics with
+     * @param pollIntervalMs    the interval between polls
+     */
+    TopicPartitionsPoller(Controller controller, Vertx vertx, Kafka kafka, long pollIntervalMs) {
+        super(controller, TOPICS_ZNODE);
+        this.vertx = vertx;
+        this.kafka = kafka;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    @Override
+    protected void start(Zk zk) {
+        super.start(zk);
+        partitions.clear();
+        // A single read, so topics which exist already are polled too
+        zk.children(TOPICS_ZNODE, childResult -> {
+            if (childResult.failed()) {
+                log.error("While getting children of znode {}", TOPICS_ZNODE, childResult.cause());
+                return;
+            }
+            for (String child : childResult.result()) {
+                partitions.putIfAbsent(child, UNKNOWN);
+            }
+        });
+        timerId = vertx.setPeriodic(pollIntervalMs, id -> poll());
+    }
+
+    @Override
+    protected void stop() {
+        super.stop();
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * Describe the known topics and notify the controller about those whose
+     * partition count differs from that seen by the previous poll.
+     * A poll is skipped if the previous one is still in progress.
+     */
+    void poll() {
+        if (!started() || polling) {
+            return;
+        }
+        List<TopicName> topicNames = new ArrayList<>(partitions.size());
+        for (String child : partitions.keySet()) {
+            topicNames.add(new TopicName(child));
+        }
+        if (topicNames.isEmpty()) {
+            return;
+        }
+        polling = true;
+        kafka.numPartitions(topicNames, ar -> {
+            polling = false;
+            if (ar.failed()) {
+                log.warn("Error polling partition counts", ar.cause());
+                return;
+            }
+            for (Map.Entry<TopicName, Integer> entry : ar.result().entrySet()) {
+                String child = entry.getKey().toString();
+                int count = entry.getValue();
+                // replace() rather than put() so a topic removed during the poll isn't resurrected
+                Integer previous = partitions.get(child);
+                if (previous != null
+                        && partitions.replace(child, previous, count)
+                        && previous != UNKNOWN
+                        && previous != count) {
+                    notifyIfOwned(child);
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void addChild(String child) {
+        partitions.put(child, UNKNOWN);
+    }
+
+    @Override
+    protected void removeChild(String child) {
+        partitions.remove(child);
+    }
+
+    @Override
+    protected boolean watching(String child) {
+        return partitions.containsKey(child);
+    }
+
+    @Override
+    protected void notifyController(String child) {
+        log.debug("Partitions change for topic {}", child);
+        controller.onTopicPartitionsChanged(new TopicName(child), ar -> {
+            log.info("Reconciliation result due to topic partitions change: {}", ar);
+        });
+    }
+}
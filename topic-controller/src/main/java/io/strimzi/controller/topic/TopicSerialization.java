@@ -17,9 +17,15 @@
 
 package io.strimzi.controller.topic;
 
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import kafka.log.LogConfig;
@@ -33,7 +39,6 @@ import scala.collection.Iterator;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringReader;
-import java.io.StringWriter;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -62,6 +67,14 @@ public class TopicSerialization {
     public static final String JSON_KEY_REPLICAS = "replicas";
     public static final String JSON_KEY_CONFIG = "config";
 
+    // Jackson's factories, readers and writers are thread-safe and expensive to create, so they're shared
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(JSON_FACTORY);
+    private static final ObjectReader CONFIG_READER = OBJECT_MAPPER.readerFor(Map.class);
+    private static final ObjectWriter CONFIG_WRITER = OBJECT_MAPPER.writerFor(Map.class);
+
+    private static final Set<String> SUPPORTED_TOPIC_CONFIGS = Collections.unmodifiableSet(supportedTopicConfigs());
+
     private static Map<String, String> topicConfigFromConfigMapString(ConfigMap cm) {
         Map<String, String> mapData = cm.getData();
         String value = mapData.get(CM_KEY_CONFIG);
@@ -70,19 +83,18 @@ public class TopicSerialization {
             result = Collections.emptyMap();
         } else {
             try {
-                ObjectMapper mapper = objectMapper();
-                result = mapper.readValue(new StringReader(value) {
+                result = CONFIG_READER.readValue(new StringReader(value) {
                     @Override
                     public String toString() {
                         return "'config' key of 'data' section of ConfigMap '" +cm.getMetadata().getName() + "' in namespace '" + cm.getMetadata().getNamespace() + "'";
                     }
-                }, Map.class);
+                });
             } catch (IOException e) {
                 throw new InvalidConfigMapException(cm, "ConfigMap's 'data' section has invalid key '" +
                         CM_KEY_CONFIG + "': " + (e.getMessage() != null ? e.getMessage() : e.toString()));
             }
         }
-        Set<String> supportedConfigs = getSupportedTopicConfigs();
+        Set<String> supportedConfigs = SUPPORTED_TOPIC_CONFIGS;
         for (Map.Entry<Object, Object> entry : result.entrySet()) {
             Object key = entry.getKey();
             String msg = null;
@@ -106,7 +118,7 @@ public class TopicSerialization {
         return (Map)result;
     }
 
-    private static Set<String> getSupportedTopicConfigs() {
+    private static Set<String> supportedTopicConfigs() {
         Set<String> supportedKeys = new TreeSet<>();
         Iterator<String> it = LogConfig.configNames().iterator();
         while (it.hasNext()) {
@@ -116,10 +128,7 @@ public class TopicSerialization {
     }
 
     private static String topicConfigToConfigMapString(Map<String, String> config) throws IOException {
-        ObjectMapper mapper = objectMapper();
-        StringWriter sw = new StringWriter();
-        mapper.writeValue(sw, config);
-        return sw.toString();
+        return CONFIG_WRITER.writeValueAsString(config);
     }
 
     /**
@@ -289,22 +298,20 @@ public class TopicSerialization {
      * This is what is stored in the znodes owned by the {@link ZkTopicStore}.
      */
     public static byte[] toJson(Topic topic) {
-        ObjectMapper mapper = objectMapper();
-        ObjectNode root = mapper.createObjectNode();
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(256);
         // TODO Do we store the k8s uid here?
-        root.put(JSON_KEY_MAP_NAME, topic.getOrAsMapName().toString());
-        root.put(JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
-        root.put(JSON_KEY_PARTITIONS, topic.getNumPartitions());
-        root.put(JSON_KEY_REPLICAS, topic.getNumReplicas());
-
-        ObjectNode config = mapper.createObjectNode();
-        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
-            config.put(entry.getKey(), entry.getValue());
-        }
-        root.set(JSON_KEY_CONFIG, config);
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            mapper.writeValue(baos, root);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(baos, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField(JSON_KEY_MAP_NAME, topic.getOrAsMapName().toString());
+            generator.writeStringField(JSON_KEY_TOPIC_NAME, topic.getTopicName().toString());
+            generator.writeNumberField(JSON_KEY_PARTITIONS, topic.getNumPartitions());
+            generator.writeNumberField(JSON_KEY_REPLICAS, topic.getNumReplicas());
+            generator.writeObjectFieldStart(JSON_KEY_CONFIG);
+            for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeEndObject();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -314,30 +321,50 @@ public class TopicSerialization {
     /**
      * Returns the Topic represented by the given UTF-8 encoded JSON.
      * This is what is stored in the znodes owned by the {@link ZkTopicStore}.
+     * The JSON is parsed token by token, without building an intermediate tree or map.
      */
     public static Topic fromJson(byte[] json) {
-        ObjectMapper mapper = objectMapper();
-        Map<String, Object> root = null;
-        try {
-            root = mapper.readValue(json, Map.class);
+        Topic.Builder builder = new Topic.Builder();
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case JSON_KEY_TOPIC_NAME:
+                        builder.withTopicName(parser.getText());
+                        break;
+                    case JSON_KEY_MAP_NAME:
+                        builder.withMapName(parser.getText());
+                        break;
+                    case JSON_KEY_PARTITIONS:
+                        builder.withNumPartitions(parser.getIntValue());
+                        break;
+                    case JSON_KEY_REPLICAS:
+                        builder.withNumReplicas(parser.getShortValue());
+                        break;
+                    case JSON_KEY_CONFIG:
+                        expect(parser, value, JsonToken.START_OBJECT);
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String key = parser.getCurrentName();
+                            expect(parser, parser.nextToken(), JsonToken.VALUE_STRING);
+                            builder.withConfigEntry(key, parser.getText());
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        Topic.Builder builder = new Topic.Builder();
-        builder.withTopicName((String)root.get(JSON_KEY_TOPIC_NAME))
-                .withMapName((String)root.get(JSON_KEY_MAP_NAME))
-                .withNumPartitions((Integer)root.get(JSON_KEY_PARTITIONS))
-                .withNumReplicas(((Integer)root.get(JSON_KEY_REPLICAS)).shortValue());
-        Map<String, String> config = (Map)root.get(JSON_KEY_CONFIG);
-        for (Map.Entry<String, String> entry : config.entrySet()) {
-            builder.withConfigEntry(entry.getKey(), entry.getValue());
-        }
         return builder.build();
     }
 
-    private static ObjectMapper objectMapper() {
-        JsonFactory jf = new JsonFactory();
-        return new ObjectMapper(jf);
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + actual);
+        }
     }
 
 }
@@ -20,6 +20,8 @@ package io.strimzi.controller.topic;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
+import java.util.List;
+
 /**
  * Represents a persistent data store where the controller can store its copy of the
  * topic state that won't be modified by either K8S or Kafka.
@@ -68,5 +70,11 @@ public interface TopicStore {
      * {@link NoSuchEntityExistsException}.
      */
     void delete(TopicName topic, Handler<AsyncResult<Void>> handler);
+
+    /**
+     * Asynchronously list the names of all the topics in the store
+     * and run the given handler on the context with the result.
+     */
+    void list(Handler<AsyncResult<List<TopicName>>> handler);
 }
 
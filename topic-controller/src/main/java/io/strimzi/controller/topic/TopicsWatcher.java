@@ -29,6 +29,7 @@ import java.util.Set;
  * ZooKeeper watcher for child znodes of {@code /brokers/topics},
  * calling {@link Controller#onTopicCreated(TopicName, io.vertx.core.Handler)} for new children and
  * {@link Controller#onTopicDeleted(TopicName, io.vertx.core.Handler)} for deleted children.
+ * Events for topics which the controller doesn't {@linkplain Controller#owns(TopicName) own} are dropped.
  */
 class TopicsWatcher {
 
@@ -37,8 +38,8 @@ class TopicsWatcher {
     private static final String TOPICS_ZNODE = "/brokers/topics";
 
     private final Controller controller;
-    private final TopicConfigsWatcher tcw;
-    private final TopicWatcher tw;
+    private final ZkWatcher tcw;
+    private final ZkWatcher tw;
 
     private List<String> children;
 
@@ -51,7 +52,7 @@ class TopicsWatcher {
      * @param tcw   watcher for the topics config changes
      * @param tw    watcher for the topics partitions changes
      */
-    TopicsWatcher(Controller controller, TopicConfigsWatcher tcw, TopicWatcher tw) {
+    TopicsWatcher(Controller controller, ZkWatcher tcw, ZkWatcher tw) {
         this.controller = controller;
         this.tcw = tcw;
         this.tw = tw;
@@ -92,6 +93,9 @@ class TopicsWatcher {
                 for (String topicName : deleted) {
                     tcw.removeChild(topicName);
                     tw.removeChild(topicName);
+                    if (!controller.owns(new TopicName(topicName))) {
+                        continue;
+                    }
                     controller.onTopicDeleted(new TopicName(topicName), ar -> {
                         if (ar.succeeded()) {
                             logger.debug("Success responding to deletion of topic {}", topicName);
@@ -107,6 +111,9 @@ class TopicsWatcher {
                 for (String topicName : created) {
                     tcw.addChild(topicName);
                     tw.addChild(topicName);
+                    if (!controller.owns(new TopicName(topicName))) {
+                        continue;
+                    }
                     controller.onTopicCreated(new TopicName(topicName), ar -> {
                         if (ar.succeeded()) {
                             logger.debug("Success responding to creation of topic {}", topicName);
@@ -29,6 +29,8 @@ import org.apache.zookeeper.data.ACL;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -62,7 +64,7 @@ public class ZkTopicStore implements TopicStore {
     }
 
 
-    private static String getTopicPath(TopicName name) {
+    static String getTopicPath(TopicName name) {
         return TOPICS_PATH + "/" + name;
     }
 
@@ -121,4 +123,22 @@ public class ZkTopicStore implements TopicStore {
             }
         });
     }
+
+    @Override
+    public void list(Handler<AsyncResult<List<TopicName>>> handler) {
+        logger.debug("list children of {}", TOPICS_PATH);
+        zk.children(TOPICS_PATH, result -> {
+            if (result.succeeded()) {
+                List<TopicName> names = new ArrayList<>(result.result().size());
+                for (String child : result.result()) {
+                    names.add(new TopicName(child));
+                }
+                handler.handle(Future.succeededFuture(names));
+            } else if (result.cause() instanceof KeeperException.NoNodeException) {
+                handler.handle(Future.succeededFuture(Collections.emptyList()));
+            } else {
+                handler.handle(result.map((List<TopicName>) null));
+            }
+        });
+    }
 }
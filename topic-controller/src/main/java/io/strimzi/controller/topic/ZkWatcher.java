@@ -87,7 +87,7 @@ public abstract class ZkWatcher {
             if (dataResult.succeeded()) {
                 this.children.compute(child, (k, v) -> {
                     if (v) {
-                        this.notifyController(child);
+                        this.notifyIfOwned(child);
                     }
                     return true;
                 });
@@ -129,6 +129,20 @@ public abstract class ZkWatcher {
         return this.children.containsKey(child);
     }
 
+    /**
+     * Notify the controller about changes in the provided child,
+     * unless it's a topic which the controller doesn't {@linkplain Controller#owns(TopicName) own}.
+     *
+     * @param child child changed
+     */
+    protected final void notifyIfOwned(String child) {
+        if (controller.owns(new TopicName(child))) {
+            notifyController(child);
+        } else {
+            log.debug("Ignoring change to {}, owned by another controller", child);
+        }
+    }
+
     /**
      * Notify the controller about changes in the provided child
      *
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic.zk;
+
+import org.apache.zookeeper.data.Stat;
+
+/**
+ * The data of a znode together with its {@link Stat}.
+ */
+public class VersionedData {
+
+    private final byte[] data;
+    private final Stat stat;
+
+    public VersionedData(byte[] data, Stat stat) {
+        this.data = data;
+        this.stat = stat;
+    }
+
+    public byte[] data() {
+        return data;
+    }
+
+    public Stat stat() {
+        return stat;
+    }
+
+    /** The version of the data, as in {@link Stat#getVersion()}. */
+    public int version() {
+        return stat.getVersion();
+    }
+}
@@ -21,6 +21,7 @@ import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
 
@@ -59,6 +60,15 @@ public interface Zk {
      */
     Zk setData(String path, byte[] data, int version, Handler<AsyncResult<Void>> handler);
 
+    /**
+     * Asynchronously set the data in the znode at the given path to the
+     * given data iff the given version is -1, or matches the version of the znode,
+     * then invoke the given handler with the resulting {@link Stat} of the znode.
+     * If the version does not match the handler's {@code cause()} will be a
+     * {@link org.apache.zookeeper.KeeperException.BadVersionException}.
+     */
+    Zk setDataWithStat(String path, byte[] data, int version, Handler<AsyncResult<Stat>> handler);
+
     /**
      * Asynchronously fetch the children of the znode at the given {@code path}, calling the given
      * handler with the result.
@@ -84,6 +94,13 @@ public interface Zk {
      */
     Zk getData(String path, Handler<AsyncResult<byte[]>> handler);
 
+    /**
+     * Asynchronously fetch the data and {@link Stat} of the given znode at the given path,
+     * calling the given handler with the result.
+     * Unlike {@link #getData(String, Handler)} this never registers a data watch.
+     */
+    Zk getDataWithStat(String path, Handler<AsyncResult<VersionedData>> handler);
+
     /**
      * Set given the data {@code watcher} on the given {@code path}.
      * A subsequent call to {@link #getData(String, Handler)} with the same path will register the data {@code watcher}
@@ -117,6 +134,13 @@ public interface Zk {
      */
     Zk unwatchExists(String path);
 
+    /**
+     * Set the {@code watcher} of the session, which is called on the vertx context when the connection
+     * to the ensemble is lost ({@code Disconnected}), when the session has expired ({@code Expired})
+     * and when (re)connected ({@code SyncConnected}). A null {@code watcher} removes it.
+     */
+    Zk watchSession(Handler<Watcher.Event.KeeperState> watcher);
+
     // TODO getAcl(), setAcl(), multi()
 
 }
@@ -33,15 +33,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 
 /**
- * Implementation of {@link Zk}
+ * Implementation of {@link Zk}.
+ * If the session expires a new session is opened and the registered watches are re-registered with it,
+ * see {@link #resync()}.
  */
 public class ZkImpl implements Zk {
 
@@ -49,6 +56,8 @@ public class ZkImpl implements Zk {
     public static final String PREFIX_DATA = "data:";
     public static final String PREFIX_CHILDREN = "children:";
     public static final String PREFIX_EXISTS = "exists:";
+    /** The maximum number of watches being re-registered at once after a session expiry */
+    static final int RESYNC_CONCURRENCY = 50;
     private final boolean readOnly;
 
     private static <T> Map<String, Set<Handler<AsyncResult<T>>>>
@@ -71,12 +80,19 @@ public class ZkImpl implements Zk {
     private final String zkConnectionString;
     private final int sessionTimeout;
     private final Vertx vertx;
-    private final ZooKeeper zk;
+    // Replaced when the session expires
+    private ZooKeeper zk;
+    private boolean closed = false;
 
     // Only accessed on the vertx context.
     private final ConcurrentHashMap<String, Handler<? extends AsyncResult<?>>> watches = new ConcurrentHashMap<>();
 
-    // TODO We need to reset the watches on reconnection.
+    // The mzxid of the last data seen for each watched znode, so that a resync can
+    // tell which znodes changed while the session was expired.
+    private final ConcurrentHashMap<String, Long> dataMzxids = new ConcurrentHashMap<>();
+
+    private volatile Handler<Watcher.Event.KeeperState> sessionWatch;
+
     // TODO We need to retry methods which fail due to connection loss, up to some limit/time
     // We should probably try to avoid stampede though, so random exponential backoff
 
@@ -85,50 +101,8 @@ public class ZkImpl implements Zk {
         this.zkConnectionString = zkConnectionString;
         this.sessionTimeout = sessionTimeout;
         this.readOnly = readOnly;
-        CompletableFuture f = new CompletableFuture();
-        try {
-            zk = new ZooKeeper(zkConnectionString, sessionTimeout, watchedEvent -> {
-                // See https://wiki.apache.org/hadoop/ZooKeeper/FAQ
-                // for state transitions
-                Watcher.Event.KeeperState state = watchedEvent.getState();
-                logger.debug("In state {}", state);
-                final Future<Zk> future;
-                final Handler<AsyncResult<Zk>> handler;
-                switch (state) {
-                    case AuthFailed:
-                        f.completeExceptionally(new RuntimeException("Zookeeper authentication failed"));
-                    case SaslAuthenticated:
-                        // TODO record that we're auth, so methods can reject ACLs with "auth" scheme?
-                        break;
-                    case ConnectedReadOnly:
-                        if (!readOnly) {
-                            // This should never happen
-                            throw new RuntimeException("Connected readonly");
-                        }
-                        /* fall through */
-                    case SyncConnected:
-                        logger.debug("Connected, session id {}", zk().getSessionId());
-                        f.complete(null);
-                        break;
-                    case Expired:
-                        // We've just been reconnected to the emsemble, and our session has expired while
-                        // we were disconnected
-                        f.complete(null);
-                        break;
-                    case Disconnected:
-                        // We've just been disconnected from the emsemble. The ZooKeeper implementation
-                        // should reconnect us soon.
-                        break;
-                    default:
-                        // According to the KeeperState doc
-                        // the remaining states should be impossible
-                        throw new IllegalStateException("Unexpected state: " + state.toString() + "");
-                }
-            },
-            readOnly);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        CompletableFuture<Void> f = new CompletableFuture<>();
+        connect(f, false);
         try {
             f.get();
         } catch (InterruptedException e) {
@@ -143,10 +117,189 @@ public class ZkImpl implements Zk {
         }
     }
 
-    private ZooKeeper zk() {
-        return zk;
+    /**
+     * Open a new session, completing the given future once it's connected.
+     * If {@code resync} the watches are {@linkplain #resync() re-registered} once it's connected.
+     */
+    private void connect(CompletableFuture<Void> connected, boolean resync) {
+        ZooKeeper zookeeper;
+        try {
+            zookeeper = new ZooKeeper(zkConnectionString, sessionTimeout, new SessionWatcher(connected, resync), readOnly);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        synchronized (this) {
+            if (!closed) {
+                zk = zookeeper;
+                return;
+            }
+        }
+        close(zookeeper);
+    }
+
+    private static void close(ZooKeeper zookeeper) {
+        try {
+            zookeeper.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Replace the expired session with a new one.
+     */
+    private void reconnect() {
+        ZooKeeper expired;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            expired = zk;
+            // Until the new session exists, methods fail fast with "Not connected"
+            zk = null;
+        }
+        close(expired);
+        try {
+            connect(new CompletableFuture<>(), true);
+        } catch (RuntimeException e) {
+            logger.error("Error opening a new session", e);
+        }
+    }
+
+    /**
+     * The default watcher of a single session.
+     */
+    private class SessionWatcher implements Watcher {
+        private final CompletableFuture<Void> connected;
+        private final boolean resync;
+
+        SessionWatcher(CompletableFuture<Void> connected, boolean resync) {
+            this.connected = connected;
+            this.resync = resync;
+        }
+
+        @Override
+        public void process(WatchedEvent watchedEvent) {
+            // See https://wiki.apache.org/hadoop/ZooKeeper/FAQ
+            // for state transitions
+            Watcher.Event.KeeperState state = watchedEvent.getState();
+            logger.debug("In state {}", state);
+            switch (state) {
+                case AuthFailed:
+                    connected.completeExceptionally(new RuntimeException("Zookeeper authentication failed"));
+                    break;
+                case SaslAuthenticated:
+                    // TODO record that we're auth, so methods can reject ACLs with "auth" scheme?
+                    break;
+                case ConnectedReadOnly:
+                    if (!readOnly) {
+                        // This should never happen
+                        throw new RuntimeException("Connected readonly");
+                    }
+                    /* fall through */
+                case SyncConnected:
+                    logger.debug("Connected, session id {}", zk() != null ? zk().getSessionId() : null);
+                    // Only the first connection of a session completes the future. Within a session
+                    // ZooKeeper itself resets the watches when the connection is re-established.
+                    if (connected.complete(null) && resync) {
+                        resync();
+                    }
+                    sessionStateChanged(state);
+                    break;
+                case Expired:
+                    // We've just been reconnected to the emsemble, and our session has expired while
+                    // we were disconnected. Our watches have gone with it, so open a new session.
+                    logger.warn("Session expired, opening a new session");
+                    connected.complete(null);
+                    sessionStateChanged(state);
+                    reconnect();
+                    break;
+                case Disconnected:
+                    // We've just been disconnected from the emsemble. The ZooKeeper implementation
+                    // should reconnect us soon.
+                    sessionStateChanged(state);
+                    break;
+                default:
+                    // According to the KeeperState doc
+                    // the remaining states should be impossible
+                    logger.warn("Unexpected state: {}", state);
+            }
+        }
     }
 
+    private void sessionStateChanged(Watcher.Event.KeeperState state) {
+        Handler<Watcher.Event.KeeperState> watch = sessionWatch;
+        if (watch != null) {
+            vertx.runOnContext(ignored -> watch.handle(state));
+        }
+    }
+
+    /**
+     * Re-register all the watches in {@link #watches} with the current session, at most
+     * {@link #RESYNC_CONCURRENCY} at a time, and call the watch handlers for what changed
+     * while the session was expired:
+     * <ul>
+     *     <li>Children watch handlers are called with the current children, so a handler which
+     *     remembers the last-known children can diff them.</li>
+     *     <li>Data watch handlers are called only if the znode changed (or vanished).</li>
+     *     <li>Exists watch handlers are called with the current stat.</li>
+     * </ul>
+     * Children watches go first, so that creations and deletions are noticed before
+     * changes to the data of individual znodes.
+     */
+    private void resync() {
+        List<String> keys = new ArrayList<>(watches.keySet());
+        keys.sort(Comparator.comparing((String key) -> !key.startsWith(PREFIX_CHILDREN))
+                .thenComparing(key -> !key.startsWith(PREFIX_EXISTS)));
+        logger.info("Re-registering {} watches with new session", keys.size());
+        Queue<String> queue = new ConcurrentLinkedQueue<>(keys);
+        for (int i = 0; i < RESYNC_CONCURRENCY; i++) {
+            resyncNext(queue);
+        }
+    }
+
+    private void resyncNext(Queue<String> queue) {
+        String key = queue.poll();
+        if (key == null) {
+            return;
+        }
+        if (key.startsWith(PREFIX_CHILDREN)) {
+            String path = key.substring(PREFIX_CHILDREN.length());
+            children(path, result -> {
+                Handler<AsyncResult<List<String>>> watch = getChildrenWatchHandler(path);
+                if (watch != null) {
+                    watch.handle(result);
+                }
+                resyncNext(queue);
+            });
+        } else if (key.startsWith(PREFIX_EXISTS)) {
+            String path = key.substring(PREFIX_EXISTS.length());
+            exists(path, result -> {
+                Handler<AsyncResult<Stat>> watch = getExistsWatchHandler(path);
+                if (watch != null) {
+                    watch.handle(result);
+                }
+                resyncNext(queue);
+            });
+        } else if (key.startsWith(PREFIX_DATA)) {
+            String path = key.substring(PREFIX_DATA.length());
+            Long before = dataMzxids.get(path);
+            getData(path, result -> {
+                Handler<AsyncResult<byte[]>> watch = getDataWatchHandler(path);
+                if (watch != null
+                        && (result.failed() || !Objects.equals(before, dataMzxids.get(path)))) {
+                    watch.handle(result);
+                }
+                resyncNext(queue);
+            });
+        } else {
+            resyncNext(queue);
+        }
+    }
+
+    synchronized ZooKeeper zk() {
+        return zk;
+    }
 
     /**
      * Map the given rc result code to a KeeperException, then run the given handler on the vertx context.
@@ -201,8 +354,32 @@ public class ZkImpl implements Zk {
         return this;
     }
 
+    @Override
+    public Zk setDataWithStat(String path, byte[] data, int version, Handler<AsyncResult<Stat>> handler) {
+        ZooKeeper zookeeper;
+        synchronized(this) {
+            zookeeper = zk;
+        }
+        if (zookeeper == null) {
+            handler.handle(Future.failedFuture(new IllegalStateException("Not connected")));
+            return this;
+        }
+        zookeeper.setData(path, data, version,
+                (int rc, String path2, Object ctx, Stat stat) -> invokeOnContext(handler, path, rc, stat),
+                null);
+        return this;
+    }
+
     public Zk disconnect() throws InterruptedException {
-        zk.close();
+        ZooKeeper zookeeper;
+        synchronized (this) {
+            closed = true;
+            zookeeper = zk;
+            zk = null;
+        }
+        if (zookeeper != null) {
+            zookeeper.close();
+        }
         return this;
     }
 
@@ -218,6 +395,9 @@ public class ZkImpl implements Zk {
         }
         final AsyncCallback.DataCallback callback = (rc, path2, ctx, data, stat) -> {
             Watcher.Event.EventType eventType = (Watcher.Event.EventType)ctx;
+            if (stat != null && getDataWatchHandler(path) != null) {
+                dataMzxids.put(path, stat.getMzxid());
+            }
             if (eventType == null // first time
                     || eventType == Watcher.Event.EventType.NodeDataChanged) {
                 Future<byte[]> future = mapResult(path2, rc, data);
@@ -238,7 +418,10 @@ public class ZkImpl implements Zk {
             watcher = new Watcher() {
                 @Override
                 public void process(WatchedEvent event) {
-                    if (getDataWatchHandler(path) != null) {
+                    // Connection state changes are handled by the SessionWatcher: Within a session
+                    // ZooKeeper resets this watch itself, and after expiry it's re-registered by resync()
+                    if (event.getType() != Watcher.Event.EventType.None
+                            && getDataWatchHandler(path) != null) {
                         // Reset the watch if there still is a handler
                         zookeeper.getData(path, this,
                                 callback, event.getType());
@@ -252,6 +435,22 @@ public class ZkImpl implements Zk {
         return this;
     }
 
+    @Override
+    public Zk getDataWithStat(String path, Handler<AsyncResult<VersionedData>> handler) {
+        ZooKeeper zookeeper;
+        synchronized(this) {
+            zookeeper = zk;
+        }
+        if (zookeeper == null) {
+            handler.handle(Future.failedFuture(new IllegalStateException("Not connected")));
+            return this;
+        }
+        zookeeper.getData(path, false,
+                (rc, path2, ctx, data, stat) -> invokeOnContext(handler, path, rc, new VersionedData(data, stat)),
+                null);
+        return this;
+    }
+
     private Handler<AsyncResult<byte[]>> getDataWatchHandler(String path) {
         return (Handler<AsyncResult<byte[]>>)watches.get(PREFIX_DATA + path);
     }
@@ -270,9 +469,16 @@ public class ZkImpl implements Zk {
         return this;
     }
 
+    @Override
+    public Zk watchSession(Handler<Watcher.Event.KeeperState> watcher) {
+        sessionWatch = watcher;
+        return this;
+    }
+
     @Override
     public Zk unwatchData(String path) {
         watches.remove(PREFIX_DATA + path);
+        dataMzxids.remove(path);
         return this;
     }
 
@@ -325,7 +531,10 @@ public class ZkImpl implements Zk {
             watcher = new Watcher() {
                 @Override
                 public void process(WatchedEvent event) {
-                    if (getExistsWatchHandler(path) != null) {
+                    // Connection state changes are handled by the SessionWatcher: Within a session
+                    // ZooKeeper resets this watch itself, and after expiry it's re-registered by resync()
+                    if (event.getType() != Watcher.Event.EventType.None
+                            && getExistsWatchHandler(path) != null) {
                         // Reset the watch if there still is a handler
                         zookeeper.exists(path, this,
                                 callback, event.getType());
@@ -386,7 +595,10 @@ public class ZkImpl implements Zk {
             watcher = new Watcher() {
                 @Override
                 public void process(WatchedEvent event) {
-                    if (getChildrenWatchHandler(path) != null) {
+                    // Connection state changes are handled by the SessionWatcher: Within a session
+                    // ZooKeeper resets this watch itself, and after expiry it's re-registered by resync()
+                    if (event.getType() != Watcher.Event.EventType.None
+                            && getChildrenWatchHandler(path) != null) {
                         // Reset the watch if there still is a handler
                         zookeeper.getChildren(path, this,
                                 callback, event.getType());
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.ClusterAuthorizationException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class BaseKafkaImplTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BaseKafkaImplTest.class);
+
+    private Vertx vertx;
+    private BaseKafkaImpl kafka;
+    private final Map<String, KafkaFutureImpl<TopicDescription>> descFutures = new ConcurrentHashMap<>();
+    private final Map<String, KafkaFutureImpl<Config>> configFutures = new ConcurrentHashMap<>();
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        AdminClient adminClient = mock(AdminClient.class);
+        when(adminClient.describeTopics(any(Collection.class))).thenAnswer(invocation -> {
+            String name = ((Collection<String>) invocation.getArgument(0)).iterator().next();
+            KafkaFutureImpl<TopicDescription> future = descFutures.computeIfAbsent(name, k -> new KafkaFutureImpl<>());
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.values()).thenReturn(singletonMap(name, future));
+            return result;
+        });
+        when(adminClient.describeConfigs(any(Collection.class))).thenAnswer(invocation -> {
+            ConfigResource resource = ((Collection<ConfigResource>) invocation.getArgument(0)).iterator().next();
+            KafkaFutureImpl<Config> future = configFutures.computeIfAbsent(resource.name(), k -> new KafkaFutureImpl<>());
+            DescribeConfigsResult result = mock(DescribeConfigsResult.class);
+            when(result.values()).thenReturn(singletonMap(resource, future));
+            return result;
+        });
+        kafka = new BaseKafkaImpl(adminClient, vertx) {
+            @Override
+            public void createTopic(Topic newTopic, Handler<AsyncResult<Void>> handler) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void increasePartitions(Topic topic, Handler<AsyncResult<Void>> handler) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void changeReplicationFactor(Topic topic, Handler<AsyncResult<Void>> handler) {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @After
+    public void teardown() {
+        kafka.stop();
+        vertx.close();
+    }
+
+    private static TopicDescription description(String name) {
+        Node node = new Node(0, "localhost", 9092);
+        return new TopicDescription(name, false,
+                singletonList(new TopicPartitionInfo(0, node, singletonList(node), singletonList(node))));
+    }
+
+    private static Config config() {
+        return new Config(singletonList(new ConfigEntry("cleanup.policy", "compact")));
+    }
+
+    @Test
+    public void testTopicMetadataCompletesOnContext(TestContext context) {
+        Async async = context.async();
+        Context ctx = vertx.getOrCreateContext();
+        ctx.runOnContext(v -> {
+            kafka.topicMetadata(new TopicName("my-topic"), ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertTrue(ctx == Vertx.currentContext());
+                context.assertEquals("my-topic", ar.result().getDescription().name());
+                context.assertEquals("compact", ar.result().getConfig().get("cleanup.policy").value());
+                async.complete();
+            });
+            vertx.setTimer(50, timerId -> {
+                descFutures.get("my-topic").complete(description("my-topic"));
+                // Complete the second future from a non-vertx thread, as the AdminClient would
+                new Thread(() -> configFutures.get("my-topic").complete(config())).start();
+            });
+        });
+    }
+
+    @Test
+    public void testTopicMetadataUnknownTopic(TestContext context) {
+        Async async = context.async();
+        vertx.runOnContext(v -> {
+            kafka.topicMetadata(new TopicName("my-topic"), ar -> {
+                context.assertTrue(ar.succeeded());
+                context.assertNull(ar.result());
+                async.complete();
+            });
+            vertx.setTimer(50, timerId -> {
+                descFutures.get("my-topic").completeExceptionally(new UnknownTopicOrPartitionException());
+                configFutures.get("my-topic").completeExceptionally(new UnknownTopicOrPartitionException());
+            });
+        });
+    }
+
+    @Test
+    public void testTopicMetadataFailure(TestContext context) {
+        Async async = context.async();
+        AtomicInteger calls = new AtomicInteger();
+        vertx.runOnContext(v -> {
+            kafka.topicMetadata(new TopicName("my-topic"), ar -> {
+                context.assertEquals(1, calls.incrementAndGet());
+                context.assertTrue(ar.failed());
+                context.assertTrue(ar.cause() instanceof ClusterAuthorizationException);
+                // Give any erroneous second invocation the chance to happen
+                vertx.setTimer(50, timerId -> async.complete());
+            });
+            vertx.setTimer(50, timerId -> {
+                descFutures.get("my-topic").completeExceptionally(new ClusterAuthorizationException("Oops"));
+                configFutures.get("my-topic").completeExceptionally(new ClusterAuthorizationException("Oops"));
+            });
+        });
+    }
+
+    /**
+     * Checks that the event loop stays idle and responsive while many {@code topicMetadata()} calls
+     * are outstanding, and that all the handlers are called promptly once the futures complete.
+     * Before the callbacks, the work was busy-polled on the context, which kept the event loop
+     * thread busy for the whole time the calls were outstanding.
+     */
+    @Test
+    public void testEventLoopLatencyWithManyOutstandingCalls(TestContext context) {
+        final int numTopics = 500;
+        final long tickMs = 10;
+        final long outstandingMs = 500;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Async allHandled = context.async(numTopics);
+        AtomicLong maxLagNs = new AtomicLong();
+        AtomicLong lastTick = new AtomicLong(System.nanoTime());
+        long timerId = vertx.setPeriodic(tickMs, id -> {
+            long now = System.nanoTime();
+            long lag = now - lastTick.getAndSet(now) - TimeUnit.NANOSECONDS.convert(tickMs, TimeUnit.MILLISECONDS);
+            maxLagNs.accumulateAndGet(lag, Math::max);
+        });
+        List<String> names = new ArrayList<>(numTopics);
+        for (int i = 0; i < numTopics; i++) {
+            names.add("topic-" + i);
+        }
+        vertx.runOnContext(v -> {
+            long eventLoopThread = Thread.currentThread().getId();
+            for (String name : names) {
+                kafka.topicMetadata(new TopicName(name), ar -> {
+                    context.assertTrue(ar.succeeded());
+                    allHandled.countDown();
+                });
+            }
+            long cpuBefore = threads.getThreadCpuTime(eventLoopThread);
+            // Leave the calls outstanding for a while, then complete them all
+            vertx.setTimer(outstandingMs, id -> {
+                long busyMs = TimeUnit.MILLISECONDS.convert(threads.getThreadCpuTime(eventLoopThread) - cpuBefore, TimeUnit.NANOSECONDS);
+                long t0 = System.nanoTime();
+                for (String name : names) {
+                    descFutures.get(name).complete(description(name));
+                    configFutures.get(name).complete(config());
+                }
+                allHandled.handler(ar -> {
+                    vertx.cancelTimer(timerId);
+                    long lagMs = TimeUnit.MILLISECONDS.convert(maxLagNs.get(), TimeUnit.NANOSECONDS);
+                    long handledMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                    logger.info("{} outstanding topicMetadata() calls: event loop busy {}ms of {}ms, max event loop lag {}ms, all handlers run {}ms after completion",
+                            numTopics, busyMs, outstandingMs, lagMs, handledMs);
+                    // busy-polling kept the event loop thread running for (nearly) the whole time
+                    if (threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled()) {
+                        context.assertTrue(busyMs < outstandingMs / 2,
+                                "Event loop was busy for " + busyMs + "ms of " + outstandingMs + "ms while calls were outstanding");
+                    }
+                    context.assertTrue(lagMs < 250, "Max event loop lag was " + lagMs + "ms");
+                    context.assertTrue(handledMs < 2_000, "Handlers run " + handledMs + "ms after completion");
+                });
+            });
+        });
+    }
+}
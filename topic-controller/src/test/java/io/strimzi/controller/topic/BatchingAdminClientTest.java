@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Vertx;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.DeleteTopicsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchingAdminClientTest {
+
+    private Vertx vertx;
+    private AdminClient adminClient;
+    private final List<Collection<String>> deleteBatches = new ArrayList<>();
+    private final List<Map<ConfigResource, Config>> alterBatches = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        adminClient = mock(AdminClient.class);
+        when(adminClient.deleteTopics(any(Collection.class))).thenAnswer(invocation -> {
+            Collection<String> names = new ArrayList<>((Collection<String>) invocation.getArgument(0));
+            synchronized (deleteBatches) {
+                deleteBatches.add(names);
+            }
+            Map<String, KafkaFuture<Void>> values = new HashMap<>();
+            for (String name : names) {
+                KafkaFutureImpl<Void> future = new KafkaFutureImpl<>();
+                if (name.startsWith("unknown")) {
+                    future.completeExceptionally(new UnknownTopicOrPartitionException());
+                } else {
+                    future.complete(null);
+                }
+                values.put(name, future);
+            }
+            DeleteTopicsResult result = mock(DeleteTopicsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+        when(adminClient.alterConfigs(any(Map.class))).thenAnswer(invocation -> {
+            Map<ConfigResource, Config> configs = new HashMap<>((Map<ConfigResource, Config>) invocation.getArgument(0));
+            synchronized (alterBatches) {
+                alterBatches.add(configs);
+            }
+            Map<ConfigResource, KafkaFuture<Void>> values = new HashMap<>();
+            for (ConfigResource resource : configs.keySet()) {
+                values.put(resource, KafkaFuture.completedFuture(null));
+            }
+            AlterConfigsResult result = mock(AlterConfigsResult.class);
+            when(result.values()).thenReturn(values);
+            return result;
+        });
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    @Test
+    public void testRequestsWithinWindowAreBatched() throws Exception {
+        BatchingAdminClient batching = new BatchingAdminClient(adminClient, vertx, 100, 500);
+        KafkaFuture<Void> f1 = batching.deleteTopic("foo");
+        KafkaFuture<Void> f2 = batching.deleteTopic("bar");
+        KafkaFuture<Void> f3 = batching.deleteTopic("unknown");
+        KafkaFuture<Void> f4 = batching.deleteTopic("foo");
+        assertFalse(f1.isDone());
+
+        f1.get(10, TimeUnit.SECONDS);
+        f2.get(10, TimeUnit.SECONDS);
+        f4.get(10, TimeUnit.SECONDS);
+        try {
+            f3.get(10, TimeUnit.SECONDS);
+            fail("Should have thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnknownTopicOrPartitionException);
+        }
+        assertEquals(1, deleteBatches.size());
+        assertEquals(new ArrayList<>(asList("foo", "bar", "unknown")), new ArrayList<>(deleteBatches.get(0)));
+        assertEquals(1, batching.deleteTopicsStats().batches());
+        assertEquals(3, batching.deleteTopicsStats().requests());
+        assertEquals(3, batching.deleteTopicsStats().maxBatchSize());
+    }
+
+    @Test
+    public void testMaxBatchSizeFlushesImmediately() throws Exception {
+        BatchingAdminClient batching = new BatchingAdminClient(adminClient, vertx, 60_000, 2);
+        KafkaFuture<Void> f1 = batching.deleteTopic("foo");
+        KafkaFuture<Void> f2 = batching.deleteTopic("bar");
+        // Would time out if we waited for the window
+        f1.get(10, TimeUnit.SECONDS);
+        f2.get(10, TimeUnit.SECONDS);
+        assertEquals(1, deleteBatches.size());
+        assertEquals(2, deleteBatches.get(0).size());
+    }
+
+    @Test
+    public void testZeroWindowDisablesBatching() throws Exception {
+        BatchingAdminClient batching = new BatchingAdminClient(adminClient, vertx, 0, 500);
+        batching.deleteTopic("foo").get(10, TimeUnit.SECONDS);
+        batching.deleteTopic("bar").get(10, TimeUnit.SECONDS);
+        assertEquals(2, deleteBatches.size());
+    }
+
+    @Test
+    public void testAlterOfSameResourceIsNotCoalesced() throws Exception {
+        BatchingAdminClient batching = new BatchingAdminClient(adminClient, vertx, 100, 500);
+        ConfigResource resource = new ConfigResource(ConfigResource.Type.TOPIC, "foo");
+        Config c1 = new Config(emptyList());
+        Config c2 = new Config(emptyList());
+        KafkaFuture<Void> f1 = batching.alterConfig(resource, c1);
+        KafkaFuture<Void> f2 = batching.alterConfig(resource, c2);
+        f1.get(10, TimeUnit.SECONDS);
+        f2.get(10, TimeUnit.SECONDS);
+        assertEquals(2, alterBatches.size());
+        assertTrue(alterBatches.get(0).get(resource) == c1);
+        assertTrue(alterBatches.get(1).get(resource) == c2);
+    }
+
+    @Test
+    public void testMissingResultFailsFuture() throws Exception {
+        when(adminClient.describeTopics(any(Collection.class))).thenAnswer(invocation -> {
+            DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+            when(result.values()).thenReturn(new HashMap<String, KafkaFuture<TopicDescription>>());
+            return result;
+        });
+        BatchingAdminClient batching = new BatchingAdminClient(adminClient, vertx, 0, 500);
+        try {
+            batching.describeTopic("foo").get(10, TimeUnit.SECONDS);
+            fail("Should have thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
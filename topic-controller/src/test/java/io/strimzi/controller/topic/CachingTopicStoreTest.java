@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.strimzi.controller.topic.zk.ZkImpl;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+@RunWith(VertxUnitRunner.class)
+public class CachingTopicStoreTest {
+
+    private EmbeddedZooKeeper zkServer;
+
+    private Vertx vertx = Vertx.vertx();
+
+    private ZkImpl zk;
+
+    private ZkTopicStore zkStore;
+
+    @Before
+    public void setup() throws IOException, InterruptedException {
+        this.zkServer = new EmbeddedZooKeeper();
+        this.zk = new ZkImpl(vertx, zkServer.getZkConnectString(), 60000, false);
+        this.zkStore = new ZkTopicStore(zk);
+    }
+
+    @After
+    public void teardown() {
+        if (this.zkServer != null) {
+            this.zkServer.close();
+        }
+        vertx.close();
+    }
+
+    private AsyncResult<Void> await(TestContext context, Consumer<Handler<AsyncResult<Void>>> op) {
+        Async async = context.async();
+        Future<Void> fut = Future.future();
+        op.accept(ar -> {
+            fut.handle(ar);
+            async.complete();
+        });
+        async.await();
+        return fut;
+    }
+
+    private Topic read(TestContext context, TopicStore store, TopicName name) {
+        Async async = context.async();
+        Future<Topic> fut = Future.future();
+        store.read(name, ar -> {
+            fut.handle(ar);
+            async.complete();
+        });
+        async.await();
+        context.assertTrue(fut.succeeded());
+        return fut.result();
+    }
+
+    @Test
+    public void testPopulatedFromExistingTopics(TestContext context) {
+        Topic existing = new Topic.Builder("existing", 2, (short) 3, Collections.singletonMap("foo", "bar")).build();
+        context.assertTrue(await(context, h -> zkStore.create(existing, h)).succeeded());
+
+        CachingTopicStore store = new CachingTopicStore(zk, zkStore);
+        context.assertTrue(await(context, store::start).succeeded());
+
+        context.assertEquals(existing, read(context, store, existing.getTopicName()));
+        context.assertNull(read(context, store, new TopicName("missing")));
+    }
+
+    @Test
+    public void testCrud(TestContext context) {
+        CachingTopicStore store = new CachingTopicStore(zk, zkStore);
+        context.assertTrue(await(context, store::start).succeeded());
+
+        Topic topic = new Topic.Builder("my_topic", 2, (short) 3, Collections.singletonMap("foo", "bar")).build();
+        context.assertTrue(await(context, h -> store.create(topic, h)).succeeded());
+        context.assertEquals(topic, read(context, store, topic.getTopicName()));
+
+        context.assertTrue(await(context, h -> store.create(topic, h)).cause() instanceof TopicStore.EntityExistsException);
+
+        Topic updated = new Topic.Builder(topic).withNumPartitions(3).withConfigEntry("fruit", "apple").build();
+        context.assertTrue(await(context, h -> store.update(updated, h)).succeeded());
+        context.assertEquals(updated, read(context, store, topic.getTopicName()));
+        // The write went through to ZooKeeper
+        context.assertEquals(updated, read(context, zkStore, topic.getTopicName()));
+
+        context.assertTrue(await(context, h -> store.delete(topic.getTopicName(), h)).succeeded());
+        context.assertNull(read(context, store, topic.getTopicName()));
+        context.assertNull(read(context, zkStore, topic.getTopicName()));
+
+        context.assertTrue(await(context, h -> store.delete(topic.getTopicName(), h)).cause() instanceof TopicStore.NoSuchEntityExistsException);
+    }
+
+    @Test
+    public void testWriteBySomeoneElseIsDetected(TestContext context) {
+        CachingTopicStore store = new CachingTopicStore(zk, zkStore);
+        context.assertTrue(await(context, store::start).succeeded());
+
+        Topic topic = new Topic.Builder("my_topic", 2, (short) 3, Collections.emptyMap()).build();
+        context.assertTrue(await(context, h -> store.create(topic, h)).succeeded());
+
+        // Modify the znode behind the cache's back, which bumps its version
+        Topic foreign = new Topic.Builder(topic).withNumPartitions(5).build();
+        context.assertTrue(await(context, h -> zkStore.update(foreign, h)).succeeded());
+
+        // The update fails, rather than overwriting the other write
+        Topic updated = new Topic.Builder(topic).withNumPartitions(7).build();
+        context.assertTrue(await(context, h -> store.update(updated, h)).cause() instanceof ConcurrentWriteException);
+        context.assertEquals(foreign, read(context, zkStore, topic.getTopicName()));
+        // and the cache has the other write
+        context.assertEquals(foreign, read(context, store, topic.getTopicName()));
+
+        // Now the cache is up to date the update succeeds
+        context.assertTrue(await(context, h -> store.update(updated, h)).succeeded());
+        context.assertEquals(updated, read(context, zkStore, topic.getTopicName()));
+
+        // Likewise for delete
+        context.assertTrue(await(context, h -> zkStore.update(foreign, h)).succeeded());
+        context.assertTrue(await(context, h -> store.delete(topic.getTopicName(), h)).cause() instanceof ConcurrentWriteException);
+        context.assertEquals(foreign, read(context, zkStore, topic.getTopicName()));
+        context.assertTrue(await(context, h -> store.delete(topic.getTopicName(), h)).succeeded());
+        context.assertNull(read(context, zkStore, topic.getTopicName()));
+    }
+
+    private int znodeVersion(TestContext context, TopicName name) {
+        Async async = context.async();
+        Future<Integer> fut = Future.future();
+        zk.exists(ZkTopicStore.getTopicPath(name), ar -> {
+            fut.handle(ar.map(stat -> stat.getVersion()));
+            async.complete();
+        });
+        async.await();
+        return fut.result();
+    }
+
+    @Test
+    public void testUnchangedUpdateIsNotWritten(TestContext context) {
+        CachingTopicStore store = new CachingTopicStore(zk, zkStore);
+        context.assertTrue(await(context, store::start).succeeded());
+
+        Topic topic = new Topic.Builder("my_topic", 2, (short) 3, Collections.singletonMap("foo", "bar")).build();
+        context.assertTrue(await(context, h -> store.create(topic, h)).succeeded());
+        context.assertEquals(0, znodeVersion(context, topic.getTopicName()));
+
+        Topic same = new Topic.Builder("my_topic", 2, (short) 3, Collections.singletonMap("foo", "bar")).build();
+        context.assertTrue(await(context, h -> store.update(same, h)).succeeded());
+        context.assertEquals(0, znodeVersion(context, topic.getTopicName()));
+
+        Topic updated = new Topic.Builder(topic).withNumPartitions(3).build();
+        context.assertTrue(await(context, h -> store.update(updated, h)).succeeded());
+        context.assertEquals(1, znodeVersion(context, topic.getTopicName()));
+    }
+}
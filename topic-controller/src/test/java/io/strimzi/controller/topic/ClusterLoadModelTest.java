@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClusterLoadModelTest {
+
+    private static List<Node> nodes(String... racks) {
+        List<Node> result = new ArrayList<>();
+        for (int id = 0; id < racks.length; id++) {
+            result.add(new Node(id, "localhost", 9092, racks[id]));
+        }
+        return result;
+    }
+
+    /** A topic with one partition per given list of replicas, led by the first replica */
+    private static TopicDescription topic(String name, List<Node> nodes, List<Integer>... assignment) {
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int p = 0; p < assignment.length; p++) {
+            List<Node> replicas = new ArrayList<>();
+            for (Integer id : assignment[p]) {
+                replicas.add(nodes.get(id));
+            }
+            partitions.add(new TopicPartitionInfo(p, replicas.get(0), replicas, replicas));
+        }
+        return new TopicDescription(name, false, partitions);
+    }
+
+    @Test
+    public void testBuild() {
+        List<Node> nodes = nodes(null, null, null);
+        TopicDescription topic = topic("foo", nodes, asList(0, 1), asList(1, 2), asList(1, 0));
+        Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> logDirs = singletonMap(2,
+                singletonMap("/var/lib/kafka", new DescribeLogDirsResponse.LogDirInfo(Errors.NONE,
+                        singletonMap(new TopicPartition("foo", 1), new DescribeLogDirsResponse.ReplicaInfo(1000, 0, false)))));
+        ClusterLoadModel model = ClusterLoadModel.build(nodes, singletonList(topic), logDirs);
+        assertEquals(2, model.broker(0).replicas);
+        assertEquals(1, model.broker(0).leaders);
+        assertEquals(3, model.broker(1).replicas);
+        assertEquals(2, model.broker(1).leaders);
+        assertEquals(1, model.broker(2).replicas);
+        assertEquals(0, model.broker(2).leaders);
+        assertEquals(1000, model.broker(2).diskBytes);
+    }
+
+    @Test
+    public void testAssignEmptyClusterIsBalanced() {
+        ClusterLoadModel model = ClusterLoadModel.build(nodes(null, null, null), emptyList(), emptyMap());
+        Map<Integer, List<Integer>> assignment = model.assign(0, 6, 2);
+        assertEquals(6, assignment.size());
+        for (int broker = 0; broker < 3; broker++) {
+            assertEquals(4, model.broker(broker).replicas);
+            assertEquals(2, model.broker(broker).leaders);
+        }
+        for (List<Integer> replicas : assignment.values()) {
+            assertEquals(2, new HashSet<>(replicas).size());
+        }
+    }
+
+    @Test
+    public void testAssignAvoidsLoadedBrokers() {
+        List<Node> nodes = nodes(null, null, null);
+        ClusterLoadModel model = ClusterLoadModel.build(nodes,
+                singletonList(topic("foo", nodes, asList(0, 1), asList(0, 1), asList(1, 0))), emptyMap());
+        assertEquals(singletonMap(0, asList(2, 0)), model.assign(0, 1, 2));
+    }
+
+    @Test
+    public void testAssignAvoidsFullDisks() {
+        List<Node> nodes = nodes(null, null, null);
+        Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>> logDirs = singletonMap(1,
+                singletonMap("/var/lib/kafka", new DescribeLogDirsResponse.LogDirInfo(Errors.NONE,
+                        singletonMap(new TopicPartition("foo", 0), new DescribeLogDirsResponse.ReplicaInfo(1_000_000_000L, 0, false)))));
+        ClusterLoadModel model = ClusterLoadModel.build(nodes, emptyList(), logDirs);
+        Map<Integer, List<Integer>> assignment = model.assign(0, 2, 1);
+        for (List<Integer> replicas : assignment.values()) {
+            assertTrue(!replicas.contains(1));
+        }
+    }
+
+    @Test
+    public void testAssignIsRackDiverse() {
+        ClusterLoadModel model = ClusterLoadModel.build(nodes("a", "a", "b", "b", "c", "c"), emptyList(), emptyMap());
+        Map<Integer, List<Integer>> assignment = model.assign(0, 12, 3);
+        for (List<Integer> replicas : assignment.values()) {
+            Set<Integer> racks = new HashSet<>();
+            for (Integer broker : replicas) {
+                racks.add(broker / 2);
+            }
+            assertEquals(3, racks.size());
+        }
+    }
+
+    @Test
+    public void testAssignFromFirstPartition() {
+        ClusterLoadModel model = ClusterLoadModel.build(nodes(null, null), emptyList(), emptyMap());
+        assertEquals(asList(3, 4), new ArrayList<>(model.assign(3, 2, 1).keySet()));
+    }
+
+    @Test(expected = InvalidReplicationFactorException.class)
+    public void testAssignTooFewBrokers() {
+        ClusterLoadModel.build(nodes(null, null), emptyList(), emptyMap()).assign(0, 1, 3);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Future;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ConfigChangesWatcherTest {
+
+    private MockController controller;
+    private MockZk mockZk;
+    private ConfigChangesWatcher watcher;
+
+    @Before
+    public void setup() {
+        controller = new MockController();
+        mockZk = new MockZk();
+        mockZk.childrenResult = Future.succeededFuture(asList("config_change_0000000001", "config_change_0000000002"));
+        watcher = new ConfigChangesWatcher(controller);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testTopicName() {
+        assertEquals("foo", ConfigChangesWatcher.topicName(bytes("{\"version\":2,\"entity_path\":\"topics/foo\"}")));
+        assertEquals("foo", ConfigChangesWatcher.topicName(bytes("{\"version\":1,\"entity_type\":\"topics\",\"entity_name\":\"foo\"}")));
+        assertNull(ConfigChangesWatcher.topicName(bytes("{\"version\":2,\"entity_path\":\"brokers/0\"}")));
+        assertNull(ConfigChangesWatcher.topicName(bytes("{\"version\":1,\"entity_type\":\"clients\",\"entity_name\":\"foo\"}")));
+        assertNull(ConfigChangesWatcher.topicName(bytes("not json")));
+    }
+
+    @Test
+    public void testSequence() {
+        assertEquals(12L, ConfigChangesWatcher.sequence("config_change_0000000012"));
+        assertEquals(-1L, ConfigChangesWatcher.sequence("something_else"));
+    }
+
+    @Test
+    public void testExistingNotificationsIgnored() {
+        mockZk.dataResult = Future.succeededFuture(bytes("{\"version\":2,\"entity_path\":\"topics/foo\"}"));
+        watcher.start(mockZk);
+        // Kafka purging an old notification
+        mockZk.triggerChildren(Future.succeededFuture(asList("config_change_0000000002")));
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+
+    @Test
+    public void testNewNotification() {
+        watcher.start(mockZk);
+        mockZk.dataResult = Future.succeededFuture(bytes("{\"version\":2,\"entity_path\":\"topics/foo\"}"));
+        mockZk.triggerChildren(Future.succeededFuture(asList("config_change_0000000001", "config_change_0000000002",
+                "config_change_0000000003", "config_change_0000000004")));
+        // Two notifications for the same topic result in a single event
+        assertEquals(asList(new MockController.MockControllerEvent(
+                MockController.MockControllerEvent.Type.MODIFY_CONFIG, new TopicName("foo"))), controller.getMockControllerEvents());
+
+        // Notifications already seen are not processed again
+        controller.clearEvents();
+        mockZk.triggerChildren(Future.succeededFuture(asList("config_change_0000000003", "config_change_0000000004")));
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+
+    @Test
+    public void testNonTopicNotification() {
+        watcher.start(mockZk);
+        mockZk.dataResult = Future.succeededFuture(bytes("{\"version\":2,\"entity_path\":\"brokers/0\"}"));
+        mockZk.triggerChildren(Future.succeededFuture(asList("config_change_0000000003")));
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+
+    @Test
+    public void testNoPerTopicWatches() {
+        watcher.start(mockZk);
+        watcher.addChild("foo");
+        mockZk.dataResult = Future.succeededFuture(new byte[0]);
+        mockZk.triggerData(Future.succeededFuture(new byte[0]));
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+}
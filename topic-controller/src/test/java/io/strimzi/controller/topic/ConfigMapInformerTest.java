@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.dsl.Watchable;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class ConfigMapInformerTest {
+
+    private Vertx vertx;
+    private KubernetesClient mockClient;
+    private MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> mockConfigMaps;
+    private volatile Watcher<ConfigMap> watcher;
+    private final AtomicInteger watches = new AtomicInteger();
+    private final List<String> watchedResourceVersions = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    private static ConfigMap cm(String name, String resourceVersion, boolean labelled) {
+        return new ConfigMapBuilder().withNewMetadata()
+                .withName(name)
+                .withResourceVersion(resourceVersion)
+                .withLabels(labelled ? Collections.singletonMap("strimzi.io/kind", "topic") : Collections.emptyMap())
+                .endMetadata().build();
+    }
+
+    private static ConfigMapList list(String resourceVersion, ConfigMap... items) {
+        return new ConfigMapListBuilder().withNewMetadata().withResourceVersion(resourceVersion).endMetadata()
+                .withItems(items).build();
+    }
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        mockClient = mock(KubernetesClient.class);
+        mockConfigMaps = mock(MixedOperation.class);
+        when(mockClient.configMaps()).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.inNamespace(any())).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.withResourceVersion(anyString())).thenAnswer(versionInvocation -> {
+            Watchable<Watch, Watcher<ConfigMap>> watchable = mock(Watchable.class);
+            when(watchable.watch(any(Watcher.class))).thenAnswer(invocation -> {
+                watchedResourceVersions.add(versionInvocation.getArgument(0));
+                watcher = invocation.getArgument(0);
+                watches.incrementAndGet();
+                return mock(Watch.class);
+            });
+            return watchable;
+        });
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private ConfigMapInformer startInformer(TestContext context) {
+        ConfigMapInformer informer = new ConfigMapInformer(vertx, mockClient, new LabelPredicate("strimzi.io/kind", "topic"), "default", 10);
+        Async async = context.async();
+        informer.start(new Watcher<ConfigMap>() {
+            @Override
+            public void eventReceived(Action action, ConfigMap resource) {
+                events.add(action + " " + resource.getMetadata().getName());
+            }
+
+            @Override
+            public void onClose(KubernetesClientException cause) {
+            }
+        }, ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+        async.await();
+        return informer;
+    }
+
+    @Test
+    public void testListThenWatch(TestContext context) {
+        when(mockConfigMaps.list()).thenReturn(list("10", cm("foo", "1", true), cm("unrelated", "2", false)));
+        ConfigMapInformer informer = startInformer(context);
+
+        context.assertTrue(informer.isSynced());
+        // the watch starts from the version of the list
+        context.assertEquals(Collections.singletonList("10"), watchedResourceVersions);
+        context.assertEquals("foo", informer.get("foo").getMetadata().getName());
+        context.assertNotNull(informer.get("unrelated"));
+        context.assertEquals(1, informer.list().size());
+        context.assertEquals(2, events.size());
+
+        watcher.eventReceived(Watcher.Action.ADDED, cm("bar", "11", true));
+        watcher.eventReceived(Watcher.Action.MODIFIED, cm("unrelated", "12", true));
+        watcher.eventReceived(Watcher.Action.DELETED, cm("foo", "13", true));
+        context.assertNull(informer.get("foo"));
+        context.assertEquals("12", informer.get("unrelated").getMetadata().getResourceVersion());
+        context.assertEquals(2, informer.list().size());
+        context.assertEquals(5, events.size());
+    }
+
+    @Test
+    public void testCacheKeepsNewerVersion(TestContext context) {
+        when(mockConfigMaps.list()).thenReturn(list("10", cm("foo", "5", true)));
+        ConfigMapInformer informer = startInformer(context);
+
+        informer.cache(cm("foo", "4", false));
+        context.assertEquals("5", informer.get("foo").getMetadata().getResourceVersion());
+        context.assertEquals(1, informer.list().size());
+
+        informer.cache(cm("foo", "6", false));
+        context.assertEquals("6", informer.get("foo").getMetadata().getResourceVersion());
+        context.assertEquals(0, informer.list().size());
+
+        informer.uncache("foo");
+        context.assertNull(informer.get("foo"));
+    }
+
+    @Test
+    public void testDelayedEventDoesNotOverwriteNewerVersion(TestContext context) {
+        when(mockConfigMaps.list()).thenReturn(list("10", cm("foo", "5", true)));
+        ConfigMapInformer informer = startInformer(context);
+        events.clear();
+
+        // the controller writes through a newer version before the watch delivers an older modification
+        informer.cache(cm("foo", "8", true));
+        watcher.eventReceived(Watcher.Action.MODIFIED, cm("foo", "7", false));
+        context.assertEquals("8", informer.get("foo").getMetadata().getResourceVersion());
+        context.assertEquals(1, informer.list().size());
+        watcher.eventReceived(Watcher.Action.ADDED, cm("foo", "6", true));
+        context.assertEquals("8", informer.get("foo").getMetadata().getResourceVersion());
+        // a delayed deletion of an earlier incarnation doesn't remove the map either
+        watcher.eventReceived(Watcher.Action.DELETED, cm("foo", "7", true));
+        context.assertNotNull(informer.get("foo"));
+        context.assertTrue(events.isEmpty());
+
+        watcher.eventReceived(Watcher.Action.MODIFIED, cm("foo", "8", true));
+        watcher.eventReceived(Watcher.Action.MODIFIED, cm("foo", "9", false));
+        context.assertEquals("9", informer.get("foo").getMetadata().getResourceVersion());
+        context.assertEquals(0, informer.list().size());
+        watcher.eventReceived(Watcher.Action.DELETED, cm("foo", "10", false));
+        context.assertNull(informer.get("foo"));
+        context.assertEquals("[MODIFIED foo, MODIFIED foo, DELETED foo]", events.toString());
+    }
+
+    @Test
+    public void testRelistAfterWatchFailure(TestContext context) {
+        when(mockConfigMaps.list()).thenReturn(list("10", cm("foo", "1", true), cm("bar", "2", true), cm("baz", "3", true)));
+        ConfigMapInformer informer = startInformer(context);
+        events.clear();
+
+        // While the watch is down foo is modified, bar deleted and quux added
+        when(mockConfigMaps.list()).thenReturn(list("20", cm("foo", "15", true), cm("baz", "3", true), cm("quux", "16", true)));
+        watcher.onClose(new KubernetesClientException("Gone", 410, null));
+
+        Async async = context.async();
+        vertx.setPeriodic(10, timerId -> {
+            if (watches.get() == 2) {
+                vertx.cancelTimer(timerId);
+                async.complete();
+            }
+        });
+        async.await();
+
+        verify(mockConfigMaps, times(2)).list();
+        context.assertEquals(Arrays.asList("10", "20"), watchedResourceVersions);
+        context.assertEquals("15", informer.get("foo").getMetadata().getResourceVersion());
+        context.assertNull(informer.get("bar"));
+        context.assertNotNull(informer.get("quux"));
+        context.assertEquals(3, informer.list().size());
+        // Only the differences are passed on
+        Collections.sort(events);
+        context.assertEquals("[ADDED quux, DELETED bar, MODIFIED foo]", events.toString());
+    }
+}
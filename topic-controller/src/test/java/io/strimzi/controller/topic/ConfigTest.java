@@ -51,6 +51,8 @@ public class ConfigTest {
         Map<String, String> map = new HashMap<>(mandatory);
         Config c = new Config(map);
         assertEquals(20_000, c.get(Config.ZOOKEEPER_SESSION_TIMEOUT_MS).intValue());
+        // the load-aware placement of new partitions is opt-in
+        assertEquals(Config.ASSIGNMENT_STRATEGY_BROKER, c.get(Config.ASSIGNMENT_STRATEGY));
     }
 
     @Test
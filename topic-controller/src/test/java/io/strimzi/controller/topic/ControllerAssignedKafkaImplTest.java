@@ -14,272 +14,454 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package io.strimzi.controller.topic;
 
+import io.strimzi.controller.topic.zk.VersionedData;
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
-import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.InvalidReplicationFactorException;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @RunWith(VertxUnitRunner.class)
 public class ControllerAssignedKafkaImplTest {
 
-    private static Config config;
-
-    static {
-
-        Map<String, String> map = new HashMap<>();
-        map.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
-        map.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
-        map.put(Config.NAMESPACE.key, "default");
-        map.put(Config.REASSIGN_VERIFY_INTERVAL_MS.key, "1 seconds");
-        config = new Config(map);
-    }
+    private static final String TOPIC = "changeReplicationFactor";
+    private static final String TOPIC_CONFIG_PATH = "/config/topics/" + TOPIC;
 
     /**
-     * We subclass the class under test so that we can run our own executable
-     * rather than the real ReassignPartitionsCommand. This allows us to test
-     * various scenarios without needing ZK+Kafka clusters deployed.
+     * Just enough of an in-memory ZooKeeper for {@link PartitionReassignment}.
+     * All the handlers are called synchronously.
      */
-    static class Subclass extends ControllerAssignedKafkaImpl {
+    static class InMemoryZk implements Zk {
+
+        final Map<String, byte[]> nodes = new HashMap<>();
+        final Map<String, Integer> versions = new HashMap<>();
+        private final Map<String, Handler<AsyncResult<Stat>>> existsWatches = new HashMap<>();
+        private int sequence = 0;
+        Consumer<String> onCreate = path -> { };
 
-        static List<String> fail(String message) {
-            return asList("--fail", message);
+        String json(String path) {
+            return new String(nodes.get(path), StandardCharsets.UTF_8);
         }
 
-        static List<String> generate(String current, String propose) {
-            return asList("--generate-current", current, "--generate-propose", propose);
+        /** Delete the given node, as the Kafka controller would, and fire any exists watch */
+        void deleteNode(String path) {
+            nodes.remove(path);
+            versions.remove(path);
+            Handler<AsyncResult<Stat>> watch = existsWatches.get(path);
+            if (watch != null) {
+                watch.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.NONODE, path)));
+            }
         }
 
-        static List<String> executeStarted() {
-            return asList("--execute-started");
+        private Stat stat(String path) {
+            Stat stat = new Stat();
+            stat.setVersion(versions.get(path));
+            return stat;
         }
 
-        static List<String> verifyInProgress(String... partitions) {
-            List<String> result = new ArrayList(2*partitions.length);
-            for (String partition: partitions) {
-                result.add("--verify-in-progress");
-                result.add(partition);
+        @Override
+        public Zk create(String path, byte[] data, List<ACL> acls, CreateMode createMode, Handler<AsyncResult<Void>> handler) {
+            if (createMode.isSequential()) {
+                path = path + String.format("%010d", sequence++);
             }
-            return result;
+            if (nodes.containsKey(path)) {
+                handler.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.NODEEXISTS, path)));
+                return this;
+            }
+            nodes.put(path, data);
+            versions.put(path, 0);
+            onCreate.accept(path);
+            handler.handle(Future.succeededFuture());
+            return this;
+        }
+
+        @Override
+        public Zk delete(String path, int version, Handler<AsyncResult<Void>> handler) {
+            deleteNode(path);
+            handler.handle(Future.succeededFuture());
+            return this;
+        }
+
+        @Override
+        public Zk setData(String path, byte[] data, int version, Handler<AsyncResult<Void>> handler) {
+            setDataWithStat(path, data, version, ar -> handler.handle(ar.map((Void) null)));
+            return this;
         }
 
-        static List<String> verifySuccess(String... partitions) {
-            List<String> result = new ArrayList(2*partitions.length);
-            for (String partition: partitions) {
-                result.add("--verify-success");
-                result.add(partition);
+        @Override
+        public Zk setDataWithStat(String path, byte[] data, int version, Handler<AsyncResult<Stat>> handler) {
+            if (!nodes.containsKey(path)) {
+                handler.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.NONODE, path)));
+            } else if (version != -1 && version != versions.get(path)) {
+                handler.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.BADVERSION, path)));
+            } else {
+                nodes.put(path, data);
+                versions.put(path, versions.get(path) + 1);
+                handler.handle(Future.succeededFuture(stat(path)));
             }
-            return result;
+            return this;
         }
 
-        static List<String> verifyFail(String message) {
-            return asList("--verify-fail", message);
+        @Override
+        public Zk children(String path, Handler<AsyncResult<List<String>>> handler) {
+            throw new UnsupportedOperationException();
         }
 
-        static List<String> executeFail(String message) {
-            return asList("--execute-fail", message);
+        @Override
+        public Zk watchChildren(String path, Handler<AsyncResult<List<String>>> watcher) {
+            throw new UnsupportedOperationException();
         }
 
-        static List<String> executeInProgress() {
-            return asList("--execute-running");
+        @Override
+        public Zk unwatchChildren(String path) {
+            throw new UnsupportedOperationException();
         }
 
-        public static final String SCRIPT = "src/test/scripts/reassign.sh";
-        private final List<List<String>> args;
-        private final String script;
-        private int i = 0;
+        @Override
+        public Zk getData(String path, Handler<AsyncResult<byte[]>> handler) {
+            getDataWithStat(path, ar -> handler.handle(ar.map(VersionedData::data)));
+            return this;
+        }
 
-        public Subclass(AdminClient adminClient, Vertx vertx, Config config, List<List<String>> args) {
-            this(adminClient, vertx, config, SCRIPT, args);
+        @Override
+        public Zk getDataWithStat(String path, Handler<AsyncResult<VersionedData>> handler) {
+            if (nodes.containsKey(path)) {
+                handler.handle(Future.succeededFuture(new VersionedData(nodes.get(path), stat(path))));
+            } else {
+                handler.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.NONODE, path)));
+            }
+            return this;
         }
 
-        public Subclass(AdminClient adminClient, Vertx vertx, Config config, String script, List<List<String>> args) {
-            super(adminClient, vertx, config);
-            this.script = script;
-            this.args = args;
+        @Override
+        public Zk watchData(String path, Handler<AsyncResult<byte[]>> watcher) {
+            throw new UnsupportedOperationException();
         }
 
         @Override
-        protected void addJavaArgs(List<String> args) {
-            args.add(script);
-            args.addAll(this.args.get(i++));
+        public Zk unwatchData(String path) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Zk exists(String path, Handler<AsyncResult<Stat>> handler) {
+            if (nodes.containsKey(path)) {
+                handler.handle(Future.succeededFuture(stat(path)));
+            } else {
+                handler.handle(Future.failedFuture(KeeperException.create(KeeperException.Code.NONODE, path)));
+            }
+            return this;
+        }
+
+        @Override
+        public Zk watchExists(String path, Handler<AsyncResult<Stat>> watcher) {
+            existsWatches.put(path, watcher);
+            return this;
+        }
+
+        @Override
+        public Zk unwatchExists(String path) {
+            existsWatches.remove(path);
+            return this;
+        }
+
+        @Override
+        public Zk watchSession(Handler<Watcher.Event.KeeperState> watcher) {
+            return this;
+        }
+
+        @Override
+        public Zk disconnect() {
+            return this;
         }
     }
 
-    @Test
-    public void changeReplicationFactor_missingExecutable(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        final String doesNotExist = "/some/executable/that/does/not/exist";
-        Subclass sub = new Subclass(adminClient, vertx, config, doesNotExist, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
-        Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertFalse(ar.succeeded());
-            final String message = ar.cause().getMessage();
-            context.assertTrue(message.contains("lacks an executable arg[0]")
-                    && message.contains("/some/executable/that/does/not/exist"));
-            async.complete();
-        });
+    private Vertx vertx;
+    private InMemoryZk zk;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        zk = new InMemoryZk();
+        zk.nodes.put(TOPIC_CONFIG_PATH, "{\"version\":1,\"config\":{\"retention.ms\":\"1000\"}}".getBytes(StandardCharsets.UTF_8));
+        zk.versions.put(TOPIC_CONFIG_PATH, 0);
     }
 
-    @Test
-    public void changeReplicationFactor_notExecutable(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, "pom.xml", asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
-        Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertFalse(ar.succeeded());
-            final String message = ar.cause().getMessage();
-            context.assertTrue(message.contains("lacks an executable arg[0]")
-                && message.contains("pom.xml"));
-            async.complete();
-        });
+    @After
+    public void teardown() {
+        vertx.close();
     }
 
-    @Test
-    public void changeReplicationFactor(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
-        Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            context.assertTrue(ar.succeeded());
-            async.complete();
-        });
+    private static Config config(String throttle) {
+        Map<String, String> map = new HashMap<>();
+        map.put(Config.ZOOKEEPER_CONNECT.key, "localhost:2181");
+        map.put(Config.KAFKA_BOOTSTRAP_SERVERS.key, "localhost:9092");
+        map.put(Config.NAMESPACE.key, "default");
+        map.put(Config.REASSIGN_VERIFY_INTERVAL_MS.key, "1 seconds");
+        if (throttle != null) {
+            map.put(Config.REASSIGN_THROTTLE.key, throttle);
+        }
+        return new Config(map);
+    }
+
+    /** An AdminClient for a 3 broker cluster where each partition of the topic has a single replica on broker 0 */
+    private static MockAdminClient adminClient(int numPartitions) {
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        Node node = new Node(0, "localhost", -2);
+        for (int p = 0; p < numPartitions; p++) {
+            partitions.add(new TopicPartitionInfo(p, node, singletonList(node), singletonList(node)));
+        }
+        TopicDescription description = new TopicDescription(TOPIC, false, partitions);
+        return new MockAdminClient() {
+            @Override
+            public DescribeTopicsResult describeTopics(Collection<String> collection, DescribeTopicsOptions describeTopicsOptions) {
+                DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+                when(result.values()).thenReturn(singletonMap(TOPIC, KafkaFuture.completedFuture(description)));
+                return result;
+            }
+        };
+    }
+
+    private void changeReplicationFactor(ControllerAssignedKafkaImpl kafka, Topic topic, Handler<AsyncResult<Void>> handler) {
+        Context context = vertx.getOrCreateContext();
+        context.runOnContext(v -> kafka.changeReplicationFactor(topic, handler));
+    }
+
+    /** Complete the reassignment shortly after it has been started, as the Kafka controller would */
+    private void completeReassignmentWhenStarted() {
+        zk.onCreate = path -> {
+            if (PartitionReassignment.REASSIGN_PARTITIONS_PATH.equals(path)) {
+                vertx.setTimer(10, id -> zk.deleteNode(path));
+            }
+        };
     }
 
-    /**
-     * Test the case where an error happens during --verify execution.
-     * We should retry until we succeed (or (TODO) a timeout happens).
-     * We handle this differently from case of error in --execute because we need to ensure throttles get removed.
-     */
     @Test
-    public void changeReplicationFactor_TransientErrorInVerify(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.fail("Bang!"),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor(TestContext context) {
+        ControllerAssignedKafkaImpl kafka = new ControllerAssignedKafkaImpl(adminClient(2), vertx, config(null), zk);
+        Topic topic = new Topic.Builder(TOPIC, 2, (short) 2, emptyMap()).build();
+        List<String> reassignments = new ArrayList<>();
+        zk.onCreate = path -> {
+            if (PartitionReassignment.REASSIGN_PARTITIONS_PATH.equals(path)) {
+                reassignments.add(zk.json(path));
+                vertx.setTimer(10, id -> zk.deleteNode(path));
+            }
+        };
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            // We should retry anf ultimately succeed
+        changeReplicationFactor(kafka, topic, ar -> {
             context.assertTrue(ar.succeeded());
+            context.assertEquals(singletonList("{\"version\":1,\"partitions\":["
+                    + "{\"topic\":\"changeReplicationFactor\",\"partition\":0,\"replicas\":[0,1]},"
+                    + "{\"topic\":\"changeReplicationFactor\",\"partition\":1,\"replicas\":[0,2]}]}"), reassignments);
+            context.assertFalse(zk.nodes.containsKey(PartitionReassignment.REASSIGN_PARTITIONS_PATH));
+            // Unthrottled by default, so no config changes
+            context.assertEquals("{\"version\":1,\"config\":{\"retention.ms\":\"1000\"}}", zk.json(TOPIC_CONFIG_PATH));
             async.complete();
         });
     }
 
     @Test
-    public void changeReplicationFactor_ErrorInVerify(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifyFail("Bang!"),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor_Throttled(TestContext context) {
+        ControllerAssignedKafkaImpl kafka = new ControllerAssignedKafkaImpl(adminClient(2), vertx, config("1000"), zk);
+        Topic topic = new Topic.Builder(TOPIC, 2, (short) 2, emptyMap()).build();
+        zk.onCreate = path -> {
+            if (PartitionReassignment.REASSIGN_PARTITIONS_PATH.equals(path)) {
+                // Throttles have been set before the reassignment started
+                JsonObject topicConfig = new JsonObject(zk.json(TOPIC_CONFIG_PATH)).getJsonObject("config");
+                context.assertEquals("1000", topicConfig.getString("retention.ms"));
+                context.assertEquals("0:0,1:0", topicConfig.getString(PartitionReassignment.LEADER_THROTTLED_REPLICAS));
+                context.assertEquals("0:1,1:2", topicConfig.getString(PartitionReassignment.FOLLOWER_THROTTLED_REPLICAS));
+                for (int broker = 0; broker < 3; broker++) {
+                    JsonObject brokerConfig = new JsonObject(zk.json("/config/brokers/" + broker)).getJsonObject("config");
+                    context.assertEquals("1000", brokerConfig.getString(PartitionReassignment.LEADER_THROTTLED_RATE));
+                    context.assertEquals("1000", brokerConfig.getString(PartitionReassignment.FOLLOWER_THROTTLED_RATE));
+                }
+                vertx.setTimer(10, id -> zk.deleteNode(path));
+            }
+        };
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
-            // We should retry anf ultimately succeed
+        changeReplicationFactor(kafka, topic, ar -> {
             context.assertTrue(ar.succeeded());
+            // Throttles have been removed after the reassignment completed
+            context.assertEquals("{\"version\":1,\"config\":{\"retention.ms\":\"1000\"}}", zk.json(TOPIC_CONFIG_PATH));
+            for (int broker = 0; broker < 3; broker++) {
+                context.assertEquals("{\"version\":1,\"config\":{}}", zk.json("/config/brokers/" + broker));
+            }
+            // The brokers have been notified of each change
+            int notifications = 0;
+            for (String path : zk.nodes.keySet()) {
+                if (path.startsWith(PartitionReassignment.CONFIG_CHANGE_PATH)) {
+                    notifications++;
+                }
+            }
+            context.assertEquals(8, notifications);
             async.complete();
         });
     }
 
     /**
-     * Test the case where the --gexecute execution fails because a reassignment is currently running.
+     * Test the case where a reassignment is currently running.
      * We should give up and fail the handler, on the basis that we will retry later as a result of
      * periodic reconciliation.
      */
     @Test
     public void changeReplicationFactor_ExecuteInProgress(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeInProgress(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+        ControllerAssignedKafkaImpl kafka = new ControllerAssignedKafkaImpl(adminClient(2), vertx, config("1000"), zk);
+        Topic topic = new Topic.Builder(TOPIC, 2, (short) 2, emptyMap()).build();
+        zk.nodes.put(PartitionReassignment.REASSIGN_PARTITIONS_PATH, new byte[0]);
+        zk.versions.put(PartitionReassignment.REASSIGN_PARTITIONS_PATH, 0);
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
+        changeReplicationFactor(kafka, topic, ar -> {
             context.assertFalse(ar.succeeded());
+            context.assertTrue(ar.cause() instanceof TransientControllerException);
             context.assertEquals("Reassigment failed: There is an existing assignment running.", ar.cause().getMessage());
+            // The throttles of the running reassignment are left alone
+            context.assertFalse(zk.nodes.containsKey("/config/brokers/0"));
             async.complete();
         });
     }
 
-    /**
-     * Test the case where something goes wrong with the initial --generate execution.
-     * We should give up and fail the handler, on the basis that we will retry later as a result of
-     * periodic reconciliation.
-     */
     @Test
-    public void changeReplicationFactor_ExecuteFail(TestContext context) {
-        MockAdminClient adminClient = new MockAdminClient();
-        Vertx vertx = Vertx.vertx();
-        Topic topic = new Topic.Builder("changeReplicationFactor", 2, (short) 2, emptyMap()).build();
-        String[] partitions = new String[]{"changeReplicationFactor-0", "changeReplicationFactor-1"};
-        Subclass sub = new Subclass(adminClient, vertx, config, asList(
-                Subclass.generate("{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}",
-                        "{\"version\":1,\"partitions\":[{\"topic\":\"test-topic\",\"partition\":0,\"replicas\":[0],\"log_dirs\":[\"any\"]},{\"topic\":\"test-topic\",\"partition\":1,\"replicas\":[0],\"log_dirs\":[\"any\"]}]}"),
-                Subclass.executeFail("Bang!"),
-                Subclass.executeStarted(),
-                Subclass.verifyInProgress(partitions),
-                Subclass.verifySuccess(partitions)));
+    public void changeReplicationFactor_TooFewBrokers(TestContext context) {
+        ControllerAssignedKafkaImpl kafka = new ControllerAssignedKafkaImpl(adminClient(2), vertx, config(null), zk);
+        Topic topic = new Topic.Builder(TOPIC, 2, (short) 4, emptyMap()).build();
         Async async = context.async();
-        sub.changeReplicationFactor(topic, ar -> {
+        changeReplicationFactor(kafka, topic, ar -> {
             context.assertFalse(ar.succeeded());
-            context.assertTrue(ar.cause().getMessage().contains("Failed to reassign partitions"));
+            context.assertTrue(ar.cause() instanceof InvalidReplicationFactorException);
+            context.assertFalse(zk.nodes.containsKey(PartitionReassignment.REASSIGN_PARTITIONS_PATH));
             async.complete();
         });
     }
 
+    @Test
+    public void changeReplicationFactor_Unchanged(TestContext context) {
+        ControllerAssignedKafkaImpl kafka = new ControllerAssignedKafkaImpl(adminClient(2), vertx, config(null), zk);
+        Topic topic = new Topic.Builder(TOPIC, 2, (short) 1, emptyMap()).build();
+        completeReassignmentWhenStarted();
+        Async async = context.async();
+        changeReplicationFactor(kafka, topic, ar -> {
+            context.assertTrue(ar.succeeded());
+            context.assertFalse(zk.nodes.containsKey(PartitionReassignment.REASSIGN_PARTITIONS_PATH));
+            async.complete();
+        });
+    }
+
+    private static Map<Integer, List<Integer>> assignment(List<Integer>... replicas) {
+        Map<Integer, List<Integer>> result = new TreeMap<>();
+        for (int p = 0; p < replicas.length; p++) {
+            result.put(p, replicas[p]);
+        }
+        return result;
+    }
+
+    private static List<Node> brokers(String... racks) {
+        List<Node> result = new ArrayList<>();
+        for (int id = 0; id < racks.length; id++) {
+            result.add(new Node(id, "localhost", -2, racks[id]));
+        }
+        return result;
+    }
+
+    @Test
+    public void testProposeDecreaseKeepsPreferredLeader() {
+        Map<Integer, List<Integer>> proposed = PartitionReassignment.propose(
+                assignment(asList(2, 0, 1), asList(1, 2, 0)), brokers(null, null, null), 2);
+        assertEquals(assignment(asList(2, 0), asList(1, 2)), proposed);
+    }
+
+    @Test
+    public void testProposeIncreaseBalancesReplicas() {
+        Map<Integer, List<Integer>> proposed = PartitionReassignment.propose(
+                assignment(asList(0), asList(1), asList(2), asList(0)), brokers(null, null, null), 2);
+        assertEquals(assignment(asList(0, 1), asList(1, 2), asList(2, 0), asList(0, 1)), proposed);
+        Map<Integer, Integer> load = new HashMap<>();
+        for (List<Integer> replicas : proposed.values()) {
+            for (Integer broker : replicas) {
+                load.merge(broker, 1, Integer::sum);
+            }
+        }
+        assertEquals(3, load.get(0).intValue());
+        assertEquals(3, load.get(1).intValue());
+        assertEquals(2, load.get(2).intValue());
+    }
+
+    @Test
+    public void testProposeIncreaseIsRackAware() {
+        // Brokers 0 and 1 share a rack, so the new replica of a partition on broker 0 should go on broker 2
+        Map<Integer, List<Integer>> proposed = PartitionReassignment.propose(
+                assignment(asList(0)), brokers("a", "a", "b"), 2);
+        assertEquals(assignment(asList(0, 2)), proposed);
+    }
+
+    @Test(expected = InvalidReplicationFactorException.class)
+    public void testProposeTooFewBrokers() {
+        PartitionReassignment.propose(assignment(asList(0)), brokers(null, null), 3);
+    }
+
+    @Test
+    public void testNewPartitionAssignmentsAreInPartitionOrder() {
+        Map<Integer, List<Integer>> assignment = new LinkedHashMap<>();
+        assignment.put(4, asList(2, 0));
+        assignment.put(2, asList(0, 1));
+        assignment.put(3, asList(1, 2));
+        assertEquals(asList(asList(0, 1), asList(1, 2), asList(2, 0)),
+                ControllerAssignedKafkaImpl.newPartitionAssignments(assignment, 2, 5));
+    }
+
+    @Test
+    public void testNewPartitionAssignmentsMustCoverExactlyTheNewPartitions() {
+        // the wrong partitions, or the wrong number of them
+        assertNull(ControllerAssignedKafkaImpl.newPartitionAssignments(assignment(asList(0), asList(1), asList(2)), 2, 5));
+        Map<Integer, List<Integer>> assignment = new HashMap<>();
+        assignment.put(2, asList(0));
+        assignment.put(3, asList(1));
+        assertNull(ControllerAssignedKafkaImpl.newPartitionAssignments(assignment, 2, 3));
+        assertNull(ControllerAssignedKafkaImpl.newPartitionAssignments(assignment, 3, 5));
+        // unknown current count, or not an increase
+        assertNull(ControllerAssignedKafkaImpl.newPartitionAssignments(assignment, null, 4));
+        assertNull(ControllerAssignedKafkaImpl.newPartitionAssignments(emptyMap(), 4, 4));
+    }
 }
@@ -109,8 +109,8 @@ public class ControllerIntegrationTest {
         }
     };
     private final long timeout = 60_000L;
-    private volatile TopicConfigsWatcher topicsConfigWatcher;
-    private volatile TopicWatcher topicWatcher;
+    private volatile ZkWatcher topicsConfigWatcher;
+    private volatile ZkWatcher topicWatcher;
 
     private Session session;
     private volatile String deploymentId;
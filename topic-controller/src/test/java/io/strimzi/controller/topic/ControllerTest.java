@@ -686,6 +686,55 @@ public class ControllerTest {
         });
     }
 
+    /**
+     * Test that a 3 way merge whose topic store write conflicts with a concurrent write
+     * fails, rather than overwriting the other write, and that the topic is then reconciled again.
+     */
+    @Test
+    public void testReconcile_withCm_withKafka_withPrivate_concurrentStoreWrite(TestContext context) {
+        Topic kubeTopic = new Topic.Builder(topicName, mapName, 10, (short)2, map("cleanup.policy", "bar")).build();
+        Topic kafkaTopic = new Topic.Builder(topicName, mapName, 12, (short)2, map("cleanup.policy", "baz")).build();
+        Topic privateTopic = new Topic.Builder(topicName, mapName, 10, (short)2, map("cleanup.policy", "baz")).build();
+        Topic resultTopic = new Topic.Builder(topicName, mapName, 12, (short)2, map("cleanup.policy", "bar")).build();
+
+        Async async0 = context.async(3);
+        mockKafka.setCreateTopicResponse(topicName -> Future.succeededFuture());
+        mockKafka.createTopic(kafkaTopic, ar -> async0.countDown());
+        mockKafka.setUpdateTopicResponse(topicName -> Future.succeededFuture());
+        mockKafka.setTopicMetadataResponse(topicName, getTopicMetadata(resultTopic), null);
+
+        ConfigMap cm = TopicSerialization.toConfigMap(kubeTopic, cmPredicate);
+        mockK8s.setCreateResponse(topicName.asMapName(), null);
+        mockK8s.createConfigMap(cm, ar -> async0.countDown());
+        mockK8s.setModifyResponse(topicName.asMapName(), null);
+        mockTopicStore.setCreateTopicResponse(topicName, null);
+        mockTopicStore.create(privateTopic, ar -> async0.countDown());
+        async0.await();
+
+        mockTopicStore.setUpdateTopicResponse(topicName, new ConcurrentWriteException("Modified by someone else"));
+        Async async = context.async();
+        controller.reconcile(cm, kubeTopic, kafkaTopic, privateTopic, reconcileResult -> {
+            assertFailed(context, reconcileResult);
+            context.assertTrue(reconcileResult.cause() instanceof ConcurrentWriteException);
+            // The conflicting write was not retried
+            mockTopicStore.assertContains(context, privateTopic);
+            mockTopicStore.setUpdateTopicResponse(topicName, null);
+            async.complete();
+        });
+        async.await();
+
+        // The requeued reconciliation completes the merge against the current state
+        Async requeued = context.async();
+        vertx.setPeriodic(10, timerId -> {
+            mockTopicStore.read(topicName, readResult -> {
+                if (resultTopic.equals(readResult.result())) {
+                    vertx.cancelTimer(timerId);
+                    requeued.complete();
+                }
+            });
+        });
+    }
+
     // TODO 3way reconcilation where kafka and kube agree
     // TODO 3way reconcilation where all three agree
     // TODO 3way reconcilation with conflict
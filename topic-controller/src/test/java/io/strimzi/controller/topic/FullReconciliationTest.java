@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.strimzi.controller.topic;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class FullReconciliationTest {
+
+    private final LabelPredicate cmPredicate = new LabelPredicate("kind", "topic");
+
+    private Vertx vertx;
+    private MockKafka mockKafka;
+    private MockK8s mockK8s;
+    private MockTopicStore mockTopicStore;
+    private Controller controller;
+    private final List<String> reconciled = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        mockKafka = new MockKafka();
+        mockK8s = new MockK8s();
+        mockTopicStore = new MockTopicStore();
+        controller = mock(Controller.class);
+        when(controller.owns(any())).thenReturn(true);
+        doAnswer(invocation -> {
+            TopicName topicName = invocation.getArgument(1);
+            Handler<AsyncResult<Void>> handler = invocation.getArgument(2);
+            reconciled.add(topicName.toString());
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            vertx.setTimer(5, timerId -> {
+                concurrent.decrementAndGet();
+                handler.handle(Future.succeededFuture());
+            });
+            return null;
+        }).when(controller).reconcile(any(), any(), any());
+    }
+
+    @After
+    public void teardown() {
+        vertx.close();
+    }
+
+    private void addConfigMap(Topic topic) {
+        ConfigMap cm = TopicSerialization.toConfigMap(topic, cmPredicate);
+        mockK8s.setCreateResponse(new MapName(cm), null);
+        mockK8s.createConfigMap(cm, ar -> { });
+    }
+
+    private void addToStore(Topic topic) {
+        mockTopicStore.setCreateTopicResponse(topic.getTopicName(), null);
+        mockTopicStore.create(topic, ar -> { });
+    }
+
+    private void addToKafka(Topic topic) {
+        List<Node> nodes = new ArrayList<>();
+        for (int nodeId = 0; nodeId < topic.getNumReplicas(); nodeId++) {
+            nodes.add(new Node(nodeId, "localhost", 9092 + nodeId));
+        }
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int partitionId = 0; partitionId < topic.getNumPartitions(); partitionId++) {
+            partitions.add(new TopicPartitionInfo(partitionId, nodes.get(0), nodes, nodes));
+        }
+        List<ConfigEntry> configs = new ArrayList<>();
+        for (Map.Entry<String, String> entry : topic.getConfig().entrySet()) {
+            configs.add(new ConfigEntry(entry.getKey(), entry.getValue()));
+        }
+        mockKafka.setTopicMetadataResponse(topic.getTopicName(),
+                new TopicMetadata(new TopicDescription(topic.getTopicName().toString(), false, partitions), new Config(configs)),
+                null);
+    }
+
+    private void run(TestContext context, FullReconciliation reconciliation) {
+        Async async = context.async();
+        reconciliation.run("test", ar -> {
+            context.assertTrue(ar.succeeded());
+            async.complete();
+        });
+        async.await();
+    }
+
+    @Test
+    public void testOnlyDifferencesAreReconciled(TestContext context) {
+        Topic same = new Topic.Builder("same", 1, (short) 1, Collections.emptyMap()).build();
+        Topic differs = new Topic.Builder("differs", 1, (short) 1, Collections.emptyMap()).build();
+        Topic kafkaDiffers = new Topic.Builder("kafka-differs", 1, (short) 1, Collections.emptyMap()).build();
+        // In all three and identical
+        addConfigMap(same);
+        addToStore(same);
+        addToKafka(same);
+        // In all three, but the ConfigMap differs from the store
+        addConfigMap(new Topic.Builder(differs).withNumPartitions(2).build());
+        addToStore(differs);
+        addToKafka(differs);
+        // In all three, but the topic was changed directly in Kafka
+        addConfigMap(kafkaDiffers);
+        addToStore(kafkaDiffers);
+        addToKafka(new Topic.Builder(kafkaDiffers).withConfigEntry("retention.ms", "1000").build());
+        // Only in k8s
+        addConfigMap(new Topic.Builder("k8s-only", 1, (short) 1, Collections.emptyMap()).build());
+        // Only in the store
+        addToStore(new Topic.Builder("store-only", 1, (short) 1, Collections.emptyMap()).build());
+        // kafka-only is only in Kafka
+        mockKafka.setTopicsList(new HashSet<>(asList("same", "differs", "kafka-differs", "kafka-only")));
+
+        FullReconciliation reconciliation = new FullReconciliation(vertx, mockKafka, mockK8s, mockTopicStore, controller, 2);
+        run(context, reconciliation);
+
+        Collections.sort(reconciled);
+        context.assertEquals(asList("differs", "k8s-only", "kafka-differs", "kafka-only", "store-only"), reconciled);
+        context.assertEquals(1L, reconciliation.passes());
+        context.assertEquals(6, reconciliation.lastPassTopics());
+        context.assertEquals(5, reconciliation.lastPassReconciled());
+        context.assertEquals(0, reconciliation.lastPassSkipped());
+        context.assertTrue(reconciliation.lastPassDurationMs() >= 0);
+    }
+
+    @Test
+    public void testInflightTopicsAreSkipped(TestContext context) {
+        when(controller.isWorkInflight(new TopicName("busy"))).thenReturn(true);
+        mockKafka.setTopicsList(new HashSet<>(asList("busy", "idle")));
+
+        FullReconciliation reconciliation = new FullReconciliation(vertx, mockKafka, mockK8s, mockTopicStore, controller, 2);
+        run(context, reconciliation);
+
+        context.assertEquals(asList("idle"), reconciled);
+        context.assertEquals(1, reconciliation.lastPassSkipped());
+    }
+
+    @Test
+    public void testConcurrencyIsBounded(TestContext context) {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("topic-" + i);
+        }
+        mockKafka.setTopicsList(new HashSet<>(names));
+
+        FullReconciliation reconciliation = new FullReconciliation(vertx, mockKafka, mockK8s, mockTopicStore, controller, 3);
+        run(context, reconciliation);
+
+        context.assertEquals(100, reconciled.size());
+        context.assertTrue(maxConcurrent.get() <= 3, "Max concurrency was " + maxConcurrent.get());
+    }
+
+    @Test
+    public void testPassesDoNotPileUp(TestContext context) {
+        mockKafka.setTopicsList(new HashSet<>(asList("foo", "bar")));
+        FullReconciliation reconciliation = new FullReconciliation(vertx, mockKafka, mockK8s, mockTopicStore, controller, 1);
+
+        Async async = context.async(2);
+        reconciliation.run("first", ar -> async.countDown());
+        // The first pass's reconciliations are still outstanding
+        reconciliation.run("second", ar -> async.countDown());
+        async.await();
+
+        context.assertEquals(1L, reconciliation.skippedPasses());
+        context.assertEquals(2, reconciled.size());
+    }
+
+    @Test
+    public void testQueuedPassFollowsRunningOne(TestContext context) {
+        mockKafka.setTopicsList(new HashSet<>(asList("foo", "bar")));
+        FullReconciliation reconciliation = new FullReconciliation(vertx, mockKafka, mockK8s, mockTopicStore, controller, 1);
+
+        Async async = context.async(3);
+        reconciliation.run("first", ar -> async.countDown());
+        // A topic is gained while the first pass is still running, so it needs another pass
+        mockKafka.setTopicsList(new HashSet<>(asList("foo", "bar", "baz")));
+        reconciliation.runOrQueue("rebalance", ar -> async.countDown());
+        reconciliation.runOrQueue("rebalance", ar -> async.countDown());
+        async.await();
+
+        context.assertEquals(0L, reconciliation.skippedPasses());
+        context.assertEquals(2L, reconciliation.passes());
+        context.assertEquals(5, reconciled.size());
+        context.assertTrue(reconciled.contains("baz"));
+    }
+}
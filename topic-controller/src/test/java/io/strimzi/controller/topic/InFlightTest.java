@@ -17,6 +17,7 @@
 
 package io.strimzi.controller.topic;
 
+import io.vertx.core.Context;
 import io.vertx.core.Vertx;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
@@ -27,6 +28,12 @@ import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
 @RunWith(VertxUnitRunner.class)
 public class InFlightTest {
 
@@ -42,6 +49,22 @@ public class InFlightTest {
         inflight.enqueue("test", ignored->async.complete(), fut->fut.complete());
     }
 
+    @Test
+    public void testActionsRunOnGivenContext(TestContext context) {
+        Context partitionContext = vertx.getOrCreateContext();
+        InFlight<String> inflight = new InFlight(vertx, partitionContext);
+        Async async = context.async(2);
+        // Enqueue from a different context
+        vertx.getOrCreateContext().runOnContext(v -> {
+            for (String key : asList("foo", "bar")) {
+                inflight.enqueue(key, ignored -> async.countDown(), fut -> {
+                    context.assertEquals(partitionContext, Vertx.currentContext());
+                    fut.complete();
+                });
+            }
+        });
+    }
+
     @Test
     public void testTwoTasks(TestContext context) {
         Async bothEnqueued = context.async();
@@ -134,4 +157,59 @@ public class InFlightTest {
         testTwoTasks(context);
         testTwoTasks(context);
     }
+
+    @Test
+    public void testMergeableTasksAreCoalesced(TestContext context) {
+        InFlight<String> inflight = new InFlight(vertx);
+        Async firstRunning = context.async();
+        Async releaseFirst = context.async();
+        Async allHandled = context.async(5);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+        inflight.enqueue("test", true, ar -> allHandled.countDown(), fut -> {
+            ran.add("first");
+            firstRunning.complete();
+            vertx.executeBlocking(blocking -> {
+                releaseFirst.await();
+                blocking.complete();
+            }, ar -> fut.complete());
+        });
+        firstRunning.await();
+        // While the first is running these all collapse into a single pending task...
+        for (String name : asList("second", "third", "fourth")) {
+            inflight.enqueue("test", true, ar -> {
+                context.assertTrue(ar.succeeded());
+                allHandled.countDown();
+            }, fut -> {
+                ran.add(name);
+                fut.complete();
+            });
+        }
+        // ...but a non-mergeable task is queued after it, and isn't merged into
+        inflight.enqueue("test", false, ar -> allHandled.countDown(), fut -> {
+            ran.add("fifth");
+            fut.complete();
+        });
+        releaseFirst.complete();
+        allHandled.await();
+
+        context.assertEquals(asList("first", "fourth", "fifth"), ran);
+        context.assertEquals(2L, inflight.coalesced());
+    }
+
+    @Test
+    public void testNonMergeableTasksAreNotCoalesced(TestContext context) {
+        InFlight<String> inflight = new InFlight(vertx);
+        Async allHandled = context.async(3);
+        List<String> ran = Collections.synchronizedList(new ArrayList<>());
+        for (String name : asList("first", "second", "third")) {
+            inflight.enqueue("test", ar -> allHandled.countDown(), fut -> {
+                ran.add(name);
+                fut.complete();
+            });
+        }
+        allHandled.await();
+        context.assertEquals(asList("first", "second", "third"), ran);
+        context.assertEquals(0L, inflight.coalesced());
+    }
 }
@@ -18,6 +18,7 @@
 package io.strimzi.controller.topic;
 
 import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMapList;
 import io.fabric8.kubernetes.api.model.ConfigMapListBuilder;
 import io.fabric8.kubernetes.api.model.DoneableConfigMap;
@@ -33,9 +34,13 @@ import org.junit.runner.RunWith;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -70,4 +75,73 @@ public class K8sImplTest {
             async.complete();
         });
     }
+
+    @Test
+    public void testSlowCallDoesNotBlockOtherCalls(TestContext context) {
+        Async async = context.async(2);
+
+        KubernetesClient mockClient = mock(KubernetesClient.class);
+        MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> mockConfigMaps = mock(MixedOperation.class);
+        Resource<ConfigMap, DoneableConfigMap> slow = mock(Resource.class);
+        Resource<ConfigMap, DoneableConfigMap> fast = mock(Resource.class);
+        when(mockClient.configMaps()).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.inNamespace(any())).thenReturn(mockConfigMaps);
+        when(mockConfigMaps.withName(eq("slow"))).thenReturn(slow);
+        when(mockConfigMaps.withName(eq("fast"))).thenReturn(fast);
+        CountDownLatch fastDone = new CountDownLatch(1);
+        // The slow get only returns once the fast one, issued after it, has run
+        when(slow.get()).thenAnswer(invocation -> {
+            if (!fastDone.await(10, TimeUnit.SECONDS)) {
+                throw new RuntimeException("Fast get was held up by the slow one");
+            }
+            return null;
+        });
+        when(fast.get()).thenAnswer(invocation -> {
+            fastDone.countDown();
+            return null;
+        });
+
+        K8sImpl k8s = new K8sImpl(vertx, mockClient, null, new LabelPredicate("foo", "bar"), "default", 2);
+
+        k8s.getFromName(new MapName("slow"), ar -> {
+            context.assertTrue(ar.succeeded());
+            async.countDown();
+        });
+        k8s.getFromName(new MapName("fast"), ar -> {
+            context.assertTrue(ar.succeeded());
+            async.countDown();
+        });
+        async.await();
+        k8s.close();
+    }
+
+    @Test
+    public void testIsUnchanged() {
+        ConfigMap current = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName("my-topic")
+                    .withResourceVersion("42")
+                    .addToLabels("foo", "bar")
+                    .addToLabels("added-by", "someone-else")
+                .endMetadata()
+                .addToData("name", "my-topic")
+                .addToData("partitions", "1")
+                .build();
+        ConfigMap desired = new ConfigMapBuilder()
+                .withNewMetadata()
+                    .withName("my-topic")
+                    .addToLabels("foo", "bar")
+                .endMetadata()
+                .addToData("name", "my-topic")
+                .addToData("partitions", "1")
+                .build();
+        // Other labels and the metadata the server maintains don't count
+        assertTrue(K8sImpl.isUnchanged(current, desired));
+
+        ConfigMap moreLabels = new ConfigMapBuilder(desired).editMetadata().addToLabels("fruit", "apple").endMetadata().build();
+        assertFalse(K8sImpl.isUnchanged(current, moreLabels));
+
+        ConfigMap otherData = new ConfigMapBuilder(desired).addToData("partitions", "2").build();
+        assertFalse(K8sImpl.isUnchanged(current, otherData));
+    }
 }
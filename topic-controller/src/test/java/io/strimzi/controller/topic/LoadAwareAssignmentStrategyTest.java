@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.kafka.clients.admin.DescribeLogDirsOptions;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsOptions;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(VertxUnitRunner.class)
+public class LoadAwareAssignmentStrategyTest {
+
+    private final AtomicInteger listTopicsCalls = new AtomicInteger();
+    private final Map<String, TopicDescription> topics = new HashMap<>();
+    private Vertx vertx;
+
+    @Before
+    public void setup(TestContext context) {
+        vertx = Vertx.vertx();
+        vertx.exceptionHandler(context.exceptionHandler());
+        // a 3 broker cluster with an existing topic whose 3 partitions are all on broker 0
+        Node node = new Node(0, "localhost", -2);
+        List<TopicPartitionInfo> partitions = new ArrayList<>();
+        for (int p = 0; p < 3; p++) {
+            partitions.add(new TopicPartitionInfo(p, node, singletonList(node), singletonList(node)));
+        }
+        topics.put("existing", new TopicDescription("existing", false, partitions));
+    }
+
+    @After
+    public void teardown(TestContext context) {
+        vertx.close(context.asyncAssertSuccess());
+    }
+
+    private MockAdminClient adminClient() {
+        return new MockAdminClient() {
+            @Override
+            public ListTopicsResult listTopics(ListTopicsOptions listTopicsOptions) {
+                listTopicsCalls.incrementAndGet();
+                ListTopicsResult result = mock(ListTopicsResult.class);
+                when(result.names()).thenReturn(KafkaFuture.completedFuture(new HashSet<>(topics.keySet())));
+                return result;
+            }
+
+            @Override
+            public DescribeTopicsResult describeTopics(Collection<String> names, DescribeTopicsOptions describeTopicsOptions) {
+                Map<String, KafkaFuture<TopicDescription>> values = new HashMap<>();
+                Map<String, TopicDescription> all = new HashMap<>();
+                for (String name : names) {
+                    KafkaFutureImpl<TopicDescription> future = new KafkaFutureImpl<>();
+                    if (topics.containsKey(name)) {
+                        future.complete(topics.get(name));
+                        all.put(name, topics.get(name));
+                    } else {
+                        future.completeExceptionally(new UnknownTopicOrPartitionException(name));
+                    }
+                    values.put(name, future);
+                }
+                DescribeTopicsResult result = mock(DescribeTopicsResult.class);
+                when(result.values()).thenReturn(values);
+                when(result.all()).thenReturn(KafkaFuture.completedFuture(all));
+                return result;
+            }
+
+            @Override
+            public DescribeLogDirsResult describeLogDirs(Collection<Integer> brokers, DescribeLogDirsOptions describeLogDirsOptions) {
+                KafkaFutureImpl<Map<Integer, Map<String, DescribeLogDirsResponse.LogDirInfo>>> future = new KafkaFutureImpl<>();
+                future.completeExceptionally(new UnsupportedOperationException());
+                DescribeLogDirsResult result = mock(DescribeLogDirsResult.class);
+                when(result.all()).thenReturn(future);
+                return result;
+            }
+        };
+    }
+
+    private static Topic topic(String name, int partitions) {
+        return new Topic.Builder(name, partitions, (short) 1, Collections.emptyMap()).build();
+    }
+
+    @Test
+    public void testConcurrentAssignmentsAreReserved(TestContext context) {
+        LoadAwareAssignmentStrategy strategy = new LoadAwareAssignmentStrategy(adminClient(), vertx, 60_000);
+        List<Future> futures = new ArrayList<>();
+        for (String name : asList("t1", "t2")) {
+            Future<Map<Integer, List<Integer>>> future = Future.future();
+            strategy.assign(topic(name, 1), future.completer());
+            futures.add(future);
+        }
+
+        Async async = context.async();
+        CompositeFuture.all(futures).setHandler(context.asyncAssertSuccess(v -> {
+            Set<Integer> brokers = new HashSet<>();
+            for (Future<Map<Integer, List<Integer>>> future : futures) {
+                brokers.addAll(future.result().get(0));
+            }
+            // each assignment sees the other, so they don't pile onto the same broker
+            context.assertEquals(new HashSet<>(asList(1, 2)), brokers);
+            // both waited for a single build of the model
+            context.assertEquals(1, listTopicsCalls.get());
+            async.complete();
+        }));
+    }
+
+    @Test
+    public void testModelIsReusedUntilRefresh(TestContext context) {
+        LoadAwareAssignmentStrategy strategy = new LoadAwareAssignmentStrategy(adminClient(), vertx, 60_000);
+        Async async = context.async();
+        strategy.assign(topic("t1", 1), context.asyncAssertSuccess(first ->
+            strategy.assign(topic("t2", 1), context.asyncAssertSuccess(second -> {
+                context.assertEquals(1, listTopicsCalls.get());
+                context.assertNotEquals(first.get(0), second.get(0));
+                async.complete();
+            }))));
+    }
+
+    @Test
+    public void testModelIsRebuiltAfterRefreshInterval(TestContext context) {
+        LoadAwareAssignmentStrategy strategy = new LoadAwareAssignmentStrategy(adminClient(), vertx, 0);
+        Async async = context.async();
+        strategy.assign(topic("t1", 1), context.asyncAssertSuccess(first ->
+            strategy.assign(topic("t2", 1), context.asyncAssertSuccess(second -> {
+                context.assertEquals(2, listTopicsCalls.get());
+                async.complete();
+            }))));
+    }
+
+    @Test
+    public void testIncreasePartitions(TestContext context) {
+        LoadAwareAssignmentStrategy strategy = new LoadAwareAssignmentStrategy(adminClient(), vertx, 60_000);
+        Async async = context.async();
+        strategy.assign(topic("existing", 5), context.asyncAssertSuccess(assignment -> {
+            // only the 2 new partitions are assigned, away from the loaded broker
+            context.assertEquals(new HashSet<>(asList(3, 4)), assignment.keySet());
+            for (List<Integer> replicas : assignment.values()) {
+                context.assertNotEquals(singletonList(0), replicas);
+            }
+            async.complete();
+        }));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    @Test
+    public void testHistogram() {
+        Metrics metrics = new Metrics();
+        Metrics.Histogram histogram = metrics.histogram("test_seconds", "A test histogram",
+                new double[]{0.1, 1}, "op");
+        histogram.labels("a").observe(0.05);
+        histogram.labels("a").observe(0.1);
+        histogram.labels("a").observe(0.5);
+        histogram.labels("a").observe(5);
+        assertEquals("# HELP test_seconds A test histogram\n"
+                + "# TYPE test_seconds histogram\n"
+                + "test_seconds_bucket{op=\"a\",le=\"0.1\"} 2\n"
+                + "test_seconds_bucket{op=\"a\",le=\"1.0\"} 3\n"
+                + "test_seconds_bucket{op=\"a\",le=\"+Inf\"} 4\n"
+                + "test_seconds_sum{op=\"a\"} 5.65\n"
+                + "test_seconds_count{op=\"a\"} 4\n",
+                metrics.scrape());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHistogramWrongLabels() {
+        new Metrics().histogram("test_seconds", "A test histogram", new double[]{1}, "op").labels("a", "b");
+    }
+
+    @Test
+    public void testCountersAndGauges() {
+        Metrics metrics = new Metrics();
+        Metrics.Counter counter = metrics.counter("test_total", "A test counter");
+        counter.inc();
+        counter.inc();
+        metrics.gauge("test_gauge", "A test gauge", () -> 1.5);
+        Map<String, Number> values = new LinkedHashMap<>();
+        values.put("x\"y", 3L);
+        metrics.counter("test_labelled_total", "A labelled\ncounter", "kind", () -> values);
+        assertEquals("# HELP test_gauge A test gauge\n"
+                + "# TYPE test_gauge gauge\n"
+                + "test_gauge 1.5\n"
+                + "# HELP test_labelled_total A labelled\\ncounter\n"
+                + "# TYPE test_labelled_total counter\n"
+                + "test_labelled_total{kind=\"x\\\"y\"} 3\n"
+                + "# HELP test_total A test counter\n"
+                + "# TYPE test_total counter\n"
+                + "test_total 2\n",
+                metrics.scrape());
+        metrics.remove("test_total");
+        assertFalse(metrics.scrape().contains("test_total "));
+    }
+
+    @Test
+    public void testMeteredProxy() {
+        Metrics metrics = new Metrics();
+        Metrics.Histogram histogram = metrics.histogram("op_seconds", "Operations",
+                Metrics.LATENCY_BUCKETS, "component", "operation", "result");
+        TopicName ok = new TopicName("ok");
+        TopicName bad = new TopicName("bad");
+        MockKafka mockKafka = new MockKafka()
+                .setDeleteTopicResponse(ok, null)
+                .setDeleteTopicResponse(bad, new Exception());
+        Kafka kafka = MeteredProxy.create(Kafka.class, mockKafka, histogram, "kafka");
+
+        AtomicBoolean called = new AtomicBoolean();
+        kafka.deleteTopic(ok, ar -> called.set(ar.succeeded()));
+        assertTrue(called.get());
+        kafka.deleteTopic(bad, ar -> called.set(ar.succeeded()));
+        assertFalse(called.get());
+
+        String scrape = metrics.scrape();
+        assertTrue(scrape, scrape.contains(
+                "op_seconds_count{component=\"kafka\",operation=\"deleteTopic\",result=\"success\"} 1\n"));
+        assertTrue(scrape, scrape.contains(
+                "op_seconds_count{component=\"kafka\",operation=\"deleteTopic\",result=\"failure\"} 1\n"));
+    }
+
+    @Test
+    public void testFormatValue() {
+        assertEquals("3", Metrics.formatValue(3.0));
+        assertEquals("0.25", Metrics.formatValue(0.25));
+        assertEquals("+Inf", Metrics.formatValue(Double.POSITIVE_INFINITY));
+        assertEquals("NaN", Metrics.formatValue(Double.NaN));
+    }
+}
@@ -24,6 +24,7 @@ import io.vertx.ext.unit.TestContext;
 import org.apache.kafka.clients.admin.NewTopic;
 
 import java.lang.reflect.Field;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -39,6 +40,8 @@ public class MockKafka implements Kafka {
     private AsyncResult<Set<String>> topicsListResponse = Future.succeededFuture(Collections.emptySet());
     private Function<TopicName, AsyncResult<TopicMetadata>> topicMetadataRespose =
             t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a topicMetadataResponse.");
+    private Function<Collection<TopicName>, AsyncResult<Map<TopicName, Integer>>> numPartitionsResponse =
+            t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a numPartitionsResponse.");
     private Function<String, AsyncResult<Void>> createTopicResponse =
             t -> failedFuture("Unexpected. Your test probably need to configure the MockKafka with a createTopicResponse.");
     private Function<TopicName, AsyncResult<Void>> deleteTopicResponse =
@@ -56,6 +59,11 @@ public class MockKafka implements Kafka {
         return this;
     }
 
+    public MockKafka setNumPartitionsResponse(Function<Collection<TopicName>, AsyncResult<Map<TopicName, Integer>>> numPartitionsResponse) {
+        this.numPartitionsResponse = numPartitionsResponse;
+        return this;
+    }
+
     public MockKafka setTopicMetadataResponse(Function<TopicName, AsyncResult<TopicMetadata>> topicMetadataRespose) {
         this.topicMetadataRespose = topicMetadataRespose;
         return this;
@@ -202,6 +210,11 @@ public class MockKafka implements Kafka {
         handler.handle(topicMetadataRespose.apply(topicName));
     }
 
+    @Override
+    public void numPartitions(Collection<TopicName> topicNames, Handler<AsyncResult<Map<TopicName, Integer>>> handler) {
+        handler.handle(numPartitionsResponse.apply(topicNames));
+    }
+
     @Override
     public void listTopics(Handler<AsyncResult<Set<String>>> handler) {
         handler.handle(topicsListResponse);
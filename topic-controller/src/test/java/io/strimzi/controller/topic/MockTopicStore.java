@@ -22,7 +22,9 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.ext.unit.TestContext;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -31,7 +33,7 @@ public class MockTopicStore implements TopicStore {
     private Map<TopicName, Topic> topics = new HashMap<>();
     private Function<TopicName, AsyncResult<Void>> createTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a createTopicResponse configured.");
     private Function<TopicName, AsyncResult<Void>> deleteTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a deleteTopicResponse configured.");
-    private Function<TopicName, AsyncResult<Void>> updateTopicResponse = t -> Future.failedFuture("Unexpected. Your test's MockTopicStore probably nees a updateTopicResponse configured.");
+    private Function<TopicName, AsyncResult<Void>> updateTopicResponse = t -> Future.succeededFuture();
 
     @Override
     public void read(TopicName name, Handler<AsyncResult<Topic>> handler) {
@@ -53,6 +55,11 @@ public class MockTopicStore implements TopicStore {
 
     @Override
     public void update(Topic topic, Handler<AsyncResult<Void>> handler) {
+        AsyncResult<Void> response = updateTopicResponse.apply(topic.getTopicName());
+        if (response.failed()) {
+            handler.handle(response);
+            return;
+        }
         Topic old = topics.put(topic.getTopicName(), topic);
         if (old != null) {
             handler.handle(Future.succeededFuture());
@@ -73,6 +80,11 @@ public class MockTopicStore implements TopicStore {
         handler.handle(response);
     }
 
+    @Override
+    public void list(Handler<AsyncResult<List<TopicName>>> handler) {
+        handler.handle(Future.succeededFuture(new ArrayList<>(topics.keySet())));
+    }
+
     public void assertExists(TestContext context, TopicName topicName) {
         context.assertTrue(topics.containsKey(topicName));
     }
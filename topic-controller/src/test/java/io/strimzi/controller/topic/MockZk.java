@@ -17,11 +17,13 @@
 
 package io.strimzi.controller.topic;
 
+import io.strimzi.controller.topic.zk.VersionedData;
 import io.strimzi.controller.topic.zk.Zk;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.data.ACL;
 import org.apache.zookeeper.data.Stat;
 
@@ -69,6 +71,12 @@ class MockZk implements Zk {
         return this;
     }
 
+    @Override
+    public Zk setDataWithStat(String path, byte[] data, int version, Handler<AsyncResult<Stat>> handler) {
+        handler.handle(setDataResult.map(v -> new Stat()));
+        return this;
+    }
+
     @Override
     public Zk children(String path, Handler<AsyncResult<List<String>>> handler) {
         handler.handle(childrenResult);
@@ -93,6 +101,12 @@ class MockZk implements Zk {
         return this;
     }
 
+    @Override
+    public Zk getDataWithStat(String path, Handler<AsyncResult<VersionedData>> handler) {
+        handler.handle(dataResult.map(data -> new VersionedData(data, new Stat())));
+        return this;
+    }
+
     @Override
     public Zk watchData(String path, Handler<AsyncResult<byte[]>> watcher) {
         dataHandlers.put(path, watcher);
@@ -124,4 +138,9 @@ class MockZk implements Zk {
     public Zk exists(String path, Handler<AsyncResult<Stat>> handler) {
         return null;
     }
+
+    @Override
+    public Zk watchSession(Handler<Watcher.Event.KeeperState> watcher) {
+        return null;
+    }
 }
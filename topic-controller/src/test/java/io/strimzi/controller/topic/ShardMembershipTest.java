@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.strimzi.controller.topic.zk.Zk;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(VertxUnitRunner.class)
+public class ShardMembershipTest {
+
+    private EmbeddedZooKeeper zkServer;
+    private Vertx vertx;
+    private final List<Zk> zks = new ArrayList<>();
+    private final List<ShardMembership> memberships = new ArrayList<>();
+
+    static class DrainingController extends MockController {
+        volatile boolean inflight = false;
+
+        @Override
+        boolean isWorkInflight(Predicate<TopicName> predicate) {
+            return inflight;
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        zkServer = new EmbeddedZooKeeper();
+        vertx = Vertx.vertx();
+    }
+
+    @After
+    public void teardown() throws Exception {
+        for (ShardMembership membership : memberships) {
+            membership.stop();
+        }
+        for (Zk zk : zks) {
+            zk.disconnect();
+        }
+        vertx.close();
+        zkServer.close();
+    }
+
+    private ShardMembership member(TestContext context, String memberId, Controller controller, Async rebalanced) {
+        return member(context, memberId, controller, v -> rebalanced.countDown());
+    }
+
+    private ShardMembership member(TestContext context, String memberId, Controller controller, Handler<Void> onRebalanced) {
+        Zk zk = zk();
+        ShardMembership membership = new ShardMembership(vertx, zk, memberId, controller, onRebalanced);
+        memberships.add(membership);
+        Async started = context.async();
+        membership.start(ar -> {
+            context.assertTrue(ar.succeeded());
+            started.complete();
+        });
+        started.await();
+        return membership;
+    }
+
+    private Zk zk() {
+        Zk zk = Zk.create(vertx, zkServer.getZkConnectString(), 60_000);
+        zks.add(zk);
+        return zk;
+    }
+
+    private <T> T await(TestContext context, Consumer<Handler<AsyncResult<T>>> op) {
+        Async async = context.async();
+        Future<T> future = Future.future();
+        op.accept(ar -> {
+            future.handle(ar);
+            async.complete();
+        });
+        async.await();
+        context.assertTrue(future.succeeded(), String.valueOf(future.cause()));
+        return future.result();
+    }
+
+    private static Topic topic(TopicName name, int partitions) {
+        return new Topic.Builder(name.toString(), partitions, (short) 1, Collections.emptyMap()).build();
+    }
+
+    private static List<TopicName> topics(int num) {
+        List<TopicName> topics = new ArrayList<>(num);
+        for (int i = 0; i < num; i++) {
+            topics.add(new TopicName("topic-" + i));
+        }
+        return topics;
+    }
+
+    @Test
+    public void testHashRingOnlyMovesTopicsOfLeavingMember() {
+        ShardMembership.HashRing abc = new ShardMembership.HashRing(asList("c", "a", "b"));
+        ShardMembership.HashRing ab = new ShardMembership.HashRing(asList("a", "b"));
+        assertEquals("a,b,c", abc.view);
+        Map<String, Integer> counts = new HashMap<>();
+        for (TopicName topic : topics(3000)) {
+            String owner = abc.owner(topic);
+            assertNotNull(owner);
+            counts.merge(owner, 1, Integer::sum);
+            if (!owner.equals("c")) {
+                assertEquals(owner, ab.owner(topic));
+            }
+        }
+        for (String member : asList("a", "b", "c")) {
+            assertTrue("Uneven share " + counts, counts.get(member) > 500);
+        }
+    }
+
+    @Test
+    public void testEachTopicOwnedByOneMember(TestContext context) {
+        Async rebalanced1 = context.async(2);
+        ShardMembership m1 = member(context, "m1", new MockController(), rebalanced1);
+        Async rebalanced2 = context.async();
+        ShardMembership m2 = member(context, "m2", new MockController(), rebalanced2);
+        rebalanced1.await(10_000);
+        rebalanced2.await(10_000);
+        int owned1 = 0;
+        for (TopicName topic : topics(1000)) {
+            context.assertTrue(m1.owns(topic) ^ m2.owns(topic), "Topic " + topic + " should have one owner");
+            if (m1.owns(topic)) {
+                owned1++;
+            }
+        }
+        context.assertTrue(owned1 > 0 && owned1 < 1000);
+    }
+
+    @Test
+    public void testHandoverWaitsForInflightWork(TestContext context) throws Exception {
+        DrainingController controller1 = new DrainingController();
+        Async rebalanced1 = context.async();
+        ShardMembership m1 = member(context, "m1", controller1, rebalanced1);
+        rebalanced1.await(10_000);
+        for (TopicName topic : topics(100)) {
+            context.assertTrue(m1.owns(topic));
+        }
+
+        // m1 is busy with topics which are about to move to m2
+        controller1.inflight = true;
+        Async rebalanced2 = context.async();
+        ShardMembership m2 = member(context, "m2", new MockController(), rebalanced2);
+        Thread.sleep(500);
+        for (TopicName topic : topics(100)) {
+            context.assertFalse(m2.owns(topic), "m2 should not own " + topic + " until m1 has drained");
+        }
+
+        controller1.inflight = false;
+        rebalanced2.await(10_000);
+        boolean anyOwned = false;
+        for (TopicName topic : topics(100)) {
+            context.assertTrue(m1.owns(topic) ^ m2.owns(topic));
+            anyOwned |= m2.owns(topic);
+        }
+        context.assertTrue(anyOwned);
+    }
+
+    @Test
+    public void testNothingOwnedAfterDisconnectUntilHandover(TestContext context) throws Exception {
+        DrainingController controller = new DrainingController();
+        AtomicInteger rebalances = new AtomicInteger();
+        Async rebalanced = context.async(2);
+        ShardMembership m1 = member(context, "m1", controller, v -> {
+            rebalances.incrementAndGet();
+            rebalanced.countDown();
+        });
+        while (rebalances.get() < 1) {
+            Thread.sleep(10);
+        }
+        List<TopicName> topics = topics(100);
+        for (TopicName topic : topics) {
+            context.assertTrue(m1.owns(topic));
+        }
+
+        // While busy, so the handover after reconnecting can't complete
+        controller.inflight = true;
+        zkServer.restart();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (m1.owns(topics.get(0)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(2_000);
+        for (TopicName topic : topics) {
+            context.assertFalse(m1.owns(topic), "m1 should not own " + topic + " until a fresh handover");
+        }
+        context.assertEquals(1, rebalances.get());
+
+        controller.inflight = false;
+        rebalanced.await(10_000);
+        for (TopicName topic : topics) {
+            context.assertTrue(m1.owns(topic));
+        }
+    }
+
+    @Test
+    public void testCacheIsRepopulatedWhenTopicsAreGained(TestContext context) {
+        Async rebalanced1 = context.async();
+        member(context, "m1", new MockController(), rebalanced1);
+        rebalanced1.await(10_000);
+        Zk zk1 = zks.get(0);
+        CachingTopicStore store1 = new CachingTopicStore(zk1, new ZkTopicStore(zk1));
+        this.<Void>await(context, store1::start);
+        List<TopicName> topics = topics(40);
+        for (TopicName topic : topics.subList(0, 20)) {
+            this.<Void>await(context, h -> store1.create(topic(topic, 1), h));
+        }
+
+        // m2's cache is populated before it joins, while m1 still owns all the topics
+        Zk zk2 = zk();
+        CachingTopicStore store2 = new CachingTopicStore(zk2, new ZkTopicStore(zk2));
+        this.<Void>await(context, store2::start);
+
+        // m1 goes on creating and updating topics, some of which are about to move to m2
+        for (TopicName topic : topics.subList(0, 20)) {
+            this.<Void>await(context, h -> store1.update(topic(topic, 2), h));
+        }
+        for (TopicName topic : topics.subList(20, 40)) {
+            this.<Void>await(context, h -> store1.create(topic(topic, 1), h));
+        }
+
+        // as in the Session, m2 re-populates its cache when it gains topics
+        Async rebalanced2 = context.async();
+        ShardMembership m2 = member(context, "m2", new MockController(), v -> store2.start(ar -> {
+            context.assertTrue(ar.succeeded());
+            rebalanced2.complete();
+        }));
+        rebalanced2.await(10_000);
+
+        context.assertEquals(new HashSet<>(topics), new HashSet<>(this.<List<TopicName>>await(context, store2::list)));
+        int gained = 0;
+        for (int i = 0; i < topics.size(); i++) {
+            TopicName topic = topics.get(i);
+            if (m2.owns(topic)) {
+                gained++;
+                context.assertEquals(topic(topic, i < 20 ? 2 : 1), this.<Topic>await(context, h -> store2.read(topic, h)));
+            }
+        }
+        context.assertTrue(gained > 0);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.strimzi.controller.topic;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TopicPartitionsPollerTest {
+
+    private Vertx vertx;
+    private MockController controller;
+    private MockZk mockZk;
+    private MockKafka mockKafka;
+    private Map<TopicName, Integer> counts;
+    private TopicPartitionsPoller poller;
+
+    @Before
+    public void setup() {
+        vertx = Vertx.vertx();
+        controller = new MockController();
+        mockZk = new MockZk();
+        mockZk.childrenResult = Future.succeededFuture(asList("foo", "bar"));
+        counts = new HashMap<>();
+        counts.put(new TopicName("foo"), 1);
+        counts.put(new TopicName("bar"), 2);
+        mockKafka = new MockKafka();
+        mockKafka.setNumPartitionsResponse(topicNames -> {
+            Map<TopicName, Integer> result = new HashMap<>(counts);
+            result.keySet().retainAll(topicNames);
+            return Future.succeededFuture(result);
+        });
+        // Long interval: the test drives the polls
+        poller = new TopicPartitionsPoller(controller, vertx, mockKafka, 3_600_000L);
+        poller.start(mockZk);
+    }
+
+    @After
+    public void teardown() {
+        poller.stop();
+        vertx.close();
+    }
+
+    @Test
+    public void testExistingTopicsPolled() {
+        assertTrue(poller.watching("foo"));
+        assertTrue(poller.watching("bar"));
+        // The first poll only records the counts
+        poller.poll();
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+
+    @Test
+    public void testPartitionsChanged() {
+        poller.poll();
+        counts.put(new TopicName("bar"), 3);
+        poller.poll();
+        assertEquals(asList(new MockController.MockControllerEvent(
+                MockController.MockControllerEvent.Type.MODIFY_PARTITIONS, new TopicName("bar"))), controller.getMockControllerEvents());
+        controller.clearEvents();
+        poller.poll();
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+
+    @Test
+    public void testAddAndRemoveTopic() {
+        poller.poll();
+        poller.addChild("baz");
+        counts.put(new TopicName("baz"), 1);
+        poller.poll();
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+
+        poller.removeChild("baz");
+        assertFalse(poller.watching("baz"));
+        counts.put(new TopicName("baz"), 5);
+        poller.poll();
+        assertEquals(emptyList(), controller.getMockControllerEvents());
+    }
+}
@@ -95,6 +95,21 @@ public class TopicSerializationTest {
         assertEquals(wroteTopic, readTopic);
     }
 
+    @Test
+    public void testFromJsonIgnoresUnknownKeys() throws UnsupportedEncodingException {
+        String json = "{\"map-name\":\"bob\"," +
+                "\"uid\":{\"nested\":[1,2,3]}," +
+                "\"topic-name\":\"tom\"," +
+                "\"partitions\":2," +
+                "\"replicas\":1," +
+                "\"config\":{\"foo\":\"bar\"}," +
+                "\"extra\":\"x\"" +
+                "}";
+        Topic readTopic = TopicSerialization.fromJson(json.getBytes("UTF-8"));
+        assertEquals(new Topic.Builder().withTopicName("tom").withMapName("bob")
+                .withNumReplicas((short) 1).withNumPartitions(2).withConfigEntry("foo", "bar").build(), readTopic);
+    }
+
 
     @Test
     public void testToNewTopic() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
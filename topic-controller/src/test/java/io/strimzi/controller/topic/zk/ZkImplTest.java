@@ -25,6 +25,8 @@ import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
 import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -35,7 +37,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static java.util.Arrays.asList;
@@ -176,4 +180,57 @@ public class ZkImplTest {
         });
     }
 
+    /**
+     * Expire the session of the given ZkImpl, by connecting with the same session id and then closing it.
+     */
+    private void expireSession(ZkImpl zk) throws IOException, InterruptedException {
+        ZooKeeper current = zk.zk();
+        CountDownLatch connected = new CountDownLatch(1);
+        ZooKeeper imposter = new ZooKeeper(zkServer.getZkConnectString(), 60_000, event -> {
+            if (event.getState() == Watcher.Event.KeeperState.SyncConnected) {
+                connected.countDown();
+            }
+        }, current.getSessionId(), current.getSessionPasswd());
+        connected.await(10, TimeUnit.SECONDS);
+        imposter.close();
+    }
+
+    @Test
+    public void testWatchesResyncedAfterSessionExpiry(TestContext context) throws Exception {
+        ZkImpl zk = connect(context);
+        Async created = context.async(2);
+        zk.create("/foo", null, AclBuilder.PUBLIC, CreateMode.PERSISTENT, ar -> created.countDown());
+        zk.create("/bar", new byte[]{1}, AclBuilder.PUBLIC, CreateMode.PERSISTENT, ar -> created.countDown());
+        created.await();
+
+        Async watching = context.async(2);
+        Async childrenChanged = context.async();
+        Async dataChanged = context.async();
+        zk.watchChildren("/foo", watchResult -> {
+            if (watchResult.succeeded() && watchResult.result().equals(singletonList("baz"))) {
+                childrenChanged.complete();
+            }
+        }).children("/foo", ar -> watching.countDown());
+        zk.watchData("/bar", watchResult -> {
+            if (watchResult.succeeded() && Arrays.equals(new byte[]{2}, watchResult.result())) {
+                dataChanged.complete();
+            }
+        }).getData("/bar", ar -> watching.countDown());
+        watching.await();
+
+        long sessionId = zk.zk().getSessionId();
+        expireSession(zk);
+
+        // Change things using another client, while our session is being replaced
+        ZooKeeper other = new ZooKeeper(zkServer.getZkConnectString(), 60_000, event -> { });
+        other.create("/foo/baz", new byte[0], AclBuilder.PUBLIC, CreateMode.PERSISTENT);
+        other.setData("/bar", new byte[]{2}, -1);
+        other.close();
+
+        childrenChanged.await(30_000);
+        dataChanged.await(30_000);
+        context.assertNotEquals(sessionId, zk.zk().getSessionId());
+        zk.disconnect();
+    }
+
 }